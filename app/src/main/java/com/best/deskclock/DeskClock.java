@@ -170,7 +170,7 @@ public class DeskClock extends BaseActivity implements FabContainer {
         KEY_TAB_TITLE_VISIBILITY, KEY_TAB_INDICATOR, KEY_TAB_TO_DISPLAY, KEY_VIBRATIONS, KEY_KEEP_SCREEN_ON,
         // Clock
         KEY_CLOCK_STYLE, KEY_CLOCK_DIAL, KEY_CLOCK_DIAL_MATERIAL, KEY_ANALOG_CLOCK_SIZE, KEY_DISPLAY_CLOCK_SECONDS, KEY_CLOCK_SECOND_HAND,
-        KEY_DISPLAY_TEXT_UPPERCASE, KEY_DIGITAL_CLOCK_FONT, KEY_DIGITAL_CLOCK_FONT_SIZE, KEY_SORT_CITIES, KEY_ENABLE_CITY_NOTE,
+        KEY_SWEEP_CLOCK_SECOND_HAND, KEY_DISPLAY_TEXT_UPPERCASE, KEY_DIGITAL_CLOCK_FONT, KEY_DIGITAL_CLOCK_FONT_SIZE, KEY_SORT_CITIES, KEY_ENABLE_CITY_NOTE,
         KEY_AUTO_HOME_CLOCK, KEY_HOME_TIME_ZONE,
         // Alarm
         KEY_WEEK_START, KEY_ALARM_FONT, KEY_DISPLAY_LOW_ALARM_VOLUME_WARNING,
@@ -477,7 +477,7 @@ public class DeskClock extends BaseActivity implements FabContainer {
             switch (key) {
                 case KEY_TAB_TITLE_VISIBILITY, KEY_TAB_INDICATOR, KEY_TAB_TO_DISPLAY, KEY_VIBRATIONS, KEY_KEEP_SCREEN_ON, KEY_CLOCK_STYLE,
                      KEY_CLOCK_DIAL, KEY_CLOCK_DIAL_MATERIAL, KEY_ANALOG_CLOCK_SIZE, KEY_DISPLAY_CLOCK_SECONDS, KEY_CLOCK_SECOND_HAND,
-                     KEY_DISPLAY_TEXT_UPPERCASE, KEY_DIGITAL_CLOCK_FONT, KEY_DIGITAL_CLOCK_FONT_SIZE, KEY_SORT_CITIES,
+                     KEY_SWEEP_CLOCK_SECOND_HAND, KEY_DISPLAY_TEXT_UPPERCASE, KEY_DIGITAL_CLOCK_FONT, KEY_DIGITAL_CLOCK_FONT_SIZE, KEY_SORT_CITIES,
                      KEY_ENABLE_CITY_NOTE, KEY_AUTO_HOME_CLOCK, KEY_HOME_TIME_ZONE, KEY_WEEK_START, KEY_ALARM_FONT,
                      KEY_DISPLAY_LOW_ALARM_VOLUME_WARNING, KEY_TIMER_DURATION_FONT, KEY_DISPLAY_COMPACT_TIMERS, KEY_SINGLE_TIMER_MODE,
                      KEY_SORT_TIMER, KEY_DISPLAY_TIMER_STATE_INDICATOR, KEY_RUNNING_TIMER_INDICATOR_COLOR, KEY_PAUSED_TIMER_INDICATOR_COLOR,
@@ -521,6 +521,7 @@ public class DeskClock extends BaseActivity implements FabContainer {
             case KEY_ANALOG_CLOCK_SIZE -> SettingsDAO.getAnalogClockSize(mPrefs);
             case KEY_DISPLAY_CLOCK_SECONDS -> SettingsDAO.areClockSecondsDisplayed(mPrefs);
             case KEY_CLOCK_SECOND_HAND -> SettingsDAO.getClockSecondHand(mPrefs);
+            case KEY_SWEEP_CLOCK_SECOND_HAND -> SettingsDAO.isClockSecondHandSweeping(mPrefs);
             case KEY_DISPLAY_TEXT_UPPERCASE -> SettingsDAO.isTextUppercaseDisplayed(mPrefs);
             case KEY_DIGITAL_CLOCK_FONT -> SettingsDAO.getDigitalClockFont(mPrefs);
             case KEY_DIGITAL_CLOCK_FONT_SIZE -> SettingsDAO.getDigitalClockFontSize(mPrefs);
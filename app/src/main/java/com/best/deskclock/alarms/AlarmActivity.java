@@ -8,7 +8,6 @@ package com.best.deskclock.alarms;
 
 import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
-import static androidx.core.util.TypedValueCompat.dpToPx;
 import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
 import static com.best.deskclock.settings.PreferencesDefaultValues.ALARM_SNOOZE_DURATION_DISABLED;
 import static com.best.deskclock.settings.PreferencesDefaultValues.AMOLED_DARK_MODE;
@@ -28,11 +27,7 @@ import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.BlurMaskFilter;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.RenderEffect;
 import android.graphics.Shader;
 import android.graphics.Typeface;
@@ -48,6 +43,7 @@ import android.util.TypedValue;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.ImageView;
@@ -72,6 +68,7 @@ import com.best.deskclock.provider.AlarmInstance;
 import com.best.deskclock.uicomponents.PillView;
 import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.AnimatorUtils;
+import com.best.deskclock.utils.BackgroundImageLoader;
 import com.best.deskclock.utils.ClockUtils;
 import com.best.deskclock.utils.FormattedTextUtils;
 import com.best.deskclock.utils.LogUtils;
@@ -80,8 +77,6 @@ import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.ThemeUtils;
 import com.best.deskclock.utils.Utils;
 
-import java.io.File;
-
 public class AlarmActivity extends BaseActivity implements View.OnClickListener, View.OnTouchListener {
 
     private static final LogUtils.Logger LOGGER = new LogUtils.Logger("AlarmActivity");
@@ -240,6 +235,16 @@ public class AlarmActivity extends BaseActivity implements View.OnClickListener,
 
         setContentView(mBinding.getRoot());
 
+        // Trace the first frame of the alarm screen
+        mBinding.getRoot().getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                mBinding.getRoot().getViewTreeObserver().removeOnPreDrawListener(this);
+                AlarmFireTrace.mark(AlarmActivity.this, AlarmFireTrace.Stage.ACTIVITY_FIRST_FRAME);
+                return true;
+            }
+        });
+
         initAlarmBackground();
 
         mIsSwipeActionEnabled = SettingsDAO.isSwipeActionEnabled(mPrefs);
@@ -562,24 +567,17 @@ public class AlarmActivity extends BaseActivity implements View.OnClickListener,
         if (imagePath != null) {
             mBinding.alarmBackgroundImage.setVisibility(View.VISIBLE);
 
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-                if (bitmap != null) {
-                    mBinding.alarmBackgroundImage.setImageBitmap(bitmap);
-                    mBinding.alarmBackgroundImage.setColorFilter(alarmBackgroundColor);
-
-                    if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isAlarmBlurEffectEnabled(mPrefs)) {
-                        float intensity = SettingsDAO.getAlarmBlurIntensity(mPrefs);
-                        RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
-                        mBinding.alarmBackgroundImage.setRenderEffect(blur);
-                    }
-                } else {
-                    LogUtils.e("Bitmap null for path: " + imagePath);
-                    getWindow().setBackgroundDrawable(new ColorDrawable(alarmBackgroundColor));
+            Bitmap bitmap = BackgroundImageLoader.loadBackground(this, imagePath);
+            if (bitmap != null) {
+                mBinding.alarmBackgroundImage.setImageBitmap(bitmap);
+                mBinding.alarmBackgroundImage.setColorFilter(alarmBackgroundColor);
+
+                if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isAlarmBlurEffectEnabled(mPrefs)) {
+                    float intensity = SettingsDAO.getAlarmBlurIntensity(mPrefs);
+                    RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
+                    mBinding.alarmBackgroundImage.setRenderEffect(blur);
                 }
             } else {
-                LogUtils.e("Image file not found: " + imagePath);
                 getWindow().setBackgroundDrawable(new ColorDrawable(alarmBackgroundColor));
             }
         } else {
@@ -1237,45 +1235,23 @@ public class AlarmActivity extends BaseActivity implements View.OnClickListener,
     private void displayRingtoneTitle() {
         final boolean silent = RingtoneUtils.RINGTONE_SILENT.equals(mAlarmInstance.mRingtone);
         final String title = DataModel.getDataModel().getRingtoneTitle(mAlarmInstance.mRingtone);
-        final Drawable musicIcon = silent
-            ? AppCompatResources.getDrawable(this, R.drawable.ic_ringtone_silent)
-            : AppCompatResources.getDrawable(this, R.drawable.ic_music_note);
-        int ringtoneIconSize = (int) dpToPx(24, getResources().getDisplayMetrics());
         final int ringtoneTitleColor = SettingsDAO.getRingtoneTitleColor(mPrefs);
 
-        if (musicIcon != null) {
-            musicIcon.setTint(ringtoneTitleColor);
+        if (mIsTextShadowDisplayed) {
+            // The icon and its shadow are usually composited before the alarm fires
+            final Bitmap iconBitmap = AlarmScreenResources.getRingtoneIcon(this, silent, ringtoneTitleColor,
+                mShadowColor, mShadowRadius, mShadowOffset);
+            if (iconBitmap != null) {
+                mBinding.ringtoneIcon.setImageBitmap(iconBitmap);
+            }
 
-            if (mIsTextShadowDisplayed) {
-                // Convert the drawable to a bitmap
-                Bitmap iconBitmap = Bitmap.createBitmap(ringtoneIconSize, ringtoneIconSize, Bitmap.Config.ARGB_8888);
-                Canvas iconCanvas = new Canvas(iconBitmap);
-                musicIcon.setBounds(0, 0, ringtoneIconSize, ringtoneIconSize);
-                musicIcon.draw(iconCanvas);
-
-                // Create the alpha mask for the shadow
-                Bitmap shadowBitmap = iconBitmap.extractAlpha();
-                Paint shadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-                shadowPaint.setColor(mShadowColor);
-                shadowPaint.setMaskFilter(new BlurMaskFilter(mShadowRadius * 1.5f, BlurMaskFilter.Blur.NORMAL));
-
-                // Create the final bitmap with space for the shadow
-                int finalWidth = ringtoneIconSize + mShadowOffset;
-                int finalHeight = ringtoneIconSize + mShadowOffset;
-                Bitmap finalBitmap = Bitmap.createBitmap(finalWidth, finalHeight, Bitmap.Config.ARGB_8888);
-                Canvas finalCanvas = new Canvas(finalBitmap);
-
-                // Draw the blurred shadow with an offset
-                finalCanvas.drawBitmap(shadowBitmap, mShadowOffset, mShadowOffset, shadowPaint);
-
-                // Draw the normal icon on top
-                finalCanvas.drawBitmap(iconBitmap, 0, 0, null);
-
-                // Apply the result to the ImageView
-                mBinding.ringtoneIcon.setImageBitmap(finalBitmap);
-
-                mBinding.ringtoneTitle.setShadowLayer(mShadowRadius, mShadowOffset, mShadowOffset, mShadowColor);
-            } else {
+            mBinding.ringtoneTitle.setShadowLayer(mShadowRadius, mShadowOffset, mShadowOffset, mShadowColor);
+        } else {
+            final Drawable musicIcon = silent
+                ? AppCompatResources.getDrawable(this, R.drawable.ic_ringtone_silent)
+                : AppCompatResources.getDrawable(this, R.drawable.ic_music_note);
+            if (musicIcon != null) {
+                musicIcon.setTint(ringtoneTitleColor);
                 mBinding.ringtoneIcon.setImageDrawable(musicIcon);
             }
         }
@@ -0,0 +1,274 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.best.deskclock.data.DataModel;
+import com.best.deskclock.provider.Alarm;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.RingtoneUtils;
+import com.best.deskclock.utils.Utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prepares the audio of an alarm instance shortly before it fires, so that the ringtone starts
+ * without delay even when it lives on slow or not yet accessible storage.
+ * <p>
+ * When an instance enters the notification or snooze state, the random ringtone it will play is
+ * chosen and the ringtone is copied to the device protected cache if it can be read. The random
+ * choice is made once per instance: staging the instance again keeps it. The system default
+ * ringtone is not copied, since the user may change it before the alarm fires. When the instance
+ * fires, {@link AlarmStateManager} plays the chosen ringtone and {@link AlarmKlaxon} plays it from
+ * the local copy.
+ * <p>
+ * The staged files survive the death of the process, which is likely between the upcoming alarm
+ * notification and the firing of the alarm. Each instance has a file holding the chosen ringtone
+ * uri and, if the copy succeeded, a copy of the audio.
+ */
+public final class AlarmAudioStager {
+
+    private static final LogUtils.Logger LOGGER = new LogUtils.Logger("AlarmAudioStager");
+
+    private static final String STAGING_DIRECTORY = "staged_alarm_audio";
+    private static final String URI_FILE_SUFFIX = ".uri";
+    private static final String AUDIO_FILE_SUFFIX = ".audio";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Ringtones larger than this are played from their original location.
+     */
+    private static final long MAX_STAGED_AUDIO_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Staged files older than this belong to instances that no longer exist.
+     */
+    private static final long STALE_FILE_AGE_MS = 2 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * Copying a ringtone may take a while; do not hold up the shared disk executor.
+     */
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+
+    private AlarmAudioStager() {
+    }
+
+    /**
+     * Chooses the ringtone the given instance will play and copies it locally, in the background.
+     */
+    public static void stage(Context context, AlarmInstance instance) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        final long instanceId = instance.mId;
+        final Long alarmId = instance.mAlarmId;
+        final Uri ringtone = instance.mRingtone;
+
+        sExecutor.execute(() -> stageInBackground(storageContext, instanceId, alarmId, ringtone));
+    }
+
+    /**
+     * @return the ringtone chosen for the given instance when it was staged; {@code null} if the
+     * instance was not staged
+     */
+    public static Uri getStagedRingtone(Context context, AlarmInstance instance) {
+        return readStagedRingtone(Utils.getSafeStorageContext(context), instance.mId);
+    }
+
+    private static Uri readStagedRingtone(Context context, long instanceId) {
+        final File uriFile = getUriFile(context, instanceId);
+        if (!uriFile.exists()) {
+            return null;
+        }
+
+        try (InputStream inputStream = new FileInputStream(uriFile)) {
+            final byte[] buffer = new byte[(int) uriFile.length()];
+            int read = 0;
+            int length;
+            while (read < buffer.length && (length = inputStream.read(buffer, read, buffer.length - read)) > 0) {
+                read += length;
+            }
+            return Uri.parse(new String(buffer, 0, read, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.e("Unable to read the staged ringtone of instance " + instanceId, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the uri from which the ringtone of the given instance should be played: the local
+     * copy if the ringtone was staged, its original uri otherwise
+     */
+    public static Uri getPlaybackUri(Context context, AlarmInstance instance) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        final File audioFile = getAudioFile(storageContext, instance.mId);
+
+        if (audioFile.exists() && instance.mRingtone != null
+            && instance.mRingtone.equals(readStagedRingtone(storageContext, instance.mId))) {
+            LOGGER.i("Playing the staged ringtone of instance " + instance.mId);
+            return Uri.fromFile(audioFile);
+        }
+
+        return instance.mRingtone;
+    }
+
+    /**
+     * Deletes the staged files of the given instance once it will not fire anymore.
+     */
+    public static void release(Context context, AlarmInstance instance) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        final long instanceId = instance.mId;
+
+        sExecutor.execute(() -> deleteStagedFiles(storageContext, instanceId));
+    }
+
+    private static void stageInBackground(Context context, long instanceId, Long alarmId, Uri ringtone) {
+        final long startTime = SystemClock.elapsedRealtime();
+
+        deleteStaleFiles(context);
+
+        if (ringtone == null || RingtoneUtils.RINGTONE_SILENT.equals(ringtone)) {
+            deleteStagedFiles(context, instanceId);
+            return;
+        }
+
+        final Uri stagedRingtone = readStagedRingtone(context, instanceId);
+
+        // Resolve the random choice now rather than when the alarm fires. Each draw consumes the
+        // no-repeat deck, so an instance staged again (snoozed, rescheduled...) keeps its choice.
+        final Alarm alarm = alarmId == null ? null : Alarm.getAlarm(context.getContentResolver(), alarmId);
+        if (alarm != null && (RingtoneUtils.isRandomRingtone(alarm.alert) || RingtoneUtils.isRandomCustomRingtone(alarm.alert))) {
+            ringtone = stagedRingtone != null ? stagedRingtone : RingtoneUtils.drawRandomRingtoneUri(alarm.alert);
+        }
+
+        if (ringtone.equals(stagedRingtone) && getAudioFile(context, instanceId).exists()) {
+            LOGGER.i("Ringtone " + ringtone + " of instance " + instanceId + " already staged");
+            return;
+        }
+
+        deleteStagedFiles(context, instanceId);
+
+        // Only the ringtones that are not already in the app storage are worth copying. The default
+        // ringtone is played through its settings uri, which follows the current default.
+        final boolean copied = ContentResolver.SCHEME_CONTENT.equals(ringtone.getScheme())
+            && !RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM).equals(ringtone)
+            && DataModel.getDataModel().isRingtoneReadable(ringtone)
+            && copyAudio(context, ringtone, instanceId);
+
+        try {
+            writeAtomically(getUriFile(context, instanceId), ringtone.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.e("Unable to stage the ringtone of instance " + instanceId, e);
+            deleteStagedFiles(context, instanceId);
+            return;
+        }
+
+        LOGGER.i("Staged ringtone " + ringtone + " of instance " + instanceId + (copied ? " with" : " without")
+            + " local copy in " + (SystemClock.elapsedRealtime() - startTime) + " ms");
+    }
+
+    /**
+     * @return {@code true} if the audio at {@code source} was copied; {@code false} otherwise
+     */
+    private static boolean copyAudio(Context context, Uri source, long instanceId) {
+        final File audioFile = getAudioFile(context, instanceId);
+        final File tempFile = new File(audioFile.getPath() + TEMP_FILE_SUFFIX);
+
+        boolean complete = false;
+        try (InputStream inputStream = context.getContentResolver().openInputStream(source);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+
+            if (inputStream != null) {
+                final byte[] buffer = new byte[64 * 1024];
+                long size = 0;
+                int length;
+                complete = true;
+                while ((length = inputStream.read(buffer)) > 0) {
+                    size += length;
+                    if (size > MAX_STAGED_AUDIO_SIZE) {
+                        LOGGER.i("Ringtone too large to be staged: " + source);
+                        complete = false;
+                        break;
+                    }
+                    outputStream.write(buffer, 0, length);
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            LOGGER.w("Unable to copy ringtone " + source + ": " + e);
+            complete = false;
+        }
+
+        if (!complete || !tempFile.renameTo(audioFile)) {
+            deleteFile(tempFile);
+            return false;
+        }
+
+        return true;
+    }
+
+    private static void writeAtomically(File file, byte[] content) throws IOException {
+        final File tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            outputStream.write(content);
+        }
+
+        if (!tempFile.renameTo(file)) {
+            deleteFile(tempFile);
+            throw new IOException("Unable to rename " + tempFile);
+        }
+    }
+
+    private static void deleteStagedFiles(Context context, long instanceId) {
+        deleteFile(getUriFile(context, instanceId));
+        deleteFile(getAudioFile(context, instanceId));
+    }
+
+    private static void deleteStaleFiles(Context context) {
+        final File[] files = getStagingDirectory(context).listFiles();
+        if (files == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > STALE_FILE_AGE_MS) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            LOGGER.w("Unable to delete " + file);
+        }
+    }
+
+    private static File getStagingDirectory(Context context) {
+        final File directory = new File(context.getCacheDir(), STAGING_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            LOGGER.w("Unable to create " + directory);
+        }
+
+        return directory;
+    }
+
+    private static File getUriFile(Context context, long instanceId) {
+        return new File(getStagingDirectory(context), instanceId + URI_FILE_SUFFIX);
+    }
+
+    private static File getAudioFile(Context context, long instanceId) {
+        return new File(getStagingDirectory(context), instanceId + AUDIO_FILE_SUFFIX);
+    }
+}
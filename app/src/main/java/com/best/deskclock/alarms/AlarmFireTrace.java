@@ -0,0 +1,467 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.AtomicFile;
+
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.Utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each stage of the firing of an alarm takes, from the start of
+ * {@link AlarmService} by the AlarmManager to the ringtone being audible and the alarm screen
+ * being drawn.
+ * <p>
+ * Each stage is stamped with {@link SystemClock#elapsedRealtime()}, which keeps counting across
+ * the death of the process. The traces of the last alarms are kept in a ring buffer written to
+ * the device protected storage, and can be exported from the debug settings.
+ * <p>
+ * Only one alarm fires at a time: stages are attached to the trace started by the last call to
+ * {@link #begin}, and each stage is recorded once per trace. Stages reported while no alarm is
+ * firing, e.g. by the timer ringtone player, are ignored.
+ * <p>
+ * All methods may be called from any thread; the disk is only accessed on a dedicated thread.
+ * The stages of a trace are merged in memory there, whatever order they arrive in, and written
+ * at most once per {@link #WRITE_DELAY_MS} so that the firing alarm does not wait for the disk;
+ * {@link #flush} writes them at once when the alarm stops.
+ */
+public final class AlarmFireTrace {
+
+    private static final LogUtils.Logger LOGGER = new LogUtils.Logger("AlarmFireTrace");
+
+    private static final String TRACES_FILE_NAME = "alarm_fire_traces.txt";
+
+    /**
+     * Number of traces kept in the ring buffer.
+     */
+    private static final int MAX_TRACES = 32;
+
+    /**
+     * Delay from the start of the service to the ringtone being audible that an alarm must meet.
+     */
+    public static final long AUDIBLE_BUDGET_MS = 1000;
+
+    /**
+     * A trace that did not complete within this delay is closed by the next stage reported.
+     */
+    private static final long TRACE_TIMEOUT_MS = 60 * 1000;
+
+    /**
+     * Delay during which the stages reported after a first one are written together.
+     */
+    private static final long WRITE_DELAY_MS = 2000;
+
+    /**
+     * The stages of the firing of an alarm, in their expected order.
+     */
+    public enum Stage {
+        /** {@link AlarmService} received the state change from the AlarmManager. */
+        SERVICE_STARTED,
+        /** The alarm instance was read from the provider. */
+        INSTANCE_READ,
+        /** The fired state of the instance was written to the provider. */
+        FIRED_STATE_SAVED,
+        /** The CPU wake lock is held. */
+        WAKE_LOCK_ACQUIRED,
+        /** The alarm notification was posted and the service is in the foreground. */
+        NOTIFICATION_POSTED,
+        /** {@link AlarmKlaxon} was asked to ring. */
+        KLAXON_STARTED,
+        /** The media player finished preparing the ringtone. */
+        PLAYER_PREPARED,
+        /** The media player started the ringtone. */
+        AUDIBLE,
+        /** {@link AlarmActivity} is about to draw its first frame. */
+        ACTIVITY_FIRST_FRAME
+    }
+
+    private static final ScheduledExecutorService sExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private static final Object sLock = new Object();
+
+    /**
+     * The trace of the firing alarm; {@code null} if none. Guarded by {@link #sLock}.
+     */
+    private static Trace sCurrentTrace;
+
+    /**
+     * The persisted traces, oldest first; {@code null} until read. Accessed on
+     * {@link #sExecutor} only.
+     */
+    private static ArrayDeque<Trace> sTraces;
+
+    /**
+     * The scheduled write of {@link #sTraces}; {@code null} if none. Accessed on
+     * {@link #sExecutor} only.
+     */
+    private static ScheduledFuture<?> sPendingWrite;
+
+    private AlarmFireTrace() {
+    }
+
+    /**
+     * Starts the trace of the instance with the given id, closing any previous trace.
+     */
+    public static void begin(Context context, long instanceId) {
+        final Trace trace = new Trace(instanceId, System.currentTimeMillis(), SystemClock.elapsedRealtime());
+        trace.mStageTimes[Stage.SERVICE_STARTED.ordinal()] = trace.mStartTime;
+
+        synchronized (sLock) {
+            sCurrentTrace = trace;
+        }
+
+        persist(context, trace.copy());
+    }
+
+    /**
+     * Records the time at which the firing alarm was scheduled, to measure how late it was
+     * delivered.
+     */
+    public static void setScheduledTime(Context context, long scheduledTime) {
+        final Trace trace;
+        synchronized (sLock) {
+            if (sCurrentTrace == null || sCurrentTrace.mScheduledTime != 0) {
+                return;
+            }
+
+            sCurrentTrace.mScheduledTime = scheduledTime;
+            trace = sCurrentTrace.copy();
+        }
+
+        persist(context, trace);
+    }
+
+    /**
+     * Records the given stage of the firing alarm, if not recorded yet.
+     */
+    public static void mark(Context context, Stage stage) {
+        final long now = SystemClock.elapsedRealtime();
+
+        final Trace trace;
+        synchronized (sLock) {
+            if (sCurrentTrace == null) {
+                return;
+            }
+
+            if (now - sCurrentTrace.mStartTime > TRACE_TIMEOUT_MS) {
+                sCurrentTrace = null;
+                return;
+            }
+
+            final int index = stage.ordinal();
+            if (sCurrentTrace.mStageTimes[index] != 0) {
+                return;
+            }
+
+            // The players also ring timers: only trust them once the klaxon rings an alarm.
+            if ((stage == Stage.PLAYER_PREPARED || stage == Stage.AUDIBLE)
+                && sCurrentTrace.mStageTimes[Stage.KLAXON_STARTED.ordinal()] == 0) {
+                return;
+            }
+
+            sCurrentTrace.mStageTimes[index] = now;
+            trace = sCurrentTrace.copy();
+
+            if (sCurrentTrace.isComplete()) {
+                sCurrentTrace = null;
+            }
+        }
+
+        if (stage == Stage.AUDIBLE) {
+            final long latency = now - trace.mStartTime;
+            LOGGER.i("Alarm " + trace.mInstanceId + " audible " + latency + " ms after service start"
+                + (latency > AUDIBLE_BUDGET_MS ? " (over budget)" : ""));
+        }
+
+        persist(context, trace);
+    }
+
+    /**
+     * Writes the traces at once if a write is pending, e.g. because the alarm was dismissed or
+     * the service is being destroyed and the process may die before the delayed write.
+     */
+    public static void flush(Context context) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        sExecutor.execute(() -> {
+            if (sPendingWrite == null) {
+                return;
+            }
+
+            sPendingWrite.cancel(false);
+            sPendingWrite = null;
+            writeTraces(storageContext, sTraces);
+        });
+    }
+
+    /**
+     * Builds a report of the persisted traces in the background.
+     *
+     * @param callback receives the report on the trace thread
+     */
+    public static void getReport(Context context, ReportCallback callback) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        sExecutor.execute(() -> callback.onReport(buildReport(getTraces(storageContext))));
+    }
+
+    /**
+     * Receives the report built by {@link #getReport}.
+     */
+    public interface ReportCallback {
+        void onReport(String report);
+    }
+
+    private static void persist(Context context, Trace trace) {
+        final Context storageContext = Utils.getSafeStorageContext(context);
+        sExecutor.execute(() -> {
+            final ArrayDeque<Trace> traces = getTraces(storageContext);
+
+            // Copies of the same trace may arrive out of order: keep every stage any of them has.
+            final Trace last = traces.peekLast();
+            if (last != null && last.isSameTrace(trace)) {
+                last.merge(trace);
+            } else {
+                traces.addLast(trace);
+            }
+
+            while (traces.size() > MAX_TRACES) {
+                traces.pollFirst();
+            }
+
+            if (sPendingWrite == null) {
+                sPendingWrite = sExecutor.schedule(() -> {
+                    sPendingWrite = null;
+                    writeTraces(storageContext, traces);
+                }, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private static ArrayDeque<Trace> getTraces(Context context) {
+        if (sTraces == null) {
+            sTraces = readTraces(context);
+        }
+
+        return sTraces;
+    }
+
+    private static ArrayDeque<Trace> readTraces(Context context) {
+        final ArrayDeque<Trace> traces = new ArrayDeque<>();
+        final AtomicFile file = getTracesFile(context);
+        if (!file.getBaseFile().exists()) {
+            return traces;
+        }
+
+        try (FileInputStream inputStream = file.openRead()) {
+            final byte[] content = new byte[(int) inputStream.getChannel().size()];
+            int read = 0;
+            int length;
+            while (read < content.length && (length = inputStream.read(content, read, content.length - read)) > 0) {
+                read += length;
+            }
+
+            for (String line : new String(content, 0, read, StandardCharsets.UTF_8).split("\n")) {
+                final Trace trace = Trace.parse(line);
+                if (trace != null) {
+                    traces.addLast(trace);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.e("Unable to read the alarm fire traces", e);
+        }
+
+        return traces;
+    }
+
+    private static void writeTraces(Context context, ArrayDeque<Trace> traces) {
+        final StringBuilder content = new StringBuilder();
+        for (Trace trace : traces) {
+            content.append(trace.serialize()).append('\n');
+        }
+
+        final AtomicFile file = getTracesFile(context);
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = file.startWrite();
+            outputStream.write(content.toString().getBytes(StandardCharsets.UTF_8));
+            file.finishWrite(outputStream);
+        } catch (IOException e) {
+            LOGGER.e("Unable to write the alarm fire traces", e);
+            if (outputStream != null) {
+                file.failWrite(outputStream);
+            }
+        }
+    }
+
+    private static AtomicFile getTracesFile(Context context) {
+        return new AtomicFile(new File(context.getFilesDir(), TRACES_FILE_NAME));
+    }
+
+    private static String buildReport(ArrayDeque<Trace> traces) {
+        final StringBuilder report = new StringBuilder();
+        report.append("Alarm fire traces: ").append(traces.size())
+            .append(", audible budget ").append(AUDIBLE_BUDGET_MS).append(" ms\n");
+
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        final Stage[] stages = Stage.values();
+        int overBudget = 0;
+
+        // Most recent first.
+        for (Iterator<Trace> iterator = traces.descendingIterator(); iterator.hasNext(); ) {
+            final Trace trace = iterator.next();
+            report.append('\n').append(dateFormat.format(new Date(trace.mStartWallTime)))
+                .append(" instance ").append(trace.mInstanceId);
+
+            if (trace.mScheduledTime != 0) {
+                report.append(", delivered ").append(trace.mStartWallTime - trace.mScheduledTime)
+                    .append(" ms after schedule");
+            }
+            report.append('\n');
+
+            long previous = trace.mStartTime;
+            for (Stage stage : stages) {
+                final long time = trace.mStageTimes[stage.ordinal()];
+                if (time == 0) {
+                    continue;
+                }
+
+                report.append(String.format(Locale.US, "  %-22s +%5d ms (%+d ms)%n",
+                    stage.name(), time - trace.mStartTime, time - previous));
+                if (stage != Stage.ACTIVITY_FIRST_FRAME) {
+                    previous = time;
+                }
+            }
+
+            final long audible = trace.mStageTimes[Stage.AUDIBLE.ordinal()];
+            if (audible == 0) {
+                report.append("  not audible\n");
+            } else if (audible - trace.mStartTime > AUDIBLE_BUDGET_MS) {
+                report.append("  OVER BUDGET\n");
+                overBudget++;
+            }
+        }
+
+        report.append('\n').append(overBudget).append(" trace(s) over budget\n");
+        return report.toString();
+    }
+
+    /**
+     * The stage times of the firing of one alarm instance.
+     */
+    private static final class Trace {
+
+        private final long mInstanceId;
+
+        /**
+         * The wall clock time at which the service started, for display.
+         */
+        private final long mStartWallTime;
+
+        /**
+         * The elapsed realtime at which the service started.
+         */
+        private final long mStartTime;
+
+        /**
+         * The elapsed realtime of each stage, indexed by ordinal; {@code 0} if not reached.
+         */
+        private final long[] mStageTimes;
+
+        /**
+         * The wall clock time the alarm was scheduled at; {@code 0} if unknown.
+         */
+        private long mScheduledTime;
+
+        private Trace(long instanceId, long startWallTime, long startTime) {
+            this(instanceId, startWallTime, startTime, new long[Stage.values().length]);
+        }
+
+        private Trace(long instanceId, long startWallTime, long startTime, long[] stageTimes) {
+            mInstanceId = instanceId;
+            mStartWallTime = startWallTime;
+            mStartTime = startTime;
+            mStageTimes = stageTimes;
+        }
+
+        private Trace copy() {
+            final Trace copy = new Trace(mInstanceId, mStartWallTime, mStartTime, mStageTimes.clone());
+            copy.mScheduledTime = mScheduledTime;
+            return copy;
+        }
+
+        private void merge(Trace other) {
+            for (int i = 0; i < mStageTimes.length; i++) {
+                if (mStageTimes[i] == 0) {
+                    mStageTimes[i] = other.mStageTimes[i];
+                }
+            }
+
+            if (mScheduledTime == 0) {
+                mScheduledTime = other.mScheduledTime;
+            }
+        }
+
+        private boolean isSameTrace(Trace other) {
+            return mInstanceId == other.mInstanceId && mStartTime == other.mStartTime;
+        }
+
+        private boolean isComplete() {
+            return mStageTimes[Stage.AUDIBLE.ordinal()] != 0
+                && mStageTimes[Stage.ACTIVITY_FIRST_FRAME.ordinal()] != 0;
+        }
+
+        /**
+         * @return the trace as {@code instanceId,startWallTime,startTime,scheduledTime,stageTimes...}
+         */
+        private String serialize() {
+            final StringBuilder line = new StringBuilder()
+                .append(mInstanceId).append(',')
+                .append(mStartWallTime).append(',')
+                .append(mStartTime).append(',')
+                .append(mScheduledTime);
+            for (long stageTime : mStageTimes) {
+                line.append(',').append(stageTime);
+            }
+
+            return line.toString();
+        }
+
+        private static Trace parse(String line) {
+            final String[] fields = line.split(",");
+            if (fields.length < 4) {
+                return null;
+            }
+
+            try {
+                // Traces written before a stage was added simply lack it.
+                final long[] stageTimes = new long[Stage.values().length];
+                for (int i = 0; i < stageTimes.length && 4 + i < fields.length; i++) {
+                    stageTimes[i] = Long.parseLong(fields[4 + i]);
+                }
+
+                final Trace trace = new Trace(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), stageTimes);
+                trace.mScheduledTime = Long.parseLong(fields[3]);
+                return trace;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
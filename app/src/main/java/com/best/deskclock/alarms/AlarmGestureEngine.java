@@ -0,0 +1,305 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Detects the motion gestures that snooze or dismiss a firing alarm.
+ * <p>
+ * The accelerometer listeners run on a dedicated sensor thread, so that the main thread is not
+ * woken up for each sample. Each enabled gesture keeps the sampling rate and the batching delay
+ * it always had: flips are detected at the normal rate and shakes at the game rate. The
+ * thresholds are captured once when the alarm starts ringing and the detectors keep their
+ * samples in primitive arrays, so that no object is allocated per sample.
+ * <p>
+ * The detectors only depend on the acceleration values, so they can be fed with recorded
+ * samples as well.
+ */
+final class AlarmGestureEngine {
+
+    /**
+     * Maximum delay for which the flip samples may be batched.
+     */
+    private static final int FLIP_MAX_REPORT_LATENCY_US = 300 * 1000;
+
+    /**
+     * Maximum delay for which the shake samples may be batched; a shake is short.
+     */
+    private static final int SHAKE_MAX_REPORT_LATENCY_US = 50 * 1000;
+
+    private final SensorManager mSensorManager;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mFlipCallback;
+
+    private final Runnable mShakeCallback;
+
+    private HandlerThread mSensorThread;
+
+    private SensorEventListener mFlipListener;
+    private SensorEventListener mShakeListener;
+
+    /**
+     * Incremented each time the detection starts or stops, so that a gesture reported by the
+     * sensor thread after the detection stopped is ignored. Only accessed on the main thread.
+     */
+    private int mGeneration;
+
+    /**
+     * @param flipCallback  run on the main thread when the device is flipped face down
+     * @param shakeCallback run on the main thread when the device is shaken
+     */
+    AlarmGestureEngine(SensorManager sensorManager, Runnable flipCallback, Runnable shakeCallback) {
+        mSensorManager = sensorManager;
+        mFlipCallback = flipCallback;
+        mShakeCallback = shakeCallback;
+    }
+
+    /**
+     * Starts detecting the enabled gestures. Must be called on the main thread.
+     *
+     * @param flipEnabled    {@code true} to detect flips
+     * @param shakeEnabled   {@code true} to detect shakes
+     * @param shakeIntensity the average acceleration, in m/s², above which the device is shaken
+     */
+    void start(boolean flipEnabled, boolean shakeEnabled, float shakeIntensity) {
+        stop();
+
+        if (!flipEnabled && !shakeEnabled) {
+            return;
+        }
+
+        final Sensor accelerometer = mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        if (accelerometer == null) {
+            return;
+        }
+
+        mSensorThread = new HandlerThread("AlarmGestures", Process.THREAD_PRIORITY_DISPLAY);
+        mSensorThread.start();
+        final Handler sensorHandler = new Handler(mSensorThread.getLooper());
+        final int generation = mGeneration;
+
+        if (flipEnabled) {
+            final FlipDetector flipDetector = new FlipDetector();
+            mFlipListener = new GestureListener(generation, mFlipCallback) {
+                @Override
+                boolean onSample(float x, float y, float z) {
+                    return flipDetector.onSample(z);
+                }
+            };
+            mSensorManager.registerListener(mFlipListener, accelerometer, SensorManager.SENSOR_DELAY_NORMAL,
+                FLIP_MAX_REPORT_LATENCY_US, sensorHandler);
+        }
+
+        if (shakeEnabled) {
+            final ShakeDetector shakeDetector = new ShakeDetector(shakeIntensity);
+            mShakeListener = new GestureListener(generation, mShakeCallback) {
+                @Override
+                boolean onSample(float x, float y, float z) {
+                    return shakeDetector.onSample(x, y, z);
+                }
+            };
+            mSensorManager.registerListener(mShakeListener, accelerometer, SensorManager.SENSOR_DELAY_GAME,
+                SHAKE_MAX_REPORT_LATENCY_US, sensorHandler);
+        }
+    }
+
+    /**
+     * Stops detecting gestures. Must be called on the main thread.
+     */
+    void stop() {
+        mGeneration++;
+
+        if (mSensorThread == null) {
+            return;
+        }
+
+        if (mFlipListener != null) {
+            mSensorManager.unregisterListener(mFlipListener);
+            mFlipListener = null;
+        }
+
+        if (mShakeListener != null) {
+            mSensorManager.unregisterListener(mShakeListener);
+            mShakeListener = null;
+        }
+
+        mSensorThread.quitSafely();
+        mSensorThread = null;
+    }
+
+    /**
+     * Feeds a detector on the sensor thread and reports its gestures on the main thread, unless
+     * the detection stopped or restarted meanwhile.
+     */
+    private abstract class GestureListener implements SensorEventListener {
+
+        private final int mListenerGeneration;
+
+        private final Runnable mCallback;
+
+        private final Runnable mReport = this::report;
+
+        GestureListener(int generation, Runnable callback) {
+            mListenerGeneration = generation;
+            mCallback = callback;
+        }
+
+        /**
+         * @return {@code true} if the gesture was detected
+         */
+        abstract boolean onSample(float x, float y, float z);
+
+        @Override
+        public void onSensorChanged(SensorEvent event) {
+            if (onSample(event.values[0], event.values[1], event.values[2])) {
+                mMainHandler.post(mReport);
+            }
+        }
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        }
+
+        private void report() {
+            if (mListenerGeneration == mGeneration) {
+                mCallback.run();
+            }
+        }
+    }
+
+    /**
+     * Detects the device turning from face up to face down.
+     */
+    static final class FlipDetector {
+
+        // Accelerometers are not quite accurate.
+        private static final float GRAVITY_UPPER_THRESHOLD = 1.3f * SensorManager.STANDARD_GRAVITY;
+        private static final float GRAVITY_LOWER_THRESHOLD = 0.7f * SensorManager.STANDARD_GRAVITY;
+
+        /**
+         * Several samples are used to avoid the erroneous values the sensor sometimes returns.
+         */
+        private static final int SENSOR_SAMPLES = 3;
+
+        /**
+         * Ring buffer of the last samples: {@code 1} if the sample matched the expected side.
+         */
+        private final byte[] mSamples = new byte[SENSOR_SAMPLES];
+
+        /**
+         * Number of matching samples in {@link #mSamples}.
+         */
+        private int mMatchingSamples;
+
+        private int mSampleIndex;
+
+        private boolean mWasFaceUp;
+
+        private boolean mStopped;
+
+        /**
+         * @param z the acceleration along the axis orthogonal to the screen, in m/s²
+         * @return {@code true} once, when the device was face up and is now face down
+         */
+        boolean onSample(float z) {
+            if (mStopped) {
+                return false;
+            }
+
+            final boolean matching = mWasFaceUp
+                ? z < -GRAVITY_LOWER_THRESHOLD && z > -GRAVITY_UPPER_THRESHOLD
+                : z > GRAVITY_LOWER_THRESHOLD && z < GRAVITY_UPPER_THRESHOLD;
+
+            // Add the sample, overwriting the oldest one.
+            mMatchingSamples += (matching ? 1 : 0) - mSamples[mSampleIndex];
+            mSamples[mSampleIndex] = (byte) (matching ? 1 : 0);
+            mSampleIndex = (mSampleIndex + 1) % SENSOR_SAMPLES;
+
+            if (mMatchingSamples < SENSOR_SAMPLES) {
+                return false;
+            }
+
+            if (mWasFaceUp) {
+                mStopped = true;
+                return true;
+            }
+
+            mWasFaceUp = true;
+            clearSamples();
+            return false;
+        }
+
+        private void clearSamples() {
+            for (int i = 0; i < SENSOR_SAMPLES; i++) {
+                mSamples[i] = 0;
+            }
+            mMatchingSamples = 0;
+        }
+    }
+
+    /**
+     * Detects the device being shaken, from the average linear acceleration of consecutive,
+     * non-overlapping windows of samples.
+     */
+    static final class ShakeDetector {
+
+        private static final float GRAVITY_FILTER_ALPHA = 0.8f;
+
+        /**
+         * Number of samples the sum is divided by; the window accumulates one more sample, then
+         * the next sample only triggers the check, as the detection always did.
+         */
+        private static final int BUFFER = 5;
+
+        private final float mIntensity;
+
+        private final float[] mGravity = new float[3];
+
+        /**
+         * Sum of the linear acceleration of the samples of the current window.
+         */
+        private float mMagnitudeSum;
+
+        private int mSampleCount;
+
+        /**
+         * @param intensity the average acceleration, in m/s², above which the device is shaken
+         */
+        ShakeDetector(float intensity) {
+            mIntensity = intensity;
+        }
+
+        /**
+         * @return {@code true} if the device was shaken during the window that just ended
+         */
+        boolean onSample(float x, float y, float z) {
+            // Isolate the force of gravity with a low-pass filter.
+            mGravity[0] = GRAVITY_FILTER_ALPHA * mGravity[0] + (1 - GRAVITY_FILTER_ALPHA) * x;
+            mGravity[1] = GRAVITY_FILTER_ALPHA * mGravity[1] + (1 - GRAVITY_FILTER_ALPHA) * y;
+            mGravity[2] = GRAVITY_FILTER_ALPHA * mGravity[2] + (1 - GRAVITY_FILTER_ALPHA) * z;
+
+            if (mSampleCount <= BUFFER) {
+                mMagnitudeSum += Math.abs(x - mGravity[0]) + Math.abs(y - mGravity[1]) + Math.abs(z - mGravity[2]);
+                mSampleCount++;
+                return false;
+            }
+
+            final boolean shaken = mMagnitudeSum / BUFFER >= mIntensity;
+
+            // Start a new window.
+            mMagnitudeSum = 0;
+            mSampleCount = 0;
+            return shaken;
+        }
+    }
+}
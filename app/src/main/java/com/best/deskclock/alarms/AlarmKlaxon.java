@@ -7,24 +7,18 @@
 package com.best.deskclock.alarms;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.media.AudioAttributes;
 import android.media.AudioManager;
-import android.os.VibrationAttributes;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
+import android.net.Uri;
 
 import com.best.deskclock.DeskClockApplication;
-import com.best.deskclock.base.AppExecutors;
-import com.best.deskclock.data.SettingsDAO;
+import com.best.deskclock.data.AlarmSettings;
+import com.best.deskclock.data.DataModel;
 import com.best.deskclock.provider.AlarmInstance;
 import com.best.deskclock.ringtone.AsyncRingtonePlayer;
 import com.best.deskclock.ringtone.RingtonePlayer;
 import com.best.deskclock.utils.DeviceUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
-import com.best.deskclock.utils.SdkUtils;
-import com.best.deskclock.utils.Utils;
 
 /**
  * Manages playing alarm ringtones and vibrating the device.
@@ -36,7 +30,6 @@ public final class AlarmKlaxon {
     private boolean mStarted = false;
     private AsyncRingtonePlayer mAsyncRingtonePlayer;
     private RingtonePlayer mRingtonePlayer;
-    private Runnable mVibrationRunnable;
     private int mPreviousAlarmVolume = -1;
 
     private AlarmKlaxon() {
@@ -53,23 +46,22 @@ public final class AlarmKlaxon {
     public static void stop() {
         AlarmKlaxon instance = getInstance();
         Context appContext = DeskClockApplication.getAppContext();
-        SharedPreferences prefs = DeskClockApplication.getDefaultSharedPreferences(appContext);
+        AlarmSettings alarmSettings = DataModel.getDataModel().getAlarmSettings();
 
-        if (instance.mVibrationRunnable != null) {
-            AppExecutors.getMainThread().removeCallbacks(instance.mVibrationRunnable);
-            instance.mVibrationRunnable = null;
-        }
+        AlarmSignalEngine signalEngine = AlarmSignalEngine.getInstance();
+        signalEngine.stopVibration();
+        signalEngine.end();
 
         if (instance.mStarted) {
             instance.mStarted = false;
-            if (DeviceUtils.isUserUnlocked(appContext) && SettingsDAO.isAdvancedAudioPlaybackEnabled(prefs)) {
+            if (DeviceUtils.isUserUnlocked(appContext) && alarmSettings.isAdvancedAudioPlaybackEnabled()) {
                 LogUtils.v("AlarmKlaxon.stop() ExoPlayer");
                 instance.getRingtonePlayer().stop();
             } else {
                 LogUtils.v("AlarmKlaxon.stop() MediaPlayer");
                 instance.getAsyncRingtonePlayer().stop();
 
-                if (SettingsDAO.isPerAlarmVolumeEnabled(prefs) && instance.mPreviousAlarmVolume != -1) {
+                if (alarmSettings.isPerAlarmVolumeEnabled() && instance.mPreviousAlarmVolume != -1) {
                     AudioManager audioManager = (AudioManager) appContext.getSystemService(Context.AUDIO_SERVICE);
                     int currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_ALARM);
                     // Restore the original alarm volume only if it was changed
@@ -81,9 +73,6 @@ public final class AlarmKlaxon {
                     instance.mPreviousAlarmVolume = -1;
                 }
             }
-
-            final Vibrator vibrator = appContext.getSystemService(Vibrator.class);
-            vibrator.cancel();
         }
     }
 
@@ -92,21 +81,27 @@ public final class AlarmKlaxon {
         stop();
 
         Context appContext = DeskClockApplication.getAppContext();
-        SharedPreferences prefs = DeskClockApplication.getDefaultSharedPreferences(appContext);
+        AlarmFireTrace.mark(appContext, AlarmFireTrace.Stage.KLAXON_STARTED);
+
+        AlarmSettings alarmSettings = DataModel.getDataModel().getAlarmSettings();
         AlarmKlaxon instance = getInstance();
+        AlarmSignalEngine signalEngine = AlarmSignalEngine.getInstance();
+        signalEngine.begin();
         boolean isRingtoneSilent = RingtoneUtils.RINGTONE_SILENT.equals(alarmInstance.mRingtone);
 
         if (!isRingtoneSilent) {
+            // Play the local copy of the ringtone if it was staged before the alarm fired
+            final Uri ringtoneUri = AlarmAudioStager.getPlaybackUri(appContext, alarmInstance);
             // Crescendo duration always in milliseconds
             final int crescendoDuration = alarmInstance.mCrescendoDuration * 1000;
-            if (DeviceUtils.isUserUnlocked(appContext) && SettingsDAO.isAdvancedAudioPlaybackEnabled(prefs)) {
+            if (DeviceUtils.isUserUnlocked(appContext) && alarmSettings.isAdvancedAudioPlaybackEnabled()) {
                 LogUtils.v("AlarmKlaxon.start() with ExoPlayer");
 
-                instance.getRingtonePlayer().play(alarmInstance.mRingtone, crescendoDuration);
+                instance.getRingtonePlayer().play(ringtoneUri, crescendoDuration);
             } else {
                 LogUtils.v("AlarmKlaxon.start() with MediaPlayer");
 
-                if (SettingsDAO.isPerAlarmVolumeEnabled(prefs)) {
+                if (alarmSettings.isPerAlarmVolumeEnabled()) {
                     AudioManager audioManager = (AudioManager) appContext.getSystemService(Context.AUDIO_SERVICE);
 
                     if (instance.mPreviousAlarmVolume == -1) {
@@ -119,7 +114,7 @@ public final class AlarmKlaxon {
                     }
                 }
 
-                instance.getAsyncRingtonePlayer().play(alarmInstance.mRingtone, crescendoDuration);
+                instance.getAsyncRingtonePlayer().play(ringtoneUri, crescendoDuration);
             }
         }
 
@@ -130,56 +125,26 @@ public final class AlarmKlaxon {
                 delayInMillis = 0;
                 LogUtils.v("AlarmKlaxon: Ringtone is silent, bypassing vibration delay");
             } else {
-                delayInMillis = SettingsDAO.getVibrationStartDelay(prefs) * 1000L;
+                delayInMillis = alarmSettings.vibrationStartDelay() * 1000L;
                 // Add a small safety margin in case the vibration pattern starts with 0 ms,
                 // to prevent any vibration if the alarm stops right at the delay limit.
                 final long SAFETY_MARGIN_MS = 300;
                 delayInMillis += SAFETY_MARGIN_MS;
             }
 
-            instance.mVibrationRunnable = () -> {
-                final Vibrator vibrator = appContext.getSystemService(Vibrator.class);
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-
-                String patternKey = SettingsDAO.isPerAlarmVibrationPatternEnabled(prefs)
-                    ? alarmInstance.mVibrationPattern
-                    : SettingsDAO.getVibrationPattern(prefs);
-                long[] pattern = Utils.getVibrationPatternForKey(patternKey);
-
-                if (SdkUtils.isAtLeastAndroid13()) {
-                    VibrationAttributes vibrationAttributes = new VibrationAttributes.Builder()
-                        .setUsage(VibrationAttributes.USAGE_ALARM)
-                        .build();
-                    VibrationEffect vibrationEffect = VibrationEffect.createWaveform(pattern, 0);
-                    vibrator.vibrate(vibrationEffect, vibrationAttributes);
-                } else if (SdkUtils.isAtLeastAndroid8()) {
-                    VibrationEffect vibrationEffect = VibrationEffect.createWaveform(pattern, 0);
-                    vibrator.vibrate(vibrationEffect, audioAttributes);
-                } else {
-                    vibrator.vibrate(pattern, 0, audioAttributes);
-                }
-            };
+            String patternKey = alarmSettings.isPerAlarmVibrationPatternEnabled()
+                ? alarmInstance.mVibrationPattern
+                : alarmSettings.vibrationPattern();
 
-            if (delayInMillis > 0) {
-                LogUtils.v("AlarmKlaxon: vibration scheduled in " + delayInMillis + "ms");
-                AppExecutors.getMainThread().postDelayed(instance.mVibrationRunnable, delayInMillis);
-            } else {
-                LogUtils.v("AlarmKlaxon: vibration started immediately");
-                instance.mVibrationRunnable.run();
-            }
+            LogUtils.v("AlarmKlaxon: vibration scheduled in " + delayInMillis + "ms");
+            signalEngine.startVibration(patternKey, delayInMillis);
         }
 
         instance.mStarted = true;
     }
 
     public static void deactivateRingtonePlayback() {
-        Context appContext = DeskClockApplication.getAppContext();
-        SharedPreferences prefs = DeskClockApplication.getDefaultSharedPreferences(appContext);
-
-        if (SettingsDAO.isAdvancedAudioPlaybackEnabled(prefs)) {
+        if (DataModel.getDataModel().getAlarmSettings().isAdvancedAudioPlaybackEnabled()) {
             stopListeningToPreferences();
         } else {
             releaseResources();
@@ -15,13 +15,11 @@ import static com.best.deskclock.utils.NotificationUtils.FIRING_NOTIFICATION_CHA
 import android.Manifest;
 import android.annotation.SuppressLint;
 import android.app.Notification;
-import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.service.notification.StatusBarNotification;
 
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
@@ -33,6 +31,7 @@ import com.best.deskclock.provider.Alarm;
 import com.best.deskclock.provider.AlarmInstance;
 import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.NotificationRegistry;
 import com.best.deskclock.utils.NotificationUtils;
 import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.Utils;
@@ -145,72 +144,28 @@ public final class AlarmNotifications {
 
         final Notification notification = builder.build();
 
-        nm.notify(id, notification);
+        notify(context, nm, id, notification);
         updateUpcomingAlarmGroupNotification(context, -1, notification);
     }
 
-    private static boolean isGroupSummary(Notification n) {
-        return (n.flags & Notification.FLAG_GROUP_SUMMARY) == Notification.FLAG_GROUP_SUMMARY;
-    }
-
     /**
-     * Method which returns the first active notification for a given group. If a notification was
-     * just posted, provide it to make sure it is included as a potential result. If a notification
-     * was just canceled, provide the id so that it is not included as a potential result. These
-     * extra parameters are needed due to a race condition which exists in
-     * {@link NotificationManager#getActiveNotifications()}.
+     * Posts, updates or cancels the summary of the upcoming alarm notifications. The summary
+     * opens the alarm of the first upcoming notification.
      *
-     * @param context                Context from which to grab the NotificationManager
-     * @param group                  The group key to query for notifications
      * @param canceledNotificationId The id of the just-canceled notification (-1 if none)
-     * @param postedNotification     The notification that was just posted
-     * @return The first active notification for the group
+     * @param postedNotification     The notification that was just posted (null if none)
      */
-
-    private static Notification getFirstActiveNotification(Context context, String group, int canceledNotificationId,
-                                                           Notification postedNotification) {
-
-        final NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        final StatusBarNotification[] notifications = nm.getActiveNotifications();
-        Notification firstActiveNotification = postedNotification;
-
-        for (StatusBarNotification statusBarNotification : notifications) {
-            final Notification n = statusBarNotification.getNotification();
-            if (!isGroupSummary(n) && group.equals(n.getGroup()) && statusBarNotification.getId() != canceledNotificationId) {
-                if (firstActiveNotification == null || n.getSortKey().compareTo(firstActiveNotification.getSortKey()) < 0) {
-                    firstActiveNotification = n;
-                }
-            }
-        }
-
-        return firstActiveNotification;
-    }
-
-    private static Notification getActiveGroupSummaryNotification(Context context, String group) {
-        final NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        final StatusBarNotification[] notifications = nm.getActiveNotifications();
-
-        for (StatusBarNotification statusBarNotification : notifications) {
-            final Notification n = statusBarNotification.getNotification();
-            if (isGroupSummary(n) && group.equals(n.getGroup())) {
-                return n;
-            }
-        }
-
-        return null;
-    }
-
     private static void updateUpcomingAlarmGroupNotification(Context context, int canceledNotificationId, Notification postedNotification) {
         final NotificationManagerCompat nm = NotificationManagerCompat.from(context);
-        final Notification firstUpcoming = getFirstActiveNotification(
+        final Notification firstUpcoming = getFirstNotification(
             context, UPCOMING_GROUP_KEY, canceledNotificationId, postedNotification);
 
         if (firstUpcoming == null) {
-            nm.cancel(ALARM_GROUP_NOTIFICATION_ID);
+            cancel(context, nm, ALARM_GROUP_NOTIFICATION_ID);
             return;
         }
 
-        Notification summary = getActiveGroupSummaryNotification(context, UPCOMING_GROUP_KEY);
+        Notification summary = NotificationRegistry.getGroupSummary(context, UPCOMING_GROUP_KEY);
 
         if (summary == null || !Objects.equals(summary.contentIntent, firstUpcoming.contentIntent)) {
             if (ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
@@ -235,21 +190,28 @@ public final class AlarmNotifications {
                 .setLocalOnly(true)
                 .build();
 
-            nm.notify(ALARM_GROUP_NOTIFICATION_ID, summary);
+            notify(context, nm, ALARM_GROUP_NOTIFICATION_ID, summary);
         }
     }
 
+    /**
+     * Posts, updates or cancels the summary of the missed alarm notifications. The summary opens
+     * the alarm of the first missed notification.
+     *
+     * @param canceledNotificationId The id of the just-canceled notification (-1 if none)
+     * @param postedNotification     The notification that was just posted (null if none)
+     */
     public static void updateMissedAlarmGroupNotification(Context context, int canceledNotificationId, Notification postedNotification) {
         final NotificationManagerCompat nm = NotificationManagerCompat.from(context);
-        final Notification firstMissed = getFirstActiveNotification(context, MISSED_GROUP_KEY,
+        final Notification firstMissed = getFirstNotification(context, MISSED_GROUP_KEY,
             canceledNotificationId, postedNotification);
 
         if (firstMissed == null) {
-            nm.cancel(ALARM_GROUP_MISSED_NOTIFICATION_ID);
+            cancel(context, nm, ALARM_GROUP_MISSED_NOTIFICATION_ID);
             return;
         }
 
-        Notification summary = getActiveGroupSummaryNotification(context, MISSED_GROUP_KEY);
+        Notification summary = NotificationRegistry.getGroupSummary(context, MISSED_GROUP_KEY);
 
         if (summary == null || !Objects.equals(summary.contentIntent, firstMissed.contentIntent)) {
             if (ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
@@ -276,10 +238,52 @@ public final class AlarmNotifications {
                 .setOnlyAlertOnce(true)
                 .build();
 
-            nm.notify(ALARM_GROUP_MISSED_NOTIFICATION_ID, summary);
+            notify(context, nm, ALARM_GROUP_MISSED_NOTIFICATION_ID, summary);
         }
     }
 
+    /**
+     * @return the first notification of the group by sort key, once the just-canceled and
+     * just-posted notifications, typically swiped away or posted by another path, are recorded
+     */
+    private static Notification getFirstNotification(Context context, String group, int canceledNotificationId,
+                                                     Notification postedNotification) {
+
+        if (canceledNotificationId != -1) {
+            NotificationRegistry.onCanceled(context, canceledNotificationId);
+        }
+
+        final Notification firstNotification = NotificationRegistry.getFirstNotification(context, group);
+        if (postedNotification == null) {
+            return firstNotification;
+        }
+
+        if (firstNotification == null || postedNotification.getSortKey().compareTo(firstNotification.getSortKey()) < 0) {
+            return postedNotification;
+        }
+
+        return firstNotification;
+    }
+
+    /**
+     * Posts the notification and records it for the group summaries. The callers check the
+     * notification permission.
+     */
+    @SuppressLint("MissingPermission")
+    private static void notify(Context context, NotificationManagerCompat nm, int id, Notification notification) {
+        nm.notify(id, notification);
+        NotificationRegistry.onPosted(context, id, notification);
+    }
+
+    /**
+     * Cancels the notification and records it for the group summaries. The cancellation is always
+     * sent, since a notification may have been posted by a previous process or another path.
+     */
+    private static void cancel(Context context, NotificationManagerCompat nm, int id) {
+        nm.cancel(id);
+        NotificationRegistry.onCanceled(context, id);
+    }
+
     public static synchronized void showSnoozeNotification(Context context, AlarmInstance instance) {
         if (ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
             // Always false, because notification activation is always checked when the application is started.
@@ -341,7 +345,7 @@ public final class AlarmNotifications {
 
         final Notification notification = builder.build();
 
-        nm.notify(id, notification);
+        notify(context, nm, id, notification);
         updateUpcomingAlarmGroupNotification(context, -1, notification);
     }
 
@@ -403,7 +407,7 @@ public final class AlarmNotifications {
 
         final Notification notification = builder.build();
 
-        nm.notify(id, notification);
+        notify(context, nm, id, notification);
         updateMissedAlarmGroupNotification(context, -1, notification);
     }
 
@@ -493,7 +497,7 @@ public final class AlarmNotifications {
                 return;
             }
 
-            nm.notify(ALARM_FIRING_NOTIFICATION_ID, builtNotification);
+            notify(context, nm, ALARM_FIRING_NOTIFICATION_ID, builtNotification);
         }
     }
 
@@ -501,7 +505,7 @@ public final class AlarmNotifications {
         LogUtils.v("Clearing notifications for alarm instance: " + instance.mId);
         NotificationManagerCompat nm = NotificationManagerCompat.from(context);
         final int id = instance.hashCode();
-        nm.cancel(id);
+        cancel(context, nm, id);
         updateUpcomingAlarmGroupNotification(context, id, null);
         updateMissedAlarmGroupNotification(context, id, null);
     }
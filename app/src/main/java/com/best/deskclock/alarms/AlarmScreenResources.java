@@ -0,0 +1,156 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import static androidx.core.util.TypedValueCompat.dpToPx;
+import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.appcompat.content.res.AppCompatResources;
+
+import com.best.deskclock.R;
+import com.best.deskclock.data.DataModel;
+import com.best.deskclock.data.SettingsDAO;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.utils.BackgroundImageLoader;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.RingtoneUtils;
+import com.best.deskclock.utils.TypefaceRegistry;
+import com.best.deskclock.utils.Utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prepares the resources of {@link AlarmActivity} before the alarm fires, so that the alarm
+ * screen draws its first frame without decoding or compositing anything on the main thread.
+ * <p>
+ * The background image, the typefaces, the ringtone title and the ringtone icon with its shadow
+ * are prepared when the upcoming alarm notification is posted or the alarm is snoozed, and again
+ * when the alarm fires in case the process died in between. The activity then finds them in the
+ * caches of {@link BackgroundImageLoader}, {@link TypefaceRegistry}, the ringtone model and this
+ * class, and only prepares what is missing itself.
+ */
+public final class AlarmScreenResources {
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The last composited ringtone icon and the parameters it was drawn with. Guarded by
+     * {@code AlarmScreenResources.class}.
+     */
+    private static RingtoneIconKey sRingtoneIconKey;
+    private static Bitmap sRingtoneIcon;
+
+    private AlarmScreenResources() {
+    }
+
+    /**
+     * Prepares the resources of the alarm screen of the given instance in the background.
+     */
+    public static void prewarm(Context context, AlarmInstance instance) {
+        final Context appContext = context.getApplicationContext();
+        final Uri ringtone = instance.mRingtone;
+
+        sExecutor.execute(() -> {
+            final long startTime = SystemClock.elapsedRealtime();
+            final SharedPreferences prefs = getDefaultSharedPreferences(Utils.getSafeStorageContext(appContext));
+
+            TypefaceRegistry.getBoldTypeface(SettingsDAO.getGeneralFont(prefs));
+            TypefaceRegistry.getTypeface(prefs, TypefaceRegistry.Role.ALARM);
+
+            final String imagePath = SettingsDAO.getAlarmBackgroundImage(prefs);
+            if (imagePath != null) {
+                BackgroundImageLoader.loadBackground(appContext, imagePath);
+            }
+
+            if (SettingsDAO.isRingtoneTitleDisplayed(prefs)) {
+                // Prefer the ringtone chosen when the instance was staged over a random ringtone.
+                final Uri stagedRingtone = AlarmAudioStager.getStagedRingtone(appContext, instance);
+                DataModel.getDataModel().preloadRingtoneTitle(stagedRingtone != null ? stagedRingtone : ringtone);
+
+                if (SettingsDAO.isAlarmTextShadowDisplayed(prefs)) {
+                    final int shadowOffset = SettingsDAO.getAlarmShadowOffset(prefs);
+                    getRingtoneIcon(appContext, RingtoneUtils.RINGTONE_SILENT.equals(ringtone),
+                        SettingsDAO.getRingtoneTitleColor(prefs), SettingsDAO.getAlarmShadowColor(prefs),
+                        shadowOffset * 0.5f, shadowOffset);
+                }
+            }
+
+            LogUtils.i("Prepared the alarm screen of instance " + instance.mId + " in "
+                + (SystemClock.elapsedRealtime() - startTime) + " ms");
+        });
+    }
+
+    /**
+     * @return the ringtone icon tinted with {@code color} over its blurred shadow
+     */
+    static Bitmap getRingtoneIcon(Context context, boolean silent, int color, int shadowColor,
+                                  float shadowRadius, int shadowOffset) {
+
+        final int iconSize = (int) dpToPx(24, context.getResources().getDisplayMetrics());
+        final RingtoneIconKey key = new RingtoneIconKey(silent, color, iconSize, shadowColor, shadowRadius, shadowOffset);
+
+        synchronized (AlarmScreenResources.class) {
+            if (key.equals(sRingtoneIconKey)) {
+                return sRingtoneIcon;
+            }
+        }
+
+        final Drawable musicIcon = silent
+            ? AppCompatResources.getDrawable(context, R.drawable.ic_ringtone_silent)
+            : AppCompatResources.getDrawable(context, R.drawable.ic_music_note);
+        if (musicIcon == null) {
+            return null;
+        }
+
+        musicIcon.setTint(color);
+
+        // Convert the drawable to a bitmap
+        Bitmap iconBitmap = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.ARGB_8888);
+        Canvas iconCanvas = new Canvas(iconBitmap);
+        musicIcon.setBounds(0, 0, iconSize, iconSize);
+        musicIcon.draw(iconCanvas);
+
+        // Create the alpha mask for the shadow
+        Bitmap shadowBitmap = iconBitmap.extractAlpha();
+        Paint shadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        shadowPaint.setColor(shadowColor);
+        shadowPaint.setMaskFilter(new BlurMaskFilter(shadowRadius * 1.5f, BlurMaskFilter.Blur.NORMAL));
+
+        // Create the final bitmap with space for the shadow
+        int finalWidth = iconSize + shadowOffset;
+        int finalHeight = iconSize + shadowOffset;
+        Bitmap finalBitmap = Bitmap.createBitmap(finalWidth, finalHeight, Bitmap.Config.ARGB_8888);
+        Canvas finalCanvas = new Canvas(finalBitmap);
+
+        // Draw the blurred shadow with an offset
+        finalCanvas.drawBitmap(shadowBitmap, shadowOffset, shadowOffset, shadowPaint);
+
+        // Draw the normal icon on top
+        finalCanvas.drawBitmap(iconBitmap, 0, 0, null);
+
+        iconBitmap.recycle();
+        shadowBitmap.recycle();
+
+        synchronized (AlarmScreenResources.class) {
+            sRingtoneIconKey = key;
+            sRingtoneIcon = finalBitmap;
+        }
+
+        return finalBitmap;
+    }
+
+    private record RingtoneIconKey(boolean silent, int color, int size, int shadowColor, float shadowRadius,
+                                   int shadowOffset) {
+    }
+}
@@ -6,7 +6,6 @@
 
 package com.best.deskclock.alarms;
 
-import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
 
 import android.annotation.SuppressLint;
 import android.app.Service;
@@ -15,33 +14,19 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.content.SharedPreferences;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
-import android.hardware.camera2.CameraAccessException;
-import android.hardware.camera2.CameraCharacteristics;
-import android.hardware.camera2.CameraManager;
 import android.os.Binder;
-import android.os.Handler;
 import android.os.IBinder;
-import android.os.Looper;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-
-import androidx.annotation.NonNull;
 
 import com.best.deskclock.R;
 import com.best.deskclock.base.AlarmAlertWakeLock;
-import com.best.deskclock.data.SettingsDAO;
+import com.best.deskclock.data.AlarmSettings;
+import com.best.deskclock.data.DataModel;
 import com.best.deskclock.events.Events;
 import com.best.deskclock.provider.AlarmInstance;
-import com.best.deskclock.utils.DeviceUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.SdkUtils;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -121,16 +106,7 @@ public class AlarmService extends Service {
      */
     private boolean mIsRegistered = false;
 
-    private SharedPreferences mPrefs;
-    private Vibrator mVibrator;
-    private CameraManager mCameraManager;
-    private String mCameraId;
-    private boolean mFlashState = false;
-    private boolean mIsFlashActive = false;
-    private boolean mIsUserFlashlightOn = false;
-    private CameraManager.TorchCallback mTorchCallback;
-    private Handler mHandler;
-    private Runnable mFlashRunnable;
+    private AlarmSignalEngine mSignalEngine;
 
     private AlarmInstance mCurrentAlarm = null;
 
@@ -168,110 +144,9 @@ public class AlarmService extends Service {
         }
     };
 
-    private SensorManager mSensorManager;
+    private AlarmGestureEngine mGestureEngine;
     private int mFlipAction;
-    private final ResettableSensorEventListener mFlipListener = new ResettableSensorEventListener() {
-        // Accelerometers are not quite accurate.
-        private static final float GRAVITY_UPPER_THRESHOLD = 1.3f * SensorManager.STANDARD_GRAVITY;
-        private static final float GRAVITY_LOWER_THRESHOLD = 0.7f * SensorManager.STANDARD_GRAVITY;
-        private static final int SENSOR_SAMPLES = 3;
-        private final boolean[] mSamples = new boolean[SENSOR_SAMPLES];
-        private boolean mStopped;
-        private boolean mWasFaceUp;
-        private int mSampleIndex;
-
-        @Override
-        public void onAccuracyChanged(Sensor sensor, int acc) {
-        }
-
-        @Override
-        public void reset() {
-            mWasFaceUp = false;
-            mStopped = false;
-            Arrays.fill(mSamples, false);
-        }
-
-        private boolean filterSamples() {
-            boolean allPass = true;
-            for (boolean sample : mSamples) {
-                allPass = allPass && sample;
-            }
-
-            return allPass;
-        }
-
-        @Override
-        public void onSensorChanged(SensorEvent event) {
-            // Add a sample overwriting the oldest one. Several samples are used to avoid
-            // the erroneous values the sensor sometimes returns.
-            float z = event.values[2];
-
-            if (mStopped) {
-                return;
-            }
-
-            if (!mWasFaceUp) {
-                // Check if its face up enough.
-                mSamples[mSampleIndex] = (z > GRAVITY_LOWER_THRESHOLD) &&
-                    (z < GRAVITY_UPPER_THRESHOLD);
-
-                // Face up
-                if (filterSamples()) {
-                    mWasFaceUp = true;
-                    Arrays.fill(mSamples, false);
-                }
-            } else {
-                // Check if its face down enough.
-                mSamples[mSampleIndex] = (z < -GRAVITY_LOWER_THRESHOLD) &&
-                    (z > -GRAVITY_UPPER_THRESHOLD);
-
-                // Face down
-                if (filterSamples()) {
-                    mStopped = true;
-                    handleAction(mFlipAction);
-                }
-            }
-
-            mSampleIndex = ((mSampleIndex + 1) % SENSOR_SAMPLES);
-        }
-    };
-
     private int mShakeAction;
-    private final SensorEventListener mShakeListener = new SensorEventListener() {
-        private static final int BUFFER = 5;
-        private final float[] gravity = new float[3];
-        private float average = 0;
-        private int fill = 0;
-
-        @Override
-        public void onAccuracyChanged(Sensor sensor, int acc) {
-        }
-
-        public void onSensorChanged(SensorEvent event) {
-            final float alpha = 0.8F;
-
-            for (int i = 0; i < 3; i++) {
-                gravity[i] = alpha * gravity[i] + (1 - alpha) * event.values[i];
-            }
-
-            float x = event.values[0] - gravity[0];
-            float y = event.values[1] - gravity[1];
-            float z = event.values[2] - gravity[2];
-
-            float sensitivity = SettingsDAO.getShakeIntensity(mPrefs);
-
-            if (fill <= BUFFER) {
-                average += Math.abs(x) + Math.abs(y) + Math.abs(z);
-                fill++;
-            } else {
-                if (average / BUFFER >= sensitivity) {
-                    handleAction(mShakeAction);
-                }
-                average = 0;
-                fill = 0;
-            }
-        }
-    };
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -290,7 +165,6 @@ public class AlarmService extends Service {
     public void onCreate() {
         super.onCreate();
 
-        mPrefs = getDefaultSharedPreferences(this);
         // Register the broadcast receiver
         final IntentFilter filter = new IntentFilter(ALARM_SNOOZE_ACTION);
         filter.addAction(ALARM_DISMISS_ACTION);
@@ -302,44 +176,12 @@ public class AlarmService extends Service {
         mIsRegistered = true;
 
         // Setup for flip and shake actions
-        mSensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
-        mFlipAction = SettingsDAO.getFlipAction(mPrefs);
-        mShakeAction = SettingsDAO.getShakeAction(mPrefs);
-
-        mVibrator = getSystemService(Vibrator.class);
-        mCameraManager = (CameraManager) getSystemService(Context.CAMERA_SERVICE);
-        mHandler = new Handler(Looper.getMainLooper());
-
-        getBackCameraId();
-
-        mTorchCallback = new CameraManager.TorchCallback() {
-            @Override
-            public void onTorchModeChanged(@NonNull String cameraId, boolean enabled) {
-                super.onTorchModeChanged(cameraId, enabled);
-                if (mCameraId != null && mCameraId.equals(cameraId)) {
-                    // Update the initial state if it is not the alarm that is causing the flash to blink.
-                    if (!mIsFlashActive) {
-                        mIsUserFlashlightOn = enabled;
-                    }
-                }
-            }
-        };
-
-        if (mCameraManager != null) {
-            mCameraManager.registerTorchCallback(mTorchCallback, mHandler);
-        }
+        mGestureEngine = new AlarmGestureEngine((SensorManager) getSystemService(Context.SENSOR_SERVICE),
+            () -> handleAction(mFlipAction), () -> handleAction(mShakeAction));
 
-        mFlashRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // Toggle flash state
-                mFlashState = !mFlashState;
-                toggleFlash(mFlashState);
-
-                // Repeat action after 500ms
-                mHandler.postDelayed(this, 500);
-            }
-        };
+        // Setup for the vibration and the flash
+        mSignalEngine = AlarmSignalEngine.getInstance();
+        mSignalEngine.registerTorchCallback();
     }
 
     @Override
@@ -352,10 +194,14 @@ public class AlarmService extends Service {
         final long instanceId = AlarmInstance.getId(intent.getData());
         switch (Objects.requireNonNull(intent.getAction())) {
             case AlarmStateManager.CHANGE_STATE_ACTION -> {
+                final int alarmState = intent.getIntExtra(AlarmStateManager.ALARM_STATE_EXTRA, -1);
+                if (alarmState == AlarmInstance.FIRED_STATE) {
+                    AlarmFireTrace.begin(this, instanceId);
+                }
+
                 AlarmStateManager.handleIntent(this, intent);
 
                 // If state is changed to firing, actually fire the alarm!
-                final int alarmState = intent.getIntExtra(AlarmStateManager.ALARM_STATE_EXTRA, -1);
                 if (alarmState == AlarmInstance.FIRED_STATE) {
                     final ContentResolver cr = this.getContentResolver();
                     final AlarmInstance instance = AlarmInstance.getInstance(cr, instanceId);
@@ -414,16 +260,15 @@ public class AlarmService extends Service {
             stopCurrentAlarm();
         }
 
-        stopFlash();
-
-        if (mCameraManager != null && mTorchCallback != null) {
-            mCameraManager.unregisterTorchCallback(mTorchCallback);
-        }
+        mSignalEngine.stopFlash();
+        mSignalEngine.unregisterTorchCallback();
 
         if (mIsRegistered) {
             unregisterReceiver(mActionsReceiver);
             mIsRegistered = false;
         }
+
+        AlarmFireTrace.flush(this);
     }
 
     private void startAlarm(AlarmInstance instance) {
@@ -434,22 +279,19 @@ public class AlarmService extends Service {
         }
 
         AlarmAlertWakeLock.acquireCpuWakeLock(this);
+        AlarmFireTrace.mark(this, AlarmFireTrace.Stage.WAKE_LOCK_ACQUIRED);
 
         mCurrentAlarm = instance;
 
         AlarmNotifications.showAlarmNotification(this, mCurrentAlarm);
+        AlarmFireTrace.mark(this, AlarmFireTrace.Stage.NOTIFICATION_POSTED);
         AlarmKlaxon.start(mCurrentAlarm);
 
+        // Complete the alarm screen resources in case the process died since the alarm was upcoming
+        AlarmScreenResources.prewarm(this, mCurrentAlarm);
+
         if (mCurrentAlarm.mFlash) {
-            if (mIsUserFlashlightOn) {
-                LogUtils.v("Flashlight is already on by user. Bypassing alarm flash.");
-                mIsFlashActive = false;
-            } else {
-                mIsFlashActive = true;
-                mHandler.post(mFlashRunnable);
-            }
-        } else {
-            mIsFlashActive = false;
+            mSignalEngine.startFlash();
         }
 
         sendBroadcast(new Intent(ALARM_ALERT_ACTION));
@@ -469,7 +311,7 @@ public class AlarmService extends Service {
 
         AlarmKlaxon.deactivateRingtonePlayback();
 
-        stopFlash();
+        mSignalEngine.stopFlash();
 
         sendBroadcast(new Intent(ALARM_DONE_ACTION));
 
@@ -482,14 +324,7 @@ public class AlarmService extends Service {
         mCurrentAlarm = null;
         detachListeners();
         AlarmAlertWakeLock.releaseCpuLock();
-    }
-
-    private void stopFlash() {
-        mHandler.removeCallbacks(mFlashRunnable);
-        if (mIsFlashActive && DeviceUtils.hasBackFlash(this)) {
-            toggleFlash(false);
-        }
-        mIsFlashActive = false;
+        AlarmFireTrace.flush(this);
     }
 
     private void performSingleVibration() {
@@ -505,11 +340,7 @@ public class AlarmService extends Service {
 
         AlarmKlaxon.deactivateRingtonePlayback();
 
-        if (SdkUtils.isAtLeastAndroid8()) {
-            mVibrator.vibrate(VibrationEffect.createWaveform(new long[]{700, 500}, VibrationEffect.DEFAULT_AMPLITUDE));
-        } else {
-            mVibrator.vibrate(new long[]{700, 500}, -1);
-        }
+        mSignalEngine.vibrateOnce(false);
 
         sendBroadcast(new Intent(ALARM_DONE_ACTION));
 
@@ -522,6 +353,7 @@ public class AlarmService extends Service {
         mCurrentAlarm = null;
         detachListeners();
         AlarmAlertWakeLock.releaseCpuLock();
+        AlarmFireTrace.flush(this);
     }
 
     private void performDoubleVibration() {
@@ -537,11 +369,7 @@ public class AlarmService extends Service {
 
         AlarmKlaxon.deactivateRingtonePlayback();
 
-        if (SdkUtils.isAtLeastAndroid8()) {
-            mVibrator.vibrate(VibrationEffect.createWaveform(new long[]{700, 200, 100, 500}, VibrationEffect.DEFAULT_AMPLITUDE));
-        } else {
-            mVibrator.vibrate(new long[]{700, 200, 100, 500}, -1);
-        }
+        mSignalEngine.vibrateOnce(true);
 
         sendBroadcast(new Intent(ALARM_DONE_ACTION));
 
@@ -554,36 +382,7 @@ public class AlarmService extends Service {
         mCurrentAlarm = null;
         detachListeners();
         AlarmAlertWakeLock.releaseCpuLock();
-    }
-
-    private void getBackCameraId() {
-        try {
-            for (String id : mCameraManager.getCameraIdList()) {
-                CameraCharacteristics characteristics = mCameraManager.getCameraCharacteristics(id);
-                Integer lensFacing = characteristics.get(CameraCharacteristics.LENS_FACING);
-                // Check if it is the rear camera
-                if (lensFacing != null && lensFacing == CameraCharacteristics.LENS_FACING_BACK) {
-                    mCameraId = id;
-                    break;
-                }
-            }
-
-            if (mCameraId == null) {
-                LogUtils.e("mCameraId is null");
-            }
-        } catch (CameraAccessException e) {
-            LogUtils.e("AlarmService.onCreate - Failed to access the flash unit", e);
-        }
-    }
-
-    private void toggleFlash(boolean state) {
-        try {
-            if (DeviceUtils.hasBackFlash(this) && mCameraId != null) {
-                mCameraManager.setTorchMode(mCameraId, state);
-            }
-        } catch (CameraAccessException e) {
-            LogUtils.e("AlarmService.toggleFlash - Failed to access the flash unit", e);
-        }
+        AlarmFireTrace.flush(this);
     }
 
     /**
@@ -631,30 +430,25 @@ public class AlarmService extends Service {
     }
 
     private void attachListeners() {
-        if (mFlipAction != ALARM_NO_ACTION) {
-            mFlipListener.reset();
-            mSensorManager.registerListener(mFlipListener,
-                mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER),
-                SensorManager.SENSOR_DELAY_NORMAL, 300 * 1000); // Batch every 300 milliseconds
-        }
+        // Capture the gesture settings once for the whole ringing of the alarm.
+        final AlarmSettings alarmSettings = DataModel.getDataModel().getAlarmSettings();
+        mFlipAction = alarmSettings.flipAction();
+        mShakeAction = alarmSettings.shakeAction();
 
-        if (mShakeAction != ALARM_NO_ACTION) {
-            mSensorManager.registerListener(mShakeListener,
-                mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER),
-                SensorManager.SENSOR_DELAY_GAME, 50 * 1000); // Batch every 50 milliseconds
-        }
+        mGestureEngine.start(mFlipAction != ALARM_NO_ACTION, mShakeAction != ALARM_NO_ACTION,
+            alarmSettings.shakeIntensity());
     }
 
     private void detachListeners() {
-        if (mFlipAction != ALARM_NO_ACTION) {
-            mSensorManager.unregisterListener(mFlipListener);
-        }
-        if (mShakeAction != ALARM_NO_ACTION) {
-            mSensorManager.unregisterListener(mShakeListener);
-        }
+        mGestureEngine.stop();
     }
 
     private void handleAction(int action) {
+        if (mCurrentAlarm == null) {
+            // The alarm stopped while the gesture was being reported.
+            return;
+        }
+
         if (action == ALARM_SNOOZE) { // Setup Snooze Action
             startService(AlarmStateManager.createStateChangeIntent(
                 this, AlarmStateManager.ALARM_SNOOZE_TAG, mCurrentAlarm, AlarmInstance.SNOOZE_STATE));
@@ -663,8 +457,4 @@ public class AlarmService extends Service {
                 this, AlarmStateManager.ALARM_DISMISS_TAG, mCurrentAlarm, AlarmInstance.DISMISSED_STATE));
         }
     }
-
-    private interface ResettableSensorEventListener extends SensorEventListener {
-        void reset();
-    }
 }
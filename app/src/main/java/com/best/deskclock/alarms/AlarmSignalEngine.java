@@ -0,0 +1,325 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.media.AudioAttributes;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.VibrationAttributes;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+
+import com.best.deskclock.DeskClockApplication;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.SdkUtils;
+import com.best.deskclock.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Drives the vibration and the blinking torch of a firing alarm.
+ * <p>
+ * Both run on a dedicated thread, so that a busy main thread never delays or stretches them.
+ * They are scheduled at fixed offsets from the time the alarm started to ring, marked by
+ * {@link #begin()}, instead of drifting by the latency of each step. The ringtone players time
+ * their volume crescendo themselves, from the moment the playback actually starts. The vibration
+ * effects are compiled once per pattern and the back camera is looked up once.
+ * <p>
+ * All the state of this engine is confined to its thread; the public methods only post to it.
+ */
+final class AlarmSignalEngine {
+
+    /**
+     * Duration during which the torch stays on, then off.
+     */
+    private static final long FLASH_PERIOD_MS = 500;
+
+    private static final long[] SINGLE_VIBRATION_PATTERN = {700, 500};
+    private static final long[] DOUBLE_VIBRATION_PATTERN = {700, 200, 100, 500};
+
+    /**
+     * Tokens of the pending vibration and torch steps.
+     */
+    private static final Object VIBRATION_TOKEN = new Object();
+    private static final Object FLASH_TOKEN = new Object();
+
+    private static AlarmSignalEngine sInstance;
+
+    private final Handler mHandler;
+
+    private final Vibrator mVibrator;
+
+    private final CameraManager mCameraManager;
+
+    private final AudioAttributes mAudioAttributes = new AudioAttributes.Builder()
+        .setUsage(AudioAttributes.USAGE_ALARM)
+        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+        .build();
+
+    /**
+     * The repeating vibration effects, by pattern key. Only used on Android 8 and above.
+     */
+    private final Map<String, VibrationEffect> mVibrationEffects = new ArrayMap<>();
+
+    private final Runnable mFlashStep = this::flashStep;
+
+    private final CameraManager.TorchCallback mTorchCallback = new CameraManager.TorchCallback() {
+        @Override
+        public void onTorchModeChanged(@NonNull String cameraId, boolean enabled) {
+            super.onTorchModeChanged(cameraId, enabled);
+            if (cameraId.equals(mCameraId)) {
+                // Update the initial state if it is not the alarm that is causing the flash to blink.
+                if (!mIsFlashActive) {
+                    mIsUserFlashlightOn = enabled;
+                }
+            }
+        }
+    };
+
+    /**
+     * The uptime at which the current alarm started to ring; 0 when no alarm is ringing.
+     */
+    private volatile long mStartUptime;
+
+    /**
+     * The start uptime of the alarm the torch is blinking for. Confined to the engine thread.
+     */
+    private long mFlashStartUptime;
+
+    private VibrationAttributes mVibrationAttributes;
+
+    private boolean mCameraResolved;
+    private String mCameraId;
+    private boolean mFlashState = false;
+    private boolean mIsFlashActive = false;
+    private boolean mIsUserFlashlightOn = false;
+
+    private AlarmSignalEngine(Context context) {
+        mVibrator = context.getSystemService(Vibrator.class);
+        mCameraManager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+
+        final HandlerThread thread = new HandlerThread("AlarmSignals", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        mHandler = new Handler(thread.getLooper());
+    }
+
+    static synchronized AlarmSignalEngine getInstance() {
+        if (sInstance == null) {
+            sInstance = new AlarmSignalEngine(DeskClockApplication.getAppContext());
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Marks the time at which the alarm starts to ring; the vibration and the torch are
+     * scheduled from it.
+     */
+    void begin() {
+        mStartUptime = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Marks the end of the current alarm; the vibration and the torch cannot be started again
+     * until the next call to {@link #begin()}.
+     */
+    void end() {
+        mStartUptime = 0;
+    }
+
+    /**
+     * Starts vibrating with the given pattern, repeated, once the given delay has elapsed since
+     * the alarm started to ring.
+     */
+    void startVibration(String patternKey, long delayMillis) {
+        final long startUptime = mStartUptime;
+        if (startUptime == 0) {
+            LogUtils.w("AlarmSignalEngine.startVibration - No alarm is ringing");
+            return;
+        }
+
+        final long vibrationUptime = startUptime + delayMillis;
+
+        // Compile the effect now rather than when the vibration starts.
+        mHandler.post(() -> getVibrationEffect(patternKey));
+        mHandler.postAtTime(() -> vibrate(patternKey), VIBRATION_TOKEN, vibrationUptime);
+    }
+
+    /**
+     * Stops the vibration, pending or not.
+     */
+    void stopVibration() {
+        mHandler.removeCallbacksAndMessages(VIBRATION_TOKEN);
+        mHandler.post(mVibrator::cancel);
+    }
+
+    /**
+     * Vibrates once, to confirm that the alarm was stopped by a gesture.
+     *
+     * @param twice {@code true} to vibrate twice
+     */
+    void vibrateOnce(boolean twice) {
+        final long[] pattern = twice ? DOUBLE_VIBRATION_PATTERN : SINGLE_VIBRATION_PATTERN;
+        mHandler.post(() -> {
+            if (SdkUtils.isAtLeastAndroid8()) {
+                mVibrator.vibrate(VibrationEffect.createWaveform(pattern, -1));
+            } else {
+                mVibrator.vibrate(pattern, -1);
+            }
+        });
+    }
+
+    /**
+     * Starts tracking whether the user turned the flashlight on, in which case the alarm does not
+     * blink it.
+     */
+    void registerTorchCallback() {
+        if (mCameraManager != null) {
+            // Look up the camera first, so that the callback recognizes it.
+            mHandler.post(this::getBackCameraId);
+            mCameraManager.registerTorchCallback(mTorchCallback, mHandler);
+        }
+    }
+
+    void unregisterTorchCallback() {
+        if (mCameraManager != null) {
+            mCameraManager.unregisterTorchCallback(mTorchCallback);
+        }
+    }
+
+    /**
+     * Starts blinking the torch, unless the user turned the flashlight on.
+     */
+    void startFlash() {
+        final long startUptime = mStartUptime;
+        if (startUptime == 0) {
+            LogUtils.w("AlarmSignalEngine.startFlash - No alarm is ringing");
+            return;
+        }
+
+        mHandler.post(() -> {
+            if (mIsUserFlashlightOn) {
+                LogUtils.v("Flashlight is already on by user. Bypassing alarm flash.");
+                mIsFlashActive = false;
+                return;
+            }
+
+            mIsFlashActive = true;
+            mFlashState = false;
+            mFlashStartUptime = startUptime;
+            flashStep();
+        });
+    }
+
+    /**
+     * Stops blinking the torch and turns it off.
+     */
+    void stopFlash() {
+        mHandler.post(() -> {
+            mHandler.removeCallbacksAndMessages(FLASH_TOKEN);
+            if (mIsFlashActive) {
+                setTorchMode(false);
+            }
+            mIsFlashActive = false;
+            mFlashState = false;
+        });
+    }
+
+    private void flashStep() {
+        // Toggle flash state
+        mFlashState = !mFlashState;
+        setTorchMode(mFlashState);
+
+        // Repeat at the next period since the alarm started, without catching up missed ones.
+        final long elapsed = SystemClock.uptimeMillis() - mFlashStartUptime;
+        final long nextStepUptime = mFlashStartUptime + (elapsed / FLASH_PERIOD_MS + 1) * FLASH_PERIOD_MS;
+        mHandler.postAtTime(mFlashStep, FLASH_TOKEN, nextStepUptime);
+    }
+
+    private void vibrate(String patternKey) {
+        if (SdkUtils.isAtLeastAndroid13()) {
+            if (mVibrationAttributes == null) {
+                mVibrationAttributes = new VibrationAttributes.Builder()
+                    .setUsage(VibrationAttributes.USAGE_ALARM)
+                    .build();
+            }
+            mVibrator.vibrate(getVibrationEffect(patternKey), mVibrationAttributes);
+        } else if (SdkUtils.isAtLeastAndroid8()) {
+            mVibrator.vibrate(getVibrationEffect(patternKey), mAudioAttributes);
+        } else {
+            mVibrator.vibrate(Utils.getVibrationPatternForKey(patternKey), 0, mAudioAttributes);
+        }
+    }
+
+    private VibrationEffect getVibrationEffect(String patternKey) {
+        if (!SdkUtils.isAtLeastAndroid8()) {
+            return null;
+        }
+
+        VibrationEffect effect = mVibrationEffects.get(patternKey);
+        if (effect == null) {
+            effect = VibrationEffect.createWaveform(Utils.getVibrationPatternForKey(patternKey), 0);
+            mVibrationEffects.put(patternKey, effect);
+        }
+
+        return effect;
+    }
+
+    private void setTorchMode(boolean state) {
+        final String cameraId = getBackCameraId();
+        if (cameraId == null) {
+            return;
+        }
+
+        try {
+            mCameraManager.setTorchMode(cameraId, state);
+        } catch (CameraAccessException e) {
+            LogUtils.e("AlarmSignalEngine.setTorchMode - Failed to access the flash unit", e);
+        }
+    }
+
+    /**
+     * @return the id of the back camera if it has a flash unit; {@code null} otherwise
+     */
+    private String getBackCameraId() {
+        if (mCameraResolved) {
+            return mCameraId;
+        }
+
+        mCameraResolved = true;
+        if (mCameraManager == null) {
+            return null;
+        }
+
+        try {
+            for (String id : mCameraManager.getCameraIdList()) {
+                CameraCharacteristics characteristics = mCameraManager.getCameraCharacteristics(id);
+                Integer lensFacing = characteristics.get(CameraCharacteristics.LENS_FACING);
+                Boolean hasFlash = characteristics.get(CameraCharacteristics.FLASH_INFO_AVAILABLE);
+                // Check if it is the rear camera
+                if (lensFacing != null && lensFacing == CameraCharacteristics.LENS_FACING_BACK
+                    && hasFlash != null && hasFlash) {
+                    mCameraId = id;
+                    break;
+                }
+            }
+
+            if (mCameraId == null) {
+                LogUtils.e("mCameraId is null");
+            }
+        } catch (CameraAccessException e) {
+            LogUtils.e("AlarmSignalEngine.getBackCameraId - Failed to access the flash unit", e);
+        }
+
+        return mCameraId;
+    }
+}
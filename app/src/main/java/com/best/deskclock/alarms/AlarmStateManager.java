@@ -29,6 +29,8 @@ import android.service.quicksettings.TileService;
 import android.text.format.DateFormat;
 import android.widget.Toast;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.best.deskclock.R;
 import com.best.deskclock.base.AlarmAlertWakeLock;
 import com.best.deskclock.base.AppExecutors;
@@ -127,8 +129,18 @@ public final class AlarmStateManager extends BroadcastReceiver {
     // Schedules alarm state transitions; can be mocked for testing purposes.
     private static final StateChangeScheduler sStateChangeScheduler = new AlarmManagerStateChangeScheduler();
 
+    // A factory for the current time; can be mocked for testing purposes.
+    private static CurrentTimeFactory sCurrentTimeFactory;
+
     private static Calendar getCurrentTime() {
-        return DataModel.getDataModel().getCalendar();
+        return sCurrentTimeFactory == null
+            ? DataModel.getDataModel().getCalendar()
+            : sCurrentTimeFactory.getCurrentTime();
+    }
+
+    @VisibleForTesting
+    static void setCurrentTimeFactory(CurrentTimeFactory currentTimeFactory) {
+        sCurrentTimeFactory = currentTimeFactory;
     }
 
     /**
@@ -368,6 +380,10 @@ public final class AlarmStateManager extends BroadcastReceiver {
         // Setup instance notification and scheduling timers
         AlarmNotifications.showUpcomingNotification(context, instance);
         scheduleInstanceStateChange(context, instance.getAlarmTime(), instance, AlarmInstance.FIRED_STATE);
+
+        // Prepare the ringtone and the alarm screen while the alarm is upcoming
+        AlarmAudioStager.stage(context, instance);
+        AlarmScreenResources.prewarm(context, instance);
     }
 
     /**
@@ -385,17 +401,21 @@ public final class AlarmStateManager extends BroadcastReceiver {
         ContentResolver contentResolver = context.getContentResolver();
         instance.mAlarmState = AlarmInstance.FIRED_STATE;
 
-        // If the alarm ringtone is set to "Random", assign a random ringtone uri to the alarm.
+        // If the alarm ringtone is set to "Random", assign a random ringtone uri to the alarm,
+        // preferably the one chosen when the instance was staged.
         Alarm alarm = Alarm.getAlarm(context.getContentResolver(), instance.mAlarmId);
         if (alarm != null) {
-            if (RingtoneUtils.isRandomRingtone(alarm.alert)) {
-                instance.mRingtone = RingtoneUtils.getRandomRingtoneUri();
-            } else if (RingtoneUtils.isRandomCustomRingtone(alarm.alert)) {
-                instance.mRingtone = RingtoneUtils.getRandomCustomRingtoneUri();
+            if (RingtoneUtils.isRandomRingtone(alarm.alert) || RingtoneUtils.isRandomCustomRingtone(alarm.alert)) {
+                final Uri stagedRingtone = AlarmAudioStager.getStagedRingtone(context, instance);
+                instance.mRingtone = stagedRingtone != null
+                    ? stagedRingtone
+                    : RingtoneUtils.drawRandomRingtoneUri(alarm.alert);
             }
         }
 
         instance.updateInstance(contentResolver);
+        AlarmFireTrace.mark(context, AlarmFireTrace.Stage.FIRED_STATE_SAVED);
+        AlarmFireTrace.setScheduledTime(context, instance.getAlarmTime().getTimeInMillis());
 
         if (instance.mAlarmId != null) {
             // if the time changed *backward* and pushed an instance from missed back to fired,
@@ -425,7 +445,7 @@ public final class AlarmStateManager extends BroadcastReceiver {
     public static void setSnoozeState(final Context context, AlarmInstance instance, boolean showToast) {
         final SharedPreferences prefs = getDefaultSharedPreferences(context);
         final int snoozeMinutes = instance.mSnoozeDuration;
-        Calendar newAlarmTime = Calendar.getInstance();
+        Calendar newAlarmTime = getCurrentTime();
         // If the "Snooze duration" setting has been set to "None" simply dismiss the alarm.
         if (snoozeMinutes == ALARM_SNOOZE_DURATION_DISABLED) {
             deleteInstanceAndUpdateParent(context, instance, true);
@@ -454,6 +474,10 @@ public final class AlarmStateManager extends BroadcastReceiver {
         AlarmNotifications.showSnoozeNotification(context, instance);
         scheduleInstanceStateChange(context, instance.getAlarmTime(), instance, AlarmInstance.FIRED_STATE);
 
+        // Prepare the ringtone of the next firing; it keeps the random ringtone chosen for this instance
+        AlarmAudioStager.stage(context, instance);
+        AlarmScreenResources.prewarm(context, instance);
+
         // Display the snooze minutes in a toast.
         if (showToast) {
             AppExecutors.getMainThread().post(() -> {
@@ -597,6 +621,8 @@ public final class AlarmStateManager extends BroadcastReceiver {
         }
 
         cancelPowerOffAlarm(context, instance);
+
+        AlarmAudioStager.release(context, instance);
     }
 
     /**
@@ -792,6 +818,25 @@ public final class AlarmStateManager extends BroadcastReceiver {
         updateNextAlarm(context);
     }
 
+    /**
+     * This will unregister the given instances without updating them in the database, as they are
+     * about to be deleted in bulk (e.g. when restoring a backup). The caller is responsible for
+     * deleting the instances and then calling {@link #updateNextAlarm(Context)}.
+     *
+     * @param context   application context
+     * @param instances to unregister
+     */
+    public static void unregisterInstancesBeforeDeletion(Context context, List<AlarmInstance> instances) {
+        for (AlarmInstance instance : instances) {
+            LogUtils.i("Unregistering instance before deletion " + instance.mId);
+            AlarmService.stopAlarm(context, instance);
+            AlarmNotifications.clearNotification(context, instance);
+            cancelScheduledInstanceStateChange(context, instance);
+            cancelPowerOffAlarm(context, instance);
+            AlarmAudioStager.release(context, instance);
+        }
+    }
+
     /**
      * Fix and update all alarm instance when a time change event occurs.
      *
@@ -872,6 +917,8 @@ public final class AlarmStateManager extends BroadcastReceiver {
                 return;
             }
 
+            AlarmFireTrace.mark(context, AlarmFireTrace.Stage.INSTANCE_READ);
+
             int globalId = SettingsDAO.getGlobalIntentId(getDefaultSharedPreferences(context));
             int intentId = intent.getIntExtra(ALARM_GLOBAL_ID_EXTRA, -1);
             int alarmState = intent.getIntExtra(ALARM_STATE_EXTRA, -1);
@@ -977,6 +1024,13 @@ public final class AlarmStateManager extends BroadcastReceiver {
         });
     }
 
+    /**
+     * Provides the current time. Tests can replace it to run the state machine on a simulated clock.
+     */
+    interface CurrentTimeFactory {
+        Calendar getCurrentTime();
+    }
+
     /**
      * Abstracts away how state changes are scheduled. The {@link AlarmManagerStateChangeScheduler}
      * implementation schedules callbacks within the system AlarmManager. Alternate
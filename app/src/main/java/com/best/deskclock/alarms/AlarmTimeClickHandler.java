@@ -114,6 +114,9 @@ public final class AlarmTimeClickHandler {
      * Synchronizes the enabled state of all alarms sharing the same label and
      * synchronization setting as the given source alarm.
      *
+     * <p>Only the alarms of the group whose state differs are read, through the label index,
+     * and they are all updated in a single batch.</p>
+     *
      * @param sourceAlarm the alarm whose label and sync settings define the group
      * @param newState    the enabled state to apply to all matching alarms
      */
@@ -124,23 +127,21 @@ public final class AlarmTimeClickHandler {
         }
 
         AppExecutors.getDiskIO().execute(() -> {
-            List<Alarm> alarms = Alarm.getAlarms(mContext.getContentResolver(), null);
+            final String selection = Alarm.LABEL + "=? AND " + Alarm.SYNC_BY_LABEL + "=? AND "
+                + Alarm.ENABLED + "=? AND " + Alarm._ID + "!=?";
+            List<Alarm> alarms = Alarm.getAlarms(mContext.getContentResolver(), selection,
+                sourceAlarm.label, sourceAlarm.syncByLabel ? "1" : "0", newState ? "0" : "1",
+                String.valueOf(sourceAlarm.id));
 
             for (Alarm alarm : alarms) {
-                if (alarm.id != sourceAlarm.id
-                    && sourceAlarm.label.equals(alarm.label)
-                    && sourceAlarm.syncByLabel == alarm.syncByLabel) {
-
-                    if (alarm.enabled != newState) {
-                        alarm.enabled = newState;
+                alarm.enabled = newState;
 
-                        fixAlarmDateIfPast(alarm);
+                fixAlarmDateIfPast(alarm);
 
-                        mAlarmUpdateHandler.asyncUpdateAlarm(alarm, false, false);
-                        LOGGER.d("Sync alarm " + alarm.id + " with label " + alarm.label);
-                    }
-                }
+                LOGGER.d("Sync alarm " + alarm.id + " with label " + alarm.label);
             }
+
+            mAlarmUpdateHandler.asyncUpdateAlarms(alarms);
         });
     }
 
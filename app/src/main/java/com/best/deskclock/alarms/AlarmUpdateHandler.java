@@ -6,8 +6,14 @@
 
 package com.best.deskclock.alarms;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.Context;
+import android.content.OperationApplicationException;
+import android.os.RemoteException;
+import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -16,12 +22,14 @@ import com.best.deskclock.base.AppExecutors;
 import com.best.deskclock.events.Events;
 import com.best.deskclock.provider.Alarm;
 import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.provider.ClockContract;
 import com.best.deskclock.uicomponents.toast.SnackbarManager;
 import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.Utils;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
@@ -196,6 +204,73 @@ public final class AlarmUpdateHandler {
         });
     }
 
+    /**
+     * Modifies several alarms on the background, e.g. all the alarms synchronized by a label, and
+     * re-creates their instances.
+     * <p>
+     * The alarms are updated, their instances deleted and the new ones inserted through a single
+     * provider batch, i.e. a single SQLite transaction, rather than one update per alarm. The new
+     * instances are then registered and the next alarm is updated once.
+     *
+     * @param alarms The alarms to be modified.
+     */
+    public void asyncUpdateAlarms(final List<Alarm> alarms) {
+        if (alarms.isEmpty()) {
+            return;
+        }
+
+        AppExecutors.getDiskIO().execute(() -> {
+            final ContentResolver cr = mAppContext.getContentResolver();
+            final ArrayList<ContentProviderOperation> operations = new ArrayList<>(alarms.size() * 3);
+            final List<Long> alarmIds = new ArrayList<>(alarms.size());
+            final List<AlarmInstance> instances = new ArrayList<>();
+            final List<Integer> instanceOperationIndexes = new ArrayList<>();
+            final Calendar now = Calendar.getInstance();
+
+            for (Alarm alarm : alarms) {
+                alarmIds.add(alarm.id);
+
+                operations.add(ContentProviderOperation.newUpdate(Alarm.getContentUri(alarm.id))
+                    .withValues(alarm.createContentValues())
+                    .build());
+                operations.add(ContentProviderOperation.newDelete(AlarmInstance.CONTENT_URI)
+                    .withSelection(AlarmInstance.ALARM_ID + "=" + alarm.id, null)
+                    .build());
+
+                if (alarm.enabled) {
+                    final AlarmInstance instance = alarm.createInstanceAfter(now);
+                    instances.add(instance);
+                    instanceOperationIndexes.add(operations.size());
+                    operations.add(ContentProviderOperation.newInsert(AlarmInstance.CONTENT_URI)
+                        .withValues(instance.createContentValues())
+                        .build());
+                }
+            }
+
+            // Stop and cancel everything scheduled for the current instances; their rows are deleted by the batch.
+            final String selection = AlarmInstance.ALARM_ID + " IN (" + TextUtils.join(",", alarmIds) + ")";
+            AlarmStateManager.unregisterInstancesBeforeDeletion(mAppContext, AlarmInstance.getInstances(cr, selection));
+
+            final ContentProviderResult[] results;
+            try {
+                results = cr.applyBatch(ClockContract.AUTHORITY, operations);
+            } catch (OperationApplicationException | RemoteException e) {
+                LogUtils.e("Failed to update alarms " + alarmIds, e);
+                AlarmStateManager.fixAlarmInstances(mAppContext);
+                return;
+            }
+
+            for (int i = 0; i < instances.size(); i++) {
+                final AlarmInstance instance = instances.get(i);
+                instance.mId = ContentUris.parseId(results[instanceOperationIndexes.get(i)].uri);
+                AlarmStateManager.registerInstance(mAppContext, instance, false);
+            }
+
+            AlarmStateManager.updateNextAlarm(mAppContext);
+            LogUtils.i("Updated " + alarms.size() + " alarms in a single batch");
+        });
+    }
+
     /**
      * Deletes an alarm on the background.
      *
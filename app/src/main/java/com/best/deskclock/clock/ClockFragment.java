@@ -130,6 +130,7 @@ public final class ClockFragment extends DeskClockFragment {
         } else {
             ClockUtils.adjustAnalogClockSize(analogClock, mPrefs, false, true, false);
             ClockUtils.setAnalogClockSecondsEnabled(mClockStyle, analogClock, mShowSeconds);
+            analogClock.setSweepSeconds(SettingsDAO.isClockSecondHandSweeping(mPrefs));
         }
 
         ClockUtils.updateDate(mDateFormat, mDateFormatForAccessibility, mBinding.mainClockFrame.mainClockContainer);
@@ -202,6 +203,7 @@ public final class ClockFragment extends DeskClockFragment {
         mBinding.cityRecyclerView.setAdapter(mCityAdapter);
 
         DataModel.getDataModel().addCityListener(mCityAdapter);
+        DataModel.getDataModel().addTimeZoneTransitionListener(mCityAdapter);
 
         CityItemTouchHelper callback = new CityItemTouchHelper(mCityAdapter, mShowHomeClock);
         ItemTouchHelper itemTouchHelper = new ItemTouchHelper(callback);
@@ -271,6 +273,7 @@ public final class ClockFragment extends DeskClockFragment {
     public void onDestroyView() {
         UiDataModel.getUiDataModel().removePeriodicCallback(mQuarterHourUpdater);
         DataModel.getDataModel().removeCityListener(mCityAdapter);
+        DataModel.getDataModel().removeTimeZoneTransitionListener(mCityAdapter);
 
         mBinding = null;
 
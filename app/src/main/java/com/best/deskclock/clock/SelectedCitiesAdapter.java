@@ -23,6 +23,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.best.deskclock.data.City;
 import com.best.deskclock.data.CityListener;
 import com.best.deskclock.data.DataModel;
+import com.best.deskclock.data.TimeZoneTransitionListener;
 import com.best.deskclock.databinding.WorldClockItemBinding;
 import com.best.deskclock.uicomponents.ItemTouchHelperContract;
 import com.best.deskclock.utils.ThemeUtils;
@@ -32,6 +33,8 @@ import com.best.deskclock.widgets.DigitalAppWidgetProvider;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
 
 /**
  * This adapter lists all the selected world clocks. Optionally, it also includes a clock at
@@ -42,7 +45,8 @@ import java.util.List;
  * </ul>
  * If the phone is in portrait mode it will also include the main clock at the top.
  */
-public class SelectedCitiesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements CityListener, ItemTouchHelperContract {
+public class SelectedCitiesAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements CityListener,
+    TimeZoneTransitionListener, ItemTouchHelperContract {
 
     public final String PAYLOAD_UPDATE_BACKGROUND = "PAYLOAD_UPDATE_BACKGROUND";
 
@@ -161,6 +165,84 @@ public class SelectedCitiesAdapter extends RecyclerView.Adapter<RecyclerView.Vie
         notifyDataSetChanged();
     }
 
+    @Override
+    public void cityAdded(City city, int position) {
+        if (position > mCities.size()) {
+            citiesChanged();
+            return;
+        }
+
+        mCities.add(position, city);
+
+        final int offset = mShowHomeClock ? 1 : 0;
+        notifyItemInserted(position + offset);
+        notifyWorldClockBackgroundsChanged();
+    }
+
+    @Override
+    public void cityRemoved(City city, int position) {
+        if (position >= mCities.size() || !mCities.get(position).equals(city)) {
+            citiesChanged();
+            return;
+        }
+
+        mCities.remove(position);
+
+        final int offset = mShowHomeClock ? 1 : 0;
+        notifyItemRemoved(position + offset);
+        notifyWorldClockBackgroundsChanged();
+    }
+
+    @Override
+    public void cityMoved(City city, int fromPosition, int toPosition) {
+        // The move was already applied by a drag and drop of this adapter.
+        if (toPosition < mCities.size() && mCities.get(toPosition).equals(city)) {
+            return;
+        }
+
+        if (fromPosition >= mCities.size() || !mCities.get(fromPosition).equals(city)) {
+            citiesChanged();
+            return;
+        }
+
+        mCities.add(toPosition, mCities.remove(fromPosition));
+
+        final int offset = mShowHomeClock ? 1 : 0;
+        notifyItemMoved(fromPosition + offset, toPosition + offset);
+        notifyWorldClockBackgroundsChanged();
+    }
+
+    @Override
+    public void timeZonesTransitioned(Set<String> timeZoneIds) {
+        // The time difference of every city is relative to the device time zone.
+        if (timeZoneIds.contains(TimeZone.getDefault().getID())) {
+            notifyItemRangeChanged(0, getItemCount());
+            return;
+        }
+
+        if (mShowHomeClock && timeZoneIds.contains(getHomeCity().getTimeZone().getID())) {
+            notifyItemChanged(0);
+        }
+
+        final int offset = mShowHomeClock ? 1 : 0;
+        for (int i = 0; i < mCities.size(); i++) {
+            if (timeZoneIds.contains(mCities.get(i).getTimeZone().getID())) {
+                notifyItemChanged(i + offset);
+            }
+        }
+    }
+
+    /**
+     * Only the card backgrounds of the world clocks depend on their position; refresh them
+     * without rebinding the clocks.
+     */
+    private void notifyWorldClockBackgroundsChanged() {
+        final int offset = mShowHomeClock ? 1 : 0;
+        if (!mCities.isEmpty()) {
+            notifyItemRangeChanged(offset, mCities.size(), PAYLOAD_UPDATE_BACKGROUND);
+        }
+    }
+
     @Override
     public void onRowSelected(RecyclerView.ViewHolder viewHolder) {
         // Draw a shadow under the city card when it's dragging
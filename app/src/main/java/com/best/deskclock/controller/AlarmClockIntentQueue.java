@@ -0,0 +1,463 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.controller;
+
+import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
+import static com.best.deskclock.uidata.UiDataModel.Tab.ALARMS;
+import static com.best.deskclock.uidata.UiDataModel.Tab.TIMERS;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.content.Intent;
+import android.content.OperationApplicationException;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import com.best.deskclock.DeskClock;
+import com.best.deskclock.R;
+import com.best.deskclock.alarms.AlarmFragment;
+import com.best.deskclock.alarms.AlarmStateManager;
+import com.best.deskclock.base.AppExecutors;
+import com.best.deskclock.data.DataModel;
+import com.best.deskclock.data.SettingsDAO;
+import com.best.deskclock.data.Timer;
+import com.best.deskclock.events.Events;
+import com.best.deskclock.provider.Alarm;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.provider.ClockContract;
+import com.best.deskclock.timer.TimerService;
+import com.best.deskclock.uidata.UiDataModel;
+import com.best.deskclock.utils.AlarmUtils;
+import com.best.deskclock.utils.LogUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies the {@link android.provider.AlarmClock#ACTION_SET_ALARM} and
+ * {@link android.provider.AlarmClock#ACTION_SET_TIMER} intents in batches.
+ * <p>
+ * Automation apps may send hundreds of these intents in a burst. The requests received within
+ * {@link #BATCH_WINDOW_MS} of the first one are collected, equivalent alarm requests are merged,
+ * and the batch is applied at once: the alarms and their instances are written in a single
+ * provider transaction, the next alarm is updated once and the UI is shown once. Timer requests
+ * are never merged, since each of them starts a timer.
+ * <p>
+ * Requests are enqueued and batches are started on the main thread, which also owns the
+ * throughput counters logged after each batch. The alarms are always written on the background
+ * executor. A voice interaction is answered once its request is applied, so it applies the pending
+ * batch immediately with {@link #flushNow} and answers from the callback.
+ */
+final class AlarmClockIntentQueue {
+
+    private static final LogUtils.Logger LOGGER = new LogUtils.Logger("AlarmClockIntentQueue");
+
+    /**
+     * How long the requests following a first request are collected before the batch is applied.
+     */
+    private static final long BATCH_WINDOW_MS = 300;
+
+    /**
+     * Number of pending requests above which the batch is applied without waiting.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final AlarmClockIntentQueue sQueue = new AlarmClockIntentQueue();
+
+    /**
+     * The pending alarm requests, keyed so that equivalent requests are merged.
+     */
+    private final Map<SetAlarmKey, SetAlarmRequest> mPendingAlarms = new LinkedHashMap<>();
+
+    /**
+     * The pending timer requests, in the order they were received.
+     */
+    private final List<SetTimerRequest> mPendingTimers = new ArrayList<>();
+
+    private final Runnable mFlushRunnable = () -> flush(null);
+
+    private Context mAppContext;
+
+    // Throughput counters, since the process started.
+    private int mReceivedCount;
+    private int mMergedCount;
+    private int mBatchCount;
+    private int mAppliedAlarmCount;
+    private int mAppliedTimerCount;
+    private long mAlarmBatchDurationMs;
+
+    private AlarmClockIntentQueue() {
+    }
+
+    static AlarmClockIntentQueue getQueue() {
+        return sQueue;
+    }
+
+    /**
+     * Enqueues the creation of the given alarm or, if an alarm with the same settings exists, its
+     * activation.
+     *
+     * @param alarm    the alarm to create, with all its settings applied
+     * @param label    the label to match an existing alarm; {@code null} to match any label
+     * @param vibrate  the vibration to match an existing alarm; {@code null} to match any setting
+     * @param ringtone the ringtone to match an existing alarm; {@code null} to match any ringtone
+     * @param skipUi   {@code true} if the alarm should not be shown once set
+     */
+    void enqueueSetAlarm(Context context, Alarm alarm, String label, Boolean vibrate, Uri ringtone,
+                         boolean skipUi) {
+
+        // Days are always matched: if the intent specifies no days, it explicitly means "not recurring".
+        final SetAlarmKey key = new SetAlarmKey(alarm.hour, alarm.minutes, label, alarm.daysOfWeek.getBits(),
+            vibrate, ringtone == null ? null : ringtone.toString());
+        final SetAlarmRequest pending = mPendingAlarms.get(key);
+        if (pending != null) {
+            // Show the alarm if any of the merged requests asked for it.
+            pending.mSkipUi &= skipUi;
+            mMergedCount++;
+        } else {
+            mPendingAlarms.put(key, new SetAlarmRequest(alarm, key, ringtone, skipUi));
+        }
+
+        onEnqueued(context);
+    }
+
+    /**
+     * Enqueues the start of a reset timer of the given length and label, created if none exists.
+     *
+     * @param skipUi {@code true} if the timer should not be shown once started
+     */
+    void enqueueSetTimer(Context context, long lengthMillis, String label, boolean skipUi) {
+        mPendingTimers.add(new SetTimerRequest(lengthMillis, label, skipUi));
+
+        onEnqueued(context);
+    }
+
+    /**
+     * Applies the pending requests without waiting for the end of the batch window.
+     *
+     * @param callback notified on the main thread once the pending requests are applied;
+     *                 {@code null} if the caller does not need to know
+     */
+    void flushNow(FlushCallback callback) {
+        AppExecutors.getMainThread().removeCallbacks(mFlushRunnable);
+        flush(callback);
+    }
+
+    private void onEnqueued(Context context) {
+        mAppContext = context.getApplicationContext();
+        mReceivedCount++;
+
+        final int pendingCount = mPendingAlarms.size() + mPendingTimers.size();
+        if (pendingCount >= MAX_BATCH_SIZE) {
+            AppExecutors.getMainThread().removeCallbacks(mFlushRunnable);
+            flush(null);
+        } else if (pendingCount == 1) {
+            AppExecutors.getMainThread().postDelayed(mFlushRunnable, BATCH_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Applies the pending requests. The timers are started on the main thread, as required by
+     * the data model, while the alarms are written in the background.
+     *
+     * @param callback notified on the main thread once the requests are applied; may be {@code null}
+     */
+    private void flush(FlushCallback callback) {
+        mBatchCount++;
+
+        if (!mPendingTimers.isEmpty()) {
+            final List<SetTimerRequest> timerRequests = new ArrayList<>(mPendingTimers);
+            mPendingTimers.clear();
+            applyTimers(mAppContext, timerRequests);
+        }
+
+        if (mPendingAlarms.isEmpty()) {
+            logCounters();
+            if (callback != null) {
+                callback.onFlushed(true);
+            }
+            return;
+        }
+
+        final List<SetAlarmRequest> alarmRequests = new ArrayList<>(mPendingAlarms.values());
+        mPendingAlarms.clear();
+
+        final Context context = mAppContext;
+        AppExecutors.getDiskIO().execute(() -> {
+            boolean applied;
+            try {
+                applied = applyAlarms(context, alarmRequests);
+            } catch (RuntimeException e) {
+                // Still answer the caller, e.g. a voice interaction waiting for the batch.
+                LOGGER.e("Failed to set " + alarmRequests.size() + " alarms", e);
+                applied = false;
+            }
+
+            final boolean result = applied;
+            if (callback != null) {
+                AppExecutors.getMainThread().post(() -> callback.onFlushed(result));
+            }
+        });
+    }
+
+    private void applyTimers(Context context, List<SetTimerRequest> requests) {
+        final String defaultTimeToAddToTimer =
+            String.valueOf(SettingsDAO.getDefaultTimeToAddToTimer(getDefaultSharedPreferences(context)));
+
+        Timer shownTimer = null;
+        for (SetTimerRequest request : requests) {
+            final long lengthMillis = request.lengthMillis();
+            final String label = request.label();
+
+            // Attempt to reuse an existing timer that is Reset with the same length and label.
+            Timer timer = null;
+            for (Timer t : DataModel.getDataModel().getTimers()) {
+                if (t.isReset() && t.getLength() == lengthMillis && TextUtils.equals(label, t.getLabel())) {
+                    timer = t;
+                    break;
+                }
+            }
+
+            // Create a new timer if one could not be reused.
+            if (timer == null) {
+                timer = DataModel.getDataModel().addTimer(lengthMillis, label, defaultTimeToAddToTimer,
+                    request.skipUi());
+                Events.sendTimerEvent(R.string.action_create, R.string.label_intent);
+            }
+
+            // Start the selected timer.
+            DataModel.getDataModel().startTimer(timer);
+            Events.sendTimerEvent(R.string.action_start, R.string.label_intent);
+
+            if (!request.skipUi()) {
+                shownTimer = timer;
+            }
+        }
+
+        mAppliedTimerCount += requests.size();
+
+        // If not instructed to skip the UI, display the last running timer.
+        if (shownTimer != null) {
+            // Change to the timers tab.
+            UiDataModel.getUiDataModel().setSelectedTab(TIMERS);
+
+            // Open DeskClock which is now positioned on the timers tab.
+            context.startActivity(new Intent(context, DeskClock.class)
+                .putExtra(TimerService.EXTRA_TIMER_ID, shownTimer.getId())
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK));
+        }
+    }
+
+    /**
+     * Writes the alarms of the batch and their instances in a single transaction, then registers
+     * the instances and updates the next alarm once.
+     *
+     * @return {@code true} if the batch was written
+     */
+    private boolean applyAlarms(Context context, List<SetAlarmRequest> requests) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final ContentResolver cr = context.getContentResolver();
+        final AlarmIndex alarmIndex = AlarmIndex.build(cr);
+        final Calendar now = DataModel.getDataModel().getCalendar();
+
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>(requests.size() * 3);
+        final List<AlarmInstance> deletedInstances = new ArrayList<>();
+        final List<Alarm> appliedAlarms = new ArrayList<>();
+        final List<AlarmInstance> instances = new ArrayList<>();
+        final List<Integer> alarmOperationIndexes = new ArrayList<>();
+        final List<Integer> instanceOperationIndexes = new ArrayList<>();
+        final List<Boolean> skipUis = new ArrayList<>();
+        int mergedCount = 0;
+
+        for (SetAlarmRequest request : requests) {
+            final SetAlarmKey key = request.mKey;
+
+            // Try to locate an existing alarm, or one created earlier in this batch.
+            final Alarm existingAlarm = alarmIndex.findAlarm(key.hour(), key.minutes(), key.label(), key.daysBits(),
+                key.vibrate(), request.mRingtone);
+
+            // Merge the request with the one that already created or enabled this alarm.
+            final int appliedIndex = indexOfSameAlarm(appliedAlarms, existingAlarm);
+            if (appliedIndex >= 0) {
+                skipUis.set(appliedIndex, skipUis.get(appliedIndex) && request.mSkipUi);
+                mergedCount++;
+                continue;
+            }
+
+            final Alarm alarm;
+            final int alarmOperationIndex;
+            if (existingAlarm != null) {
+                // Enable the matching alarm and delete all its old instances.
+                alarm = existingAlarm;
+                alarm.enabled = true;
+                alarmOperationIndex = -1;
+                operations.add(ContentProviderOperation.newUpdate(Alarm.getContentUri(alarm.id))
+                    .withValues(alarm.createContentValues())
+                    .build());
+
+                deletedInstances.addAll(alarmIndex.getInstances(alarm.id));
+                operations.add(ContentProviderOperation.newDelete(AlarmInstance.CONTENT_URI)
+                    .withSelection(AlarmInstance.ALARM_ID + "=?", new String[]{String.valueOf(alarm.id)})
+                    .build());
+
+                Events.sendAlarmEvent(R.string.action_update, R.string.label_intent);
+            } else {
+                // No existing alarm could be located; create one using the intent data.
+                alarm = request.mAlarm;
+                alarmIndex.addAlarm(alarm);
+                alarmOperationIndex = operations.size();
+                operations.add(ContentProviderOperation.newInsert(Alarm.CONTENT_URI)
+                    .withValues(alarm.createContentValues())
+                    .build());
+
+                Events.sendAlarmEvent(R.string.action_create, R.string.label_intent);
+            }
+
+            // Schedule the next instance.
+            final AlarmInstance instance = alarm.createInstanceAfter(now);
+            final ContentProviderOperation.Builder instanceOperation =
+                ContentProviderOperation.newInsert(AlarmInstance.CONTENT_URI)
+                    .withValues(instance.createContentValues());
+            if (alarmOperationIndex >= 0) {
+                // The id of the new alarm is only known once it is inserted.
+                instanceOperation.withValueBackReference(AlarmInstance.ALARM_ID, alarmOperationIndex);
+            }
+
+            appliedAlarms.add(alarm);
+            instances.add(instance);
+            alarmOperationIndexes.add(alarmOperationIndex);
+            instanceOperationIndexes.add(operations.size());
+            skipUis.add(request.mSkipUi);
+            operations.add(instanceOperation.build());
+        }
+
+        // Stop and cancel everything scheduled for the replaced instances.
+        AlarmStateManager.unregisterInstancesBeforeDeletion(context, deletedInstances);
+
+        final ContentProviderResult[] results;
+        try {
+            results = cr.applyBatch(ClockContract.AUTHORITY, operations);
+        } catch (OperationApplicationException | RemoteException e) {
+            LOGGER.e("Failed to set " + requests.size() + " alarms", e);
+            // The replaced instances were unregistered but are still stored: schedule them again.
+            AlarmStateManager.fixAlarmInstances(context);
+            return false;
+        }
+
+        AlarmInstance shownInstance = null;
+        for (int i = 0; i < instances.size(); i++) {
+            final Alarm alarm = appliedAlarms.get(i);
+            final AlarmInstance instance = instances.get(i);
+            if (alarmOperationIndexes.get(i) >= 0) {
+                alarm.id = ContentUris.parseId(Objects.requireNonNull(results[alarmOperationIndexes.get(i)].uri));
+                instance.mAlarmId = alarm.id;
+                LOGGER.i("Created new alarm: " + alarm);
+            } else {
+                LOGGER.i("Updated alarm: " + alarm);
+            }
+            instance.mId = ContentUris.parseId(Objects.requireNonNull(results[instanceOperationIndexes.get(i)].uri));
+            AlarmStateManager.registerInstance(context, instance, false);
+
+            if (!skipUis.get(i)) {
+                shownInstance = instance;
+            }
+        }
+
+        AlarmStateManager.updateNextAlarm(context);
+
+        final long duration = SystemClock.elapsedRealtime() - startTime;
+        final AlarmInstance lastInstance = instances.isEmpty() ? null : instances.get(instances.size() - 1);
+        final AlarmInstance instanceToShow = shownInstance;
+        final int mergedInBatch = mergedCount;
+        AppExecutors.getMainThread().post(() -> {
+            mMergedCount += mergedInBatch;
+            mAppliedAlarmCount += instances.size();
+            mAlarmBatchDurationMs += duration;
+            logCounters();
+
+            if (lastInstance != null) {
+                AlarmUtils.popAlarmSetToast(context, lastInstance.getAlarmTime().getTimeInMillis());
+            }
+
+            if (instanceToShow != null) {
+                // Change to the alarms tab.
+                UiDataModel.getUiDataModel().setSelectedTab(ALARMS);
+
+                // Open DeskClock which is now positioned on the alarms tab.
+                final Intent showAlarm = Alarm.createIntent(context, DeskClock.class, instanceToShow.mAlarmId)
+                    .putExtra(AlarmFragment.SCROLL_TO_ALARM_INTENT_EXTRA, instanceToShow.mAlarmId)
+                    .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                context.startActivity(showAlarm);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * The alarms created by a batch have no id yet, so they are compared by reference.
+     *
+     * @return the index of the given alarm in {@code alarms}; -1 if absent
+     */
+    private static int indexOfSameAlarm(List<Alarm> alarms, Alarm alarm) {
+        for (int i = 0; i < alarms.size(); i++) {
+            if (alarms.get(i) == alarm) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void logCounters() {
+        LOGGER.i("Received " + mReceivedCount + " requests, merged " + mMergedCount + ", applied "
+            + mAppliedAlarmCount + " alarms and " + mAppliedTimerCount + " timers in " + mBatchCount
+            + " batches; alarm batches took " + mAlarmBatchDurationMs + " ms");
+    }
+
+    /**
+     * The settings that identify equivalent alarm requests.
+     */
+    private record SetAlarmKey(int hour, int minutes, String label, int daysBits, Boolean vibrate,
+                               String ringtone) {
+    }
+
+    private static final class SetAlarmRequest {
+
+        private final Alarm mAlarm;
+        private final SetAlarmKey mKey;
+        private final Uri mRingtone;
+        private boolean mSkipUi;
+
+        private SetAlarmRequest(Alarm alarm, SetAlarmKey key, Uri ringtone, boolean skipUi) {
+            mAlarm = alarm;
+            mKey = key;
+            mRingtone = ringtone;
+            mSkipUi = skipUi;
+        }
+    }
+
+    private record SetTimerRequest(long lengthMillis, String label, boolean skipUi) {
+    }
+
+    /**
+     * Notified once the requests pending at the time of a {@link #flushNow} are applied.
+     */
+    interface FlushCallback {
+
+        /**
+         * @param applied {@code true} if the requests were applied; {@code false} if writing the
+         *                alarms failed
+         */
+        void onFlushed(boolean applied);
+    }
+}
@@ -0,0 +1,256 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.controller;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.text.TextUtils;
+
+import com.best.deskclock.provider.Alarm;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Answers the alarm lookups of the {@link android.provider.AlarmClock} intents from memory.
+ * <p>
+ * All alarms are read with one query, then indexed by time of day and by the words of their
+ * label. The alarm instances are read with one more query on the first lookup that needs them,
+ * then grouped by alarm. Each lookup of an intent is then answered without querying the database
+ * again, instead of one query per alarm.
+ * <p>
+ * An index is a snapshot: it is built for the intents being handled and must not be kept once
+ * the alarms are modified, except through {@link #addAlarm}.
+ */
+final class AlarmIndex {
+
+    private final ContentResolver mContentResolver;
+
+    private final List<Alarm> mAlarms;
+
+    /**
+     * Maps a time of day, in minutes, to the alarms set at that time.
+     */
+    private final Map<Integer, List<Alarm>> mAlarmsByTime = new HashMap<>();
+
+    /**
+     * Maps each word of the labels, in lower case, to the ids of the alarms whose label contains
+     * it. Sorted so that the words starting with a prefix are a contiguous range.
+     */
+    private final TreeMap<String, Set<Long>> mAlarmIdsByLabelWord = new TreeMap<>();
+
+    /**
+     * Maps an alarm id to its instances. Built on first use.
+     */
+    private Map<Long, List<AlarmInstance>> mInstancesByAlarmId;
+
+    private AlarmIndex(ContentResolver cr, List<Alarm> alarms) {
+        mContentResolver = cr;
+        mAlarms = new ArrayList<>(alarms.size());
+
+        for (Alarm alarm : alarms) {
+            addAlarm(alarm);
+        }
+    }
+
+    /**
+     * Reads all alarms. This method performs disk I/O.
+     */
+    static AlarmIndex build(ContentResolver cr) {
+        return new AlarmIndex(cr, Alarm.getAlarms(cr, null));
+    }
+
+    /**
+     * Indexes an alarm, e.g. one about to be inserted, so that the next lookups find it.
+     */
+    void addAlarm(Alarm alarm) {
+        mAlarms.add(alarm);
+
+        final int timeKey = getTimeKey(alarm.hour, alarm.minutes);
+        List<Alarm> alarmsAtTime = mAlarmsByTime.get(timeKey);
+        if (alarmsAtTime == null) {
+            alarmsAtTime = new ArrayList<>();
+            mAlarmsByTime.put(timeKey, alarmsAtTime);
+        }
+        alarmsAtTime.add(alarm);
+
+        for (String word : getWords(alarm.label)) {
+            Set<Long> ids = mAlarmIdsByLabelWord.get(word);
+            if (ids == null) {
+                ids = new HashSet<>();
+                mAlarmIdsByLabelWord.put(word, ids);
+            }
+            ids.add(alarm.id);
+        }
+    }
+
+    /**
+     * @return the enabled alarms, in database order
+     */
+    List<Alarm> getEnabledAlarms() {
+        final List<Alarm> enabledAlarms = new ArrayList<>();
+        for (Alarm alarm : mAlarms) {
+            if (alarm.enabled) {
+                enabledAlarms.add(alarm);
+            }
+        }
+
+        return enabledAlarms;
+    }
+
+    /**
+     * @return the alarms set at the given time of day, in database order
+     */
+    List<Alarm> getAlarmsAt(int hour24, int minutes) {
+        final List<Alarm> alarms = mAlarmsByTime.get(getTimeKey(hour24, minutes));
+        return alarms == null ? Collections.emptyList() : alarms;
+    }
+
+    /**
+     * Matches the label against the words of the alarm labels, ignoring case: each word of the
+     * label must start a word of the alarm label, and the whole label must appear in it.
+     *
+     * @return the alarms whose label contains the given label, in database order
+     */
+    List<Alarm> getAlarmsWithLabel(String label) {
+        final String query = label.toLowerCase(Locale.getDefault());
+        final List<String> queryWords = getWords(label);
+
+        // A label without any word cannot be looked up in the index.
+        Set<Long> candidateIds = null;
+        for (String queryWord : queryWords) {
+            final Set<Long> wordIds = new HashSet<>();
+            final SortedMap<String, Set<Long>> matchingWords =
+                mAlarmIdsByLabelWord.subMap(queryWord, queryWord + Character.MAX_VALUE);
+            for (Set<Long> ids : matchingWords.values()) {
+                wordIds.addAll(ids);
+            }
+
+            if (candidateIds == null) {
+                candidateIds = wordIds;
+            } else {
+                candidateIds.retainAll(wordIds);
+            }
+
+            if (candidateIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        final List<Alarm> alarms = new ArrayList<>();
+        for (Alarm alarm : mAlarms) {
+            if ((candidateIds == null || candidateIds.contains(alarm.id))
+                && !TextUtils.isEmpty(alarm.label)
+                && alarm.label.toLowerCase(Locale.getDefault()).contains(query)) {
+                alarms.add(alarm);
+            }
+        }
+
+        return alarms;
+    }
+
+    /**
+     * @return the earliest instance of the given alarm; {@code null} if it has none
+     */
+    AlarmInstance getNextInstance(long alarmId) {
+        AlarmInstance nextInstance = null;
+        for (AlarmInstance instance : getInstances(alarmId)) {
+            if (nextInstance == null || instance.getAlarmTime().before(nextInstance.getAlarmTime())) {
+                nextInstance = instance;
+            }
+        }
+
+        return nextInstance;
+    }
+
+    /**
+     * @return the instances of the given alarm
+     */
+    List<AlarmInstance> getInstances(long alarmId) {
+        if (mInstancesByAlarmId == null) {
+            Utils.enforceNotMainLooper();
+
+            mInstancesByAlarmId = new HashMap<>();
+            for (AlarmInstance instance : AlarmInstance.getInstances(mContentResolver, null)) {
+                if (instance.mAlarmId != null) {
+                    List<AlarmInstance> instances = mInstancesByAlarmId.get(instance.mAlarmId);
+                    if (instances == null) {
+                        instances = new ArrayList<>();
+                        mInstancesByAlarmId.put(instance.mAlarmId, instances);
+                    }
+                    instances.add(instance);
+                }
+            }
+        }
+
+        final List<AlarmInstance> instances = mInstancesByAlarmId.get(alarmId);
+        return instances == null ? Collections.emptyList() : instances;
+    }
+
+    /**
+     * Finds an alarm with the same settings as an alarm about to be created. The optional
+     * settings are only compared when they are given.
+     *
+     * @param label     the label of the alarm; {@code null} to match any label
+     * @param daysBits  the {@link com.best.deskclock.data.Weekdays} bits of the alarm
+     * @param vibrate   whether the alarm vibrates; {@code null} to match any setting
+     * @param ringtone  the ringtone of the alarm; {@code null} to match any ringtone
+     * @return the first matching alarm, enabled or not; {@code null} if none
+     */
+    Alarm findAlarm(int hour24, int minutes, String label, int daysBits, Boolean vibrate, Uri ringtone) {
+        for (Alarm alarm : getAlarmsAt(hour24, minutes)) {
+            if (label != null && !label.equals(alarm.label)) {
+                continue;
+            }
+
+            if (alarm.daysOfWeek.getBits() != daysBits) {
+                continue;
+            }
+
+            if (vibrate != null && alarm.vibrate != vibrate) {
+                continue;
+            }
+
+            if (ringtone != null && (alarm.alert == null || !ringtone.toString().equals(alarm.alert.toString()))) {
+                continue;
+            }
+
+            return alarm;
+        }
+
+        return null;
+    }
+
+    private static int getTimeKey(int hour24, int minutes) {
+        return hour24 * 60 + minutes;
+    }
+
+    /**
+     * @return the distinct words of the given text, in lower case
+     */
+    private static List<String> getWords(String text) {
+        if (TextUtils.isEmpty(text)) {
+            return Collections.emptyList();
+        }
+
+        final Set<String> words = new LinkedHashSet<>();
+        for (String word : text.toLowerCase(Locale.getDefault()).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+
+        return new ArrayList<>(words);
+    }
+}
@@ -7,7 +7,6 @@
 package com.best.deskclock.controller;
 
 import android.app.Activity;
-import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.provider.AlarmClock;
@@ -22,7 +21,9 @@ import com.best.deskclock.utils.Utils;
 import java.text.DateFormatSymbols;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Returns a list of alarms that are specified by the intent
@@ -33,14 +34,16 @@ import java.util.List;
 class FetchMatchingAlarmsAction implements Runnable {
 
     private final Context mContext;
+    private final AlarmIndex mAlarmIndex;
     private final List<Alarm> mAlarms;
     private final Intent mIntent;
     private final List<Alarm> mMatchingAlarms = new ArrayList<>();
     private final Activity mActivity;
 
-    public FetchMatchingAlarmsAction(Context context, List<Alarm> alarms, Intent intent,
-                                     Activity activity) {
+    public FetchMatchingAlarmsAction(Context context, AlarmIndex alarmIndex, List<Alarm> alarms,
+                                     Intent intent, Activity activity) {
         mContext = context;
+        mAlarmIndex = alarmIndex;
         // Only enabled alarms are passed
         mAlarms = alarms;
         mIntent = intent;
@@ -58,7 +61,6 @@ class FetchMatchingAlarmsAction implements Runnable {
             return;
         }
 
-        final ContentResolver cr = mContext.getContentResolver();
         switch (searchMode) {
             case AlarmClock.ALARM_SEARCH_MODE_TIME -> {
                 // At least one of these has to be specified in this search mode.
@@ -78,11 +80,7 @@ class FetchMatchingAlarmsAction implements Runnable {
                 final int hour24 = isPm && hour < 12 ? (hour + 12) : hour;
 
                 // There might be multiple alarms at the same time
-                for (Alarm alarm : mAlarms) {
-                    if (alarm.hour == hour24 && alarm.minutes == minutes) {
-                        mMatchingAlarms.add(alarm);
-                    }
-                }
+                retainPassedAlarms(mAlarmIndex.getAlarmsAt(hour24, minutes));
                 if (mMatchingAlarms.isEmpty()) {
                     final String reason = mContext.getString(R.string.no_alarm_at, hour24, minutes);
                     notifyFailureAndLog(reason, mActivity);
@@ -91,8 +89,7 @@ class FetchMatchingAlarmsAction implements Runnable {
             case AlarmClock.ALARM_SEARCH_MODE_NEXT -> {
                 // Match currently firing alarms before scheduled alarms.
                 for (Alarm alarm : mAlarms) {
-                    final AlarmInstance alarmInstance =
-                        AlarmInstance.getNextUpcomingInstanceByAlarmId(cr, alarm.id);
+                    final AlarmInstance alarmInstance = mAlarmIndex.getNextInstance(alarm.id);
                     if (alarmInstance != null && alarmInstance.mAlarmState == AlarmInstance.FIRED_STATE) {
                         mMatchingAlarms.add(alarm);
                     }
@@ -110,10 +107,14 @@ class FetchMatchingAlarmsAction implements Runnable {
 
                 // Get time from nextAlarm and see if there are any other alarms matching this time
                 final Calendar nextTime = nextAlarm.getAlarmTime();
-                final List<Alarm> alarmsFiringAtSameTime = getAlarmsByHourMinutes(
-                    nextTime.get(Calendar.HOUR_OF_DAY), nextTime.get(Calendar.MINUTE), cr);
-                // There might be multiple alarms firing next
-                mMatchingAlarms.addAll(alarmsFiringAtSameTime);
+                // There might be multiple alarms firing next; if we want to dismiss we should
+                // only add enabled alarms
+                for (Alarm alarm : mAlarmIndex.getAlarmsAt(
+                    nextTime.get(Calendar.HOUR_OF_DAY), nextTime.get(Calendar.MINUTE))) {
+                    if (alarm.enabled) {
+                        mMatchingAlarms.add(alarm);
+                    }
+                }
             }
             case AlarmClock.ALARM_SEARCH_MODE_ALL -> mMatchingAlarms.addAll(mAlarms);
             case AlarmClock.ALARM_SEARCH_MODE_LABEL -> {
@@ -126,11 +127,7 @@ class FetchMatchingAlarmsAction implements Runnable {
                 }
 
                 // There might be multiple alarms with this label
-                for (Alarm alarm : mAlarms) {
-                    if (alarm.label.contains(label)) {
-                        mMatchingAlarms.add(alarm);
-                    }
-                }
+                retainPassedAlarms(mAlarmIndex.getAlarmsWithLabel(label));
                 if (mMatchingAlarms.isEmpty()) {
                     final String reason = mContext.getString(R.string.no_alarms_with_label);
                     notifyFailureAndLog(reason, mActivity);
@@ -139,11 +136,24 @@ class FetchMatchingAlarmsAction implements Runnable {
         }
     }
 
-    private List<Alarm> getAlarmsByHourMinutes(int hour24, int minutes, ContentResolver cr) {
-        // If we want to dismiss we should only add enabled alarms
-        final String selection = String.format("%s=? AND %s=? AND %s=?", Alarm.HOUR, Alarm.MINUTES, Alarm.ENABLED);
-        final String[] args = {String.valueOf(hour24), String.valueOf(minutes), "1"};
-        return Alarm.getAlarms(cr, selection, args);
+    /**
+     * Adds the given alarms that are also among the alarms passed to this action.
+     */
+    private void retainPassedAlarms(List<Alarm> alarms) {
+        if (alarms.isEmpty()) {
+            return;
+        }
+
+        final Set<Long> passedAlarmIds = new HashSet<>();
+        for (Alarm alarm : mAlarms) {
+            passedAlarmIds.add(alarm.id);
+        }
+
+        for (Alarm alarm : alarms) {
+            if (passedAlarmIds.contains(alarm.id)) {
+                mMatchingAlarms.add(alarm);
+            }
+        }
     }
 
     public List<Alarm> getMatchingAlarms() {
@@ -31,7 +31,6 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
 import android.provider.AlarmClock;
-import android.text.TextUtils;
 import android.text.format.DateFormat;
 import android.text.format.DateUtils;
 
@@ -51,12 +50,10 @@ import com.best.deskclock.provider.AlarmInstance;
 import com.best.deskclock.timer.TimerFragment;
 import com.best.deskclock.timer.TimerService;
 import com.best.deskclock.uidata.UiDataModel;
-import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
 import com.best.deskclock.utils.Utils;
 
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
@@ -77,6 +74,12 @@ public class HandleApiCalls extends Activity {
     private Context mAppContext;
     private SharedPreferences mPrefs;
 
+    /**
+     * {@code true} if this activity is finished once an asynchronous voice answer is sent rather
+     * than at the end of {@link #onCreate}.
+     */
+    private boolean mFinishDeferred;
+
     @Override
     protected void onCreate(Bundle icicle) {
         super.onCreate(icicle);
@@ -124,8 +127,11 @@ public class HandleApiCalls extends Activity {
             }
         } catch (Exception e) {
             LOGGER.wtf(e);
+            mFinishDeferred = false;
         } finally {
-            finish();
+            if (!mFinishDeferred) {
+                finish();
+            }
         }
     }
 
@@ -211,8 +217,8 @@ public class HandleApiCalls extends Activity {
             final Context appContext = mContext.getApplicationContext();
 
             AppExecutors.getDiskIO().execute(() -> {
-                final ContentResolver cr = appContext.getContentResolver();
-                final List<Alarm> alarms = Alarm.getEnabledAlarms(appContext);
+                final AlarmIndex alarmIndex = AlarmIndex.build(appContext.getContentResolver());
+                final List<Alarm> alarms = alarmIndex.getEnabledAlarms();
                 if (alarms.isEmpty()) {
                     final String reason = appContext.getString(R.string.no_scheduled_alarms);
                     if (mActivity != null && !mActivity.isDestroyed()) {
@@ -224,7 +230,7 @@ public class HandleApiCalls extends Activity {
 
                 // remove Alarms in MISSED, DISMISSED, and PRE-DISMISSED states
                 for (Iterator<Alarm> i = alarms.iterator(); i.hasNext(); ) {
-                    final AlarmInstance instance = AlarmInstance.getNextUpcomingInstanceByAlarmId(cr, i.next().id);
+                    final AlarmInstance instance = alarmIndex.getNextInstance(i.next().id);
                     if (instance == null || instance.mAlarmState > FIRED_STATE) {
                         i.remove();
                     }
@@ -248,7 +254,7 @@ public class HandleApiCalls extends Activity {
 
                 // fetch the alarms that are specified by the intent
                 final FetchMatchingAlarmsAction fetchMatchingAlarmsAction =
-                    new FetchMatchingAlarmsAction(mContext, alarms, mIntent, mActivity);
+                    new FetchMatchingAlarmsAction(mContext, alarmIndex, alarms, mIntent, mActivity);
                 fetchMatchingAlarmsAction.run();
                 final List<Alarm> matchingAlarms = fetchMatchingAlarmsAction.getMatchingAlarms();
 
@@ -333,7 +339,6 @@ public class HandleApiCalls extends Activity {
         }
 
         final boolean skipUi = intent.getBooleanExtra(AlarmClock.EXTRA_SKIP_UI, false);
-        final ContentResolver cr = getContentResolver();
 
         // If time information was not provided an existing alarm cannot be located and a new one
         // cannot be created so show the UI for creating the alarm from scratch per spec.
@@ -354,46 +359,33 @@ public class HandleApiCalls extends Activity {
             return;
         }
 
-        final StringBuilder selection = new StringBuilder();
-        final List<String> argsList = new ArrayList<>();
-        setSelectionFromIntent(intent, hour, minutes, selection, argsList);
-
-        // Try to locate an existing alarm using the intent data.
-        final String[] args = argsList.toArray(new String[0]);
-        final List<Alarm> alarms = Alarm.getAlarms(cr, selection.toString(), args);
-
-        final Alarm alarm;
-        if (!alarms.isEmpty()) {
-            // Enable the first matching alarm.
-            alarm = alarms.get(0);
-            alarm.enabled = true;
-            alarm.updateAlarm(cr);
-
-            // Delete all old instances.
-            AlarmStateManager.deleteAllInstances(this, alarm.id);
-
-            Events.sendAlarmEvent(R.string.action_update, R.string.label_intent);
-            LOGGER.i("Updated alarm: " + alarm);
-        } else {
-            // No existing alarm could be located; create one using the intent data.
-            alarm = new Alarm();
-            updateAlarmFromIntent(alarm, intent);
-            applyAlarmSettings(alarm, mAppContext, mPrefs);
-
-            // Save the new alarm.
-            alarm.addAlarm(cr);
+        // Create the alarm from the intent data. It is only inserted if no existing alarm matches
+        // the intent data once the batch of intents is applied.
+        final Alarm alarm = new Alarm();
+        updateAlarmFromIntent(alarm, intent);
+        applyAlarmSettings(alarm, mAppContext, mPrefs);
+        enqueueSetAlarm(alarm, intent, skipUi);
 
-            Events.sendAlarmEvent(R.string.action_create, R.string.label_intent);
-            LOGGER.i("Created new alarm: " + alarm);
+        // The voice interaction is only answered once the alarm is saved.
+        if (!isVoiceInteraction()) {
+            return;
         }
 
-        // Schedule the next instance.
-        final Calendar now = DataModel.getDataModel().getCalendar();
-        final AlarmInstance alarmInstance = alarm.createInstanceAfter(now);
-        setupInstance(alarmInstance, skipUi);
+        // The batch is written in the background; this activity stays alive to answer.
+        mFinishDeferred = true;
+        AlarmClockIntentQueue.getQueue().flushNow(applied -> {
+            if (!applied) {
+                Controller.getController().notifyVoiceFailure(this, getString(R.string.alarm_could_not_be_set));
+            } else {
+                // An existing alarm matching the intent data fires at the same time.
+                final Calendar now = DataModel.getDataModel().getCalendar();
+                final AlarmInstance alarmInstance = alarm.createInstanceAfter(now);
+                final String time = DateFormat.getTimeFormat(this).format(alarmInstance.getAlarmTime().getTime());
+                Controller.getController().notifyVoiceSuccess(this, getString(R.string.alarm_is_set, time));
+            }
 
-        final String time = DateFormat.getTimeFormat(this).format(alarmInstance.getAlarmTime().getTime());
-        Controller.getController().notifyVoiceSuccess(this, getString(R.string.alarm_is_set, time));
+            finish();
+        });
     }
 
     private void handleDismissTimer(Intent intent) {
@@ -484,58 +476,13 @@ public class HandleApiCalls extends Activity {
         final String label = getLabelFromIntent(intent, "");
         final boolean skipUi = intent.getBooleanExtra(AlarmClock.EXTRA_SKIP_UI, false);
 
-        // Attempt to reuse an existing timer that is Reset with the same length and label.
-        Timer timer = null;
-        for (Timer t : DataModel.getDataModel().getTimers()) {
-            if (!t.isReset()) {
-                continue;
-            }
-            if (t.getLength() != lengthMillis) {
-                continue;
-            }
-            if (!TextUtils.equals(label, t.getLabel())) {
-                continue;
-            }
+        // Reuse or create the timer and start it along with the other timers requested meanwhile.
+        AlarmClockIntentQueue.getQueue().enqueueSetTimer(this, lengthMillis, label, skipUi);
 
-            timer = t;
-            break;
-        }
-
-        // Create a new timer if one could not be reused.
-        if (timer == null) {
-            String defaultTimeToAddToTimer = String.valueOf(SettingsDAO.getDefaultTimeToAddToTimer(getDefaultSharedPreferences(mAppContext)));
-            timer = DataModel.getDataModel().addTimer(lengthMillis, label, defaultTimeToAddToTimer, skipUi);
-            Events.sendTimerEvent(R.string.action_create, R.string.label_intent);
-        }
-
-        // Start the selected timer.
-        DataModel.getDataModel().startTimer(timer);
-        Events.sendTimerEvent(R.string.action_start, R.string.label_intent);
-        Controller.getController().notifyVoiceSuccess(this, getString(R.string.timer_created));
-
-        // If not instructed to skip the UI, display the running timer.
-        if (!skipUi) {
-            // Change to the timers tab.
-            UiDataModel.getUiDataModel().setSelectedTab(TIMERS);
-
-            // Open DeskClock which is now positioned on the timers tab.
-            startActivity(new Intent(this, DeskClock.class).putExtra(TimerService.EXTRA_TIMER_ID, timer.getId()));
-        }
-    }
-
-    private void setupInstance(AlarmInstance instance, boolean skipUi) {
-        instance.addInstance(this.getContentResolver());
-        AlarmStateManager.registerInstance(this, instance, true);
-        AlarmUtils.popAlarmSetToast(this, instance.getAlarmTime().getTimeInMillis());
-        if (!skipUi) {
-            // Change to the alarms tab.
-            UiDataModel.getUiDataModel().setSelectedTab(ALARMS);
-
-            // Open DeskClock which is now positioned on the alarms tab.
-            final Intent showAlarm = Alarm.createIntent(this, DeskClock.class, instance.mAlarmId)
-                .putExtra(AlarmFragment.SCROLL_TO_ALARM_INTENT_EXTRA, instance.mAlarmId)
-                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            startActivity(showAlarm);
+        // The voice interaction is only answered once the timer is started.
+        if (isVoiceInteraction()) {
+            AlarmClockIntentQueue.getQueue().flushNow(null);
+            Controller.getController().notifyVoiceSuccess(this, getString(R.string.timer_created));
         }
     }
 
@@ -617,9 +564,8 @@ public class HandleApiCalls extends Activity {
     }
 
     /**
-     * Assemble a database where clause to search for an alarm matching the given {@code hour} and
-     * {@code minutes} as well as all the optional information within the {@code intent}
-     * including:
+     * Enqueue the given alarm along with the information within the {@code intent} used to locate
+     * an existing alarm with the same time, including:
      *
      * <ul>
      *     <li>alarm message</li>
@@ -628,45 +574,24 @@ public class HandleApiCalls extends Activity {
      *     <li>ringtone uri</li>
      * </ul>
      *
-     * @param intent    contains details of the alarm to be located
-     * @param hour      the hour of the day of the alarm
-     * @param minutes   the minute of the hour of the alarm
-     * @param selection an out parameter containing a SQL where clause
-     * @param args      an out parameter containing the values to substitute into the {@code selection}
+     * @param alarm  the alarm to create if no existing alarm matches
+     * @param intent contains details of the alarm to be located
+     * @param skipUi {@code true} if the alarm should not be shown once set
      */
-    private void setSelectionFromIntent(
-        Intent intent,
-        int hour,
-        int minutes,
-        StringBuilder selection,
-        List<String> args) {
-        selection.append(Alarm.HOUR).append("=?");
-        args.add(String.valueOf(hour));
-        selection.append(" AND ").append(Alarm.MINUTES).append("=?");
-        args.add(String.valueOf(minutes));
-
-        if (intent.hasExtra(AlarmClock.EXTRA_MESSAGE)) {
-            selection.append(" AND ").append(Alarm.LABEL).append("=?");
-            args.add(getLabelFromIntent(intent, ""));
-        }
+    private void enqueueSetAlarm(Alarm alarm, Intent intent, boolean skipUi) {
+        final String label = intent.hasExtra(AlarmClock.EXTRA_MESSAGE) ? getLabelFromIntent(intent, "") : null;
 
-        // Days is treated differently than other fields because if days is not specified, it
-        // explicitly means "not recurring".
-        selection.append(" AND ").append(Alarm.DAYS_OF_WEEK).append("=?");
-        args.add(String.valueOf(getDaysFromIntent(intent, Weekdays.NONE).getBits()));
-
-        if (intent.hasExtra(AlarmClock.EXTRA_VIBRATE)) {
-            selection.append(" AND ").append(Alarm.VIBRATE).append("=?");
-            args.add(intent.getBooleanExtra(AlarmClock.EXTRA_VIBRATE, false) ? "1" : "0");
-        }
+        final Boolean vibrate = intent.hasExtra(AlarmClock.EXTRA_VIBRATE)
+            ? intent.getBooleanExtra(AlarmClock.EXTRA_VIBRATE, false)
+            : null;
 
+        Uri ringtone = null;
         if (intent.hasExtra(AlarmClock.EXTRA_RINGTONE)) {
-            selection.append(" AND ").append(Alarm.RINGTONE).append("=?");
-
             // If the intent explicitly specified a NULL ringtone, treat it as the default ringtone.
             final Uri defaultRingtone = DataModel.getDataModel().getDefaultAlarmRingtoneUriFromSettings();
-            final Uri ringtone = getAlertFromIntent(intent, defaultRingtone);
-            args.add(ringtone.toString());
+            ringtone = getAlertFromIntent(intent, defaultRingtone);
         }
+
+        AlarmClockIntentQueue.getQueue().enqueueSetAlarm(this, alarm, label, vibrate, ringtone, skipUi);
     }
 }
@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static com.best.deskclock.settings.PreferencesKeys.KEY_ADVANCED_AUDIO_PLAYBACK;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_ENABLE_PER_ALARM_VIBRATION_PATTERN;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_ENABLE_PER_ALARM_VOLUME;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_FLIP_ACTION;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SHAKE_ACTION;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SHAKE_INTENSITY;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_VIBRATION_PATTERN;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_VIBRATION_START_DELAY;
+
+import android.content.SharedPreferences;
+
+import java.util.Set;
+
+/**
+ * An immutable copy of the settings read each time an alarm fires.
+ * <p>
+ * The values are read from {@link SettingsDAO}, so the default values remain defined in a single
+ * place. Instances are safe to share between threads.
+ */
+public record AlarmSettings(
+    boolean isAdvancedAudioPlaybackEnabled,
+    boolean isPerAlarmVolumeEnabled,
+    int flipAction,
+    int shakeAction,
+    int shakeIntensity,
+    boolean isPerAlarmVibrationPatternEnabled,
+    String vibrationPattern,
+    int vibrationStartDelay) {
+
+    /**
+     * The keys of the preferences copied into this record.
+     */
+    static final Set<String> KEYS = Set.of(
+        KEY_ADVANCED_AUDIO_PLAYBACK,
+        KEY_ENABLE_PER_ALARM_VOLUME,
+        KEY_FLIP_ACTION,
+        KEY_SHAKE_ACTION,
+        KEY_SHAKE_INTENSITY,
+        KEY_ENABLE_PER_ALARM_VIBRATION_PATTERN,
+        KEY_VIBRATION_PATTERN,
+        KEY_VIBRATION_START_DELAY);
+
+    /**
+     * @return the alarm settings currently stored in {@code prefs}
+     */
+    static AlarmSettings create(SharedPreferences prefs) {
+        return new AlarmSettings(
+            SettingsDAO.isAdvancedAudioPlaybackEnabled(prefs),
+            SettingsDAO.isPerAlarmVolumeEnabled(prefs),
+            SettingsDAO.getFlipAction(prefs),
+            SettingsDAO.getShakeAction(prefs),
+            SettingsDAO.getShakeIntensity(prefs),
+            SettingsDAO.isPerAlarmVibrationPatternEnabled(prefs),
+            SettingsDAO.getVibrationPattern(prefs),
+            SettingsDAO.getVibrationStartDelay(prefs));
+    }
+}
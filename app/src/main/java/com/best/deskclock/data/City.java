@@ -8,6 +8,7 @@ package com.best.deskclock.data;
 
 import androidx.annotation.NonNull;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
 import java.util.Locale;
@@ -17,9 +18,18 @@ import java.util.TimeZone;
 /**
  * A read-only domain object representing a city of the world and associated time information. It
  * also contains static comparators that can be instantiated to order cities in common sort orders.
+ * <p>
+ * Sort keys are precomputed and cached on each city: UTC offsets are computed once per sort for
+ * a snapshot time captured when the comparator is created, and collation keys are computed once
+ * per locale. Comparisons therefore never query {@link TimeZone} or a {@link Collator}.
  */
 public final class City {
 
+    /**
+     * The collator shared by all name comparators, along with the locale it was created for.
+     */
+    private static volatile LocaleCollator sLocaleCollator;
+
     /**
      * A unique identifier for the city.
      */
@@ -61,6 +71,17 @@ public final class City {
      */
     private String mNameUpperCaseNoSpecialCharacters;
 
+    /**
+     * The UTC offset of {@link #mTimeZone} cached for the snapshot time of the last sort.
+     */
+    private volatile UtcOffsetKey mUtcOffsetKey;
+
+    /**
+     * The collation keys of {@link #mIndexString} and {@link #mPhoneticName} cached for the
+     * locale of the last sort.
+     */
+    private volatile CollationKeys mCollationKeys;
+
     City(String id, int index, String indexString, String name, String phoneticName, TimeZone tz) {
         mId = id;
         mIndex = index;
@@ -136,6 +157,66 @@ public final class City {
         return getNameUpperCaseNoSpecialCharacters().startsWith(upperCaseQueryNoSpecialCharacters);
     }
 
+    /**
+     * @param snapshotTime the time at which the offset is evaluated
+     * @return the UTC offset of the city timezone at the given time, computed only once per
+     * snapshot time
+     */
+    private int getUtcOffset(long snapshotTime) {
+        UtcOffsetKey utcOffsetKey = mUtcOffsetKey;
+        if (utcOffsetKey == null || utcOffsetKey.snapshotTime() != snapshotTime) {
+            utcOffsetKey = new UtcOffsetKey(snapshotTime, mTimeZone.getOffset(snapshotTime));
+            mUtcOffsetKey = utcOffsetKey;
+        }
+
+        return utcOffsetKey.utcOffset();
+    }
+
+    /**
+     * @param locale the locale used to collate names
+     * @return the collation keys of the index string and phonetic name, computed only once per
+     * locale
+     */
+    private CollationKeys getCollationKeys(Locale locale) {
+        CollationKeys collationKeys = mCollationKeys;
+        if (collationKeys == null || !collationKeys.locale().equals(locale)) {
+            final Collator collator = getCollator(locale);
+            // Collator instances are not thread-safe.
+            synchronized (collator) {
+                collationKeys = new CollationKeys(locale,
+                    mIndexString == null ? null : collator.getCollationKey(mIndexString),
+                    mPhoneticName == null ? null : collator.getCollationKey(mPhoneticName));
+            }
+            mCollationKeys = collationKeys;
+        }
+
+        return collationKeys;
+    }
+
+    /**
+     * @return the locale-sensitive collator for the given locale, created only once per locale
+     */
+    private static Collator getCollator(Locale locale) {
+        LocaleCollator localeCollator = sLocaleCollator;
+        if (localeCollator == null || !localeCollator.locale().equals(locale)) {
+            localeCollator = new LocaleCollator(locale, Collator.getInstance(locale));
+            sLocaleCollator = localeCollator;
+        }
+
+        return localeCollator.collator();
+    }
+
+    /**
+     * Compares two collation keys, ordering missing keys first.
+     */
+    private static int compareCollationKeys(CollationKey key1, CollationKey key2) {
+        if (key1 == null || key2 == null) {
+            return key1 == key2 ? 0 : (key1 == null ? -1 : 1);
+        }
+
+        return key1.compareTo(key2);
+    }
+
     @NonNull
     @Override
     public String toString() {
@@ -204,11 +285,11 @@ public final class City {
      */
     public static final class UtcOffsetIndexComparator implements Comparator<City> {
 
+        // All offsets compared by this instance are evaluated at the same time.
+        private final long mSnapshotTime = System.currentTimeMillis();
+
         public int compare(City c1, City c2) {
-            final long now = System.currentTimeMillis();
-            final int utcOffset1 = c1.getTimeZone().getOffset(now);
-            final int utcOffset2 = c2.getTimeZone().getOffset(now);
-            return Integer.compare(utcOffset1, utcOffset2);
+            return Integer.compare(c1.getUtcOffset(mSnapshotTime), c2.getUtcOffset(mSnapshotTime));
         }
     }
 
@@ -225,15 +306,16 @@ public final class City {
 
         private final Comparator<City> mDelegate = new NameIndexComparator();
 
-        // Locale-sensitive comparator for phonetic names.
-        private final Collator mNameCollator = Collator.getInstance();
+        // Locale used to collate phonetic names.
+        private final Locale mLocale = Locale.getDefault();
 
         @Override
         public int compare(City c1, City c2) {
             int result = mDelegate.compare(c1, c2);
 
             if (result == 0) {
-                result = mNameCollator.compare(c1.getPhoneticName(), c2.getPhoneticName());
+                result = compareCollationKeys(c1.getCollationKeys(mLocale).phoneticName(),
+                    c2.getCollationKeys(mLocale).phoneticName());
             }
 
             return result;
@@ -250,18 +332,37 @@ public final class City {
      */
     public static final class NameIndexComparator implements Comparator<City> {
 
-        // Locale-sensitive comparator for index strings.
-        private final Collator mNameCollator = Collator.getInstance();
+        // Locale used to collate index strings.
+        private final Locale mLocale = Locale.getDefault();
 
         @Override
         public int compare(City c1, City c2) {
             int result = Integer.compare(c1.getIndex(), c2.getIndex());
 
             if (result == 0) {
-                result = mNameCollator.compare(c1.getIndexString(), c2.getIndexString());
+                result = compareCollationKeys(c1.getCollationKeys(mLocale).indexString(),
+                    c2.getCollationKeys(mLocale).indexString());
             }
 
             return result;
         }
     }
+
+    /**
+     * The UTC offset of a city timezone evaluated at a given snapshot time.
+     */
+    private record UtcOffsetKey(long snapshotTime, int utcOffset) {
+    }
+
+    /**
+     * The collation keys of a city for a given locale.
+     */
+    private record CollationKeys(Locale locale, CollationKey indexString, CollationKey phoneticName) {
+    }
+
+    /**
+     * A collator along with the locale it was created for.
+     */
+    private record LocaleCollator(Locale locale, Collator collator) {
+    }
 }
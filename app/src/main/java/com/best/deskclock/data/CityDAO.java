@@ -19,7 +19,6 @@ import com.best.deskclock.R;
 import com.best.deskclock.utils.Utils;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -103,26 +102,23 @@ final class CityDAO {
     }
 
     /**
-     * @param cities the collection of cities selected for display by the user
+     * @return the domain of cities from which the user may choose a world clock
      */
-    static void setSelectedCities(SharedPreferences prefs, Collection<City> cities) {
-        final SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(NUMBER_OF_CITIES, cities.size());
-
-        int count = 0;
-        for (City city : cities) {
-            editor.putString(CITY_ID + count, city.getId());
-            count++;
+    static Map<String, City> getCities(Context context) {
+        // Prefer the precompiled city table; parse the resources only if it cannot be read.
+        final Map<String, City> cities = CityDatabase.getCities(context);
+        if (cities != null) {
+            return cities;
         }
 
-        editor.apply();
+        return parseCities(context);
     }
 
     /**
-     * @return the domain of cities from which the user may choose a world clock
+     * @return the domain of cities parsed from the {@link R.array#city_ids} resources
      * @noinspection resource
      */
-    static Map<String, City> getCities(Context context) {
+    private static Map<String, City> parseCities(Context context) {
         final Resources resources = Utils.getLocalizedContext(context).getResources();
         final TypedArray cityStrings = resources.obtainTypedArray(R.array.city_ids);
         final int citiesCount = cityStrings.length();
@@ -0,0 +1,141 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.util.ArrayMap;
+
+import com.best.deskclock.R;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.Utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * This class reads the precompiled city tables generated at build time from the
+ * {@code cities.xml} resource files (see {@code GenerateCityDatabaseTask} in the app build script).
+ * <p>
+ * One table exists per locale. The name of the table matching the current locale is exposed by
+ * the generated {@link R.string#city_database_asset} resource, and the table itself is
+ * memory-mapped from the uncompressed asset, so no resource string has to be parsed.
+ * <p>
+ * All strings are interned in a pool: each distinct string (time zone ids, index strings...) is
+ * decoded once and shared by every city referencing it. Time zones are resolved once per id.
+ */
+final class CityDatabase {
+
+    /**
+     * Magic number identifying a city table ("CITY").
+     */
+    private static final int MAGIC = 0x43495459;
+
+    /**
+     * Version of the binary layout; must match the one written by the Gradle task.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size in bytes of the header: magic, version, city count and string count.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Size in bytes of a city record: id, index, index string, name, phonetic name, time zone id.
+     */
+    private static final int CITY_RECORD_SIZE = 6 * Integer.BYTES;
+
+    private CityDatabase() {
+    }
+
+    /**
+     * @return the domain of cities read from the table matching the current locale, or
+     * {@code null} if the table is missing or malformed
+     */
+    static Map<String, City> getCities(Context context) {
+        final Resources resources = Utils.getLocalizedContext(context).getResources();
+        final String assetName = resources.getString(R.string.city_database_asset);
+
+        try (AssetFileDescriptor afd = resources.getAssets().openFd(assetName);
+             FileInputStream stream = afd.createInputStream();
+             FileChannel channel = stream.getChannel()) {
+
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                afd.getStartOffset(), afd.getLength());
+            return decode(buffer);
+        } catch (IOException | RuntimeException e) {
+            LogUtils.e("Unable to read city database " + assetName, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param buffer the content of a city table
+     * @return an unmodifiable map of city ids to city instances, in table order
+     */
+    private static Map<String, City> decode(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalStateException("Unsupported city database format");
+        }
+
+        final int cityCount = buffer.getInt(2 * Integer.BYTES);
+        final int stringCount = buffer.getInt(3 * Integer.BYTES);
+        final int recordsStart = HEADER_SIZE + stringCount * Integer.BYTES;
+        final int stringDataStart = recordsStart + cityCount * CITY_RECORD_SIZE;
+
+        final String[] strings = new String[stringCount];
+        final Map<String, TimeZone> timeZones = new ArrayMap<>();
+        final Map<String, City> cities = new ArrayMap<>(cityCount);
+
+        for (int i = 0; i < cityCount; i++) {
+            final int record = recordsStart + i * CITY_RECORD_SIZE;
+            final String id = getString(buffer, strings, stringDataStart, buffer.getInt(record));
+            final int index = buffer.getInt(record + Integer.BYTES);
+            final String indexString = getString(buffer, strings, stringDataStart, buffer.getInt(record + 2 * Integer.BYTES));
+            final String name = getString(buffer, strings, stringDataStart, buffer.getInt(record + 3 * Integer.BYTES));
+            final String phoneticName = getString(buffer, strings, stringDataStart, buffer.getInt(record + 4 * Integer.BYTES));
+            final String tzId = getString(buffer, strings, stringDataStart, buffer.getInt(record + 5 * Integer.BYTES));
+
+            if (!timeZones.containsKey(tzId)) {
+                final TimeZone tz = TimeZone.getTimeZone(tzId);
+                // If the time zone lookup fails, GMT is returned. No cities actually map to GMT.
+                timeZones.put(tzId, "GMT".equals(tz.getID()) ? null : tz);
+            }
+
+            final TimeZone tz = timeZones.get(tzId);
+            // Skip cities whose timezone cannot be resolved.
+            if (tz != null) {
+                cities.put(id, new City(id, index, indexString, name, phoneticName, tz));
+            }
+        }
+
+        return Collections.unmodifiableMap(cities);
+    }
+
+    /**
+     * @return the string of the pool at the given index, decoding it on first access
+     */
+    private static String getString(ByteBuffer buffer, String[] strings, int stringDataStart, int index) {
+        String string = strings[index];
+        if (string == null) {
+            final int offset = stringDataStart + buffer.getInt(HEADER_SIZE + index * Integer.BYTES);
+            final int length = buffer.getShort(offset) & 0xFFFF;
+            final byte[] bytes = new byte[length];
+            final ByteBuffer slice = buffer.duplicate();
+            slice.position(offset + Short.BYTES);
+            slice.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+
+        return string;
+    }
+}
@@ -12,7 +12,34 @@ package com.best.deskclock.data;
 public interface CityListener {
 
     /**
-     * Called when the list of selected world cities has been modified.
+     * Called when the list of selected world cities has been modified in a way that cannot be
+     * described by a single incremental callback below (e.g. a locale or sort order change, or
+     * several cities selected at once).
      */
     void citiesChanged();
+
+    /**
+     * @param city     the city that was added to the selected world cities
+     * @param position the position at which the city was inserted
+     */
+    default void cityAdded(City city, int position) {
+        citiesChanged();
+    }
+
+    /**
+     * @param city     the city that was removed from the selected world cities
+     * @param position the position the city occupied before its removal
+     */
+    default void cityRemoved(City city, int position) {
+        citiesChanged();
+    }
+
+    /**
+     * @param city         the selected world city that was moved
+     * @param fromPosition the position the city occupied before the move
+     * @param toPosition   the position the city occupies after the move
+     */
+    default void cityMoved(City city, int fromPosition, int toPosition) {
+        citiesChanged();
+    }
 }
@@ -38,6 +38,12 @@ import java.util.TimeZone;
 
 /**
  * All {@link City} data is accessed via this model.
+ * <p>
+ * Changes to the selected cities are applied incrementally: the sorted lists of selected and
+ * unselected cities are updated with binary insertions rather than re-sorted. The lists handed out
+ * are never modified; each change publishes new lists. A change of a single city is reported to the
+ * {@link CityListener}s as an added, removed or moved city, a batch of changes as a single
+ * {@link CityListener#citiesChanged()}.
  */
 final class CityModel {
 
@@ -53,7 +59,7 @@ final class CityModel {
     private final OnSharedPreferenceChangeListener mPreferenceListener = new PreferenceListener();
 
     /**
-     * Clears data structures containing data that is locale-sensitive.
+     * Clears data structures containing data that is locale-sensitive or timezone-sensitive.
      */
     @SuppressWarnings("FieldCanBeLocal")
     private final BroadcastReceiver mLocaleChangedReceiver = new LocaleChangedReceiver();
@@ -74,12 +80,12 @@ final class CityModel {
     private List<City> mAllCities;
 
     /**
-     * List of selected city instances in display order.
+     * Unmodifiable list of selected city instances in display order.
      */
     private List<City> mSelectedCities;
 
     /**
-     * List of unselected city instances in display order.
+     * Unmodifiable list of unselected city instances in display order.
      */
     private List<City> mUnselectedCities;
 
@@ -93,9 +99,11 @@ final class CityModel {
         mContext = context;
         mPrefs = prefs;
 
-        // Clear caches affected by locale when locale changes.
+        // Clear caches affected by locale when locale changes. Time zone changes are included
+        // because they may come with new time zone rules which invalidate the cached sort orders.
         final IntentFilter localeBroadcastFilter = new IntentFilter();
         localeBroadcastFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        localeBroadcastFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
 
         if (SdkUtils.isAtLeastAndroid13()) {
             localeBroadcastFilter.addAction(Intent.ACTION_APPLICATION_LOCALE_CHANGED);
@@ -154,13 +162,12 @@ final class CityModel {
     }
 
     /**
-     * @return a list of cities not selected for display
+     * @return an immutable list of the cities not selected for display
      */
     List<City> getUnselectedCities() {
         if (mUnselectedCities == null) {
             // Create a set of selections to identify the unselected cities.
-            final List<City> selected = new ArrayList<>(getSelectedCities());
-            final Set<City> selectedSet = newArraySet(selected);
+            final Set<City> selectedSet = newArraySet(getSelectedCities());
 
             final Collection<City> all = getCityMap().values();
             final List<City> unselected = new ArrayList<>(all.size() - selectedSet.size());
@@ -188,21 +195,13 @@ final class CityModel {
     }
 
     /**
-     * @return a list of cities selected for display
+     * @return an immutable list of the cities selected for display
      */
     List<City> getSelectedCities() {
         if (mSelectedCities == null) {
-            final List<City> selectedCities = CityDAO.getSelectedCities(mPrefs, getCityMap());
-
-            final String citySorting = SettingsDAO.getCitySorting(mPrefs);
-
-            Comparator<City> comparator = switch (citySorting) {
-                case SORT_CITIES_BY_DESCENDING_TIME_ZONE -> Collections.reverseOrder(new City.UtcOffsetComparator());
-                case SORT_CITIES_BY_NAME -> new City.NameComparator();
-                case SORT_CITIES_MANUALLY -> null; // Don't sort
-                default -> new City.UtcOffsetComparator();
-            };
+            final List<City> selectedCities = new ArrayList<>(CityDAO.getSelectedCities(mPrefs, getCityMap()));
 
+            final Comparator<City> comparator = getSelectedCitiesComparator();
             if (comparator != null) {
                 Collections.sort(selectedCities, comparator);
             }
@@ -217,15 +216,79 @@ final class CityModel {
      * @param cities the new collection of cities selected for display by the user
      */
     void setSelectedCities(Collection<City> cities) {
-        CityDAO.setSelectedCities(mPrefs, cities);
+        final List<City> selected = new ArrayList<>(getSelectedCities());
+        final List<City> unselected = mUnselectedCities == null ? null : new ArrayList<>(mUnselectedCities);
+        final Set<City> oldSelection = newArraySet(selected);
+        final Set<City> newSelection = newArraySet(cities);
+
+        // The number of cities added or removed, and the last of them.
+        int changeCount = 0;
+        City changedCity = null;
+        int changedPosition = -1;
+        boolean added = false;
+
+        // Remove the deselected cities, starting from the end so that the position of a single
+        // removal is its position in the current list.
+        final Comparator<City> unselectedComparator = getCitySortComparator();
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            final City city = selected.get(i);
+            if (!newSelection.contains(city)) {
+                selected.remove(i);
+                if (unselected != null) {
+                    insertSorted(unselected, city, unselectedComparator);
+                }
+                changeCount++;
+                changedCity = city;
+                changedPosition = i;
+            }
+        }
 
-        // Clear caches affected by this update.
+        // Insert the newly selected cities at their sorted position, or at the end if the
+        // cities are sorted manually.
+        final Comparator<City> selectedComparator = getSelectedCitiesComparator();
+        for (City city : cities) {
+            if (!oldSelection.contains(city)) {
+                final int position;
+                if (selectedComparator == null) {
+                    position = selected.size();
+                    selected.add(city);
+                } else {
+                    position = insertSorted(selected, city, selectedComparator);
+                }
+                if (unselected != null) {
+                    removeSorted(unselected, city, unselectedComparator);
+                }
+                changeCount++;
+                changedCity = city;
+                changedPosition = position;
+                added = true;
+            }
+        }
+
+        if (changeCount == 0) {
+            return;
+        }
+
+        mSelectedCities = Collections.unmodifiableList(selected);
+        mUnselectedCities = unselected == null ? null : Collections.unmodifiableList(unselected);
+        CityDAO.saveSelectedCitiesOrder(mPrefs, selected);
+
+        // The list of all cities only needs to re-sort the selected cities.
         mAllCities = null;
-        mSelectedCities = null;
-        mUnselectedCities = null;
+
+        if (changeCount > 1) {
+            fireCitiesChanged();
+            return;
+        }
 
         // Broadcast the change to the selected cities for the benefit of widgets.
-        fireCitiesChanged();
+        WidgetUtils.updateWidget(mContext, DigitalAppWidgetProvider.class);
+
+        if (added) {
+            fireCityAdded(changedCity, changedPosition);
+        } else {
+            fireCityRemoved(changedCity, changedPosition);
+        }
     }
 
     /**
@@ -234,12 +297,93 @@ final class CityModel {
      * @param newOrder the new list of selected cities, in the desired order
      */
     void updateSelectedCitiesOrder(List<City> newOrder) {
+        final List<City> selected = getSelectedCities();
+        if (selected.equals(newOrder)) {
+            return;
+        }
+
         CityDAO.saveSelectedCitiesOrder(mPrefs, newOrder);
 
-        // Clean cache to force a clean reload
-        mSelectedCities = null;
+        if (!newArraySet(selected).equals(newArraySet(newOrder))) {
+            // Not a reordering; clean cache to force a clean reload.
+            mAllCities = null;
+            mSelectedCities = null;
+            mUnselectedCities = null;
+            fireCitiesChanged();
+            return;
+        }
+
+        applySelectedCitiesOrder(newOrder);
 
-        fireCitiesChanged();
+        WidgetUtils.updateWidget(mContext, DigitalAppWidgetProvider.class);
+    }
+
+    /**
+     * Re-sorts the cities after the UTC offset of some time zones changed. The selected cities
+     * are reordered at once; the unselected cities are re-sorted on next access.
+     *
+     * @param timeZoneIds the ids of the time zones whose UTC offset changed
+     */
+    void timeZonesTransitioned(Set<String> timeZoneIds) {
+        if (SettingsDAO.getCitySort(mPrefs) == CitySort.UTC_OFFSET) {
+            mAllCities = null;
+            mUnselectedCities = null;
+        }
+
+        final Comparator<City> comparator = getSelectedCitiesComparator();
+        if (mSelectedCities == null || comparator == null) {
+            return;
+        }
+
+        boolean affected = false;
+        for (City city : mSelectedCities) {
+            if (timeZoneIds.contains(city.getTimeZone().getID())) {
+                affected = true;
+                break;
+            }
+        }
+
+        if (affected) {
+            final List<City> newOrder = new ArrayList<>(mSelectedCities);
+            Collections.sort(newOrder, comparator);
+            if (!newOrder.equals(mSelectedCities)) {
+                applySelectedCitiesOrder(newOrder);
+            }
+        }
+    }
+
+    /**
+     * Replaces the selected cities with the new order. A single city moved to a new position is
+     * reported as one move; any other reordering as a single change.
+     *
+     * @param newOrder the selected cities, in their new order
+     */
+    private void applySelectedCitiesOrder(List<City> newOrder) {
+        final List<City> selected = getSelectedCities();
+        mSelectedCities = Collections.unmodifiableList(new ArrayList<>(newOrder));
+
+        // Find the range of positions that differ between the two orders.
+        int first = 0;
+        while (selected.get(first).equals(newOrder.get(first))) {
+            first++;
+        }
+
+        int last = selected.size() - 1;
+        while (selected.get(last).equals(newOrder.get(last))) {
+            last--;
+        }
+
+        if (selected.get(first).equals(newOrder.get(last))
+            && selected.subList(first + 1, last + 1).equals(newOrder.subList(first, last))) {
+            fireCityMoved(selected.get(first), first, last);
+        } else if (newOrder.get(first).equals(selected.get(last))
+            && selected.subList(first, last).equals(newOrder.subList(first + 1, last + 1))) {
+            fireCityMoved(selected.get(last), last, first);
+        } else {
+            for (CityListener listener : mCityListeners) {
+                listener.citiesChanged();
+            }
+        }
     }
 
     /**
@@ -266,6 +410,47 @@ final class CityModel {
         mUnselectedCities = null;
     }
 
+    /**
+     * @return the comparator ordering the selected cities, or {@code null} if they are sorted
+     * manually
+     */
+    private Comparator<City> getSelectedCitiesComparator() {
+        return switch (SettingsDAO.getCitySorting(mPrefs)) {
+            case SORT_CITIES_BY_DESCENDING_TIME_ZONE -> Collections.reverseOrder(new City.UtcOffsetComparator());
+            case SORT_CITIES_BY_NAME -> new City.NameComparator();
+            case SORT_CITIES_MANUALLY -> null; // Don't sort
+            default -> new City.UtcOffsetComparator();
+        };
+    }
+
+    /**
+     * Inserts the city in the sorted list using a binary search.
+     *
+     * @return the position at which the city was inserted
+     */
+    private static int insertSorted(List<City> cities, City city, Comparator<City> comparator) {
+        int position = Collections.binarySearch(cities, city, comparator);
+        if (position < 0) {
+            position = -position - 1;
+        }
+
+        cities.add(position, city);
+        return position;
+    }
+
+    /**
+     * Removes the city from the sorted list using a binary search.
+     */
+    private static void removeSorted(List<City> cities, City city, Comparator<City> comparator) {
+        final int position = Collections.binarySearch(cities, city, comparator);
+        if (position >= 0 && cities.get(position).equals(city)) {
+            cities.remove(position);
+        } else {
+            // Cities comparing as equal, or UTC offsets that changed since the list was sorted.
+            cities.remove(city);
+        }
+    }
+
     private Map<String, City> getCityMap() {
         if (mCityMap == null) {
             mCityMap = CityDAO.getCities(mContext);
@@ -298,8 +483,27 @@ final class CityModel {
         }
     }
 
+    private void fireCityAdded(City city, int position) {
+        for (CityListener listener : mCityListeners) {
+            listener.cityAdded(city, position);
+        }
+    }
+
+    private void fireCityRemoved(City city, int position) {
+        for (CityListener listener : mCityListeners) {
+            listener.cityRemoved(city, position);
+        }
+    }
+
+    private void fireCityMoved(City city, int fromPosition, int toPosition) {
+        for (CityListener listener : mCityListeners) {
+            listener.cityMoved(city, fromPosition, toPosition);
+        }
+    }
+
     /**
-     * Cached information that is locale-sensitive must be cleared in response to locale changes.
+     * Cached information that is locale-sensitive or timezone-sensitive must be cleared in
+     * response to locale or time zone changes.
      */
     private final class LocaleChangedReceiver extends BroadcastReceiver {
         @Override
@@ -30,8 +30,10 @@ import androidx.appcompat.app.AppCompatDelegate;
 
 import com.best.deskclock.DeskClockApplication;
 import com.best.deskclock.R;
+import com.best.deskclock.base.AppExecutors;
 import com.best.deskclock.timer.TimerService;
 import com.best.deskclock.uicomponents.toast.CustomToast;
+import com.best.deskclock.utils.TypefaceRegistry;
 
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -51,11 +53,21 @@ public final class DataModel {
 
     private Handler mHandler;
 
+    /**
+     * The model from which the cached alarm settings are fetched.
+     */
+    private SettingsModel mSettingsModel;
+
     /**
      * The model from which city data are fetched.
      */
     private CityModel mCityModel;
 
+    /**
+     * The model from which the time zone transitions of the world clocks are fetched.
+     */
+    private TimeZoneTransitionModel mTimeZoneTransitionModel;
+
     /**
      * The model from which timer data are fetched.
      */
@@ -107,13 +119,17 @@ public final class DataModel {
             case DARK_THEME -> AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
         }
 
+        mSettingsModel = new SettingsModel(prefs);
+        AppExecutors.getDiskIO().execute(() -> TypefaceRegistry.preload(prefs));
         mNotificationModel = new NotificationModel();
         mRingtoneModel = new RingtoneModel(appContext, prefs);
+        AppExecutors.getDiskIO().execute(mRingtoneModel::loadRingtoneMetadata);
         mCityModel = new CityModel(appContext, prefs);
+        mTimeZoneTransitionModel = new TimeZoneTransitionModel(appContext, prefs, mCityModel);
         mAlarmModel = new AlarmModel(prefs, mRingtoneModel);
         mSilentSettingsModel = new SilentSettingsModel(appContext, mNotificationModel);
         mStopwatchModel = new StopwatchModel(appContext, prefs, mNotificationModel);
-        mTimerModel = new TimerModel(appContext, prefs, mRingtoneModel, mNotificationModel);
+        mTimerModel = new TimerModel(appContext, prefs, mSettingsModel, mRingtoneModel, mNotificationModel);
     }
 
     /**
@@ -297,6 +313,30 @@ public final class DataModel {
         mCityModel.removeCityListener(cityListener);
     }
 
+    /**
+     * @param listener listener to be notified when the UTC offset of a displayed time zone changes
+     */
+    public void addTimeZoneTransitionListener(TimeZoneTransitionListener listener) {
+        enforceMainLooper();
+        mTimeZoneTransitionModel.addTimeZoneTransitionListener(listener);
+    }
+
+    /**
+     * @param listener listener that no longer needs to be notified of time zone transitions
+     */
+    public void removeTimeZoneTransitionListener(TimeZoneTransitionListener listener) {
+        enforceMainLooper();
+        mTimeZoneTransitionModel.removeTimeZoneTransitionListener(listener);
+    }
+
+    /**
+     * Called when the next UTC offset transition of the displayed time zones is reached.
+     */
+    public void onTimeZoneTransition() {
+        enforceMainLooper();
+        mTimeZoneTransitionModel.onTimeZoneTransition();
+    }
+
     /**
      * @param timerListener to be notified when timers are added, updated and removed
      */
@@ -719,6 +759,59 @@ public final class DataModel {
         return mRingtoneModel.getRingtoneTitle(uri);
     }
 
+    /**
+     * Resolves the title of the ringtone with the {@code uri} so that it is displayed without delay.
+     *
+     * @param uri the uri of a ringtone
+     */
+    public void preloadRingtoneTitle(Uri uri) {
+        enforceNotMainLooper();
+        mRingtoneModel.preloadRingtoneTitle(uri);
+    }
+
+    /**
+     * May be called from any thread; the check is skipped when the ringtone is known to be readable.
+     *
+     * @param uri the uri of a ringtone
+     * @return {@code true} if the ringtone with the {@code uri} is readable; {@code false} otherwise
+     */
+    public boolean isRingtoneReadable(Uri uri) {
+        return mRingtoneModel.isRingtoneReadable(uri);
+    }
+
+    /**
+     * This method <strong>should</strong> be called on a background thread since the duration of a
+     * ringtone seen for the first time is measured by preparing a media player.
+     *
+     * @param uri the uri of a ringtone
+     * @return the duration of the ringtone with the {@code uri} in milliseconds
+     */
+    public int getRingtoneDuration(Uri uri) {
+        return mRingtoneModel.getRingtoneDuration(uri);
+    }
+
+    /**
+     * May be called from any thread.
+     *
+     * @param randomRingtone the uri of the "random" or "random custom" ringtone
+     * @return a ringtone picked uniformly, without affecting the order in which ringing alarms and
+     * timers draw their random ringtones
+     */
+    public Uri pickRandomRingtone(Uri randomRingtone) {
+        return mRingtoneModel.pickRandomRingtone(randomRingtone);
+    }
+
+    /**
+     * May be called from any thread.
+     *
+     * @param randomRingtone the uri of the "random" or "random custom" ringtone
+     * @return the ringtone a ringing alarm or timer should play; each ringtone plays once before
+     * any repeats and never twice in a row
+     */
+    public Uri drawRandomRingtone(Uri randomRingtone) {
+        return mRingtoneModel.drawRandomRingtone(randomRingtone);
+    }
+
     /**
      * @param uri   the uri of an audio file to use as a ringtone
      * @param title the title of the audio content at the given {@code uri}
@@ -769,6 +862,58 @@ public final class DataModel {
         mSilentSettingsModel.removeSilentSettingsListener(silentSettingsListener);
     }
 
+    /**
+     * This method may be called from any thread.
+     *
+     * @return an immutable copy of the settings read each time an alarm fires
+     */
+    public AlarmSettings getAlarmSettings() {
+        return mSettingsModel.getAlarmSettings();
+    }
+
+    /**
+     * This method may be called from any thread.
+     *
+     * @return an immutable copy of the settings read each time a timer notification is built
+     */
+    public TimerSettings getTimerSettings() {
+        return mSettingsModel.getTimerSettings();
+    }
+
+    /**
+     * This method may be called from any thread.
+     *
+     * @return an immutable copy of the settings read each time the digital widget is laid out
+     */
+    public WidgetSettings getWidgetSettings() {
+        return mSettingsModel.getWidgetSettings();
+    }
+
+    /**
+     * This method may be called from any thread.
+     *
+     * @return an immutable copy of the settings read each time the screensaver is refreshed
+     */
+    public ScreensaverSettings getScreensaverSettings() {
+        return mSettingsModel.getScreensaverSettings();
+    }
+
+    /**
+     * @param settingsListener to be notified when a value of the settings views changes
+     */
+    public void addSettingsListener(SettingsListener settingsListener) {
+        enforceMainLooper();
+        mSettingsModel.addSettingsListener(settingsListener);
+    }
+
+    /**
+     * @param settingsListener to no longer be notified when a value of the settings views changes
+     */
+    public void removeSettingsListener(SettingsListener settingsListener) {
+        enforceMainLooper();
+        mSettingsModel.removeSettingsListener(settingsListener);
+    }
+
     /**
      * Indicates the display style of clocks.
      */
@@ -0,0 +1,270 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static android.media.AudioManager.STREAM_ALARM;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.database.Cursor;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.ArraySet;
+
+import com.best.deskclock.utils.LogUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Keeps the system and custom ringtones the "random" ringtones are chosen from.
+ * <p>
+ * The pools are only rebuilt after a change of the media or of the custom ringtones, so choosing a
+ * ringtone does not query anything. When an alarm or a timer rings, the ringtone is drawn from a
+ * shuffled deck of the pool: every ringtone plays once before any repeats, and the same ringtone
+ * never plays twice in a row. The decks are persisted since the process rarely survives from one
+ * ringing to the next.
+ * <p>
+ * All methods may be called from any thread.
+ */
+public final class RandomRingtonePool {
+
+    /**
+     * Key to a preference that stores the last drawn system ringtone followed by the rest of the deck.
+     */
+    public static final String KEY_RANDOM_RINGTONE_DECK = "random_ringtone_deck";
+
+    /**
+     * Key to a preference that stores the last drawn custom ringtone followed by the rest of the deck.
+     */
+    public static final String KEY_RANDOM_CUSTOM_RINGTONE_DECK = "random_custom_ringtone_deck";
+
+    private final Random mRandom = new Random();
+
+    private final ShuffleDeck mSystemRingtones;
+
+    private final ShuffleDeck mCustomRingtones;
+
+    /**
+     * Retain a hard reference to the shared preference observer to prevent it from being garbage
+     * collected. See {@link SharedPreferences#registerOnSharedPreferenceChangeListener} for detail.
+     */
+    @SuppressWarnings("FieldCanBeLocal")
+    private final OnSharedPreferenceChangeListener mPreferenceListener = new PreferenceListener();
+
+    RandomRingtonePool(Context context, SharedPreferences prefs) {
+        mSystemRingtones = new ShuffleDeck(prefs, KEY_RANDOM_RINGTONE_DECK) {
+            @Override
+            List<Uri> loadPool() {
+                return loadSystemRingtones(context);
+            }
+        };
+
+        mCustomRingtones = new ShuffleDeck(prefs, KEY_RANDOM_CUSTOM_RINGTONE_DECK) {
+            @Override
+            List<Uri> loadPool() {
+                final List<Uri> uris = new ArrayList<>();
+                for (CustomRingtone ringtone : CustomRingtoneDAO.getCustomRingtones(prefs)) {
+                    if (ringtone.hasPermissions()) {
+                        uris.add(ringtone.getUri());
+                    }
+                }
+                return uris;
+            }
+        };
+
+        prefs.registerOnSharedPreferenceChangeListener(mPreferenceListener);
+    }
+
+    /**
+     * @return a system ringtone picked uniformly, e.g. for a preview; the deck is not affected
+     */
+    Uri pickSystemRingtone() {
+        return mSystemRingtones.pick();
+    }
+
+    /**
+     * @return a custom ringtone picked uniformly, e.g. for a preview; the deck is not affected
+     */
+    Uri pickCustomRingtone() {
+        return mCustomRingtones.pick();
+    }
+
+    /**
+     * @return the next system ringtone of the deck, to be played by an alarm or a timer
+     */
+    Uri drawSystemRingtone() {
+        return mSystemRingtones.draw();
+    }
+
+    /**
+     * @return the next custom ringtone of the deck, to be played by an alarm or a timer
+     */
+    Uri drawCustomRingtone() {
+        return mCustomRingtones.draw();
+    }
+
+    /**
+     * Rebuilds the pool of system ringtones on next use.
+     */
+    void invalidateSystemRingtones() {
+        mSystemRingtones.invalidate();
+    }
+
+    private static List<Uri> loadSystemRingtones(Context context) {
+        final RingtoneManager ringtoneManager = new RingtoneManager(context);
+        ringtoneManager.setType(STREAM_ALARM);
+
+        final List<Uri> uris = new ArrayList<>();
+        try (Cursor cursor = ringtoneManager.getCursor()) {
+            if (cursor != null && cursor.moveToFirst()) {
+                do {
+                    final Uri uri = ringtoneManager.getRingtoneUri(cursor.getPosition());
+                    if (uri != null) {
+                        uris.add(uri);
+                    }
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            LogUtils.e("Error loading the system ringtones", e);
+        }
+
+        return uris;
+    }
+
+    /**
+     * A pool of ringtones with its persisted shuffled deck.
+     */
+    private abstract class ShuffleDeck {
+
+        private final SharedPreferences mPrefs;
+
+        private final String mKey;
+
+        /**
+         * The ringtones to choose from; {@code null} until loaded. Guarded by {@code this}.
+         */
+        private List<Uri> mPool;
+
+        /**
+         * The ringtones not drawn yet, drawn from the end. Guarded by {@code this}.
+         */
+        private List<Uri> mDeck;
+
+        /**
+         * The last drawn ringtone. Guarded by {@code this}.
+         */
+        private Uri mLastDrawn;
+
+        ShuffleDeck(SharedPreferences prefs, String key) {
+            mPrefs = prefs;
+            mKey = key;
+        }
+
+        /**
+         * @return the ringtones of the pool; called when the pool was invalidated
+         */
+        abstract List<Uri> loadPool();
+
+        synchronized Uri pick() {
+            final List<Uri> pool = getPool();
+            if (pool.isEmpty()) {
+                return RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+            }
+
+            return pool.get(mRandom.nextInt(pool.size()));
+        }
+
+        synchronized Uri draw() {
+            final List<Uri> pool = getPool();
+            if (pool.isEmpty()) {
+                return RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+            }
+
+            if (mDeck == null) {
+                restoreDeck(pool);
+            }
+
+            if (mDeck.isEmpty()) {
+                mDeck.addAll(pool);
+                Collections.shuffle(mDeck, mRandom);
+
+                // Never play the same ringtone twice in a row across two decks.
+                final int last = mDeck.size() - 1;
+                if (last > 0 && mDeck.get(last).equals(mLastDrawn)) {
+                    Collections.swap(mDeck, last, mRandom.nextInt(last));
+                }
+            }
+
+            mLastDrawn = mDeck.remove(mDeck.size() - 1);
+            saveDeck();
+
+            return mLastDrawn;
+        }
+
+        synchronized void invalidate() {
+            mPool = null;
+            mDeck = null;
+        }
+
+        private List<Uri> getPool() {
+            if (mPool == null) {
+                mPool = loadPool();
+            }
+
+            return mPool;
+        }
+
+        /**
+         * Reads the persisted deck, dropping the ringtones that left the pool.
+         */
+        private void restoreDeck(List<Uri> pool) {
+            final Set<Uri> poolUris = new ArraySet<>(pool);
+            mDeck = new ArrayList<>(pool.size());
+            mLastDrawn = null;
+
+            final String value = mPrefs.getString(mKey, null);
+            if (TextUtils.isEmpty(value)) {
+                return;
+            }
+
+            final String[] lines = value.split("\n");
+            if (!lines[0].isEmpty()) {
+                mLastDrawn = Uri.parse(lines[0]);
+            }
+
+            for (int i = 1; i < lines.length; i++) {
+                final Uri uri = Uri.parse(lines[i]);
+                if (poolUris.contains(uri)) {
+                    mDeck.add(uri);
+                }
+            }
+        }
+
+        private void saveDeck() {
+            final StringBuilder value = new StringBuilder(mLastDrawn.toString());
+            for (Uri uri : mDeck) {
+                value.append('\n').append(uri);
+            }
+
+            mPrefs.edit().putString(mKey, value.toString()).apply();
+        }
+    }
+
+    /**
+     * Rebuilds the pool of custom ringtones when a custom ringtone is added or removed.
+     */
+    private final class PreferenceListener implements OnSharedPreferenceChangeListener {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+            if (key == null || CustomRingtoneDAO.RINGTONE_IDS.equals(key)) {
+                mCustomRingtones.invalidate();
+            }
+        }
+    }
+}
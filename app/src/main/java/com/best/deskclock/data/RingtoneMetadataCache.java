@@ -0,0 +1,534 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import android.annotation.SuppressLint;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.AtomicFile;
+
+import com.best.deskclock.base.AppExecutors;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.SdkUtils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Disk-backed cache of the title, duration and readability of the ringtones stored in the
+ * {@link MediaStore}, in the app storage or picked with the Storage Access Framework.
+ * <p>
+ * Each entry is keyed on the ringtone uri and remembers the size and last modification date of the
+ * content it describes, as well as its {@link MediaStore} generation when available. An entry is
+ * checked against its content once per process: media entries are checked in bulk when the cache
+ * file is loaded and each time the {@link MediaStore} reports a change, other entries on their
+ * first lookup. Afterward, a lookup is a plain map access.
+ * <p>
+ * Ringtones of other schemes (such as the system default alarm sound) are not cached here since
+ * their title depends on the locale and the system settings.
+ */
+final class RingtoneMetadataCache {
+
+    private static final String CACHE_FILE_NAME = "ringtone_metadata.json";
+
+    private static final String KEY_VOLUMES = "volumes";
+    private static final String KEY_ENTRIES = "entries";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_URI = "uri";
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_LAST_MODIFIED = "last_modified";
+    private static final String KEY_GENERATION = "generation";
+    private static final String KEY_TITLE = "title";
+    private static final String KEY_DURATION = "duration";
+    private static final String KEY_READABLE = "readable";
+
+    private static final String[] DOCUMENT_PROJECTION = new String[] {
+        DocumentsContract.Document.COLUMN_SIZE,
+        DocumentsContract.Document.COLUMN_LAST_MODIFIED
+    };
+
+    private final Context mContext;
+
+    private final AtomicFile mCacheFile;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Map<Uri, Metadata> mEntries = new ArrayMap<>();
+
+    /**
+     * The uris whose entry was checked against its content in this process. Guarded by {@code this}.
+     */
+    private final Set<Uri> mCheckedUris = new ArraySet<>();
+
+    /**
+     * Maps each media volume name to its version and generation when its entries were last
+     * checked. Guarded by {@code this}.
+     */
+    private final Map<String, VolumeState> mVolumes = new ArrayMap<>();
+
+    /**
+     * {@code true} while a write of the cache file is queued. Guarded by {@code this}.
+     */
+    private boolean mSaveScheduled;
+
+    RingtoneMetadataCache(Context context) {
+        mContext = context;
+        mCacheFile = new AtomicFile(new File(context.getCacheDir(), CACHE_FILE_NAME));
+    }
+
+    /**
+     * @return {@code true} if the metadata of the ringtone with the given {@code uri} can be cached
+     */
+    private boolean isCacheable(Uri uri) {
+        if (uri == null) {
+            return false;
+        }
+
+        return ContentResolver.SCHEME_FILE.equals(uri.getScheme())
+            || isMediaUri(uri)
+            || DocumentsContract.isDocumentUri(mContext, uri);
+    }
+
+    private static boolean isMediaUri(Uri uri) {
+        return ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())
+            && MediaStore.AUTHORITY.equals(uri.getAuthority())
+            && !uri.getPathSegments().isEmpty();
+    }
+
+    /**
+     * Reads the cache file, then checks the media entries. Entries already looked up in this
+     * process are kept. An unreadable cache file is left as is; it is replaced by the next write.
+     * <p>
+     * This method performs disk I/O and must be called on a background thread.
+     */
+    void load() {
+        if (!mCacheFile.getBaseFile().exists()) {
+            return;
+        }
+
+        final JSONObject root;
+        try (FileInputStream inputStream = mCacheFile.openRead()) {
+            root = new JSONObject(new String(readFully(inputStream), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            LogUtils.e("Unable to read the ringtone metadata cache", e);
+            return;
+        }
+
+        synchronized (this) {
+            final JSONObject volumes = root.optJSONObject(KEY_VOLUMES);
+            if (volumes != null) {
+                for (Iterator<String> iterator = volumes.keys(); iterator.hasNext(); ) {
+                    final String volumeName = iterator.next();
+                    final JSONObject volume = volumes.optJSONObject(volumeName);
+                    if (volume != null && !mVolumes.containsKey(volumeName)) {
+                        mVolumes.put(volumeName, new VolumeState(
+                            volume.optString(KEY_VERSION, null),
+                            volume.optLong(KEY_GENERATION, -1)));
+                    }
+                }
+            }
+
+            final JSONArray entries = root.optJSONArray(KEY_ENTRIES);
+            for (int i = 0; entries != null && i < entries.length(); i++) {
+                final JSONObject object = entries.optJSONObject(i);
+                if (object == null) {
+                    continue;
+                }
+
+                final Uri uri = Uri.parse(object.optString(KEY_URI));
+                if (!mEntries.containsKey(uri)) {
+                    mEntries.put(uri, new Metadata(
+                        object.optLong(KEY_SIZE, -1),
+                        object.optLong(KEY_LAST_MODIFIED, -1),
+                        object.optLong(KEY_GENERATION, -1),
+                        object.has(KEY_TITLE) ? object.optString(KEY_TITLE) : null,
+                        object.optInt(KEY_DURATION, 0),
+                        object.optBoolean(KEY_READABLE, false)));
+                }
+            }
+        }
+
+        checkMediaEntries();
+    }
+
+    /**
+     * Only the first lookup of an entry in this process queries its content; this query is much
+     * cheaper than creating a {@link android.media.Ringtone} or preparing a media player.
+     *
+     * @return the up-to-date metadata of the ringtone with the given {@code uri}; {@code null} if
+     * the uri is not cacheable or its content cannot be found
+     */
+    Metadata get(Uri uri) {
+        if (!isCacheable(uri)) {
+            return null;
+        }
+
+        synchronized (this) {
+            final Metadata cached = mEntries.get(uri);
+            if (cached != null && mCheckedUris.contains(uri)) {
+                return cached;
+            }
+        }
+
+        final Metadata current = queryContent(uri);
+
+        synchronized (this) {
+            final Metadata cached = mEntries.get(uri);
+            if (current == null) {
+                mCheckedUris.remove(uri);
+                if (cached != null) {
+                    mEntries.remove(uri);
+                    scheduleSave();
+                }
+                return null;
+            }
+
+            mCheckedUris.add(uri);
+            if (cached != null && cached.isSameContent(current)) {
+                return cached;
+            }
+
+            mEntries.put(uri, current);
+            scheduleSave();
+            return current;
+        }
+    }
+
+    /**
+     * Replaces the cached entry of the ringtone with the given {@code uri}.
+     */
+    synchronized void put(Uri uri, Metadata metadata) {
+        if (!isCacheable(uri) || metadata.equals(mEntries.get(uri))) {
+            return;
+        }
+
+        mEntries.put(uri, metadata);
+        mCheckedUris.add(uri);
+        scheduleSave();
+    }
+
+    /**
+     * Drops the cached entry of the ringtone with the given {@code uri}.
+     */
+    synchronized void invalidate(Uri uri) {
+        mCheckedUris.remove(uri);
+        if (mEntries.remove(uri) != null) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Checks the cached media entries against the {@link MediaStore} and drops those whose content
+     * changed or was removed. Volumes whose generation did not change since their last check are
+     * skipped without a query.
+     * <p>
+     * This method performs I/O and must be called on a background thread.
+     *
+     * @return the uris whose entry was dropped
+     */
+    Set<Uri> checkMediaEntries() {
+        // Group the cached media entries by volume.
+        final Map<String, Map<Long, Uri>> urisByVolume = new ArrayMap<>();
+        synchronized (this) {
+            for (Uri uri : mEntries.keySet()) {
+                if (!isMediaUri(uri)) {
+                    continue;
+                }
+
+                final String volumeName = uri.getPathSegments().get(0);
+                Map<Long, Uri> uris = urisByVolume.get(volumeName);
+                if (uris == null) {
+                    uris = new ArrayMap<>();
+                    urisByVolume.put(volumeName, uris);
+                }
+                try {
+                    uris.put(ContentUris.parseId(uri), uri);
+                } catch (NumberFormatException | UnsupportedOperationException e) {
+                    uris.put(-1L, uri);
+                }
+            }
+        }
+
+        final Set<Uri> dropped = new ArraySet<>();
+        for (Map.Entry<String, Map<Long, Uri>> volume : urisByVolume.entrySet()) {
+            final String volumeName = volume.getKey();
+            final VolumeState state = getVolumeState(volumeName);
+            synchronized (this) {
+                if (state != null && state.equals(mVolumes.get(volumeName))) {
+                    // Nothing changed on this volume since its last check.
+                    for (Uri uri : volume.getValue().values()) {
+                        if (mEntries.containsKey(uri)) {
+                            mCheckedUris.add(uri);
+                        }
+                    }
+                    continue;
+                }
+            }
+
+            final Map<Long, Metadata> contents = queryMediaContents(volumeName, volume.getValue().keySet());
+            if (contents == null) {
+                // The media may not be accessible, e.g. before the user unlocks the device.
+                continue;
+            }
+
+            synchronized (this) {
+                for (Map.Entry<Long, Uri> entry : volume.getValue().entrySet()) {
+                    final Uri uri = entry.getValue();
+                    final Metadata cached = mEntries.get(uri);
+                    if (cached == null) {
+                        continue;
+                    }
+
+                    final Metadata current = contents.get(entry.getKey());
+                    if (current != null && cached.isSameContent(current)) {
+                        mCheckedUris.add(uri);
+                    } else {
+                        mEntries.remove(uri);
+                        mCheckedUris.remove(uri);
+                        dropped.add(uri);
+                    }
+                }
+
+                if (state != null) {
+                    mVolumes.put(volumeName, state);
+                }
+                scheduleSave();
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * @return the current version and generation of the given media volume; {@code null} if the
+     * {@link MediaStore} does not expose them
+     */
+    @SuppressLint("NewApi")
+    private VolumeState getVolumeState(String volumeName) {
+        if (!SdkUtils.isAtLeastAndroid11()) {
+            return null;
+        }
+
+        try {
+            return new VolumeState(MediaStore.getVersion(mContext, volumeName),
+                MediaStore.getGeneration(mContext, volumeName));
+        } catch (Exception e) {
+            LogUtils.w("Unable to get the generation of the media volume: " + volumeName);
+            return null;
+        }
+    }
+
+    /**
+     * @return the content of the given media of the volume, mapped by id; {@code null} if the
+     * volume cannot be queried
+     */
+    private Map<Long, Metadata> queryMediaContents(String volumeName, Set<Long> ids) {
+        final Uri collection = MediaStore.Audio.Media.getContentUri(volumeName);
+        final String selection = MediaStore.Audio.Media._ID + " IN (" + TextUtils.join(",", ids) + ")";
+        final Map<Long, Metadata> contents = new ArrayMap<>(ids.size());
+        try (Cursor cursor = mContext.getContentResolver().query(collection, getMediaProjection(true), selection, null, null)) {
+            if (cursor == null) {
+                return null;
+            }
+
+            while (cursor.moveToNext()) {
+                contents.put(cursor.getLong(0), readMediaContent(cursor, 1));
+            }
+        } catch (Exception e) {
+            LogUtils.w("Unable to query the media of the volume: " + volumeName);
+            return null;
+        }
+
+        return contents;
+    }
+
+    private Metadata queryContent(Uri uri) {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme())) {
+            final File file = new File(Objects.requireNonNull(uri.getPath()));
+            if (!file.exists()) {
+                return null;
+            }
+
+            return new Metadata(file.length(), file.lastModified(), -1, null, 0, false);
+        }
+
+        final boolean isMedia = isMediaUri(uri);
+        final String[] projection = isMedia ? getMediaProjection(false) : DOCUMENT_PROJECTION;
+        try (Cursor cursor = mContext.getContentResolver().query(uri, projection, null, null, null)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                return null;
+            }
+
+            return isMedia
+                ? readMediaContent(cursor, 0)
+                : new Metadata(cursor.getLong(0), cursor.getLong(1), -1, null, 0, false);
+        } catch (Exception e) {
+            // The media may not be accessible, e.g. before the user unlocks the device, and the
+            // permission to read a document may have been revoked.
+            LogUtils.w("Unable to query the ringtone metadata: " + uri);
+            return null;
+        }
+    }
+
+    /**
+     * @param withId {@code true} to read the media id in the first column
+     * @return the columns read by {@link #readMediaContent}
+     */
+    @SuppressLint("InlinedApi")
+    private static String[] getMediaProjection(boolean withId) {
+        final List<String> projection = new ArrayList<>(6);
+        if (withId) {
+            projection.add(MediaStore.Audio.Media._ID);
+        }
+        projection.add(MediaStore.MediaColumns.SIZE);
+        projection.add(MediaStore.MediaColumns.DATE_MODIFIED);
+        projection.add(MediaStore.MediaColumns.TITLE);
+        projection.add(MediaStore.Audio.AudioColumns.DURATION);
+        if (SdkUtils.isAtLeastAndroid11()) {
+            projection.add(MediaStore.MediaColumns.GENERATION_MODIFIED);
+        }
+
+        return projection.toArray(new String[0]);
+    }
+
+    private static Metadata readMediaContent(Cursor cursor, int firstColumn) {
+        final long generation = SdkUtils.isAtLeastAndroid11() ? cursor.getLong(firstColumn + 4) : -1;
+        return new Metadata(cursor.getLong(firstColumn), cursor.getLong(firstColumn + 1), generation,
+            cursor.getString(firstColumn + 2), cursor.getInt(firstColumn + 3), false);
+    }
+
+    /**
+     * Coalesces the writes of the cache file on the background executor. Guarded by {@code this}.
+     */
+    private void scheduleSave() {
+        if (mSaveScheduled) {
+            return;
+        }
+
+        mSaveScheduled = true;
+        AppExecutors.getDiskIO().execute(this::save);
+    }
+
+    private void save() {
+        final JSONObject root = new JSONObject();
+
+        synchronized (this) {
+            mSaveScheduled = false;
+
+            try {
+                final JSONObject volumes = new JSONObject();
+                for (Map.Entry<String, VolumeState> entry : mVolumes.entrySet()) {
+                    volumes.put(entry.getKey(), new JSONObject()
+                        .put(KEY_VERSION, entry.getValue().version())
+                        .put(KEY_GENERATION, entry.getValue().generation()));
+                }
+
+                final JSONArray entries = new JSONArray();
+                for (Map.Entry<Uri, Metadata> entry : mEntries.entrySet()) {
+                    final Metadata metadata = entry.getValue();
+                    final JSONObject object = new JSONObject()
+                        .put(KEY_URI, entry.getKey().toString())
+                        .put(KEY_SIZE, metadata.size())
+                        .put(KEY_LAST_MODIFIED, metadata.lastModified())
+                        .put(KEY_GENERATION, metadata.generation())
+                        .put(KEY_DURATION, metadata.duration())
+                        .put(KEY_READABLE, metadata.readable());
+                    if (metadata.title() != null) {
+                        object.put(KEY_TITLE, metadata.title());
+                    }
+                    entries.put(object);
+                }
+
+                root.put(KEY_VOLUMES, volumes).put(KEY_ENTRIES, entries);
+            } catch (JSONException e) {
+                LogUtils.e("Unable to serialize the ringtone metadata cache", e);
+                return;
+            }
+        }
+
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = mCacheFile.startWrite();
+            outputStream.write(root.toString().getBytes(StandardCharsets.UTF_8));
+            mCacheFile.finishWrite(outputStream);
+        } catch (IOException e) {
+            LogUtils.e("Unable to write the ringtone metadata cache", e);
+            if (outputStream != null) {
+                mCacheFile.failWrite(outputStream);
+            }
+        }
+    }
+
+    private static byte[] readFully(FileInputStream inputStream) throws IOException {
+        final byte[] buffer = new byte[(int) inputStream.getChannel().size()];
+        int read = 0;
+        int length;
+        while (read < buffer.length && (length = inputStream.read(buffer, read, buffer.length - read)) > 0) {
+            read += length;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * The state of a media volume.
+     *
+     * @param version    the version of the volume; its generations restart when it changes
+     * @param generation the generation of the volume, incremented on each change of its media
+     */
+    private record VolumeState(String version, long generation) {
+    }
+
+    /**
+     * Metadata of a ringtone.
+     *
+     * @param size         the size of the content, used to detect its changes
+     * @param lastModified the last modification date of the content, used to detect its changes
+     * @param generation   the {@link MediaStore} generation of the last change of the content;
+     *                     {@code -1} if not available
+     * @param title        the title of the ringtone; {@code null} if not known yet
+     * @param duration     the duration of the ringtone in milliseconds; {@code 0} if not known yet
+     * @param readable     {@code true} if the ringtone was found readable; {@code false} if not
+     *                     checked yet
+     */
+    record Metadata(long size, long lastModified, long generation, String title, int duration, boolean readable) {
+
+        boolean isSameContent(Metadata other) {
+            return size == other.size && lastModified == other.lastModified && generation == other.generation;
+        }
+
+        Metadata withTitle(String newTitle) {
+            return new Metadata(size, lastModified, generation, newTitle, duration, readable);
+        }
+
+        Metadata withDuration(int newDuration) {
+            return new Metadata(size, lastModified, generation, title, newDuration, readable);
+        }
+
+        Metadata withReadable(boolean newReadable) {
+            return new Metadata(size, lastModified, generation, title, duration, newReadable);
+        }
+    }
+}
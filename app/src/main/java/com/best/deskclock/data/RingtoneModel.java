@@ -26,11 +26,14 @@ import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.provider.MediaStore;
 import android.provider.Settings;
+import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 
 import com.best.deskclock.R;
+import com.best.deskclock.base.AppExecutors;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
 import com.best.deskclock.utils.SdkUtils;
@@ -48,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * All ringtone data is accessed via this model.
@@ -63,6 +67,17 @@ public final class RingtoneModel {
      */
     private final Map<Uri, String> mRingtoneTitles = new ArrayMap<>(16);
 
+    /**
+     * Persists the title, duration and readability of media, custom and document ringtones across
+     * locale changes and process deaths.
+     */
+    private final RingtoneMetadataCache mMetadataCache;
+
+    /**
+     * The ringtones the "random" ringtones are chosen from.
+     */
+    private final RandomRingtonePool mRandomRingtonePool;
+
     /**
      * Clears data structures containing data that is locale-sensitive.
      */
@@ -83,6 +98,12 @@ public final class RingtoneModel {
      */
     private final ContentObserver mSystemObserver = new SystemAlarmAlertChangeObserver();
 
+    /**
+     * Observer for changes to the audio files of the {@link MediaStore}, which invalidate the
+     * cached ringtone metadata.
+     */
+    private final ContentObserver mMediaObserver = new MediaChangeObserver();
+
     /**
      * A mutable copy of the custom ringtones.
      */
@@ -93,10 +114,17 @@ public final class RingtoneModel {
 
         mPrefs = prefs;
 
+        mMetadataCache = new RingtoneMetadataCache(mContext);
+        mRandomRingtonePool = new RandomRingtonePool(mContext, mPrefs);
+
         // Clear caches affected by system settings when system settings change.
         final ContentResolver cr = mContext.getContentResolver();
         cr.registerContentObserver(Settings.System.DEFAULT_ALARM_ALERT_URI, false, mSystemObserver);
 
+        // Invalidate the cached metadata of media ringtones when the media change.
+        cr.registerContentObserver(MediaStore.Audio.Media.INTERNAL_CONTENT_URI, true, mMediaObserver);
+        cr.registerContentObserver(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, true, mMediaObserver);
+
         // Clear caches affected by locale when locale changes.
         final IntentFilter localeBroadcastFilter = new IntentFilter();
         localeBroadcastFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
@@ -167,6 +195,7 @@ public final class RingtoneModel {
                     }
                 }
 
+                mMetadataCache.invalidate(uri);
                 CustomRingtoneDAO.removeCustomRingtone(mPrefs, ringtone.getId());
                 ringtones.remove(ringtone);
                 break;
@@ -224,6 +253,14 @@ public final class RingtoneModel {
         }
     }
 
+    /**
+     * Loads the persisted ringtone metadata. This method performs disk I/O and must be called on
+     * a background thread.
+     */
+    void loadRingtoneMetadata() {
+        mMetadataCache.load();
+    }
+
     void loadRingtoneTitles() {
         // Early return if the cache is already primed.
         if (!mRingtoneTitles.isEmpty()) {
@@ -265,22 +302,127 @@ public final class RingtoneModel {
             return customRingtone.getTitle();
         }
 
-        // Check the cache.
+        // Check the caches.
         String title = mRingtoneTitles.get(uri);
+        if (title != null) {
+            return title;
+        }
 
+        final RingtoneMetadataCache.Metadata metadata = mMetadataCache.get(uri);
+        if (metadata != null && metadata.title() != null) {
+            mRingtoneTitles.put(uri, metadata.title());
+            return metadata.title();
+        }
+
+        // This is slow because a media player is created during Ringtone object creation.
+        final Ringtone ringtone = RingtoneManager.getRingtone(mContext, uri);
+        if (ringtone == null) {
+            LogUtils.e("No ringtone for uri: %s", uri);
+            return localizedContext.getString(R.string.unknown_ringtone_title);
+        }
+
+        // Cache the title for later use.
+        title = ringtone.getTitle(mContext);
+        mRingtoneTitles.put(uri, title);
+        if (metadata != null) {
+            mMetadataCache.put(uri, metadata.withTitle(title));
+        }
+
+        return title;
+    }
+
+    /**
+     * Resolves the title of the ringtone with the given {@code uri} ahead of its display; the title
+     * is added to the memory cache on the main thread.
+     * <p>
+     * This method performs I/O and must be called on a background thread.
+     */
+    void preloadRingtoneTitle(Uri uri) {
+        if (uri == null || RANDOM_RINGTONE.equals(uri) || RANDOM_CUSTOM_RINGTONE.equals(uri)
+            || RingtoneUtils.RINGTONE_SILENT.equals(uri)) {
+            return;
+        }
+
+        // Custom ringtones have their own title.
+        for (CustomRingtone ringtone : CustomRingtoneDAO.getCustomRingtones(mPrefs)) {
+            if (ringtone.getUri().equals(uri)) {
+                return;
+            }
+        }
+
+        final RingtoneMetadataCache.Metadata metadata = mMetadataCache.get(uri);
+        String title = metadata == null ? null : metadata.title();
         if (title == null) {
-            // This is slow because a media player is created during Ringtone object creation.
             final Ringtone ringtone = RingtoneManager.getRingtone(mContext, uri);
             if (ringtone == null) {
-                LogUtils.e("No ringtone for uri: %s", uri);
-                return localizedContext.getString(R.string.unknown_ringtone_title);
+                return;
             }
 
-            // Cache the title for later use.
             title = ringtone.getTitle(mContext);
-            mRingtoneTitles.put(uri, title);
+            if (metadata != null) {
+                mMetadataCache.put(uri, metadata.withTitle(title));
+            }
         }
-        return title;
+
+        final String resolvedTitle = title;
+        new Handler(Looper.getMainLooper()).post(() -> mRingtoneTitles.put(uri, resolvedTitle));
+    }
+
+    /**
+     * @return {@code true} if the ringtone with the given {@code uri} is readable by the application.
+     * {@code false} otherwise.
+     */
+    boolean isRingtoneReadable(Uri uri) {
+        final RingtoneMetadataCache.Metadata metadata = mMetadataCache.get(uri);
+        if (metadata != null && metadata.readable()) {
+            return true;
+        }
+
+        final boolean readable = RingtoneUtils.isRingtoneUriReadable(mContext, uri);
+        // Only remember readable ringtones: a permission may be granted at any time.
+        if (metadata != null && readable) {
+            mMetadataCache.put(uri, metadata.withReadable(true));
+        }
+
+        return readable;
+    }
+
+    /**
+     * @return the duration in milliseconds of the ringtone with the given {@code uri}
+     */
+    int getRingtoneDuration(Uri uri) {
+        final RingtoneMetadataCache.Metadata metadata = mMetadataCache.get(uri);
+        if (metadata != null && metadata.duration() > 0) {
+            return metadata.duration();
+        }
+
+        // This is slow because a media player must be prepared.
+        final int duration = RingtoneUtils.getRingtoneDuration(mContext, uri);
+        if (metadata != null && duration > 0) {
+            mMetadataCache.put(uri, metadata.withDuration(duration));
+        }
+
+        return duration;
+    }
+
+    /**
+     * @param randomRingtone {@link RingtoneUtils#RANDOM_RINGTONE} or {@link RingtoneUtils#RANDOM_CUSTOM_RINGTONE}
+     * @return a ringtone picked uniformly among the system or custom ringtones
+     */
+    Uri pickRandomRingtone(Uri randomRingtone) {
+        return RANDOM_CUSTOM_RINGTONE.equals(randomRingtone)
+            ? mRandomRingtonePool.pickCustomRingtone()
+            : mRandomRingtonePool.pickSystemRingtone();
+    }
+
+    /**
+     * @param randomRingtone {@link RingtoneUtils#RANDOM_RINGTONE} or {@link RingtoneUtils#RANDOM_CUSTOM_RINGTONE}
+     * @return the next ringtone of the shuffled system or custom ringtones
+     */
+    Uri drawRandomRingtone(Uri randomRingtone) {
+        return RANDOM_CUSTOM_RINGTONE.equals(randomRingtone)
+            ? mRandomRingtonePool.drawCustomRingtone()
+            : mRandomRingtonePool.drawSystemRingtone();
     }
 
     private List<CustomRingtone> getMutableCustomRingtones() {
@@ -302,6 +444,7 @@ public final class RingtoneModel {
     public void releaseResources() {
         try {
             mContext.getContentResolver().unregisterContentObserver(mSystemObserver);
+            mContext.getContentResolver().unregisterContentObserver(mMediaObserver);
         } catch (Exception e) {
             LogUtils.e("Failed to unregister ContentObserver", e);
         }
@@ -331,6 +474,55 @@ public final class RingtoneModel {
         }
     }
 
+    /**
+     * This observer is notified when audio files of the {@link MediaStore} are added, modified or
+     * removed. The cached metadata of the affected ringtones must be dropped.
+     */
+    private final class MediaChangeObserver extends ContentObserver {
+
+        /**
+         * {@code true} while a check of the cached media entries is queued.
+         */
+        private final AtomicBoolean mMediaCheckScheduled = new AtomicBoolean();
+
+        private MediaChangeObserver() {
+            super(new Handler(Looper.getMainLooper()));
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            super.onChange(selfChange, uri);
+
+            // Ringtones may have been added or removed.
+            mRandomRingtonePool.invalidateSystemRingtones();
+
+            if (uri != null && isMediaItemUri(uri)) {
+                mMetadataCache.invalidate(uri);
+                mRingtoneTitles.remove(uri);
+                return;
+            }
+
+            // Notifications for a whole collection do not tell which files changed: check the
+            // cached entries against the MediaStore once per burst of notifications.
+            if (!mMediaCheckScheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            AppExecutors.getDiskIO().execute(() -> {
+                mMediaCheckScheduled.set(false);
+                final Set<Uri> dropped = mMetadataCache.checkMediaEntries();
+                if (!dropped.isEmpty()) {
+                    new Handler(Looper.getMainLooper()).post(() -> mRingtoneTitles.keySet().removeAll(dropped));
+                }
+            });
+        }
+
+        private boolean isMediaItemUri(Uri uri) {
+            final String lastSegment = uri.getLastPathSegment();
+            return lastSegment != null && TextUtils.isDigitsOnly(lastSegment);
+        }
+    }
+
     /**
      * Cached information that is locale-sensitive must be cleared in response to locale changes.
      */
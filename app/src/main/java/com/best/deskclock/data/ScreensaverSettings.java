@@ -0,0 +1,124 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DISPLAY_SCREENSAVER_BATTERY;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DISPLAY_SCREENSAVER_CLOCK_SECONDS;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_ENABLE_SCREENSAVER_BLUR_EFFECT;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BACKGROUND_IMAGE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BATTERY_COLOR_PICKER;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BATTERY_IN_BOLD;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BATTERY_IN_ITALIC;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BLUR_INTENSITY;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_BRIGHTNESS;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_CLOCK_COLOR_PICKER;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_CLOCK_DYNAMIC_COLORS;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_CLOCK_STYLE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DATE_COLOR_PICKER;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DATE_IN_BOLD;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DATE_IN_ITALIC;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DIGITAL_CLOCK_FONT;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DIGITAL_CLOCK_FONT_SIZE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DIGITAL_CLOCK_IN_BOLD;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DIGITAL_CLOCK_IN_ITALIC;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_DISPLAY_TEXT_UPPERCASE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_NEXT_ALARM_COLOR_PICKER;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_NEXT_ALARM_IN_BOLD;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SCREENSAVER_NEXT_ALARM_IN_ITALIC;
+
+import android.content.SharedPreferences;
+
+import com.best.deskclock.data.DataModel.ClockStyle;
+
+import java.util.Set;
+
+/**
+ * An immutable copy of the settings read each time the screensaver is laid out or refreshes its
+ * battery level, date and next alarm.
+ * <p>
+ * The values are read from {@link SettingsDAO}, so the default values remain defined in a single
+ * place. Instances are safe to share between threads.
+ */
+public record ScreensaverSettings(
+    ClockStyle clockStyle,
+    String digitalClockFont,
+    int digitalClockFontSize,
+    boolean areClockSecondsDisplayed,
+    boolean areClockDynamicColors,
+    int clockColor,
+    int batteryColor,
+    int dateColor,
+    int nextAlarmColor,
+    int brightness,
+    boolean isBatteryDisplayed,
+    boolean isTextUppercaseDisplayed,
+    boolean isDigitalClockInBold,
+    boolean isDigitalClockInItalic,
+    boolean isBatteryInBold,
+    boolean isBatteryInItalic,
+    boolean isDateInBold,
+    boolean isDateInItalic,
+    boolean isNextAlarmInBold,
+    boolean isNextAlarmInItalic,
+    String backgroundImage,
+    boolean isBlurEffectEnabled,
+    int blurIntensity) {
+
+    /**
+     * The keys of the preferences copied into this record.
+     */
+    static final Set<String> KEYS = Set.of(
+        KEY_SCREENSAVER_CLOCK_STYLE,
+        KEY_SCREENSAVER_DIGITAL_CLOCK_FONT,
+        KEY_SCREENSAVER_DIGITAL_CLOCK_FONT_SIZE,
+        KEY_DISPLAY_SCREENSAVER_CLOCK_SECONDS,
+        KEY_SCREENSAVER_CLOCK_DYNAMIC_COLORS,
+        KEY_SCREENSAVER_CLOCK_COLOR_PICKER,
+        KEY_SCREENSAVER_BATTERY_COLOR_PICKER,
+        KEY_SCREENSAVER_DATE_COLOR_PICKER,
+        KEY_SCREENSAVER_NEXT_ALARM_COLOR_PICKER,
+        KEY_SCREENSAVER_BRIGHTNESS,
+        KEY_DISPLAY_SCREENSAVER_BATTERY,
+        KEY_SCREENSAVER_DISPLAY_TEXT_UPPERCASE,
+        KEY_SCREENSAVER_DIGITAL_CLOCK_IN_BOLD,
+        KEY_SCREENSAVER_DIGITAL_CLOCK_IN_ITALIC,
+        KEY_SCREENSAVER_BATTERY_IN_BOLD,
+        KEY_SCREENSAVER_BATTERY_IN_ITALIC,
+        KEY_SCREENSAVER_DATE_IN_BOLD,
+        KEY_SCREENSAVER_DATE_IN_ITALIC,
+        KEY_SCREENSAVER_NEXT_ALARM_IN_BOLD,
+        KEY_SCREENSAVER_NEXT_ALARM_IN_ITALIC,
+        KEY_SCREENSAVER_BACKGROUND_IMAGE,
+        KEY_ENABLE_SCREENSAVER_BLUR_EFFECT,
+        KEY_SCREENSAVER_BLUR_INTENSITY);
+
+    /**
+     * @return the screensaver settings currently stored in {@code prefs}
+     */
+    static ScreensaverSettings create(SharedPreferences prefs) {
+        return new ScreensaverSettings(
+            SettingsDAO.getScreensaverClockStyle(prefs),
+            SettingsDAO.getScreensaverDigitalClockFont(prefs),
+            SettingsDAO.getScreensaverDigitalClockFontSize(prefs),
+            SettingsDAO.areScreensaverClockSecondsDisplayed(prefs),
+            SettingsDAO.areScreensaverClockDynamicColors(prefs),
+            SettingsDAO.getScreensaverClockColorPicker(prefs),
+            SettingsDAO.getScreensaverBatteryColorPicker(prefs),
+            SettingsDAO.getScreensaverDateColorPicker(prefs),
+            SettingsDAO.getScreensaverNextAlarmColorPicker(prefs),
+            SettingsDAO.getScreensaverBrightness(prefs),
+            SettingsDAO.isScreensaverBatteryDisplayed(prefs),
+            SettingsDAO.isScreensaverTextUppercaseDisplayed(prefs),
+            SettingsDAO.isScreensaverDigitalClockInBold(prefs),
+            SettingsDAO.isScreensaverDigitalClockInItalic(prefs),
+            SettingsDAO.isScreensaverBatteryInBold(prefs),
+            SettingsDAO.isScreensaverBatteryInItalic(prefs),
+            SettingsDAO.isScreensaverDateInBold(prefs),
+            SettingsDAO.isScreensaverDateInItalic(prefs),
+            SettingsDAO.isScreensaverNextAlarmInBold(prefs),
+            SettingsDAO.isScreensaverNextAlarmInItalic(prefs),
+            SettingsDAO.getScreensaverBackgroundImage(prefs),
+            SettingsDAO.isScreensaverBlurEffectEnabled(prefs),
+            SettingsDAO.getScreensaverBlurIntensity(prefs));
+    }
+}
@@ -0,0 +1,140 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Describes the difference between the settings views the listeners were last notified of and the
+ * ones that were just rebuilt: the preference keys that were written and, for each domain, the old
+ * and new views so that a listener can tell which fields actually changed.
+ */
+public final class SettingsChangeSet {
+
+    private final Set<String> mChangedKeys;
+
+    private final AlarmSettings mOldAlarmSettings;
+    private final AlarmSettings mNewAlarmSettings;
+
+    private final TimerSettings mOldTimerSettings;
+    private final TimerSettings mNewTimerSettings;
+
+    private final WidgetSettings mOldWidgetSettings;
+    private final WidgetSettings mNewWidgetSettings;
+
+    private final ScreensaverSettings mOldScreensaverSettings;
+    private final ScreensaverSettings mNewScreensaverSettings;
+
+    SettingsChangeSet(Set<String> changedKeys,
+                      AlarmSettings oldAlarmSettings, AlarmSettings newAlarmSettings,
+                      TimerSettings oldTimerSettings, TimerSettings newTimerSettings,
+                      WidgetSettings oldWidgetSettings, WidgetSettings newWidgetSettings,
+                      ScreensaverSettings oldScreensaverSettings, ScreensaverSettings newScreensaverSettings) {
+
+        mChangedKeys = Collections.unmodifiableSet(changedKeys);
+        mOldAlarmSettings = oldAlarmSettings;
+        mNewAlarmSettings = newAlarmSettings;
+        mOldTimerSettings = oldTimerSettings;
+        mNewTimerSettings = newTimerSettings;
+        mOldWidgetSettings = oldWidgetSettings;
+        mNewWidgetSettings = newWidgetSettings;
+        mOldScreensaverSettings = oldScreensaverSettings;
+        mNewScreensaverSettings = newScreensaverSettings;
+    }
+
+    /**
+     * @return the keys of the settings written since the previous notification; empty if the
+     * preferences were cleared
+     */
+    @NonNull
+    public Set<String> getChangedKeys() {
+        return mChangedKeys;
+    }
+
+    /**
+     * @return {@code true} if the setting identified by {@code key} was written since the previous
+     * notification; {@code false} otherwise.
+     */
+    public boolean isKeyChanged(String key) {
+        return mChangedKeys.contains(key);
+    }
+
+    /**
+     * @return {@code true} if at least one alarm setting has a new value; {@code false} otherwise.
+     */
+    public boolean areAlarmSettingsChanged() {
+        return !mOldAlarmSettings.equals(mNewAlarmSettings);
+    }
+
+    /**
+     * @return {@code true} if at least one timer setting has a new value; {@code false} otherwise.
+     */
+    public boolean areTimerSettingsChanged() {
+        return !mOldTimerSettings.equals(mNewTimerSettings);
+    }
+
+    /**
+     * @return {@code true} if at least one widget setting has a new value; {@code false} otherwise.
+     */
+    public boolean areWidgetSettingsChanged() {
+        return !mOldWidgetSettings.equals(mNewWidgetSettings);
+    }
+
+    /**
+     * @return {@code true} if at least one screensaver setting has a new value; {@code false} otherwise.
+     */
+    public boolean areScreensaverSettingsChanged() {
+        return !mOldScreensaverSettings.equals(mNewScreensaverSettings);
+    }
+
+    /**
+     * @return {@code true} if no setting has a new value; {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return !areAlarmSettingsChanged() && !areTimerSettingsChanged()
+            && !areWidgetSettingsChanged() && !areScreensaverSettingsChanged();
+    }
+
+    @NonNull
+    public AlarmSettings getOldAlarmSettings() {
+        return mOldAlarmSettings;
+    }
+
+    @NonNull
+    public AlarmSettings getNewAlarmSettings() {
+        return mNewAlarmSettings;
+    }
+
+    @NonNull
+    public TimerSettings getOldTimerSettings() {
+        return mOldTimerSettings;
+    }
+
+    @NonNull
+    public TimerSettings getNewTimerSettings() {
+        return mNewTimerSettings;
+    }
+
+    @NonNull
+    public WidgetSettings getOldWidgetSettings() {
+        return mOldWidgetSettings;
+    }
+
+    @NonNull
+    public WidgetSettings getNewWidgetSettings() {
+        return mNewWidgetSettings;
+    }
+
+    @NonNull
+    public ScreensaverSettings getOldScreensaverSettings() {
+        return mOldScreensaverSettings;
+    }
+
+    @NonNull
+    public ScreensaverSettings getNewScreensaverSettings() {
+        return mNewScreensaverSettings;
+    }
+}
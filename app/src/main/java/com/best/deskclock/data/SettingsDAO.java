@@ -245,6 +245,15 @@ public final class SettingsDAO {
         return prefs.getString(KEY_CLOCK_SECOND_HAND, DEFAULT_CLOCK_SECOND_HAND);
     }
 
+    /**
+     * @return {@code true} if the second hand of the analog clock in the Clock tab moves smoothly.
+     * {@code false} if it ticks every second.
+     */
+    public static boolean isClockSecondHandSweeping(SharedPreferences prefs) {
+        // Default value must match the one in res/xml/settings_clock.xml
+        return prefs.getBoolean(KEY_SWEEP_CLOCK_SECOND_HAND, DEFAULT_SWEEP_CLOCK_SECOND_HAND);
+    }
+
     /**
      * @return the font applied to the digital clock in the Clock tab.
      */
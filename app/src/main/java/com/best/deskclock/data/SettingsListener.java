@@ -0,0 +1,15 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+/**
+ * The interface through which interested parties are notified when a rebuilt settings view holds
+ * at least one new value.
+ */
+public interface SettingsListener {
+
+    /**
+     * @param changes the settings that differ from the ones of the previous notification
+     */
+    void settingsChanged(SettingsChangeSet changes);
+}
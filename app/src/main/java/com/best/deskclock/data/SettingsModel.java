@@ -0,0 +1,308 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.util.ArraySet;
+
+import com.best.deskclock.base.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This model publishes the immutable alarm, timer, widget and screensaver settings views.
+ * <p>
+ * Each view is rebuilt only when one of its own keys changes, or when the preferences are cleared.
+ * The rebuild runs on the background executor; the listeners are then notified on the main thread
+ * with a {@link SettingsChangeSet}, but only if a value actually changed. Reading a view is
+ * lock-free. A reader arriving between a change and the end of its rebuild builds the view itself,
+ * so that a value is never read stale once its change listener has run. A write made on another
+ * thread than the main thread is seen once its change listener has been dispatched.
+ */
+final class SettingsModel {
+
+    private final SharedPreferences mPrefs;
+
+    /**
+     * Retain a hard reference to the shared preference observer to prevent it from being garbage
+     * collected. See {@link SharedPreferences#registerOnSharedPreferenceChangeListener} for detail.
+     */
+    @SuppressWarnings("FieldCanBeLocal")
+    private final OnSharedPreferenceChangeListener mPreferenceListener = new PreferenceListener();
+
+    private final Section<AlarmSettings> mAlarmSection = new Section<>(AlarmSettings.KEYS) {
+        @Override
+        AlarmSettings create(SharedPreferences prefs) {
+            return AlarmSettings.create(prefs);
+        }
+    };
+
+    private final Section<TimerSettings> mTimerSection = new Section<>(TimerSettings.KEYS) {
+        @Override
+        TimerSettings create(SharedPreferences prefs) {
+            return TimerSettings.create(prefs);
+        }
+    };
+
+    private final Section<WidgetSettings> mWidgetSection = new Section<>(WidgetSettings.KEYS) {
+        @Override
+        WidgetSettings create(SharedPreferences prefs) {
+            return WidgetSettings.create(prefs);
+        }
+    };
+
+    private final Section<ScreensaverSettings> mScreensaverSection = new Section<>(ScreensaverSettings.KEYS) {
+        @Override
+        ScreensaverSettings create(SharedPreferences prefs) {
+            return ScreensaverSettings.create(prefs);
+        }
+    };
+
+    private final List<Section<?>> mSections =
+        List.of(mAlarmSection, mTimerSection, mWidgetSection, mScreensaverSection);
+
+    /**
+     * List of listeners to invoke upon settings change. Accessed on the main thread only.
+     */
+    private final List<SettingsListener> mSettingsListeners = new ArrayList<>();
+
+    /**
+     * The keys written since the last notification. Accessed on the main thread only.
+     */
+    private final Set<String> mPendingKeys = new ArraySet<>();
+
+    /**
+     * {@code true} while a rebuild is queued on the background executor. Accessed on the main
+     * thread only.
+     */
+    private boolean mRebuildScheduled;
+
+    SettingsModel(SharedPreferences prefs) {
+        mPrefs = prefs;
+
+        // The preferences are already loaded at this point, the first views are cheap to build.
+        for (Section<?> section : mSections) {
+            section.markNotified(mPrefs);
+        }
+
+        mPrefs.registerOnSharedPreferenceChangeListener(mPreferenceListener);
+    }
+
+    /**
+     * May be called from any thread.
+     */
+    AlarmSettings getAlarmSettings() {
+        return mAlarmSection.get(mPrefs);
+    }
+
+    /**
+     * May be called from any thread.
+     */
+    TimerSettings getTimerSettings() {
+        return mTimerSection.get(mPrefs);
+    }
+
+    /**
+     * May be called from any thread.
+     */
+    WidgetSettings getWidgetSettings() {
+        return mWidgetSection.get(mPrefs);
+    }
+
+    /**
+     * May be called from any thread.
+     */
+    ScreensaverSettings getScreensaverSettings() {
+        return mScreensaverSection.get(mPrefs);
+    }
+
+    void addSettingsListener(SettingsListener listener) {
+        mSettingsListeners.add(listener);
+    }
+
+    void removeSettingsListener(SettingsListener listener) {
+        mSettingsListeners.remove(listener);
+    }
+
+    private void scheduleRebuild() {
+        if (mRebuildScheduled) {
+            return;
+        }
+
+        mRebuildScheduled = true;
+        AppExecutors.getDiskIO().execute(() -> {
+            for (Section<?> section : mSections) {
+                if (section.isStale()) {
+                    section.rebuild(mPrefs);
+                }
+            }
+            AppExecutors.getMainThread().post(this::onRebuilt);
+        });
+    }
+
+    private void onRebuilt() {
+        mRebuildScheduled = false;
+
+        // Only report the keys of the views that include their last write; the others are
+        // reported by the next rebuild.
+        final Set<String> changedKeys = new ArraySet<>();
+        boolean isStale = false;
+        for (Section<?> section : mSections) {
+            if (section.isStale()) {
+                isStale = true;
+                continue;
+            }
+
+            final Iterator<String> iterator = mPendingKeys.iterator();
+            while (iterator.hasNext()) {
+                final String key = iterator.next();
+                if (section.mKeys.contains(key)) {
+                    changedKeys.add(key);
+                    iterator.remove();
+                }
+            }
+        }
+
+        final SettingsChangeSet changes = new SettingsChangeSet(changedKeys,
+            mAlarmSection.mNotified, mAlarmSection.markNotified(mPrefs),
+            mTimerSection.mNotified, mTimerSection.markNotified(mPrefs),
+            mWidgetSection.mNotified, mWidgetSection.markNotified(mPrefs),
+            mScreensaverSection.mNotified, mScreensaverSection.markNotified(mPrefs));
+        if (!changes.isEmpty()) {
+            for (SettingsListener listener : new ArrayList<>(mSettingsListeners)) {
+                listener.settingsChanged(changes);
+            }
+        }
+
+        if (isStale) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * A view built at a given generation of its section.
+     */
+    private record Built<T>(long generation, T value) {
+    }
+
+    /**
+     * Holds the published view of one settings domain.
+     */
+    private abstract static class Section<T> {
+
+        /**
+         * The keys of the preferences the view is built from.
+         */
+        private final Set<String> mKeys;
+
+        /**
+         * Incremented each time one of {@link #mKeys} is written; a view is current if it was
+         * built at this generation.
+         */
+        private final AtomicLong mGeneration = new AtomicLong();
+
+        /**
+         * The most recent view; the initial placeholder is older than any generation.
+         */
+        private final AtomicReference<Built<T>> mBuilt = new AtomicReference<>(new Built<>(-1, null));
+
+        /**
+         * The view the listeners were last notified of. Accessed on the main thread only.
+         */
+        private T mNotified;
+
+        Section(Set<String> keys) {
+            mKeys = keys;
+        }
+
+        abstract T create(SharedPreferences prefs);
+
+        T get(SharedPreferences prefs) {
+            final Built<T> built = mBuilt.get();
+            if (built.generation() >= mGeneration.get()) {
+                return built.value();
+            }
+
+            return rebuild(prefs);
+        }
+
+        boolean isStale() {
+            return mBuilt.get().generation() < mGeneration.get();
+        }
+
+        /**
+         * Called on the main thread, when a preference is written or the preferences are cleared.
+         *
+         * @return {@code true} if the view must be rebuilt; {@code false} otherwise.
+         */
+        boolean invalidate(String key) {
+            if (key != null && !mKeys.contains(key)) {
+                return false;
+            }
+
+            mGeneration.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * Builds the view from the preferences and publishes it unless a view of a later
+         * generation was published meanwhile.
+         *
+         * @return the view that is current after the call
+         */
+        T rebuild(SharedPreferences prefs) {
+            // Read the generation before the preferences so that the view is never newer than
+            // its generation claims.
+            final Built<T> candidate = new Built<>(mGeneration.get(), create(prefs));
+            while (true) {
+                final Built<T> current = mBuilt.get();
+                if (current.generation() >= candidate.generation()) {
+                    return current.value();
+                }
+                if (mBuilt.compareAndSet(current, candidate)) {
+                    return candidate.value();
+                }
+            }
+        }
+
+        /**
+         * Records the current view as the one the listeners were notified of. A stale view is left
+         * to the next background rebuild rather than being built on the main thread.
+         *
+         * @return the view the listeners are notified of
+         */
+        T markNotified(SharedPreferences prefs) {
+            if (mNotified == null || !isStale()) {
+                mNotified = get(prefs);
+            }
+            return mNotified;
+        }
+    }
+
+    /**
+     * Invalidates the views built from the written preference, or all of them when the
+     * preferences are cleared.
+     */
+    private final class PreferenceListener implements OnSharedPreferenceChangeListener {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+            boolean isInvalidated = false;
+            for (Section<?> section : mSections) {
+                isInvalidated |= section.invalidate(key);
+            }
+
+            if (isInvalidated) {
+                if (key != null) {
+                    mPendingKeys.add(key);
+                }
+                scheduleRebuild();
+            }
+        }
+    }
+}
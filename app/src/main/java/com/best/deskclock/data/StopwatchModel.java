@@ -22,6 +22,7 @@ import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
 import com.best.deskclock.tiles.StopwatchTileService;
+import com.best.deskclock.utils.NotificationRegistry;
 import com.best.deskclock.utils.SdkUtils;
 
 import java.util.ArrayList;
@@ -244,7 +245,9 @@ final class StopwatchModel {
 
         // Notification should be hidden if the stopwatch has no time or the app is open.
         if (stopwatch.isReset() || mNotificationModel.isApplicationInForeground()) {
-            mNotificationManager.cancel(mNotificationModel.getStopwatchNotificationId());
+            final int notificationId = mNotificationModel.getStopwatchNotificationId();
+            mNotificationManager.cancel(notificationId);
+            NotificationRegistry.onCanceled(mContext, notificationId);
             return;
         }
 
@@ -257,6 +260,7 @@ final class StopwatchModel {
         final Notification notification = mNotificationBuilder.build(mContext, mNotificationModel, stopwatch);
 
         mNotificationManager.notify(mNotificationModel.getStopwatchNotificationId(), notification);
+        NotificationRegistry.onPosted(mContext, mNotificationModel.getStopwatchNotificationId(), notification);
     }
 
     private List<Lap> getMutableLaps() {
@@ -0,0 +1,17 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import java.util.Set;
+
+/**
+ * The interface through which interested parties are notified when the UTC offset of a displayed
+ * time zone changes (e.g. a daylight saving time transition).
+ */
+public interface TimeZoneTransitionListener {
+
+    /**
+     * @param timeZoneIds the ids of the time zones whose UTC offset just changed
+     */
+    void timeZonesTransitioned(Set<String> timeZoneIds);
+}
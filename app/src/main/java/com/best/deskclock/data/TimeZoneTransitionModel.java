@@ -0,0 +1,291 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static android.app.PendingIntent.FLAG_NO_CREATE;
+import static android.app.PendingIntent.FLAG_UPDATE_CURRENT;
+import static android.content.Intent.ACTION_TIME_CHANGED;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import com.best.deskclock.utils.ClockUtils;
+import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.SdkUtils;
+import com.best.deskclock.utils.WidgetUtils;
+import com.best.deskclock.widgets.DigitalAppWidgetProvider;
+import com.best.deskclock.worldclock.TimeZoneTransitionReceiver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * This model precomputes the next UTC offset transition (e.g. daylight saving time) of every
+ * displayed time zone: the device time zone, the home time zone and the time zones of the
+ * selected cities.
+ * <p>
+ * A single alarm is scheduled at the earliest transition. When it fires, only the time zones
+ * whose offset actually changed are published, so that the world clocks, the digital widgets
+ * and the city sort orders are updated exactly when needed instead of being polled.
+ * <p>
+ * Nothing is computed until the transitions are first needed: when a listener registers or when
+ * the transition alarm starts the process. The device time zone alone needs no alarm, so none
+ * is scheduled while neither a city nor the home clock is displayed.
+ */
+final class TimeZoneTransitionModel {
+
+    private static final LogUtils.Logger LOGGER = new LogUtils.Logger("TimeZoneTransition");
+
+    private final Context mContext;
+
+    private final SharedPreferences mPrefs;
+
+    private final CityModel mCityModel;
+
+    /**
+     * Retain a hard reference to the city listener to follow the displayed time zones.
+     */
+    @SuppressWarnings("FieldCanBeLocal")
+    private final CityListener mCityListener = new TransitionCityListener();
+
+    /**
+     * Recomputes the transitions when the device time jumps.
+     */
+    @SuppressWarnings("FieldCanBeLocal")
+    private final BroadcastReceiver mTimeChangedReceiver = new TimeChangedReceiver();
+
+    /**
+     * List of listeners to invoke upon time zone transitions.
+     */
+    private final List<TimeZoneTransitionListener> mTimeZoneTransitionListeners = new ArrayList<>();
+
+    /**
+     * Maps the id of each displayed time zone to its UTC offset when the transitions were computed.
+     */
+    private final Map<String, Integer> mOffsets = new ArrayMap<>();
+
+    /**
+     * Maps the id of each displayed time zone to the time of its next offset transition.
+     */
+    private final Map<String, Long> mNextTransitions = new ArrayMap<>();
+
+    /**
+     * Whether the transitions have been computed and are kept up to date.
+     */
+    private boolean mTracking;
+
+    TimeZoneTransitionModel(Context context, SharedPreferences prefs, CityModel cityModel) {
+        mContext = context;
+        mPrefs = prefs;
+        mCityModel = cityModel;
+
+        // Changes of the selected cities, home time zone or device time zone are all published
+        // as city changes.
+        mCityModel.addCityListener(mCityListener);
+
+        final IntentFilter timeChangedBroadcastFilter = new IntentFilter(ACTION_TIME_CHANGED);
+        if (SdkUtils.isAtLeastAndroid13()) {
+            mContext.registerReceiver(mTimeChangedReceiver, timeChangedBroadcastFilter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            mContext.registerReceiver(mTimeChangedReceiver, timeChangedBroadcastFilter);
+        }
+    }
+
+    void addTimeZoneTransitionListener(TimeZoneTransitionListener listener) {
+        mTimeZoneTransitionListeners.add(listener);
+        startTracking();
+    }
+
+    void removeTimeZoneTransitionListener(TimeZoneTransitionListener listener) {
+        mTimeZoneTransitionListeners.remove(listener);
+    }
+
+    /**
+     * Called when the scheduled transition alarm fires; publishes the time zones whose UTC offset
+     * changed and schedules the next transition.
+     */
+    void onTimeZoneTransition() {
+        startTracking();
+
+        final long now = System.currentTimeMillis();
+
+        final Set<String> transitioned = new ArraySet<>();
+        for (Map.Entry<String, Integer> entry : mOffsets.entrySet()) {
+            if (TimeZone.getTimeZone(entry.getKey()).getOffset(now) != entry.getValue()) {
+                transitioned.add(entry.getKey());
+            }
+        }
+
+        // If the process was started by this alarm, the offsets were computed after the
+        // transition; refresh every displayed time zone.
+        if (transitioned.isEmpty()) {
+            transitioned.addAll(mOffsets.keySet());
+        }
+
+        LOGGER.i("Time zones transitioned: " + transitioned);
+
+        // Recompute first so that listeners reading the model see the new offsets.
+        mCityModel.timeZonesTransitioned(transitioned);
+        updateTransitions();
+
+        for (TimeZoneTransitionListener listener : mTimeZoneTransitionListeners) {
+            listener.timeZonesTransitioned(transitioned);
+        }
+
+        if (WidgetDAO.areWorldCitiesDisplayedOnDigitalWidget(mPrefs)) {
+            WidgetUtils.updateWidget(mContext, DigitalAppWidgetProvider.class);
+        }
+    }
+
+    private void startTracking() {
+        if (!mTracking) {
+            mTracking = true;
+            updateTransitions();
+        }
+    }
+
+    /**
+     * Computes the next transition of every displayed time zone and schedules a single alarm at
+     * the earliest one. Transitions still ahead are reused rather than recomputed.
+     */
+    private void updateTransitions() {
+        final boolean showHomeClock = SettingsDAO.getShowHomeClock(mContext, mPrefs);
+        final List<City> selectedCities = mCityModel.getSelectedCities();
+        if (selectedCities.isEmpty() && !showHomeClock) {
+            mOffsets.clear();
+            mNextTransitions.clear();
+            cancelTransitionAlarm();
+            return;
+        }
+
+        final Set<TimeZone> zones = new ArraySet<>();
+        zones.add(TimeZone.getDefault());
+        if (showHomeClock) {
+            zones.add(mCityModel.getHomeCity().getTimeZone());
+        }
+        for (City city : selectedCities) {
+            zones.add(city.getTimeZone());
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<String, Long> nextTransitions = new ArrayMap<>(zones.size());
+        mOffsets.clear();
+        for (TimeZone zone : zones) {
+            final String id = zone.getID();
+            Long nextTransition = mNextTransitions.get(id);
+            if (nextTransition == null || nextTransition <= now) {
+                nextTransition = ClockUtils.getNextOffsetTransition(now, zone);
+            }
+
+            nextTransitions.put(id, nextTransition);
+            mOffsets.put(id, zone.getOffset(now));
+        }
+
+        mNextTransitions.clear();
+        mNextTransitions.putAll(nextTransitions);
+        scheduleTransitionAlarm();
+    }
+
+    /**
+     * Adds the time zone of a newly displayed city, if not displayed yet. The other time zones
+     * keep the offsets they had, so that a transition not published yet is not lost.
+     */
+    private void addTimeZone(TimeZone zone) {
+        final String id = zone.getID();
+        if (mOffsets.containsKey(id)) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        mOffsets.put(id, zone.getOffset(now));
+        mNextTransitions.put(id, ClockUtils.getNextOffsetTransition(now, zone));
+        scheduleTransitionAlarm();
+    }
+
+    /**
+     * Schedules a single alarm at the earliest transition.
+     */
+    private void scheduleTransitionAlarm() {
+        long earliestTransition = Long.MAX_VALUE;
+        for (long nextTransition : mNextTransitions.values()) {
+            earliestTransition = Math.min(earliestTransition, nextTransition);
+        }
+
+        if (earliestTransition == Long.MAX_VALUE) {
+            cancelTransitionAlarm();
+        } else {
+            final PendingIntent pi = PendingIntent.getBroadcast(mContext, 0, getTransitionIntent(),
+                FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+            WidgetUtils.getAlarmManager(mContext).setExact(AlarmManager.RTC, earliestTransition, pi);
+        }
+    }
+
+    private void cancelTransitionAlarm() {
+        final PendingIntent pi = PendingIntent.getBroadcast(mContext, 0, getTransitionIntent(),
+            FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+        if (pi != null) {
+            WidgetUtils.getAlarmManager(mContext).cancel(pi);
+            pi.cancel();
+        }
+    }
+
+    private Intent getTransitionIntent() {
+        return new Intent(mContext, TimeZoneTransitionReceiver.class);
+    }
+
+    /**
+     * Follows the displayed time zones. Moving a city does not change them, and a removed time
+     * zone is left until the next recomputation: its transition is merely published for nothing.
+     */
+    private final class TransitionCityListener implements CityListener {
+        @Override
+        public void citiesChanged() {
+            if (mTracking) {
+                updateTransitions();
+            }
+        }
+
+        @Override
+        public void cityAdded(City city, int position) {
+            if (!mTracking) {
+                return;
+            }
+
+            if (mOffsets.isEmpty()) {
+                updateTransitions();
+            } else {
+                addTimeZone(city.getTimeZone());
+            }
+        }
+
+        @Override
+        public void cityRemoved(City city, int position) {
+        }
+
+        @Override
+        public void cityMoved(City city, int fromPosition, int toPosition) {
+        }
+    }
+
+    /**
+     * Recomputes the transitions when the device time changes.
+     */
+    private final class TimeChangedReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (mTracking) {
+                updateTransitions();
+            }
+        }
+    }
+}
@@ -45,6 +45,7 @@ import com.best.deskclock.tiles.TimerTileService;
 import com.best.deskclock.timer.TimerKlaxon;
 import com.best.deskclock.timer.TimerService;
 import com.best.deskclock.utils.LogUtils;
+import com.best.deskclock.utils.NotificationRegistry;
 import com.best.deskclock.utils.RingtoneUtils;
 import com.best.deskclock.utils.SdkUtils;
 
@@ -75,6 +76,11 @@ final class TimerModel {
      */
     private final AlarmManager mAlarmManager;
 
+    /**
+     * The model from which the timer settings are fetched.
+     */
+    private final SettingsModel mSettingsModel;
+
     /**
      * The model from which notification data are fetched.
      */
@@ -96,6 +102,11 @@ final class TimerModel {
     @SuppressWarnings("FieldCanBeLocal")
     private final BroadcastReceiver mLocaleChangedReceiver = new LocaleChangedReceiver();
 
+    /**
+     * Update timer notifications when the timer settings change.
+     */
+    private final SettingsListener mSettingsListener = new TimerSettingsListener();
+
     /**
      * The listeners to notify when a timer is added, updated or removed.
      */
@@ -151,10 +162,12 @@ final class TimerModel {
      */
     private Service mService;
 
-    TimerModel(Context context, SharedPreferences prefs, RingtoneModel ringtoneModel, NotificationModel notificationModel) {
+    TimerModel(Context context, SharedPreferences prefs, SettingsModel settingsModel, RingtoneModel ringtoneModel,
+               NotificationModel notificationModel) {
 
         mContext = context;
         mPrefs = prefs;
+        mSettingsModel = settingsModel;
         mRingtoneModel = ringtoneModel;
         mNotificationModel = notificationModel;
         mNotificationManager = NotificationManagerCompat.from(context);
@@ -174,6 +187,9 @@ final class TimerModel {
         } else {
             mContext.registerReceiver(mLocaleChangedReceiver, localeBroadcastFilter);
         }
+
+        // Update timer notifications when the timer settings change.
+        mSettingsModel.addSettingsListener(mSettingsListener);
     }
 
     static void schedulePendingIntent(AlarmManager am, long triggerTime, PendingIntent pi) {
@@ -479,7 +495,7 @@ final class TimerModel {
      * @return the duration for which a timer can ring before expiring and being reset
      */
     long getTimerAutoSilenceDuration() {
-        return SettingsDAO.getTimerAutoSilenceDuration(mPrefs);
+        return mSettingsModel.getTimerSettings().timerAutoSilenceDuration();
     }
 
     private List<Timer> getMutableTimers() {
@@ -583,7 +599,7 @@ final class TimerModel {
     private void doRemoveTimer(Timer timer) {
         // Cancel the specific notification before clearing the timer from memory.
         int notificationId = mNotificationModel.getUnexpiredTimerNotificationId(timer.getId());
-        mNotificationManager.cancel(notificationId);
+        cancelNotification(notificationId);
 
         // Remove the timer from permanent storage.
         TimerDAO.removeTimer(mPrefs, timer);
@@ -635,7 +651,7 @@ final class TimerModel {
      * @param eventLabelId the label of the timer event to send; 0 if no event should be sent
      */
     private void doResetOrDeleteTimer(Timer timer, boolean allowDelete, @StringRes int eventLabelId) {
-        if (SettingsDAO.isSingleTimerModeEnabled(mPrefs)
+        if (mSettingsModel.getTimerSettings().isSingleTimerModeEnabled()
             || (allowDelete && (timer.isExpired() || timer.isMissed()) && timer.getDeleteAfterUse())) {
             doRemoveTimer(timer);
             if (eventLabelId != 0) {
@@ -762,7 +778,7 @@ final class TimerModel {
 
         // Timer silence has been set to "At the end of the ringtone"
         if (getTimerAutoSilenceDuration() == TIMEOUT_END_OF_RINGTONE) {
-            duration = RingtoneUtils.getRingtoneDuration(mContext, mTimerRingtoneUri);
+            duration = mRingtoneModel.getRingtoneDuration(mTimerRingtoneUri);
         } else {
             duration = getTimerAutoSilenceDuration() * 1000;
         }
@@ -810,9 +826,9 @@ final class TimerModel {
             // Notifications should be displayed if the app is not open and the timer is unexpired.
             if (!inForeground && (timer.isRunning() || timer.isPaused())) {
                 Notification notification = mNotificationBuilder.build(mContext, mNotificationModel, timer);
-                mNotificationManager.notify(notificationId, notification);
+                postNotification(notificationId, notification);
             } else {
-                mNotificationManager.cancel(notificationId);
+                cancelNotification(notificationId);
             }
         }
 
@@ -838,9 +854,9 @@ final class TimerModel {
             // Notifications should be displayed if the app is not open and the timer is missed.
             if (!inForeground && timer.isMissed()) {
                 Notification notification = mNotificationBuilder.buildMissed(mContext, mNotificationModel, timer);
-                mNotificationManager.notify(notificationId, notification);
+                postNotification(notificationId, notification);
             } else {
-                mNotificationManager.cancel(notificationId);
+                cancelNotification(notificationId);
             }
         }
 
@@ -860,12 +876,22 @@ final class TimerModel {
 
         if ((hasActiveTimers || hasMissedTimers) && !mNotificationModel.isApplicationInForeground()) {
             Notification summary = mNotificationBuilder.buildSummaryNotification(mContext, mNotificationModel);
-            mNotificationManager.notify(mNotificationModel.getSummaryNotificationId(), summary);
+            postNotification(mNotificationModel.getSummaryNotificationId(), summary);
         } else {
-            mNotificationManager.cancel(mNotificationModel.getSummaryNotificationId());
+            cancelNotification(mNotificationModel.getSummaryNotificationId());
         }
     }
 
+    private void postNotification(int notificationId, Notification notification) {
+        mNotificationManager.notify(notificationId, notification);
+        NotificationRegistry.onPosted(mContext, notificationId, notification);
+    }
+
+    private void cancelNotification(int notificationId) {
+        mNotificationManager.cancel(notificationId);
+        NotificationRegistry.onCanceled(mContext, notificationId);
+    }
+
     /**
      * Updates the heads-up notification controlling expired timers. This heads-up notification is
      * displayed whether the application is open or not.
@@ -913,4 +939,21 @@ final class TimerModel {
         }
     }
 
+    /**
+     * Rebuilds the timer notifications, whose actions depend on the single timer mode.
+     */
+    private final class TimerSettingsListener implements SettingsListener {
+        @Override
+        public void settingsChanged(SettingsChangeSet changes) {
+            if (changes.getOldTimerSettings().isSingleTimerModeEnabled()
+                == changes.getNewTimerSettings().isSingleTimerModeEnabled()) {
+                return;
+            }
+
+            updateNotification();
+            updateMissedNotification();
+            updateHeadsUpNotification();
+        }
+    }
+
 }
@@ -10,7 +10,6 @@ import static android.text.format.DateUtils.MINUTE_IN_MILLIS;
 import static android.text.format.DateUtils.SECOND_IN_MILLIS;
 import static androidx.core.app.NotificationCompat.Action;
 import static androidx.core.app.NotificationCompat.Builder;
-import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
 import static com.best.deskclock.utils.NotificationUtils.FIRING_NOTIFICATION_CHANNEL_ID;
 import static com.best.deskclock.utils.NotificationUtils.TIMER_MODEL_NOTIFICATION_CHANNEL_ID;
 
@@ -21,7 +20,6 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Build;
 import android.os.SystemClock;
@@ -88,7 +86,7 @@ class TimerNotificationBuilder {
 
     public Notification build(Context context, NotificationModel nm, Timer timer) {
         final Context localizedContext = Utils.getLocalizedContext(context);
-        final SharedPreferences prefs = getDefaultSharedPreferences(context);
+        final TimerSettings timerSettings = DataModel.getDataModel().getTimerSettings();
         final boolean running = timer.isRunning();
         final long base = getChronometerBase(timer);
         final List<Action> actions = new ArrayList<>(2);
@@ -163,7 +161,7 @@ class TimerNotificationBuilder {
                 .putExtra(TimerService.EXTRA_TIMER_ID, timerId);
 
             @DrawableRes final int icon = R.drawable.ic_reset;
-            final CharSequence title = localizedContext.getText(SettingsDAO.isSingleTimerModeEnabled(prefs)
+            final CharSequence title = localizedContext.getText(timerSettings.isSingleTimerModeEnabled()
                 ? R.string.delete
                 : R.string.reset);
             final PendingIntent intent = Utils.pendingServiceIntent(context, reset, timerId);
@@ -242,7 +240,7 @@ class TimerNotificationBuilder {
 
     Notification buildHeadsUp(Context context, List<Timer> expired) {
         final Context localizedContext = Utils.getLocalizedContext(context);
-        final SharedPreferences prefs = getDefaultSharedPreferences(context);
+        final TimerSettings timerSettings = DataModel.getDataModel().getTimerSettings();
         final Timer timer = expired.get(0);
         final int timerId = timer.getId();
 
@@ -268,7 +266,7 @@ class TimerNotificationBuilder {
             stateText = localizedContext.getString(R.string.timer_times_up);
 
             // Left button: Reset single timer
-            final CharSequence title1 = localizedContext.getString(SettingsDAO.isSingleTimerModeEnabled(prefs)
+            final CharSequence title1 = localizedContext.getString(timerSettings.isSingleTimerModeEnabled()
                 ? R.string.delete
                 : R.string.timer_stop);
             actions.add(new Action.Builder(icon1, title1, intent1).build());
@@ -355,7 +353,7 @@ class TimerNotificationBuilder {
 
     Notification buildMissed(Context context, NotificationModel nm, Timer timer) {
         final Context localizedContext = Utils.getLocalizedContext(context);
-        final SharedPreferences prefs = getDefaultSharedPreferences(context);
+        final TimerSettings timerSettings = DataModel.getDataModel().getTimerSettings();
         final int timerId = timer.getId();
         final long base = getChronometerBase(timer);
         final Action action;
@@ -387,7 +385,7 @@ class TimerNotificationBuilder {
         final PendingIntent pendingShowApp = Utils.pendingActivityIntent(context, showApp);
 
         @DrawableRes final int icon = R.drawable.ic_reset;
-        final CharSequence title = localizedContext.getText(SettingsDAO.isSingleTimerModeEnabled(prefs) ? R.string.delete : R.string.reset);
+        final CharSequence title = localizedContext.getText(timerSettings.isSingleTimerModeEnabled() ? R.string.delete : R.string.reset);
         final PendingIntent intent = Utils.pendingServiceIntent(context, reset);
         action = new Action.Builder(icon, title, intent).build();
 
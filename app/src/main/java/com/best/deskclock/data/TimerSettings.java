@@ -0,0 +1,38 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static com.best.deskclock.settings.PreferencesKeys.KEY_SINGLE_TIMER_MODE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_TIMER_AUTO_SILENCE_DURATION;
+
+import android.content.SharedPreferences;
+
+import java.util.Set;
+
+/**
+ * An immutable copy of the settings read each time a timer notification is built or a timer
+ * expires.
+ * <p>
+ * The values are read from {@link SettingsDAO}, so the default values remain defined in a single
+ * place. Instances are safe to share between threads.
+ */
+public record TimerSettings(
+    boolean isSingleTimerModeEnabled,
+    int timerAutoSilenceDuration) {
+
+    /**
+     * The keys of the preferences copied into this record.
+     */
+    static final Set<String> KEYS = Set.of(
+        KEY_SINGLE_TIMER_MODE,
+        KEY_TIMER_AUTO_SILENCE_DURATION);
+
+    /**
+     * @return the timer settings currently stored in {@code prefs}
+     */
+    static TimerSettings create(SharedPreferences prefs) {
+        return new TimerSettings(
+            SettingsDAO.isSingleTimerModeEnabled(prefs),
+            SettingsDAO.getTimerAutoSilenceDuration(prefs));
+    }
+}
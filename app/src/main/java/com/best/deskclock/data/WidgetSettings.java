@@ -0,0 +1,153 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.data;
+
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_APPLY_HORIZONTAL_PADDING;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_BACKGROUND_CORNER_RADIUS;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOMIZE_BACKGROUND_CORNER_RADIUS;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_BACKGROUND_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_CITY_CLOCK_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_CITY_NAME_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_CITY_NOTE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_CLOCK_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_DATE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_NEXT_ALARM_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_CUSTOM_NEXT_ALARM_TITLE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_BACKGROUND_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_CITY_CLOCK_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_CITY_NAME_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_CITY_NOTE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_CLOCK_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_DATE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_NEXT_ALARM_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DEFAULT_NEXT_ALARM_TITLE_COLOR;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_BACKGROUND;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_DATE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM_TITLE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_TEXT_SHADOW;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_TEXT_UPPERCASE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_DISPLAY_TOP_DATE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_MAXIMUM_CLOCK_FONT_SIZE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_SECONDS_DISPLAYED;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_DIGITAL_WIDGET_WORLD_CITIES_DISPLAYED;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_ENABLE_CITY_NOTE;
+import static com.best.deskclock.settings.PreferencesKeys.KEY_VISIBLE_TABS;
+
+import android.content.SharedPreferences;
+
+import java.util.Set;
+
+/**
+ * An immutable copy of the settings read each time the digital widget is laid out.
+ * <p>
+ * The values are read from {@link SettingsDAO} and {@link WidgetDAO}, so the default values remain
+ * defined in a single place. Instances are safe to share between threads.
+ */
+public record WidgetSettings(
+    boolean isCityNoteEnabled,
+    boolean isClockTabVisible,
+    boolean isTextUppercaseDisplayed,
+    boolean isTextShadowDisplayed,
+    boolean areSecondsDisplayed,
+    boolean isBackgroundDisplayed,
+    boolean isBackgroundCornerRadiusCustomizable,
+    int backgroundCornerRadius,
+    boolean isDateDisplayed,
+    boolean isTopDateDisplayed,
+    boolean isNextAlarmDisplayed,
+    boolean isNextAlarmTitleDisplayed,
+    boolean areWorldCitiesDisplayed,
+    boolean isHorizontalPaddingApplied,
+    boolean isDefaultBackgroundColor,
+    int backgroundColor,
+    boolean isDefaultClockColor,
+    int customClockColor,
+    boolean isDefaultDateColor,
+    int customDateColor,
+    boolean isDefaultNextAlarmColor,
+    int customNextAlarmColor,
+    boolean isDefaultNextAlarmTitleColor,
+    int customNextAlarmTitleColor,
+    boolean isDefaultCityClockColor,
+    int customCityClockColor,
+    boolean isDefaultCityNameColor,
+    int customCityNameColor,
+    boolean isDefaultCityNoteColor,
+    int customCityNoteColor,
+    int maxClockFontSize) {
+
+    /**
+     * The keys of the preferences copied into this record.
+     */
+    static final Set<String> KEYS = Set.of(
+        KEY_ENABLE_CITY_NOTE,
+        KEY_VISIBLE_TABS,
+        KEY_DIGITAL_WIDGET_DISPLAY_TEXT_UPPERCASE,
+        KEY_DIGITAL_WIDGET_DISPLAY_TEXT_SHADOW,
+        KEY_DIGITAL_WIDGET_SECONDS_DISPLAYED,
+        KEY_DIGITAL_WIDGET_DISPLAY_BACKGROUND,
+        KEY_DIGITAL_WIDGET_CUSTOMIZE_BACKGROUND_CORNER_RADIUS,
+        KEY_DIGITAL_WIDGET_BACKGROUND_CORNER_RADIUS,
+        KEY_DIGITAL_WIDGET_DISPLAY_DATE,
+        KEY_DIGITAL_WIDGET_DISPLAY_TOP_DATE,
+        KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM,
+        KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM_TITLE,
+        KEY_DIGITAL_WIDGET_WORLD_CITIES_DISPLAYED,
+        KEY_DIGITAL_WIDGET_APPLY_HORIZONTAL_PADDING,
+        KEY_DIGITAL_WIDGET_DEFAULT_BACKGROUND_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_BACKGROUND_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_CLOCK_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_CLOCK_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_DATE_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_DATE_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_NEXT_ALARM_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_NEXT_ALARM_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_NEXT_ALARM_TITLE_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_NEXT_ALARM_TITLE_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_CITY_CLOCK_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_CITY_CLOCK_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_CITY_NAME_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_CITY_NAME_COLOR,
+        KEY_DIGITAL_WIDGET_DEFAULT_CITY_NOTE_COLOR,
+        KEY_DIGITAL_WIDGET_CUSTOM_CITY_NOTE_COLOR,
+        KEY_DIGITAL_WIDGET_MAXIMUM_CLOCK_FONT_SIZE);
+
+    /**
+     * @return the widget settings currently stored in {@code prefs}
+     */
+    static WidgetSettings create(SharedPreferences prefs) {
+        return new WidgetSettings(
+            SettingsDAO.isCityNoteEnabled(prefs),
+            SettingsDAO.isClockTabVisible(prefs),
+            WidgetDAO.isTextUppercaseDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isTextShadowDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.areSecondsDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isBackgroundDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isDigitalWidgetBackgroundCornerRadiusCustomizable(prefs),
+            WidgetDAO.getDigitalWidgetBackgroundCornerRadius(prefs),
+            WidgetDAO.isDateDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isTopDateDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isNextAlarmDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isNextAlarmTitleDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.areWorldCitiesDisplayedOnDigitalWidget(prefs),
+            WidgetDAO.isDigitalWidgetHorizontalPaddingApplied(prefs),
+            WidgetDAO.isDigitalWidgetDefaultBackgroundColor(prefs),
+            WidgetDAO.getDigitalWidgetBackgroundColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultClockColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomClockColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultDateColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomDateColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultNextAlarmColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomNextAlarmColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultNextAlarmTitleColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomNextAlarmTitleColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultCityClockColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomCityClockColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultCityNameColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomCityNameColor(prefs),
+            WidgetDAO.isDigitalWidgetDefaultCityNoteColor(prefs),
+            WidgetDAO.getDigitalWidgetCustomCityNoteColor(prefs),
+            WidgetDAO.getDigitalWidgetMaxClockFontSize(prefs));
+    }
+}
@@ -27,11 +27,10 @@ import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
 
 import com.best.deskclock.R;
-import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.databinding.AlarmSpinnerDelayPickerBinding;
 import com.best.deskclock.uicomponents.CustomDialog;
 import com.best.deskclock.utils.SdkUtils;
-import com.best.deskclock.utils.ThemeUtils;
+import com.best.deskclock.utils.TypefaceRegistry;
 import com.best.deskclock.utils.Utils;
 
 import java.util.Locale;
@@ -98,7 +97,7 @@ public class AlarmDelayPickerDialogFragment extends DialogFragment {
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         SharedPreferences prefs = getDefaultSharedPreferences(requireContext());
-        Typeface typeface = ThemeUtils.loadFont(SettingsDAO.getGeneralFont(prefs));
+        Typeface typeface = TypefaceRegistry.getTypeface(prefs, TypefaceRegistry.Role.GENERAL);
 
         final Bundle args = requireArguments();
         int hourValue = args.getInt(ARG_EDIT_HOURS, 0);
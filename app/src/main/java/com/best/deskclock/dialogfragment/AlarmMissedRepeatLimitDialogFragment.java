@@ -17,10 +17,9 @@ import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
 
 import com.best.deskclock.R;
-import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.databinding.AlarmMissedRepeatLimitDialogBinding;
 import com.best.deskclock.uicomponents.CustomDialog;
-import com.best.deskclock.utils.ThemeUtils;
+import com.best.deskclock.utils.TypefaceRegistry;
 import com.best.deskclock.utils.Utils;
 
 /**
@@ -76,7 +75,7 @@ public class AlarmMissedRepeatLimitDialogFragment extends DialogFragment {
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         SharedPreferences prefs = getDefaultSharedPreferences(requireContext());
-        Typeface typeface = ThemeUtils.loadFont(SettingsDAO.getGeneralFont(prefs));
+        Typeface typeface = TypefaceRegistry.getTypeface(prefs, TypefaceRegistry.Role.GENERAL);
 
         int selectedCount = requireArguments().getInt(ARG_SELECTED_COUNT, 0);
         if (savedInstanceState != null) {
@@ -21,7 +21,7 @@ import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.Observer;
 
 import com.best.deskclock.data.SettingsDAO;
-import com.best.deskclock.utils.ThemeUtils;
+import com.best.deskclock.utils.TypefaceRegistry;
 import com.google.android.material.timepicker.MaterialTimePicker;
 import com.google.android.material.timepicker.TimeFormat;
 
@@ -92,8 +92,8 @@ public class MaterialTimePickerDialogFragment {
      */
     private static PickerFonts loadFonts(SharedPreferences prefs) {
         return new PickerFonts(
-            ThemeUtils.loadFont(SettingsDAO.getAlarmFont(prefs)),
-            ThemeUtils.loadFont(SettingsDAO.getGeneralFont(prefs))
+            TypefaceRegistry.getTypeface(prefs, TypefaceRegistry.Role.ALARM),
+            TypefaceRegistry.getTypeface(prefs, TypefaceRegistry.Role.GENERAL)
         );
     }
 
@@ -595,7 +595,7 @@ public final class Alarm implements Parcelable, ClockContract.AlarmsColumns {
     public static List<Alarm> getAlarms(ContentResolver cr, String selection,
                                         String... selectionArgs) {
         final List<Alarm> result = new LinkedList<>();
-        try (Cursor cursor = cr.query(CONTENT_URI, QUERY_COLUMNS, selection, selectionArgs, null)) {
+        try (Cursor cursor = getAlarmsCursor(cr, selection, selectionArgs)) {
             if (cursor != null && cursor.moveToFirst()) {
                 do {
                     result.add(new Alarm(cursor));
@@ -606,6 +606,16 @@ public final class Alarm implements Parcelable, ClockContract.AlarmsColumns {
         return result;
     }
 
+    /**
+     * Get alarms by where clause as a cursor whose rows can be read with {@link #Alarm(Cursor)},
+     * so that callers can iterate over the alarms without loading them all in memory.
+     *
+     * @see #getAlarms(ContentResolver, String, String...)
+     */
+    public static Cursor getAlarmsCursor(ContentResolver cr, String selection, String... selectionArgs) {
+        return cr.query(CONTENT_URI, QUERY_COLUMNS, selection, selectionArgs, null);
+    }
+
     /**
      * @return a list of enabled alarms.
      */
@@ -24,15 +24,14 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.media.RingtoneManager;
 import android.net.Uri;
-import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
 import com.best.deskclock.R;
 import com.best.deskclock.alarms.AlarmStateManager;
+import com.best.deskclock.data.DataModel;
 import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.utils.LogUtils;
-import com.best.deskclock.utils.RingtoneUtils;
 
 import java.util.Calendar;
 import java.util.LinkedList;
@@ -322,8 +321,8 @@ public final class AlarmInstance implements ClockContract.InstancesColumns {
     /**
      * Returns the next upcoming alarm instance among all stored alarm instances that share the specified label.
      *
-     * <p>This method scans all alarm instances in the database, filters them by the given {@code targetLabel},
-     * and selects the one whose scheduled time is strictly in the future and closest to the current time.
+     * <p>Only the instances with the given {@code targetLabel} are read, through the label index, and the one
+     * whose scheduled time is strictly in the future and closest to the current time is selected.
      * If no future instance with the matching label exists, this method returns {@code null}.</p>
      *
      * @param contentResolver the content resolver used to query alarm instances
@@ -331,16 +330,16 @@ public final class AlarmInstance implements ClockContract.InstancesColumns {
      * @return the next upcoming {@link AlarmInstance} matching the label, or {@code null} if none exists
      */
     public static AlarmInstance getNextAlarmInstanceByLabel(ContentResolver contentResolver, String targetLabel) {
-        List<AlarmInstance> instances = AlarmInstance.getInstances(contentResolver, null);
+        if (targetLabel == null) {
+            return null;
+        }
+
+        List<AlarmInstance> instances = AlarmInstance.getInstances(contentResolver, LABEL + "=?", targetLabel);
 
         long now = System.currentTimeMillis();
         AlarmInstance next = null;
 
         for (AlarmInstance instance : instances) {
-            if (!TextUtils.equals(instance.mLabel, targetLabel)) {
-                continue;
-            }
-
             long time = instance.getAlarmTime().getTimeInMillis();
             if (time > now) {
                 if (next == null || time < next.getAlarmTime().getTimeInMillis()) {
@@ -364,16 +363,11 @@ public final class AlarmInstance implements ClockContract.InstancesColumns {
      * or snoozed. If no such instance exists, {@code null} is returned.
      */
     public static AlarmInstance getFiredOrSnoozedInstanceForAlarm(ContentResolver cr, long alarmId) {
-        List<AlarmInstance> activeInstances = AlarmInstance.getInstancesByState(cr, AlarmInstance.FIRED_STATE);
-        activeInstances.addAll(AlarmInstance.getInstancesByState(cr, AlarmInstance.SNOOZE_STATE));
+        final String selection = ALARM_ID + "=" + alarmId
+            + " AND " + ALARM_STATE + " IN (" + FIRED_STATE + "," + SNOOZE_STATE + ")";
+        final List<AlarmInstance> activeInstances = getInstances(cr, selection);
 
-        for (AlarmInstance instance : activeInstances) {
-            if (instance.mAlarmId == alarmId) {
-                return instance;
-            }
-        }
-
-        return null;
+        return activeInstances.isEmpty() ? null : activeInstances.get(0);
     }
 
     /**
@@ -508,7 +502,7 @@ public final class AlarmInstance implements ClockContract.InstancesColumns {
         } else if (mAutoSilenceDuration == TIMEOUT_END_OF_RINGTONE) {
             // Alarm silence has been set to "At the end of the ringtone"
             // or "Dismiss alarm when ringtone ends" has been ticked in the alarm editing panel
-            int milliSeconds = RingtoneUtils.getRingtoneDuration(context, mRingtone);
+            int milliSeconds = DataModel.getDataModel().getRingtoneDuration(mRingtone);
             calendar.add(Calendar.MILLISECOND, milliSeconds);
         } else {
             calendar.add(Calendar.SECOND, mAutoSilenceDuration);
@@ -27,7 +27,7 @@ class ClockDatabaseHelper extends SQLiteOpenHelper {
     static final String ALARMS_TABLE_NAME = "alarm_templates";
     static final String INSTANCES_TABLE_NAME = "alarm_instances";
 
-    private static final int DATABASE_VERSION = 26;
+    private static final int DATABASE_VERSION = 27;
     private static final int MINIMUM_SUPPORTED_VERSION = 15;
 
     public ClockDatabaseHelper(Context context) {
@@ -91,10 +91,25 @@ class ClockDatabaseHelper extends SQLiteOpenHelper {
         LogUtils.i("Instance table created");
     }
 
+    /**
+     * Index the labels, so that the alarms synchronized by label and their instances are looked
+     * up without scanning the whole tables.
+     */
+    private static void createLabelIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + ALARMS_TABLE_NAME + "_label_index ON " + ALARMS_TABLE_NAME + " ("
+            + ClockContract.AlarmsColumns.LABEL + ", " + ClockContract.AlarmsColumns.SYNC_BY_LABEL + ");");
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INSTANCES_TABLE_NAME + "_label_index ON " + INSTANCES_TABLE_NAME + " ("
+            + ClockContract.InstancesColumns.LABEL + ");");
+
+        LogUtils.i("Label indexes created");
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         createAlarmsTable(db, ALARMS_TABLE_NAME);
         createInstanceTable(db, INSTANCES_TABLE_NAME);
+        createLabelIndexes(db);
     }
 
     @Override
@@ -276,6 +291,10 @@ class ClockDatabaseHelper extends SQLiteOpenHelper {
 
             LogUtils.i("pauseStartDate and pauseEndDate columns added for version 26 upgrade.");
         }
+
+        if (oldVersion < 27) {
+            createLabelIndexes(db);
+        }
     }
 
     long fixAlarmInsert(ContentValues values) {
@@ -12,10 +12,13 @@ import static com.best.deskclock.provider.ClockDatabaseHelper.ALARMS_TABLE_NAME;
 import static com.best.deskclock.provider.ClockDatabaseHelper.INSTANCES_TABLE_NAME;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -23,14 +26,17 @@ import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 
 import androidx.annotation.NonNull;
 
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.SdkUtils;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class ClockProvider extends ContentProvider {
 
@@ -154,6 +160,12 @@ public class ClockProvider extends ContentProvider {
 
     private ClockDatabaseHelper mOpenHelper;
 
+    /**
+     * The URIs changed by the batch being applied on the current thread; {@code null} outside of
+     * {@link #applyBatch}. They are notified once, after the batch has been committed.
+     */
+    private final ThreadLocal<Set<Uri>> mBatchChangedUris = new ThreadLocal<>();
+
     public ClockProvider() {
     }
 
@@ -304,10 +316,51 @@ public class ClockProvider extends ContentProvider {
         return count;
     }
 
+    /**
+     * Apply all the operations in a single transaction: either all of them are committed or none.
+     * Observers are notified once per changed URI after the commit instead of once per operation.
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+        throws OperationApplicationException {
+
+        final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        final Set<Uri> changedUris = new ArraySet<>();
+        final ContentProviderResult[] results;
+
+        mBatchChangedUris.set(changedUris);
+        db.beginTransaction();
+        try {
+            results = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mBatchChangedUris.remove();
+        }
+
+        final ContentResolver resolver = Objects.requireNonNull(getContext()).getContentResolver();
+        for (Uri uri : changedUris) {
+            notifyChange(resolver, uri);
+        }
+
+        return results;
+    }
+
     /**
      * Notify affected URIs of changes.
      */
     private void notifyChange(ContentResolver resolver, Uri uri) {
+        final Set<Uri> batchChangedUris = mBatchChangedUris.get();
+        if (batchChangedUris != null) {
+            // Notify the table rather than each inserted row.
+            final int match = sURIMatcher.match(uri);
+            batchChangedUris.add(match == ALARMS_ID ? AlarmsColumns.CONTENT_URI
+                : match == INSTANCES_ID ? InstancesColumns.CONTENT_URI
+                : uri);
+            return;
+        }
+
         resolver.notifyChange(uri, null);
 
         final int match = sURIMatcher.match(uri);
@@ -13,7 +13,9 @@ import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.SystemClock;
 
+import com.best.deskclock.alarms.AlarmFireTrace;
 import com.best.deskclock.utils.DeviceUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
@@ -75,8 +77,11 @@ public final class AsyncRingtonePlayer {
      */
     public void play(Uri ringtoneUri, long crescendoDuration) {
         LOGGER.d("Executing play");
+        final long requestTime = SystemClock.elapsedRealtime();
         mExecutor.execute(() -> {
-            if (getPlaybackDelegate().play(mContext, ringtoneUri, crescendoDuration)) {
+            final boolean crescendo = getPlaybackDelegate().play(mContext, ringtoneUri, crescendoDuration);
+            LOGGER.i("Ringtone playback started " + (SystemClock.elapsedRealtime() - requestTime) + " ms after request");
+            if (crescendo) {
                 scheduleVolumeAdjustment();
             }
         });
@@ -194,6 +199,8 @@ public final class AsyncRingtonePlayer {
                 return false;
             }
 
+            AlarmFireTrace.mark(context, AlarmFireTrace.Stage.PLAYER_PREPARED);
+
             mMediaPlayer.setLooping(true);
 
             if (inCall) {
@@ -207,6 +214,7 @@ public final class AsyncRingtonePlayer {
 
             requestAudioFocus();
             mMediaPlayer.start();
+            AlarmFireTrace.mark(context, AlarmFireTrace.Stage.AUDIBLE);
 
             return crescendoDuration > 0;
         }
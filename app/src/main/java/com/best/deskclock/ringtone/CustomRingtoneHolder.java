@@ -10,9 +10,12 @@ import com.best.deskclock.data.CustomRingtone;
 
 public class CustomRingtoneHolder extends RingtoneHolder {
 
-    private final boolean mIsReadable;
+    /**
+     * {@code null} while the ringtone is being probed.
+     */
+    private Boolean mIsReadable;
 
-    CustomRingtoneHolder(CustomRingtone ringtone, boolean isReadable) {
+    CustomRingtoneHolder(CustomRingtone ringtone, Boolean isReadable) {
         super(ringtone.getUri(), ringtone.getTitle());
         mIsReadable = isReadable;
     }
@@ -22,8 +25,19 @@ public class CustomRingtoneHolder extends RingtoneHolder {
         return RingtoneAdapter.VIEW_TYPE_CUSTOM_SOUND;
     }
 
+    /**
+     * @return {@code true} if the ringtone is readable or still being probed. {@code false} otherwise.
+     */
     public boolean isReadable() {
-        return mIsReadable;
+        return !Boolean.FALSE.equals(mIsReadable);
+    }
+
+    boolean isReadabilityPending() {
+        return mIsReadable == null;
+    }
+
+    void setReadable(boolean isReadable) {
+        mIsReadable = isReadable;
     }
 
 }
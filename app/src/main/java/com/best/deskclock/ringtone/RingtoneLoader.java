@@ -22,10 +22,10 @@ import com.best.deskclock.R;
 import com.best.deskclock.data.CustomRingtone;
 import com.best.deskclock.data.DataModel;
 import com.best.deskclock.utils.LogUtils;
-import com.best.deskclock.utils.RingtoneUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Assembles the list of ItemHolders that back the RecyclerView used to choose a ringtone.
@@ -73,17 +73,22 @@ public class RingtoneLoader extends AsyncTaskLoader<List<RingtoneAdapter.Rington
             // Add an item holder for the "+" button tip.
             itemHolders.add(new AddButtonTipHolder());
 
-            // Add the item holder for the random custom ringtones only if at least 2 files can be read.
+            // Custom ringtones may live on slow storage: only use the known readability here, the
+            // others are probed once the list is displayed.
+            final Map<Uri, Long> permissionTimes = RingtoneReadabilityProber.getPersistedPermissionTimes(getContext());
+
+            // Add the item holder for the random custom ringtones only if at least 2 files may be read.
             int readableCount = 0;
             List<CustomRingtoneHolder> tempCustomRingtoneHolders = new ArrayList<>(mCustomRingtones.size());
 
             for (CustomRingtone ringtone : mCustomRingtones) {
-                boolean isReadable = RingtoneUtils.isRingtoneUriReadable(getContext(), ringtone.getUri());
-                if (isReadable) {
+                final Boolean isReadable = RingtoneReadabilityProber.getCachedReadability(ringtone.getUri(), permissionTimes);
+                final CustomRingtoneHolder holder = new CustomRingtoneHolder(ringtone, isReadable);
+                if (holder.isReadable()) {
                     readableCount++;
                 }
 
-                tempCustomRingtoneHolders.add(new CustomRingtoneHolder(ringtone, isReadable));
+                tempCustomRingtoneHolders.add(holder);
             }
 
             if (readableCount >= 2) {
@@ -145,6 +145,11 @@ public class RingtonePickerActivity extends CollapsingToolbarBaseActivity
 
     private boolean mReturnResultOnly;
 
+    /**
+     * Checks the readability of the custom ringtones once the list is displayed.
+     */
+    private RingtoneReadabilityProber mReadabilityProber;
+
     private RingtonePickerBinding mRingtonePickerBinding;
     private RingtoneAddButtonBinding mAddButtonBinding;
     private DialogProgressBinding mDialogProgressBinding;
@@ -253,6 +258,7 @@ public class RingtonePickerActivity extends CollapsingToolbarBaseActivity
         SharedPreferences prefs = getDefaultSharedPreferences(this);
         mDisplayMetrics = getResources().getDisplayMetrics();
         mFragmentManager = getSupportFragmentManager();
+        mReadabilityProber = new RingtoneReadabilityProber(this);
 
         // To manually manage insets
         WindowCompat.setDecorFitsSystemWindows(getWindow(), false);
@@ -381,6 +387,13 @@ public class RingtonePickerActivity extends CollapsingToolbarBaseActivity
         super.onStop();
     }
 
+    @Override
+    protected void onDestroy() {
+        mReadabilityProber.cancel();
+
+        super.onDestroy();
+    }
+
     @Override
     public void finish() {
         if (mReturnResultOnly && mSelectedRingtoneUri != null) {
@@ -412,6 +425,15 @@ public class RingtonePickerActivity extends CollapsingToolbarBaseActivity
         // Update the adapter with fresh data.
         mRingtoneAdapter.setItems(itemHolders);
 
+        // Stream the readability of the custom ringtones into the list as they are probed.
+        final List<Uri> urisToProbe = new ArrayList<>();
+        for (RingtoneAdapter.RingtoneItem item : itemHolders) {
+            if (item instanceof CustomRingtoneHolder customHolder && customHolder.isReadabilityPending()) {
+                urisToProbe.add(customHolder.getUri());
+            }
+        }
+        mReadabilityProber.probe(urisToProbe, this::onRingtoneReadabilityProbed);
+
         // Attempt to select the requested ringtone.
         final RingtoneHolder toSelect = getRingtoneHolder(mSelectedRingtoneUri);
         if (toSelect != null) {
@@ -458,6 +480,47 @@ public class RingtonePickerActivity extends CollapsingToolbarBaseActivity
         });
     }
 
+    private void onRingtoneReadabilityProbed(Uri uri, boolean readable, boolean allCompleted) {
+        if (getRingtoneHolder(uri) instanceof CustomRingtoneHolder customHolder) {
+            customHolder.setReadable(readable);
+            mRingtoneAdapter.notifyItemChanged(findPositionByHolder(customHolder));
+        }
+
+        if (allCompleted) {
+            updateRandomCustomRingtoneItem();
+        }
+    }
+
+    /**
+     * Shows the item of the random custom ringtones only if at least 2 files can be read.
+     */
+    private void updateRandomCustomRingtoneItem() {
+        final List<RingtoneAdapter.RingtoneItem> items = mRingtoneAdapter.getItems();
+
+        int readableCount = 0;
+        int firstCustomPosition = -1;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) instanceof CustomRingtoneHolder customHolder) {
+                if (firstCustomPosition == -1) {
+                    firstCustomPosition = i;
+                }
+                if (customHolder.isReadable()) {
+                    readableCount++;
+                }
+            }
+        }
+
+        final RingtoneHolder randomHolder = getRingtoneHolder(RingtoneUtils.RANDOM_CUSTOM_RINGTONE);
+        if (randomHolder == null && readableCount >= 2) {
+            items.add(firstCustomPosition, new SystemRingtoneHolder(RingtoneUtils.RANDOM_CUSTOM_RINGTONE, null));
+            mRingtoneAdapter.notifyItemInserted(firstCustomPosition);
+        } else if (randomHolder != null && readableCount < 2 && !randomHolder.isSelected()) {
+            final int position = findPositionByHolder(randomHolder);
+            items.remove(position);
+            mRingtoneAdapter.notifyItemRemoved(position);
+        }
+    }
+
     private int findPositionByHolder(RingtoneAdapter.RingtoneItem holder) {
         return mRingtoneAdapter.getItems().indexOf(holder);
     }
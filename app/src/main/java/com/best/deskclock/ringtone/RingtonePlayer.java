@@ -18,6 +18,7 @@ import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.annotation.OptIn;
 import androidx.media3.common.AudioAttributes;
@@ -27,6 +28,7 @@ import androidx.media3.common.Player;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
 
+import com.best.deskclock.alarms.AlarmFireTrace;
 import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
@@ -77,6 +79,12 @@ public final class RingtonePlayer {
     private boolean mMediaVolumeModified = false;
     private boolean mIsCrescendoRunningForSystemMediaVolume = false;
 
+    /**
+     * Time of the last play request, used to measure the delay before the ringtone is audible;
+     * {@code 0} once measured.
+     */
+    private long mPlayRequestTime = 0;
+
     private final Handler mVolumeHandler = new Handler(Looper.getMainLooper());
 
     private final Runnable mVolumeAdjustmentRunnable = new Runnable() {
@@ -148,7 +156,15 @@ public final class RingtonePlayer {
         @Override
         public void onPlaybackStateChanged(int state) {
             if (state == Player.STATE_READY) {
+                AlarmFireTrace.mark(mContext, AlarmFireTrace.Stage.PLAYER_PREPARED);
                 mExoPlayer.play();
+                AlarmFireTrace.mark(mContext, AlarmFireTrace.Stage.AUDIBLE);
+
+                if (mPlayRequestTime > 0) {
+                    LOGGER.i("Ringtone playback started " + (SystemClock.elapsedRealtime() - mPlayRequestTime)
+                        + " ms after request");
+                    mPlayRequestTime = 0;
+                }
 
                 if (RingtoneUtils.isInTelephoneCall(mAudioManager)) {
                     mExoPlayer.setVolume(IN_CALL_VOLUME);
@@ -190,6 +206,8 @@ public final class RingtonePlayer {
      * </ul>
      */
     public void play(Uri ringtoneUri, long crescendoDuration) {
+        mPlayRequestTime = SystemClock.elapsedRealtime();
+
         if (mExoPlayer != null) {
             stopSystemMediaVolumeCrescendo();
             stop();
@@ -0,0 +1,197 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.ringtone;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.UriPermission;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import com.best.deskclock.data.DataModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks whether custom ringtones can be read, several at a time.
+ * <p>
+ * Opening a custom ringtone may be slow when it lives on a storage provider, so each probe runs on
+ * a bounded pool and is reported as unreadable if it does not complete in time. Probes that
+ * complete late are still reported.
+ * <p>
+ * Results of content uris are kept for the lifetime of the process along with the time their
+ * read permission was persisted: granting or revoking the permission invalidates them. File uris
+ * are not cached here since probing them is cheap.
+ */
+final class RingtoneReadabilityProber {
+
+    /**
+     * Maximum number of ringtones opened at the same time.
+     */
+    private static final int MAX_CONCURRENT_PROBES = 4;
+
+    /**
+     * Delay after which a ringtone that could not be opened yet is reported as unreadable.
+     */
+    private static final long PROBE_TIMEOUT_MS = 3000;
+
+    /**
+     * Maps the uri of a custom ringtone to the result of its last probe.
+     */
+    private static final Map<Uri, ProbeResult> sResults = new ConcurrentHashMap<>();
+
+    private final Context mContext;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The uris whose probe is neither complete nor timed out. Accessed on the main thread only.
+     */
+    private final Set<Uri> mPendingUris = new ArraySet<>();
+
+    /**
+     * Incremented on each call to {@link #cancel()} so that the results of cancelled probes are
+     * ignored. Accessed on the main thread only.
+     */
+    private int mSession;
+
+    private ExecutorService mExecutor;
+
+    RingtoneReadabilityProber(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * @return the time at which the read permission of each uri was persisted
+     */
+    static Map<Uri, Long> getPersistedPermissionTimes(Context context) {
+        final List<UriPermission> uriPermissions = context.getContentResolver().getPersistedUriPermissions();
+        final Map<Uri, Long> permissionTimes = new ArrayMap<>(uriPermissions.size());
+        for (UriPermission uriPermission : uriPermissions) {
+            if (uriPermission.isReadPermission()) {
+                permissionTimes.put(uriPermission.getUri(), uriPermission.getPersistedTime());
+            }
+        }
+
+        return permissionTimes;
+    }
+
+    /**
+     * @return the cached readability of the ringtone with the given {@code uri}; {@code null} if
+     * it is unknown or the read permission of the ringtone changed since it was probed
+     */
+    static Boolean getCachedReadability(Uri uri, Map<Uri, Long> permissionTimes) {
+        final ProbeResult result = sResults.get(uri);
+        if (result == null || result.permissionTime() != getPermissionTime(uri, permissionTimes)) {
+            return null;
+        }
+
+        return result.readable();
+    }
+
+    /**
+     * Probes the given ringtones, cancelling the probes in progress. Results are reported on the
+     * main thread.
+     */
+    void probe(List<Uri> uris, Listener listener) {
+        cancel();
+
+        if (uris.isEmpty()) {
+            return;
+        }
+
+        final int session = mSession;
+        final Map<Uri, Long> permissionTimes = getPersistedPermissionTimes(mContext);
+        final long timeoutTime = SystemClock.uptimeMillis() + PROBE_TIMEOUT_MS;
+
+        mExecutor = Executors.newFixedThreadPool(Math.min(uris.size(), MAX_CONCURRENT_PROBES));
+
+        for (Uri uri : uris) {
+            if (!mPendingUris.add(uri)) {
+                continue;
+            }
+
+            final long permissionTime = getPermissionTime(uri, permissionTimes);
+            mExecutor.execute(() -> {
+                final boolean readable = DataModel.getDataModel().isRingtoneReadable(uri);
+                if (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+                    sResults.put(uri, new ProbeResult(permissionTime, readable));
+                }
+
+                mHandler.post(() -> onProbeComplete(session, uri, readable, listener));
+            });
+
+            // The uri is used as token to remove the timeout once the probe completes.
+            mHandler.postAtTime(() -> onProbeComplete(session, uri, false, listener), uri, timeoutTime);
+        }
+
+        // Let the pool threads terminate once all probes have run.
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Cancels the probes in progress; their results will not be reported.
+     */
+    void cancel() {
+        mSession++;
+
+        for (Uri uri : mPendingUris) {
+            mHandler.removeCallbacksAndMessages(uri);
+        }
+        mPendingUris.clear();
+
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+            mExecutor = null;
+        }
+    }
+
+    private void onProbeComplete(int session, Uri uri, boolean readable, Listener listener) {
+        if (session != mSession) {
+            return;
+        }
+
+        final boolean pending = mPendingUris.remove(uri);
+        if (pending) {
+            mHandler.removeCallbacksAndMessages(uri);
+        } else if (!readable) {
+            // The probe already timed out and was reported as unreadable.
+            return;
+        }
+
+        listener.onReadabilityProbed(uri, readable, mPendingUris.isEmpty());
+    }
+
+    private static long getPermissionTime(Uri uri, Map<Uri, Long> permissionTimes) {
+        final Long permissionTime = permissionTimes.get(uri);
+        return permissionTime == null ? -1 : permissionTime;
+    }
+
+    /**
+     * @param permissionTime the time at which the read permission was persisted; {@code -1} if the
+     *                       ringtone had no persisted permission
+     * @param readable       {@code true} if the ringtone could be opened
+     */
+    private record ProbeResult(long permissionTime, boolean readable) {
+    }
+
+    interface Listener {
+
+        /**
+         * @param uri          the uri of the probed ringtone
+         * @param readable     {@code true} if the ringtone could be opened; {@code false} if it could
+         *                     not or if its probe timed out
+         * @param allCompleted {@code true} if no other probe is pending
+         */
+        void onReadabilityProbed(Uri uri, boolean readable, boolean allCompleted);
+    }
+}
@@ -40,6 +40,7 @@ import androidx.preference.SwitchPreferenceCompat;
 import com.best.deskclock.BuildConfig;
 import com.best.deskclock.DeskClock;
 import com.best.deskclock.R;
+import com.best.deskclock.alarms.AlarmFireTrace;
 import com.best.deskclock.alarms.AlarmStateManager;
 import com.best.deskclock.base.AppExecutors;
 import com.best.deskclock.base.KeepAliveService;
@@ -130,6 +131,7 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
     Preference mKeepAndroidOpenPref;
     PreferenceCategory mDebugCategoryPref;
     SwitchPreferenceCompat mEnableLocalLoggingPref;
+    Preference mExportAlarmFireTracesPref;
 
     private AlertDialog mRestartDialog;
 
@@ -159,6 +161,7 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
         mKeepAndroidOpenPref = findPreference(KEY_ABOUT_KEEP_ANDROID_OPEN);
         mDebugCategoryPref = findPreference(KEY_DEBUG_CATEGORY);
         mEnableLocalLoggingPref = findPreference(KEY_ENABLE_LOCAL_LOGGING);
+        mExportAlarmFireTracesPref = findPreference(KEY_EXPORT_ALARM_FIRE_TRACES);
 
         if (savedInstanceState != null) {
             mShowResetSettingsDialog = savedInstanceState.getBoolean(KEY_SHOW_RESET_SETTINGS_DIALOG, false);
@@ -257,7 +260,8 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
     @Override
     public void onDestroy() {
         nullifyPreferenceListeners(mTitlePref, mVersionPref, mWhatsNewPref, mAboutFeaturesPref, mViewOnGitHubPref, mTranslatePref,
-            mReadLicencePref, mKeepAndroidOpenPref, mDebugCategoryPref, mEnableLocalLoggingPref
+            mReadLicencePref, mKeepAndroidOpenPref, mDebugCategoryPref, mEnableLocalLoggingPref,
+            mExportAlarmFireTracesPref
         );
 
         nullifyAllPrefs();
@@ -285,6 +289,13 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
                 triggerLinkDialog(preference.getKey());
 
             case KEY_ABOUT_KEEP_ANDROID_OPEN -> showKeepAndroidOpenDialog();
+
+            case KEY_EXPORT_ALARM_FIRE_TRACES -> AlarmFireTrace.getReport(requireContext(), report ->
+                AppExecutors.getMainThread().post(() -> {
+                    if (isAdded()) {
+                        showDebugReportDialog(getString(R.string.export_alarm_fire_traces_title), report);
+                    }
+                }));
         }
 
         return true;
@@ -442,6 +453,8 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
         mDebugCategoryPref.setVisible(SettingsDAO.isDebugSettingsDisplayed(mPrefs));
         mEnableLocalLoggingPref.setVisible(SettingsDAO.isDebugSettingsDisplayed(mPrefs));
         mEnableLocalLoggingPref.setOnPreferenceChangeListener(this);
+        mExportAlarmFireTracesPref.setVisible(SettingsDAO.isDebugSettingsDisplayed(mPrefs));
+        mExportAlarmFireTracesPref.setOnPreferenceClickListener(this);
     }
 
     /**
@@ -684,6 +697,35 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
         mActiveDialog.show();
     }
 
+    /**
+     * Display a debug report and allow to share it.
+     */
+    private void showDebugReportDialog(String title, String report) {
+        mActiveDialog = CustomDialog.create(
+            requireContext(),
+            null,
+            AppCompatResources.getDrawable(requireContext(), R.drawable.ic_bug_report),
+            title,
+            report,
+            null,
+            getString(R.string.share_debug_report),
+            (d, w) -> {
+                Intent shareIntent = new Intent(Intent.ACTION_SEND)
+                    .setType("text/plain")
+                    .putExtra(Intent.EXTRA_TEXT, report);
+                startActivity(Intent.createChooser(shareIntent, title));
+            },
+            getString(android.R.string.cancel),
+            null,
+            null,
+            null,
+            null,
+            CustomDialog.SoftInputMode.NONE
+        );
+
+        mActiveDialog.show();
+    }
+
     private void nullifyAllPrefs() {
         mTitlePref = null;
         mVersionPref = null;
@@ -695,6 +737,7 @@ public class AboutFragment extends ScreenFragment implements Preference.OnPrefer
         mKeepAndroidOpenPref = null;
         mDebugCategoryPref = null;
         mEnableLocalLoggingPref = null;
+        mExportAlarmFireTracesPref = null;
     }
 
 }
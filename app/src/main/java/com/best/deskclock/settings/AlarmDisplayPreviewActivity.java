@@ -21,7 +21,6 @@ import android.annotation.SuppressLint;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -61,14 +60,12 @@ import com.best.deskclock.databinding.AlarmActivityBinding;
 import com.best.deskclock.uicomponents.PillView;
 import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.AnimatorUtils;
+import com.best.deskclock.utils.BackgroundImageLoader;
 import com.best.deskclock.utils.ClockUtils;
 import com.best.deskclock.utils.FormattedTextUtils;
-import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.ThemeUtils;
 
-import java.io.File;
-
 public class AlarmDisplayPreviewActivity extends BaseActivity
     implements View.OnClickListener, View.OnTouchListener {
 
@@ -335,24 +332,17 @@ public class AlarmDisplayPreviewActivity extends BaseActivity
         if (imagePath != null) {
             mBinding.alarmBackgroundImage.setVisibility(View.VISIBLE);
 
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-                if (bitmap != null) {
-                    mBinding.alarmBackgroundImage.setImageBitmap(bitmap);
-                    mBinding.alarmBackgroundImage.setColorFilter(alarmBackgroundColor);
-
-                    if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isAlarmBlurEffectEnabled(mPrefs)) {
-                        float intensity = SettingsDAO.getAlarmBlurIntensity(mPrefs);
-                        RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
-                        mBinding.alarmBackgroundImage.setRenderEffect(blur);
-                    }
-                } else {
-                    LogUtils.e("Bitmap null for path: " + imagePath);
-                    getWindow().setBackgroundDrawable(new ColorDrawable(alarmBackgroundColor));
+            Bitmap bitmap = BackgroundImageLoader.loadBackground(this, imagePath);
+            if (bitmap != null) {
+                mBinding.alarmBackgroundImage.setImageBitmap(bitmap);
+                mBinding.alarmBackgroundImage.setColorFilter(alarmBackgroundColor);
+
+                if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isAlarmBlurEffectEnabled(mPrefs)) {
+                    float intensity = SettingsDAO.getAlarmBlurIntensity(mPrefs);
+                    RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
+                    mBinding.alarmBackgroundImage.setRenderEffect(blur);
                 }
             } else {
-                LogUtils.e("Image file not found: " + imagePath);
                 getWindow().setBackgroundDrawable(new ColorDrawable(alarmBackgroundColor));
             }
         } else {
@@ -43,6 +43,7 @@ public class ClockSettingsFragment extends ScreenFragment
     CustomSliderPreference mAnalogClockSizePref;
     SwitchPreferenceCompat mDisplayClockSecondsPref;
     ListPreference mClockSecondHandPref;
+    SwitchPreferenceCompat mSweepClockSecondHandPref;
     Preference mDigitalClockFontPref;
     SwitchPreferenceCompat mDisplayTextUppercasePref;
     CustomSliderPreference mDigitalClockFontSizePref;
@@ -121,6 +122,7 @@ public class ClockSettingsFragment extends ScreenFragment
         mAnalogClockSizePref = findPreference(KEY_ANALOG_CLOCK_SIZE);
         mDisplayClockSecondsPref = findPreference(KEY_DISPLAY_CLOCK_SECONDS);
         mClockSecondHandPref = findPreference(KEY_CLOCK_SECOND_HAND);
+        mSweepClockSecondHandPref = findPreference(KEY_SWEEP_CLOCK_SECOND_HAND);
         mDigitalClockFontPref = findPreference(KEY_DIGITAL_CLOCK_FONT);
         mDisplayTextUppercasePref = findPreference(KEY_DISPLAY_TEXT_UPPERCASE);
         mDigitalClockFontSizePref = findPreference(KEY_DIGITAL_CLOCK_FONT_SIZE);
@@ -148,7 +150,7 @@ public class ClockSettingsFragment extends ScreenFragment
     @Override
     public void onDestroy() {
         nullifyPreferenceListeners(mClockStylePref, mClockDialPref, mClockDialMaterialPref, mAnalogClockSizePref, mDisplayClockSecondsPref,
-            mClockSecondHandPref, mDigitalClockFontPref, mDisplayTextUppercasePref, mDigitalClockFontSizePref, mSortCitiesPref,
+            mClockSecondHandPref, mSweepClockSecondHandPref, mDigitalClockFontPref, mDisplayTextUppercasePref, mDigitalClockFontSizePref, mSortCitiesPref,
             mEnableCityNotePref, mAutoHomeClockPref, mHomeTimeZonePref, mDateTimePref);
 
         nullifyAllPrefs();
@@ -171,6 +173,7 @@ public class ClockSettingsFragment extends ScreenFragment
                 mClockDialMaterialPref.setVisible(isMaterialAnalogClock);
                 mAnalogClockSizePref.setVisible(!isDigitalClock);
                 mClockSecondHandPref.setVisible(isAnalogClock && SettingsDAO.areClockSecondsDisplayed(mPrefs));
+                mSweepClockSecondHandPref.setVisible(!isDigitalClock && SettingsDAO.areClockSecondsDisplayed(mPrefs));
                 mDigitalClockFontPref.setVisible(isDigitalClock);
                 mDigitalClockFontSizePref.setVisible(isDigitalClock);
             }
@@ -184,10 +187,13 @@ public class ClockSettingsFragment extends ScreenFragment
 
             case KEY_DISPLAY_CLOCK_SECONDS -> {
                 mClockSecondHandPref.setVisible((boolean) newValue && SettingsDAO.getClockStyle(mPrefs) == DataModel.ClockStyle.ANALOG);
+                mSweepClockSecondHandPref.setVisible((boolean) newValue && SettingsDAO.getClockStyle(mPrefs) != DataModel.ClockStyle.DIGITAL);
 
                 Utils.setVibrationTime(requireContext(), 50);
             }
 
+            case KEY_SWEEP_CLOCK_SECOND_HAND -> Utils.setVibrationTime(requireContext(), 50);
+
             case KEY_AUTO_HOME_CLOCK -> {
                 mHomeTimeZonePref.setEnabled((boolean) newValue);
 
@@ -246,6 +252,9 @@ public class ClockSettingsFragment extends ScreenFragment
         mClockSecondHandPref.setSummary(mClockSecondHandPref.getEntry());
         mClockSecondHandPref.setOnPreferenceChangeListener(this);
 
+        mSweepClockSecondHandPref.setVisible(!isDigitalClock && SettingsDAO.areClockSecondsDisplayed(mPrefs));
+        mSweepClockSecondHandPref.setOnPreferenceChangeListener(this);
+
         mDigitalClockFontPref.setVisible(isDigitalClock);
         mDigitalClockFontPref.setTitle(getString(SettingsDAO.getDigitalClockFont(mPrefs) == null
             ? R.string.custom_font_title
@@ -281,6 +290,7 @@ public class ClockSettingsFragment extends ScreenFragment
         mAnalogClockSizePref = null;
         mDisplayClockSecondsPref = null;
         mClockSecondHandPref = null;
+        mSweepClockSecondHandPref = null;
         mDigitalClockFontPref = null;
         mDisplayTextUppercasePref = null;
         mDigitalClockFontSizePref = null;
@@ -69,6 +69,7 @@ public class PreferencesDefaultValues {
     // Clock
     public static final String DEFAULT_CLOCK_STYLE = "digital";
     public static final boolean DEFAULT_DISPLAY_CLOCK_SECONDS = false;
+    public static final boolean DEFAULT_SWEEP_CLOCK_SECOND_HAND = false;
     public static final boolean DEFAULT_TEXT_UPPERCASE_DISPLAYED = false;
     public static final String DEFAULT_SORT_CITIES_BY_ASCENDING_TIME_ZONE = "0";
     public static final String SORT_CITIES_BY_DESCENDING_TIME_ZONE = "1";
@@ -41,6 +41,7 @@ public class PreferencesKeys {
     public static final String KEY_DISPLAY_DEBUG_SETTINGS = "key_display_debug_settings";
     public static final String KEY_DEBUG_CATEGORY = "key_debug_category";
     public static final String KEY_ENABLE_LOCAL_LOGGING = "key_enable_local_logging";
+    public static final String KEY_EXPORT_ALARM_FIRE_TRACES = "key_export_alarm_fire_traces";
 
     // Interface
     public static final String KEY_THEME = "key_theme";
@@ -70,6 +71,7 @@ public class PreferencesKeys {
     public static final String KEY_DIGITAL_CLOCK_FONT_SIZE = "key_digital_clock_font_size";
     public static final String KEY_DISPLAY_CLOCK_SECONDS = "key_display_clock_seconds";
     public static final String KEY_CLOCK_SECOND_HAND = "key_clock_second_hand";
+    public static final String KEY_SWEEP_CLOCK_SECOND_HAND = "key_sweep_clock_second_hand";
     public static final String KEY_DIGITAL_CLOCK_FONT = "key_digital_clock_font";
     public static final String KEY_SORT_CITIES = "key_sort_cities";
     public static final String KEY_ENABLE_CITY_NOTE = "key_enable_city_note";
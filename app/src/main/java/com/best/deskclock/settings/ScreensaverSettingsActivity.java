@@ -30,6 +30,7 @@ import com.best.deskclock.settings.custompreference.ColorPickerPreference;
 import com.best.deskclock.settings.custompreference.CustomSliderPreference;
 import com.best.deskclock.uicomponents.CollapsingToolbarBaseActivity;
 import com.best.deskclock.uicomponents.toast.CustomToast;
+import com.best.deskclock.utils.BackgroundImageLoader;
 import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.ThemeUtils;
 import com.best.deskclock.utils.Utils;
@@ -174,6 +175,9 @@ public final class ScreensaverSettingsActivity extends CollapsingToolbarBaseActi
                     // Delete the old image if it exists
                     clearFile(oldImagePath);
 
+                    // Clear the cached copies of the old image
+                    BackgroundImageLoader.invalidate(appContext, oldImagePath);
+
                     // Copy the new image to the device's protected storage
                     Uri copiedUri = Utils.copyFileToDeviceProtectedStorage(appContext, sourceUri, safeTitle);
 
@@ -49,6 +49,7 @@ import com.best.deskclock.uicomponents.CustomDialog;
 import com.best.deskclock.uicomponents.toast.CustomToast;
 import com.best.deskclock.uidata.UiDataModel;
 import com.best.deskclock.utils.BackupAndRestoreUtils;
+import com.best.deskclock.utils.BackupArchiveUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.NotificationUtils;
 import com.best.deskclock.utils.PermissionUtils;
@@ -58,14 +59,15 @@ import com.best.deskclock.utils.Utils;
 import org.json.JSONException;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -431,7 +433,7 @@ public final class SettingsActivity extends CollapsingToolbarBaseActivity {
             mActiveDialog.show();
         }
 
-        private void backupPreferences(Context context, Uri uri) throws IOException, JSONException {
+        private void backupPreferences(Context context, Uri uri) throws IOException {
             try (OutputStream outputStream = context.getContentResolver().openOutputStream(uri);
                  ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
                 // The JSON file that contains all the settings
@@ -465,18 +467,7 @@ public final class SettingsActivity extends CollapsingToolbarBaseActivity {
                 return;
             }
 
-            ZipEntry zipEntry = new ZipEntry(file.getName());
-            zipOutputStream.putNextEntry(zipEntry);
-
-            try (FileInputStream fileInputStream = new FileInputStream(file)) {
-                byte[] buffer = new byte[4096];
-                int length;
-                while ((length = fileInputStream.read(buffer)) > 0) {
-                    zipOutputStream.write(buffer, 0, length);
-                }
-            }
-
-            zipOutputStream.closeEntry();
+            BackupArchiveUtils.appendFile(zipOutputStream, file);
         }
 
         @SuppressLint("ApplySharedPref")
@@ -497,47 +488,63 @@ public final class SettingsActivity extends CollapsingToolbarBaseActivity {
         }
 
         private void restorePreferences(Context context, Uri uri) throws IOException, JSONException {
-            try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-                 ZipInputStream zipInputStream = new ZipInputStream(inputStream)) {
-
-                ZipEntry zipEntry;
+            // Work on a local copy of the archive so that the media files can be extracted in parallel
+            final File archiveFile = BackupArchiveUtils.copyToTempFile(context, uri);
+
+            try (ZipFile zipFile = new ZipFile(archiveFile)) {
+                final List<ZipEntry> mediaEntries = new ArrayList<>();
+                ZipEntry jsonEntry = null;
+
+                final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+                while (zipEntries.hasMoreElements()) {
+                    final ZipEntry zipEntry = zipEntries.nextElement();
+                    if (zipEntry.isDirectory()) {
+                        continue;
+                    }
 
-                while ((zipEntry = zipInputStream.getNextEntry()) != null) {
                     if (zipEntry.getName().equals(BACKUP_JSON_FILE_NAME)) {
-                        BackupAndRestoreUtils.readJson(context, mPrefs, zipInputStream);
+                        jsonEntry = zipEntry;
                     } else {
-                        restoreFileFromZip(context, zipInputStream, zipEntry.getName());
+                        mediaEntries.add(zipEntry);
                     }
-
-                    zipInputStream.closeEntry();
                 }
-            }
-        }
 
-        private void restoreFileFromZip(Context context, ZipInputStream zipInputStream, String fileName)
-            throws IOException {
+                // The settings must be restored before the paths of the media files
+                if (jsonEntry != null) {
+                    try (InputStream inputStream = zipFile.getInputStream(jsonEntry)) {
+                        BackupAndRestoreUtils.readJson(context, mPrefs, inputStream);
+                    }
+                }
 
-            File outputFile = new File(context.getFilesDir(), fileName);
+                final List<File> outputFiles =
+                    BackupArchiveUtils.extractEntries(zipFile, mediaEntries, context.getFilesDir());
 
-            try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                byte[] buffer = new byte[4096];
-                int length;
-                while ((length = zipInputStream.read(buffer)) > 0) {
-                    fos.write(buffer, 0, length);
+                restoreFilePaths(outputFiles);
+            } finally {
+                if (!archiveFile.delete()) {
+                    LogUtils.w("Unable to delete the temporary backup file: " + archiveFile);
                 }
             }
+        }
 
-            final String prefKey = getCustomFilePrefKey(fileName);
+        private void restoreFilePaths(List<File> outputFiles) {
+            final SharedPreferences.Editor editor = mPrefs.edit();
 
-            if (prefKey != null) {
-                String oldFilePath = mPrefs.getString(prefKey, null);
+            for (File outputFile : outputFiles) {
+                final String prefKey = getCustomFilePrefKey(outputFile.getName());
 
-                if (oldFilePath != null && !oldFilePath.equals(outputFile.getAbsolutePath())) {
-                    clearFile(oldFilePath);
-                }
+                if (prefKey != null) {
+                    String oldFilePath = mPrefs.getString(prefKey, null);
 
-                mPrefs.edit().putString(prefKey, outputFile.getAbsolutePath()).apply();
+                    if (oldFilePath != null && !oldFilePath.equals(outputFile.getAbsolutePath())) {
+                        clearFile(oldFilePath);
+                    }
+
+                    editor.putString(prefKey, outputFile.getAbsolutePath());
+                }
             }
+
+            editor.apply();
         }
 
         private void applySettingsAfterRestore(Context context) {
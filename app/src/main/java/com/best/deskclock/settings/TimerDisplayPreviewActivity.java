@@ -13,7 +13,6 @@ import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreference
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -48,14 +47,12 @@ import com.best.deskclock.databinding.TimerItemCompactBinding;
 import com.best.deskclock.timer.TimerItem;
 import com.best.deskclock.timer.TimerItemCompact;
 import com.best.deskclock.utils.AlarmUtils;
+import com.best.deskclock.utils.BackgroundImageLoader;
 import com.best.deskclock.utils.InsetsUtils;
-import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
 import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.ThemeUtils;
 
-import java.io.File;
-
 public class TimerDisplayPreviewActivity extends BaseActivity {
 
     private ExpiredTimersActivityBinding mBinding;
@@ -125,23 +122,16 @@ public class TimerDisplayPreviewActivity extends BaseActivity {
             if (imagePath != null) {
                 mBinding.timerBackgroundImage.setVisibility(VISIBLE);
 
-                File imageFile = new File(imagePath);
-                if (imageFile.exists()) {
-                    Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-                    if (bitmap != null) {
-                        mBinding.timerBackgroundImage.setImageBitmap(bitmap);
-
-                        if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isTimerBlurEffectEnabled(mPrefs)) {
-                            float intensity = SettingsDAO.getTimerBlurIntensity(mPrefs);
-                            RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
-                            mBinding.timerBackgroundImage.setRenderEffect(blur);
-                        }
-                    } else {
-                        LogUtils.e("Bitmap null for path: " + imagePath);
-                        mBinding.timerBackgroundImage.setVisibility(View.GONE);
+                Bitmap bitmap = BackgroundImageLoader.loadBackground(this, imagePath);
+                if (bitmap != null) {
+                    mBinding.timerBackgroundImage.setImageBitmap(bitmap);
+
+                    if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isTimerBlurEffectEnabled(mPrefs)) {
+                        float intensity = SettingsDAO.getTimerBlurIntensity(mPrefs);
+                        RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
+                        mBinding.timerBackgroundImage.setRenderEffect(blur);
                     }
                 } else {
-                    LogUtils.e("Image file not found: " + imagePath);
                     mBinding.timerBackgroundImage.setVisibility(View.GONE);
                 }
             } else {
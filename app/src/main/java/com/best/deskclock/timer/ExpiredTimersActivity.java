@@ -17,7 +17,6 @@ import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -56,13 +55,13 @@ import com.best.deskclock.databinding.ExpiredTimersActivityBinding;
 import com.best.deskclock.databinding.TimerItemBinding;
 import com.best.deskclock.databinding.TimerItemCompactBinding;
 import com.best.deskclock.utils.AlarmUtils;
+import com.best.deskclock.utils.BackgroundImageLoader;
 import com.best.deskclock.utils.InsetsUtils;
 import com.best.deskclock.utils.LogUtils;
 import com.best.deskclock.utils.RingtoneUtils;
 import com.best.deskclock.utils.SdkUtils;
 import com.best.deskclock.utils.ThemeUtils;
 
-import java.io.File;
 import java.util.List;
 
 /**
@@ -190,23 +189,16 @@ public class ExpiredTimersActivity extends BaseActivity {
             if (imagePath != null) {
                 mBinding.timerBackgroundImage.setVisibility(View.VISIBLE);
 
-                File imageFile = new File(imagePath);
-                if (imageFile.exists()) {
-                    Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-                    if (bitmap != null) {
-                        mBinding.timerBackgroundImage.setImageBitmap(bitmap);
-
-                        if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isTimerBlurEffectEnabled(mPrefs)) {
-                            float intensity = SettingsDAO.getTimerBlurIntensity(mPrefs);
-                            RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
-                            mBinding.timerBackgroundImage.setRenderEffect(blur);
-                        }
-                    } else {
-                        LogUtils.e("Bitmap null for path: " + imagePath);
-                        mBinding.timerBackgroundImage.setVisibility(View.GONE);
+                Bitmap bitmap = BackgroundImageLoader.loadBackground(this, imagePath);
+                if (bitmap != null) {
+                    mBinding.timerBackgroundImage.setImageBitmap(bitmap);
+
+                    if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isTimerBlurEffectEnabled(mPrefs)) {
+                        float intensity = SettingsDAO.getTimerBlurIntensity(mPrefs);
+                        RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
+                        mBinding.timerBackgroundImage.setRenderEffect(blur);
                     }
                 } else {
-                    LogUtils.e("Image file not found: " + imagePath);
                     mBinding.timerBackgroundImage.setVisibility(View.GONE);
                 }
             } else {
@@ -83,10 +83,8 @@ public final class TimerKlaxon {
             // Special case: Silent ringtone
             LogUtils.i("Playing silent ringtone for timer");
         } else {
-            if (RingtoneUtils.isRandomRingtone(uri)) {
-                uri = RingtoneUtils.getRandomRingtoneUri();
-            } else if (RingtoneUtils.isRandomCustomRingtone(uri)) {
-                uri = RingtoneUtils.getRandomCustomRingtoneUri();
+            if (RingtoneUtils.isRandomRingtone(uri) || RingtoneUtils.isRandomCustomRingtone(uri)) {
+                uri = RingtoneUtils.drawRandomRingtoneUri(uri);
             }
 
             // Crescendo duration always in milliseconds
@@ -6,6 +6,8 @@
 
 package com.best.deskclock.uicomponents;
 
+import static android.text.format.DateUtils.HOUR_IN_MILLIS;
+import static android.text.format.DateUtils.MINUTE_IN_MILLIS;
 import static android.text.format.DateUtils.SECOND_IN_MILLIS;
 import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
 import static com.best.deskclock.settings.PreferencesDefaultValues.*;
@@ -15,12 +17,21 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.text.format.DateFormat;
 import android.util.AttributeSet;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
+import android.view.Choreographer;
+import android.view.View;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.core.content.ContextCompat;
 
@@ -41,8 +52,16 @@ import java.util.TimeZone;
 
 /**
  * This widget display an analog clock with two hands for hours and minutes.
+ * <p>
+ * The dial and the hands are drawn directly on the canvas of this single view. On hardware
+ * accelerated canvases, each of them is recorded once into its own {@link RenderNode}, so that
+ * moving a hand only changes the rotation of its node instead of drawing the hand again. The
+ * angles are computed from the current time without allocating, the view is only invalidated
+ * when a hand moves and the content description is only rebuilt when the minute changes.
+ * <p>
+ * The second hand either ticks every second or, if sweeping, moves on every frame.
  */
-public class AnalogClock extends FrameLayout {
+public class AnalogClock extends View {
 
     // Constants used for the analog clocks
     private final String DIAL = "DIAL";
@@ -52,13 +71,30 @@ public class AnalogClock extends FrameLayout {
 
     private SharedPreferences mPrefs;
     private DataModel.ClockStyle mClockStyle;
-    private ImageView mHourHand;
-    private ImageView mMinuteHand;
-    private ImageView mSecondHand;
+    private Drawable mDial;
+    private Drawable mHourHand;
+    private Drawable mMinuteHand;
+    private Drawable mSecondHand;
     private String mDescFormat;
     private Calendar mTime;
     private TimeZone mTimeZone;
     private boolean mEnableSeconds = true;
+    private boolean mSweepSeconds;
+    private float mHourAngle;
+    private float mMinuteAngle;
+    private float mSecondAngle;
+
+    /**
+     * The local minute, since the epoch, of the current content description.
+     */
+    private long mDescribedMinute = Long.MIN_VALUE;
+
+    /**
+     * The recorded dial and hands; {@code null} until first drawn on a hardware accelerated
+     * canvas and whenever the size of the view changes.
+     */
+    private ClockNodes mClockNodes;
+
     private final BroadcastReceiver mIntentReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -81,6 +117,13 @@ public class AnalogClock extends FrameLayout {
             }
         }
     };
+    private final Choreographer.FrameCallback mSweepFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            onTimeChanged();
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
 
     public AnalogClock(Context context) {
         this(context, null);
@@ -122,12 +165,10 @@ public class AnalogClock extends FrameLayout {
         // Refresh the calendar instance since the time zone may have changed while the receiver
         // wasn't registered.
         mTime = Calendar.getInstance(mTimeZone != null ? mTimeZone : TimeZone.getDefault());
+        mDescribedMinute = Long.MIN_VALUE;
         onTimeChanged();
 
-        // Tick every second.
-        if (mEnableSeconds) {
-            mClockTick.run();
-        }
+        startTicking();
     }
 
     @Override
@@ -135,7 +176,72 @@ public class AnalogClock extends FrameLayout {
         super.onDetachedFromWindow();
 
         getContext().unregisterReceiver(mIntentReceiver);
-        removeCallbacks(mClockTick);
+        stopTicking();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Like an image of the dial, take its intrinsic size unless constrained.
+        final int dialWidth = mDial == null ? 0 : mDial.getIntrinsicWidth();
+        final int dialHeight = mDial == null ? 0 : mDial.getIntrinsicHeight();
+        final int width = Math.max(dialWidth + getPaddingLeft() + getPaddingRight(), getSuggestedMinimumWidth());
+        final int height = Math.max(dialHeight + getPaddingTop() + getPaddingBottom(), getSuggestedMinimumHeight());
+
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        if (mDial == null) {
+            return;
+        }
+
+        // Center the largest square that fits, as the dial and the hands are square.
+        final int availableWidth = w - getPaddingLeft() - getPaddingRight();
+        final int availableHeight = h - getPaddingTop() - getPaddingBottom();
+        final int size = Math.max(0, Math.min(availableWidth, availableHeight));
+        final int left = getPaddingLeft() + (availableWidth - size) / 2;
+        final int top = getPaddingTop() + (availableHeight - size) / 2;
+
+        mDial.setBounds(left, top, left + size, top + size);
+        mHourHand.setBounds(left, top, left + size, top + size);
+        mMinuteHand.setBounds(left, top, left + size, top + size);
+        mSecondHand.setBounds(left, top, left + size, top + size);
+
+        mClockNodes = null;
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (mDial == null) {
+            return;
+        }
+
+        if (SdkUtils.isAtLeastAndroid10() && canvas.isHardwareAccelerated()) {
+            if (mClockNodes == null) {
+                mClockNodes = new ClockNodes(this);
+            }
+            mClockNodes.draw(canvas, this);
+            return;
+        }
+
+        mDial.draw(canvas);
+        drawHand(canvas, mHourHand, mHourAngle);
+        drawHand(canvas, mMinuteHand, mMinuteAngle);
+        if (mEnableSeconds) {
+            drawHand(canvas, mSecondHand, mSecondAngle);
+        }
+    }
+
+    private void drawHand(Canvas canvas, Drawable hand, float angle) {
+        final int saveCount = canvas.save();
+        canvas.rotate(angle, hand.getBounds().exactCenterX(), hand.getBounds().exactCenterY());
+        hand.draw(canvas);
+        canvas.restoreToCount(saveCount);
     }
 
     private void init() {
@@ -150,7 +256,7 @@ public class AnalogClock extends FrameLayout {
         final int defaultClockColor = MaterialColors.getColor(getContext(), android.R.attr.textColorPrimary, Color.BLACK);
 
         // Create clock dial
-        final ImageView dial = createClockComponent(accentColor, DIAL, alarmClockColor, defaultClockColor);
+        mDial = createClockComponent(accentColor, DIAL, alarmClockColor, defaultClockColor);
 
         // Create hour hand
         mHourHand = createClockComponent(accentColor, HOUR_HAND, alarmClockColor, defaultClockColor);
@@ -160,11 +266,6 @@ public class AnalogClock extends FrameLayout {
 
         // Create second hand
         mSecondHand = createSecondHand(accentColor, alarmSecondHandColor);
-
-        addView(dial);
-        addView(mHourHand);
-        addView(mMinuteHand);
-        addView(mSecondHand);
     }
 
     /**
@@ -186,63 +287,66 @@ public class AnalogClock extends FrameLayout {
     /**
      * Helper method to create clock components (dial, hour hand and minute hand).
      */
-    private ImageView createClockComponent(String accentColor, String componentType, int alarmClockColor, int defaultClockColor) {
+    private Drawable createClockComponent(String accentColor, String componentType, int alarmClockColor, int defaultClockColor) {
 
-        ImageView component = new ImageView(getContext());
+        // Must call mutate on these instances, otherwise the drawables will blur, because they're
+        // sharing their size characteristics with the (smaller) world cities analog clocks.
+        final Drawable component;
 
         // Handle clock style and component color configuration
         if (mClockStyle == DataModel.ClockStyle.ANALOG_MATERIAL) {
             int drawableResId = getMaterialAnalogDrawableResId(componentType);
-            component.setImageDrawable(AppCompatResources.getDrawable(getContext(), drawableResId));
-            component.setColorFilter(getMaterialAnalogClockColor(accentColor, componentType));
+            component = AppCompatResources.getDrawable(getContext(), drawableResId).mutate();
+            component.setColorFilter(createColorFilter(getMaterialAnalogClockColor(accentColor, componentType)));
         } else {
             int drawableResId = getAnalogDrawableResId(componentType);
-            component.setImageDrawable(AppCompatResources.getDrawable(getContext(), drawableResId));
-            component.setColorFilter(isAlarmContext() ? alarmClockColor : defaultClockColor);
+            component = AppCompatResources.getDrawable(getContext(), drawableResId).mutate();
+            component.setColorFilter(createColorFilter(isAlarmContext() ? alarmClockColor : defaultClockColor));
         }
 
-        // Must call mutate on these instances, otherwise the drawables will blur, because they're
-        // sharing their size characteristics with the (smaller) world cities analog clocks.
-        component.getDrawable().mutate();
-
         return component;
     }
 
     /**
      * Helper method to create the second hand with a specific color logic.
      */
-    private ImageView createSecondHand(String accentColor, int alarmSecondHandColor) {
-        ImageView secondHand = new ImageView(getContext());
+    private Drawable createSecondHand(String accentColor, int alarmSecondHandColor) {
+        // Must call mutate on these instances, otherwise the drawables will blur, because they're
+        // sharing their size characteristics with the (smaller) world cities analog clocks.
+        final Drawable secondHand;
 
         if (mClockStyle == DataModel.ClockStyle.ANALOG_MATERIAL) {
-            secondHand.setImageDrawable(AppCompatResources.getDrawable(getContext(), R.drawable.analog_clock_second_circle));
-            secondHand.setColorFilter(getMaterialAnalogClockColor(accentColor, SECOND_HAND));
+            secondHand = AppCompatResources.getDrawable(getContext(), R.drawable.analog_clock_second_circle).mutate();
+            secondHand.setColorFilter(createColorFilter(getMaterialAnalogClockColor(accentColor, SECOND_HAND)));
         } else {
             final String analogSecondHandPref = getAnalogSecondHandPreference();
             final boolean isDefaultSecondHand = analogSecondHandPref.equals(DEFAULT_CLOCK_SECOND_HAND);
             final boolean isLollipopSecondHand = analogSecondHandPref.equals(CLOCK_SECOND_HAND_LOLLIPOP);
 
-            secondHand.setImageDrawable(AppCompatResources.getDrawable(getContext(), isDefaultSecondHand
+            secondHand = AppCompatResources.getDrawable(getContext(), isDefaultSecondHand
                 ? R.drawable.analog_clock_second
                 : isLollipopSecondHand
                 ? R.drawable.analog_clock_second_lollipop
-                : R.drawable.analog_clock_second_vintage));
+                : R.drawable.analog_clock_second_vintage).mutate();
 
             boolean isAutoNightAccentColorEnabled = SettingsDAO.isAutoNightAccentColorEnabled(mPrefs);
             String nightAccentColor = SettingsDAO.getNightAccentColor(mPrefs);
 
-            secondHand.setColorFilter(isAlarmContext()
+            secondHand.setColorFilter(createColorFilter(isAlarmContext()
                 ? alarmSecondHandColor
-                : getAccentColor(isAutoNightAccentColorEnabled, accentColor, nightAccentColor));
+                : getAccentColor(isAutoNightAccentColorEnabled, accentColor, nightAccentColor)));
         }
 
-        // Must call mutate on these instances, otherwise the drawables will blur, because they're
-        // sharing their size characteristics with the (smaller) world cities analog clocks.
-        secondHand.getDrawable().mutate();
-
         return secondHand;
     }
 
+    /**
+     * Helper method to tint a clock component the way an {@code ImageView} color filter does.
+     */
+    private PorterDuffColorFilter createColorFilter(int color) {
+        return new PorterDuffColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+    }
+
     /**
      * Helper method to get the drawable resource ID for material analog components.
      */
@@ -455,26 +559,56 @@ public class AnalogClock extends FrameLayout {
     }
 
     private void onTimeChanged() {
-        mTime.setTimeInMillis(System.currentTimeMillis());
+        final long now = System.currentTimeMillis();
+        final long localTime = now + mTime.getTimeZone().getOffset(now);
+        final long halfDayTime = Math.floorMod(localTime, 12 * HOUR_IN_MILLIS);
+        final int halfDayMinutes = (int) (halfDayTime / MINUTE_IN_MILLIS);
 
         // To get closer to a mechanical watch, the hour hand will move according to the minute value
-        int hour = mTime.get(Calendar.HOUR);
-        int minute = mTime.get(Calendar.MINUTE);
-        float hourAngle = (hour % 12) * 30f;
-        float minuteFraction = minute * 0.5f;
-        hourAngle += minuteFraction;
-        mHourHand.setRotation(hourAngle);
+        final float hourAngle = halfDayMinutes * 0.5f;
+        final float minuteAngle = (halfDayMinutes % 60) * 6f;
+        final long minuteTime = halfDayTime % MINUTE_IN_MILLIS;
+        final float secondAngle = mSweepSeconds
+            ? minuteTime * (6f / SECOND_IN_MILLIS)
+            : (minuteTime / SECOND_IN_MILLIS) * 6f;
+
+        if (hourAngle != mHourAngle || minuteAngle != mMinuteAngle
+            || (mEnableSeconds && secondAngle != mSecondAngle)) {
+            mHourAngle = hourAngle;
+            mMinuteAngle = minuteAngle;
+            mSecondAngle = secondAngle;
+            invalidate();
+        }
+
+        final long localMinute = Math.floorDiv(localTime, MINUTE_IN_MILLIS);
+        if (localMinute != mDescribedMinute) {
+            mDescribedMinute = localMinute;
+            mTime.setTimeInMillis(now);
+            setContentDescription(DateFormat.format(mDescFormat, mTime));
+        }
+    }
 
-        final float minuteAngle = mTime.get(Calendar.MINUTE) * 6f;
-        mMinuteHand.setRotation(minuteAngle);
+    /**
+     * Moves the second hand every second or, if sweeping, on every frame. The other hands are
+     * moved by the time tick broadcast otherwise.
+     */
+    private void startTicking() {
+        stopTicking();
 
-        if (mEnableSeconds) {
-            final float secondAngle = mTime.get(Calendar.SECOND) * 6f;
-            mSecondHand.setRotation(secondAngle);
+        if (!mEnableSeconds) {
+            return;
         }
 
-        setContentDescription(DateFormat.format(mDescFormat, mTime));
-        invalidate();
+        if (mSweepSeconds) {
+            Choreographer.getInstance().postFrameCallback(mSweepFrame);
+        } else {
+            mClockTick.run();
+        }
+    }
+
+    private void stopTicking() {
+        removeCallbacks(mClockTick);
+        Choreographer.getInstance().removeFrameCallback(mSweepFrame);
     }
 
     public void setTimeZone(String id) {
@@ -485,11 +619,66 @@ public class AnalogClock extends FrameLayout {
 
     public void enableSeconds(boolean enable) {
         mEnableSeconds = enable;
-        if (mEnableSeconds) {
-            mSecondHand.setVisibility(VISIBLE);
-            mClockTick.run();
-        } else {
-            mSecondHand.setVisibility(GONE);
+        if (isAttachedToWindow()) {
+            startTicking();
+        }
+        invalidate();
+    }
+
+    /**
+     * @param sweep {@code true} to move the second hand smoothly on every frame rather than
+     *              once per second
+     */
+    public void setSweepSeconds(boolean sweep) {
+        mSweepSeconds = sweep;
+        if (isAttachedToWindow()) {
+            startTicking();
+        }
+    }
+
+    /**
+     * The dial and the hands of a clock, each recorded once at the current size of the view.
+     * Drawing them again only updates the rotation of the hands.
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class ClockNodes {
+
+        private final RenderNode mDialNode = new RenderNode("AnalogClockDial");
+        private final RenderNode mHourNode = new RenderNode("AnalogClockHour");
+        private final RenderNode mMinuteNode = new RenderNode("AnalogClockMinute");
+        private final RenderNode mSecondNode = new RenderNode("AnalogClockSecond");
+
+        ClockNodes(AnalogClock clock) {
+            record(mDialNode, clock.mDial, clock);
+            record(mHourNode, clock.mHourHand, clock);
+            record(mMinuteNode, clock.mMinuteHand, clock);
+            record(mSecondNode, clock.mSecondHand, clock);
+        }
+
+        void draw(Canvas canvas, AnalogClock clock) {
+            mHourNode.setRotationZ(clock.mHourAngle);
+            mMinuteNode.setRotationZ(clock.mMinuteAngle);
+            mSecondNode.setRotationZ(clock.mSecondAngle);
+
+            canvas.drawRenderNode(mDialNode);
+            canvas.drawRenderNode(mHourNode);
+            canvas.drawRenderNode(mMinuteNode);
+            if (clock.mEnableSeconds) {
+                canvas.drawRenderNode(mSecondNode);
+            }
+        }
+
+        private static void record(RenderNode node, Drawable drawable, AnalogClock clock) {
+            node.setPosition(0, 0, clock.getWidth(), clock.getHeight());
+            node.setPivotX(drawable.getBounds().exactCenterX());
+            node.setPivotY(drawable.getBounds().exactCenterY());
+
+            final RecordingCanvas canvas = node.beginRecording();
+            try {
+                drawable.draw(canvas);
+            } finally {
+                node.endRecording();
+            }
         }
     }
 }
@@ -0,0 +1,236 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.utils;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+
+import com.best.deskclock.base.AppExecutors;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Decodes the background images chosen by the user for the screensaver, the alarm and the timer
+ * screens.
+ * <p>
+ * The backgrounds fill the screen with a center crop, so an image never needs more pixels than
+ * a square of the longest side of the screen. Larger images are subsampled while decoding and
+ * then scaled down to that size. The scaled image is written to the device protected cache, so
+ * that later decodes read a screen-sized file, and kept in a memory cache bounded in bytes.
+ * <p>
+ * The cache entries are keyed on the image path, the size and modification date of the image
+ * file and the target size; replacing an image or rotating to another display makes them stale.
+ */
+public final class BackgroundImageLoader {
+
+    private static final String CACHE_DIRECTORY = "background_images";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Keeps at most an eighth of the heap worth of decoded backgrounds.
+     */
+    private static final LruCache<String, Bitmap> sMemoryCache =
+        new LruCache<>((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+
+    private BackgroundImageLoader() {
+    }
+
+    /**
+     * Only the first decode of an image reads the original file.
+     *
+     * @param imagePath the absolute path to the background image
+     * @return the background sized for the screen; {@code null} if the image cannot be decoded
+     */
+    public static Bitmap loadBackground(Context context, String imagePath) {
+        final File imageFile = new File(imagePath);
+        if (!imageFile.isFile()) {
+            LogUtils.e("Image file not found: " + imagePath);
+            return null;
+        }
+
+        final int targetSize = getTargetSize(context);
+        final String key = getCacheKey(imageFile, targetSize);
+
+        final Bitmap cached = sMemoryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long startTime = SystemClock.elapsedRealtime();
+        final File cacheFile = getCacheFile(context, key);
+
+        Bitmap bitmap = cacheFile.isFile() ? decodeCacheFile(cacheFile) : null;
+        final boolean fromCache = bitmap != null;
+
+        if (bitmap == null) {
+            bitmap = decodeScaled(imageFile, targetSize);
+            if (bitmap == null) {
+                LogUtils.e("Bitmap null for path: " + imagePath);
+                return null;
+            }
+
+            final Context appContext = context.getApplicationContext();
+            final Bitmap scaled = bitmap;
+            AppExecutors.getDiskIO().execute(() -> writeCacheFile(appContext, imageFile, cacheFile, scaled));
+        }
+
+        sMemoryCache.put(key, bitmap);
+
+        LogUtils.i("Decoded background " + bitmap.getWidth() + "x" + bitmap.getHeight()
+            + (fromCache ? " from cache" : " from original") + " in "
+            + (SystemClock.elapsedRealtime() - startTime) + " ms");
+
+        return bitmap;
+    }
+
+    /**
+     * Drops the cached backgrounds of the image at the given path, e.g. before it is deleted.
+     * <p>
+     * This method performs disk I/O and must be called on a background thread.
+     */
+    public static void invalidate(Context context, String imagePath) {
+        if (imagePath == null) {
+            return;
+        }
+
+        deleteCacheFiles(context, getCacheFilePrefix(imagePath), null);
+    }
+
+    private static Bitmap decodeCacheFile(File cacheFile) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        if (SdkUtils.isAtLeastAndroid8()) {
+            // The background is only drawn, so its pixels can live in graphics memory.
+            options.inPreferredConfig = Bitmap.Config.HARDWARE;
+        }
+
+        return BitmapFactory.decodeFile(cacheFile.getAbsolutePath(), options);
+    }
+
+    /**
+     * Decodes the original image subsampled by the largest power of two that keeps its shortest
+     * side at least {@code targetSize}, then scales it down to exactly that size.
+     */
+    private static Bitmap decodeScaled(File imageFile, int targetSize) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imageFile.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        final int shortestSide = Math.min(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (shortestSide / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        final Bitmap sampled = BitmapFactory.decodeFile(imageFile.getAbsolutePath(), options);
+        if (sampled == null) {
+            return null;
+        }
+
+        final int sampledShortestSide = Math.min(sampled.getWidth(), sampled.getHeight());
+        if (sampledShortestSide <= targetSize) {
+            return sampled;
+        }
+
+        final float scale = (float) targetSize / sampledShortestSide;
+        final Bitmap scaled = Bitmap.createScaledBitmap(sampled,
+            Math.max(1, Math.round(sampled.getWidth() * scale)),
+            Math.max(1, Math.round(sampled.getHeight() * scale)), true);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+
+        return scaled;
+    }
+
+    private static void writeCacheFile(Context context, File imageFile, File cacheFile, Bitmap bitmap) {
+        deleteCacheFiles(context, getCacheFilePrefix(imageFile.getAbsolutePath()), cacheFile);
+
+        final File tempFile = new File(cacheFile.getPath() + TEMP_FILE_SUFFIX);
+        final Bitmap.CompressFormat format = bitmap.hasAlpha()
+            ? Bitmap.CompressFormat.PNG
+            : Bitmap.CompressFormat.JPEG;
+
+        boolean written;
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            written = bitmap.compress(format, 95, outputStream);
+        } catch (IOException e) {
+            LogUtils.e("Unable to cache background " + imageFile, e);
+            written = false;
+        }
+
+        if (!written || !tempFile.renameTo(cacheFile)) {
+            deleteFile(tempFile);
+        }
+    }
+
+    /**
+     * Deletes the cache files starting with {@code prefix}, except {@code kept}.
+     */
+    private static void deleteCacheFiles(Context context, String prefix, File kept) {
+        final File[] files = getCacheDirectory(context).listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (file.getName().startsWith(prefix) && !file.equals(kept)) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            LogUtils.w("Unable to delete " + file);
+        }
+    }
+
+    /**
+     * @return the length in pixels of the longest side of the screen
+     */
+    private static int getTargetSize(Context context) {
+        final DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        return Math.max(metrics.widthPixels, metrics.heightPixels);
+    }
+
+    @SuppressLint("DefaultLocale")
+    private static String getCacheKey(File imageFile, int targetSize) {
+        return getCacheFilePrefix(imageFile.getAbsolutePath())
+            + String.format("%x_%x_%d", imageFile.lastModified(), imageFile.length(), targetSize);
+    }
+
+    private static String getCacheFilePrefix(String imagePath) {
+        return Integer.toHexString(imagePath.hashCode()) + "_";
+    }
+
+    private static File getCacheDirectory(Context context) {
+        final File directory = new File(Utils.getSafeStorageContext(context).getCacheDir(), CACHE_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            LogUtils.w("Unable to create " + directory);
+        }
+
+        return directory;
+    }
+
+    private static File getCacheFile(Context context, String key) {
+        return new File(getCacheDirectory(context), key);
+    }
+}
@@ -10,21 +10,30 @@ import static com.best.deskclock.data.CustomRingtoneDAO.NEXT_RINGTONE_ID;
 import static com.best.deskclock.data.CustomRingtoneDAO.RINGTONE_IDS;
 import static com.best.deskclock.data.CustomRingtoneDAO.RINGTONE_TITLE;
 import static com.best.deskclock.data.CustomRingtoneDAO.RINGTONE_URI;
+import static com.best.deskclock.data.RandomRingtonePool.KEY_RANDOM_CUSTOM_RINGTONE_DECK;
+import static com.best.deskclock.data.RandomRingtonePool.KEY_RANDOM_RINGTONE_DECK;
 import static com.best.deskclock.data.SettingsDAO.KEY_SELECTED_ALARM_RINGTONE_URI;
 import static com.best.deskclock.data.TimerDAO.STATE;
 import static com.best.deskclock.data.TimerDAO.TIMER_IDS;
 import static com.best.deskclock.settings.PreferencesKeys.*;
 
 import android.annotation.SuppressLint;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.media.AudioManager;
 import android.media.RingtoneManager;
 import android.net.Uri;
+import android.os.RemoteException;
 import android.provider.MediaStore;
 import android.text.format.DateFormat;
+import android.util.JsonReader;
+import android.util.JsonWriter;
 
 import com.best.deskclock.BuildConfig;
 import com.best.deskclock.R;
@@ -34,24 +43,26 @@ import com.best.deskclock.data.Timer;
 import com.best.deskclock.data.Weekdays;
 import com.best.deskclock.provider.Alarm;
 import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.provider.ClockContract;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,316 +77,422 @@ public class BackupAndRestoreUtils {
 
     /**
      * Read and export values in SharedPreferences to a file.
+     * <p>
+     * The document is streamed to {@code out}: the settings are written entry by entry and the
+     * alarms are written while iterating over the provider cursor, so that the memory used does
+     * not depend on the size of the backup. The stream is flushed but not closed.
      */
     public static void settingsToJsonStream(Context context, SharedPreferences prefs, Map<String, ?> settings, OutputStream out)
-        throws JSONException, IOException {
+        throws IOException {
 
-        Map<String, Boolean> booleans = new HashMap<>();
-        Map<String, String> strings = new HashMap<>();
-        Map<String, Integer> ints = new HashMap<>();
-        Map<String, Long> longs = new HashMap<>();
-        Set<String> timerIds = prefs.getStringSet(TIMER_IDS, Collections.emptySet());
-        Set<String> visibleTabs = SettingsDAO.getVisibleTabs(prefs);
+        // The writer is not closed because this would also close the ZIP output stream.
+        final JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        writer.setIndent("    ");
 
+        writer.beginObject();
+
+        // Header
+        writer.name("Header").beginObject();
+        writer.name("packageName").value(context.getPackageName());
+        writer.name("versionName").value(BuildConfig.VERSION_NAME);
+        writer.name("versionCode").value(BuildConfig.VERSION_CODE);
+        writer.name("backupDate").value(DateFormat.format("yyyy_MM_dd_HH-mm-ss", new Date()).toString());
+        writer.endObject();
+
+        writer.name("Boolean settings").beginObject();
+        for (Map.Entry<String, ?> entry : settings.entrySet()) {
+            if (isBackedUp(entry.getKey()) && entry.getValue() instanceof Boolean value) {
+                writer.name(entry.getKey()).value((boolean) value);
+            }
+        }
+        writer.endObject();
+
+        writer.name("String settings").beginObject();
         for (Map.Entry<String, ?> entry : settings.entrySet()) {
-            if (entry.getKey() != null) {
-                String key = entry.getKey();
-                // Exclude keys from custom ringtones and the selected alarm ringtone as this causes bugs when restoring.
-                // Also, exclude keys related to images and fonts from the JSON backup. The physical files for these preferences are saved
-                // directly within the ZIP archive.
-                // Finally, exclude the essential permissions key, as it reflects the current system state and should not be saved,
-                // restored, or reset like other preferences.
-                if (key.equals(RINGTONE_IDS)
-                    || key.equals(KEY_GENERAL_FONT)
-                    || key.startsWith(RINGTONE_URI)
-                    || key.equals(NEXT_RINGTONE_ID)
-                    || key.startsWith(RINGTONE_TITLE)
-                    || key.equals(KEY_SELECTED_ALARM_RINGTONE_URI)
-                    || key.equals(KEY_ALARM_FONT)
-                    || key.equals(KEY_ALARM_BACKGROUND_IMAGE)
-                    || key.equals(KEY_TIMER_DURATION_FONT)
-                    || key.equals(KEY_TIMER_BACKGROUND_IMAGE)
-                    || key.equals(KEY_SW_FONT)
-                    || key.equals(KEY_DIGITAL_CLOCK_FONT)
-                    || key.equals(KEY_SCREENSAVER_DIGITAL_CLOCK_FONT)
-                    || key.equals(KEY_SCREENSAVER_BACKGROUND_IMAGE)
-                    || key.equals(KEY_ESSENTIAL_PERMISSIONS_GRANTED)) {
+            final String key = entry.getKey();
+            if (isBackedUp(key) && entry.getValue() instanceof String value) {
+                // Exclude these keys if the URI does not match a system ringtone
+                if (isRingtoneKey(key) && !RingtoneUtils.isSystemRingtone(Uri.parse(value))) {
                     continue;
                 }
 
-                if (entry.getValue() instanceof Boolean) {
-                    booleans.put(entry.getKey(), prefs.getBoolean(entry.getKey(), (Boolean) entry.getValue()));
-                } else if (entry.getValue() instanceof String) {
-                    // Exclude these keys if the URI does not match a system ringtone
-                    if (KEY_TIMER_RINGTONE.equals(key) || KEY_DEFAULT_ALARM_RINGTONE.equals(key)) {
-                        String value = prefs.getString(key, (String) entry.getValue());
-                        Uri uri = Uri.parse(value);
-                        if (!RingtoneUtils.isSystemRingtone(uri)) {
-                            continue;
-                        }
-                    }
+                writer.name(key).value(value);
+            }
+        }
+        writer.endObject();
 
-                    strings.put(entry.getKey(), prefs.getString(entry.getKey(), (String) entry.getValue()));
-                } else if (entry.getValue() instanceof Integer) {
-                    int value = prefs.getInt(entry.getKey(), (Integer) entry.getValue());
-                    // Always save the timers in the Reset state
-                    if (key.startsWith(STATE)) {
-                        value = Timer.State.RESET.getValue();
-                    }
+        writer.name("Integer settings").beginObject();
+        for (Map.Entry<String, ?> entry : settings.entrySet()) {
+            final String key = entry.getKey();
+            if (isBackedUp(key) && entry.getValue() instanceof Integer value) {
+                // Always save the timers in the Reset state
+                writer.name(key).value(key.startsWith(STATE) ? Timer.State.RESET.getValue() : value);
+            }
+        }
+        writer.endObject();
 
-                    ints.put(entry.getKey(), value);
-                } else if (entry.getValue() instanceof Long) {
-                    longs.put(entry.getKey(), prefs.getLong(entry.getKey(), (Long) entry.getValue()));
-                }
+        writer.name("Long settings").beginObject();
+        for (Map.Entry<String, ?> entry : settings.entrySet()) {
+            if (isBackedUp(entry.getKey()) && entry.getValue() instanceof Long value) {
+                writer.name(entry.getKey()).value(value);
             }
         }
+        writer.endObject();
 
-        JSONObject jsonObject = new JSONObject();
+        writeStringArray(writer, "Visible tabs", SettingsDAO.getVisibleTabs(prefs));
 
-        // Header
-        JSONObject header = new JSONObject();
-
-        header.put("packageName", context.getPackageName());
-        header.put("versionName", BuildConfig.VERSION_NAME);
-        header.put("versionCode", BuildConfig.VERSION_CODE);
-        header.put("backupDate", DateFormat.format("yyyy_MM_dd_HH-mm-ss", new Date()).toString());
-
-        jsonObject.put("Header", header);
-
-        // Convert the Map of booleans to a JSONObject
-        jsonObject.put("Boolean settings", convertMapToJsonObject(booleans));
-
-        // Convert the Map of strings to a JSONObject
-        jsonObject.put("String settings", convertMapToJsonObject(strings));
-
-        // Convert the Map of integers to a JSONObject
-        jsonObject.put("Integer settings", convertMapToJsonObject(ints));
-
-        // Convert the Map of longs to a JSONObject
-        jsonObject.put("Long settings", convertMapToJsonObject(longs));
-
-        // Convert the Map of visible tabs to a JSONArray
-        jsonObject.put("Visible tabs", new JSONArray(visibleTabs));
-
-        // Convert the Map of timers IDs to a JSONArray
-        jsonObject.put("Timers IDs", new JSONArray(timerIds));
-
-        // Convert the alarms to a JSONArray
-        JSONArray alarmsArray = new JSONArray();
-        JSONArray alarmsWithDateArray = new JSONArray();
-
-        List<Alarm> alarms = Alarm.getAlarms(context.getContentResolver(), null);
-        for (Alarm alarm : alarms) {
-            JSONObject alarmObject = new JSONObject();
-
-            alarmObject.put("id", alarm.id);
-            alarmObject.put("enabled", alarm.enabled);
-            alarmObject.put("hour", alarm.hour);
-            alarmObject.put("minutes", alarm.minutes);
-            alarmObject.put("vibrate", alarm.vibrate);
-            alarmObject.put("vibrationPattern", alarm.vibrationPattern);
-            alarmObject.put("flash", alarm.flash);
-            alarmObject.put("daysOfWeek", alarm.daysOfWeek.getBits());
-            alarmObject.put("label", alarm.label);
-            alarmObject.put("syncByLabel", alarm.syncByLabel);
-            alarmObject.put("alert", alarm.alert);
-            alarmObject.put("deleteAfterUse", alarm.deleteAfterUse);
-            alarmObject.put("autoSilenceDuration", alarm.autoSilenceDuration);
-            alarmObject.put("snoozeDuration", alarm.snoozeDuration);
-            alarmObject.put("missedAlarmRepeatLimit", alarm.missedAlarmRepeatLimit);
-            alarmObject.put("crescendoDuration", alarm.crescendoDuration);
-            alarmObject.put("alarmVolume", alarm.alarmVolume);
-            alarmObject.put("manualSortOrder", alarm.manualSortOrder);
-            alarmObject.put("pauseStartDate", alarm.pauseStartDate);
-            alarmObject.put("pauseEndDate", alarm.pauseEndDate);
-
-            if (alarm.daysOfWeek.isRepeating() || !alarm.isSpecifiedDate()) {
-                alarmsArray.put(alarmObject);
-            } else {
-                alarmObject.put("year", alarm.year);
-                alarmObject.put("month", alarm.month);
-                alarmObject.put("day", alarm.day);
-
-                alarmsWithDateArray.put(alarmObject);
-            }
+        writeStringArray(writer, "Timers IDs", prefs.getStringSet(TIMER_IDS, Collections.emptySet()));
+
+        try (Cursor cursor = Alarm.getAlarmsCursor(context.getContentResolver(), null)) {
+            writer.name("Alarms").beginArray();
+            writeAlarms(writer, cursor, false);
+            writer.endArray();
+
+            writer.name("Alarms with specified date").beginArray();
+            writeAlarms(writer, cursor, true);
+            writer.endArray();
         }
 
-        jsonObject.put("Alarms", alarmsArray);
+        writer.endObject();
 
-        jsonObject.put("Alarms with specified date", alarmsWithDateArray);
+        writer.flush();
+    }
 
-        out.write(jsonObject.toString(4).getBytes(StandardCharsets.UTF_8));
+    /**
+     * @return {@code true} if the preference identified by {@code key} is saved in the JSON backup.
+     * {@code false} otherwise.
+     */
+    private static boolean isBackedUp(String key) {
+        // Exclude keys from custom ringtones, the selected alarm ringtone and the random ringtone decks as this causes
+        // bugs when restoring.
+        // Also, exclude keys related to images and fonts from the JSON backup. The physical files for these preferences are saved
+        // directly within the ZIP archive.
+        // Finally, exclude the essential permissions key, as it reflects the current system state and should not be saved,
+        // restored, or reset like other preferences.
+        return key != null
+            && !key.equals(RINGTONE_IDS)
+            && !key.equals(KEY_GENERAL_FONT)
+            && !key.startsWith(RINGTONE_URI)
+            && !key.equals(NEXT_RINGTONE_ID)
+            && !key.startsWith(RINGTONE_TITLE)
+            && !key.equals(KEY_SELECTED_ALARM_RINGTONE_URI)
+            && !key.equals(KEY_RANDOM_RINGTONE_DECK)
+            && !key.equals(KEY_RANDOM_CUSTOM_RINGTONE_DECK)
+            && !key.equals(KEY_ALARM_FONT)
+            && !key.equals(KEY_ALARM_BACKGROUND_IMAGE)
+            && !key.equals(KEY_TIMER_DURATION_FONT)
+            && !key.equals(KEY_TIMER_BACKGROUND_IMAGE)
+            && !key.equals(KEY_SW_FONT)
+            && !key.equals(KEY_DIGITAL_CLOCK_FONT)
+            && !key.equals(KEY_SCREENSAVER_DIGITAL_CLOCK_FONT)
+            && !key.equals(KEY_SCREENSAVER_BACKGROUND_IMAGE)
+            && !key.equals(KEY_ESSENTIAL_PERMISSIONS_GRANTED);
+    }
 
-        out.flush();
+    /**
+     * Helper method to write a set of strings as a named JSON array.
+     */
+    private static void writeStringArray(JsonWriter writer, String name, Set<String> values) throws IOException {
+        writer.name(name).beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
     }
 
     /**
-     * Helper method to convert a Map to JSONObject.
+     * Write the alarms of the cursor that have a specified date if {@code withSpecifiedDate} is
+     * {@code true}, or the other alarms otherwise.
      */
-    private static JSONObject convertMapToJsonObject(Map<String, ?> map) throws JSONException {
-        JSONObject jsonObject = new JSONObject();
-        for (Map.Entry<String, ?> entry : map.entrySet()) {
-            Object value = entry.getValue();
-            if (value instanceof Boolean) {
-                jsonObject.put(entry.getKey(), value);
-            } else if (value instanceof String) {
-                jsonObject.put(entry.getKey(), value);
-            } else if (value instanceof Integer) {
-                jsonObject.put(entry.getKey(), value);
-            } else if (value instanceof Long) {
-                jsonObject.put(entry.getKey(), value);
-            } else if (value instanceof Set<?> set) {
-                if (!set.isEmpty() && set.iterator().next() instanceof String) {
-                    jsonObject.put(entry.getKey(), new JSONArray(set));
-                } else {
-                    LogUtils.w("Expected Set<String>, but got: " + set.getClass().getName());
-                }
+    private static void writeAlarms(JsonWriter writer, Cursor cursor, boolean withSpecifiedDate) throws IOException {
+        if (cursor == null) {
+            return;
+        }
+
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            final Alarm alarm = new Alarm(cursor);
+            final boolean hasSpecifiedDate = !alarm.daysOfWeek.isRepeating() && alarm.isSpecifiedDate();
+            if (hasSpecifiedDate != withSpecifiedDate) {
+                continue;
             }
+
+            writer.beginObject();
+            writer.name("id").value(alarm.id);
+            writer.name("enabled").value(alarm.enabled);
+            writer.name("hour").value(alarm.hour);
+            writer.name("minutes").value(alarm.minutes);
+            writer.name("vibrate").value(alarm.vibrate);
+            writeOptionalString(writer, "vibrationPattern", alarm.vibrationPattern);
+            writer.name("flash").value(alarm.flash);
+            writer.name("daysOfWeek").value(alarm.daysOfWeek.getBits());
+            writeOptionalString(writer, "label", alarm.label);
+            writer.name("syncByLabel").value(alarm.syncByLabel);
+            writeOptionalString(writer, "alert", alarm.alert == null ? null : alarm.alert.toString());
+            writer.name("deleteAfterUse").value(alarm.deleteAfterUse);
+            writer.name("autoSilenceDuration").value(alarm.autoSilenceDuration);
+            writer.name("snoozeDuration").value(alarm.snoozeDuration);
+            writer.name("missedAlarmRepeatLimit").value(alarm.missedAlarmRepeatLimit);
+            writer.name("crescendoDuration").value(alarm.crescendoDuration);
+            writer.name("alarmVolume").value(alarm.alarmVolume);
+            writer.name("manualSortOrder").value(alarm.manualSortOrder);
+            writer.name("pauseStartDate").value(alarm.pauseStartDate);
+            writer.name("pauseEndDate").value(alarm.pauseEndDate);
+
+            if (hasSpecifiedDate) {
+                writer.name("year").value(alarm.year);
+                writer.name("month").value(alarm.month);
+                writer.name("day").value(alarm.day);
+            }
+            writer.endObject();
+        }
+    }
+
+    /**
+     * Helper method that omits null values, so that the default value is used when restoring.
+     */
+    private static void writeOptionalString(JsonWriter writer, String name, String value) throws IOException {
+        if (value != null) {
+            writer.name(name).value(value);
         }
-        return jsonObject;
     }
 
     /**
      * Read and apply values to restore in SharedPreferences.
+     * <p>
+     * The backup is parsed as a stream: settings are collected as they are read, and each alarm is
+     * built and validated as soon as it is read, with the restored settings as default values for
+     * its missing fields (the settings precede the alarms in the backup). Nothing is written until
+     * the whole backup has been read, so that a truncated or corrupt backup, or an invalid alarm,
+     * leaves the current settings and alarms untouched. The settings are then committed and the
+     * alarms restored all at once by {@link #restoreAlarms(Context, List)}.
      */
-    @SuppressLint("ApplySharedPref")
     public static void readJson(Context context, SharedPreferences prefs, InputStream inputStream)
         throws IOException, JSONException {
 
-        SharedPreferences.Editor editor = prefs.edit();
-
-        // Exclude keys corresponding to custom ringtones and the selected alarm ringtone, as this causes bugs for alarms.
-        // Next, exclude keys related to images and fonts because they are not stored in the JSON. They will be updated dynamically later
-        // if the corresponding files are found in the ZIP archive.
-        // Finally, exclude the essential permissions key, as it reflects the current system state and should not be saved, restored,
-        // or reset like other preferences.
-        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
-            String key = entry.getKey();
-
-            if (!key.equals(KEY_GENERAL_FONT)
-                && !key.startsWith(RINGTONE_URI)
-                && !key.equals(RINGTONE_IDS)
-                && !key.equals(NEXT_RINGTONE_ID)
-                && !key.startsWith(RINGTONE_TITLE)
-                && !key.equals(KEY_SELECTED_ALARM_RINGTONE_URI)
-                && !key.equals(KEY_ALARM_FONT)
-                && !key.equals(KEY_ALARM_BACKGROUND_IMAGE)
-                && !key.equals(KEY_TIMER_DURATION_FONT)
-                && !key.equals(KEY_TIMER_BACKGROUND_IMAGE)
-                && !key.equals(KEY_SW_FONT)
-                && !key.equals(KEY_DIGITAL_CLOCK_FONT)
-                && !key.equals(KEY_SCREENSAVER_DIGITAL_CLOCK_FONT)
-                && !key.equals(KEY_SCREENSAVER_BACKGROUND_IMAGE)
-                && !key.equals(KEY_ESSENTIAL_PERMISSIONS_GRANTED)
-            ) {
-                editor.remove(key);
+        final RestoredPreferences restoredPrefs = new RestoredPreferences(prefs);
+        final List<Alarm> restoredAlarms = new ArrayList<>();
+
+        // The reader is not closed because this would also close the ZIP input stream.
+        final JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            switch (name) {
+                case "Boolean settings" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        restoredPrefs.put(reader.nextName(), reader.nextBoolean());
+                    }
+                    reader.endObject();
+                }
+
+                case "String settings" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        final String key = reader.nextName();
+                        final String value = reader.nextString();
+
+                        if (isRingtoneKey(key) && !isRingtoneAvailable(context, value)) {
+                            if (KEY_TIMER_RINGTONE.equals(key)) {
+                                restoredPrefs.put(key, RingtoneUtils.getResourceUri(context, R.raw.timer_expire).toString());
+                            } else if (KEY_DEFAULT_ALARM_RINGTONE.equals(key)) {
+                                restoredPrefs.put(key, RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM).toString());
+                            }
+                        } else {
+                            restoredPrefs.put(key, value);
+                        }
+                    }
+                    reader.endObject();
+                }
+
+                case "Integer settings" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        restoredPrefs.put(reader.nextName(), reader.nextInt());
+                    }
+                    reader.endObject();
+                }
+
+                case "Long settings" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        restoredPrefs.put(reader.nextName(), reader.nextLong());
+                    }
+                    reader.endObject();
+                }
+
+                case "Visible tabs" -> restoredPrefs.put(KEY_VISIBLE_TABS, readStringArray(reader));
+
+                case "Timers IDs" -> restoredPrefs.put(TIMER_IDS, readStringArray(reader));
+
+                case "Alarms", "Alarms with specified date" -> {
+                    final boolean hasSpecifiedDate = name.equals("Alarms with specified date");
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final Alarm alarm = createRestoredAlarm(context, restoredPrefs, readAlarmObject(reader), hasSpecifiedDate);
+                        final String error = validateRestoredAlarm(alarm);
+                        if (error != null) {
+                            throw new IOException("Invalid alarm " + alarm.id + " in backup: " + error);
+                        }
+                        restoredAlarms.add(alarm);
+                    }
+                    reader.endArray();
+                }
+
+                default -> reader.skipValue();
             }
         }
+        reader.endObject();
+
+        restoredPrefs.commitTo(prefs.edit());
+
+        restoreAlarms(context, restoredAlarms);
+
+        AlarmStateManager.updateNextAlarm(context);
+    }
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-        StringBuilder jsonBuilder = new StringBuilder();
-        String line;
+    /**
+     * Replace the alarm list with the restored alarms, which have already been validated.
+     * <p>
+     * The current alarms and instances are deleted and the restored ones are inserted through a
+     * single provider batch, i.e. a single SQLite transaction. The new instances are then
+     * registered without updating the next alarm, which the caller does once.
+     */
+    private static void restoreAlarms(Context context, List<Alarm> restoredAlarms) throws IOException {
+        final ContentResolver contentResolver = context.getContentResolver();
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>(restoredAlarms.size() * 2 + 2);
 
-        while ((line = reader.readLine()) != null) {
-            jsonBuilder.append(line);
+        // Clear the alarm list before restoring to avoid adding duplicates
+        operations.add(ContentProviderOperation.newDelete(AlarmInstance.CONTENT_URI).build());
+        operations.add(ContentProviderOperation.newDelete(Alarm.CONTENT_URI).build());
+
+        final Calendar now = Calendar.getInstance();
+        final List<AlarmInstance> instances = new ArrayList<>();
+        final List<Integer> alarmOperationIndexes = new ArrayList<>();
+        final List<Integer> instanceOperationIndexes = new ArrayList<>();
+
+        for (Alarm alarm : restoredAlarms) {
+            final int alarmOperationIndex = operations.size();
+            operations.add(ContentProviderOperation.newInsert(Alarm.CONTENT_URI)
+                .withValues(alarm.createContentValues())
+                .build());
+
+            // If the alarm is enabled, a future instance will be scheduled.
+            if (alarm.enabled) {
+                final AlarmInstance instance = alarm.createInstanceAfter(now);
+                instances.add(instance);
+                alarmOperationIndexes.add(alarmOperationIndex);
+                instanceOperationIndexes.add(operations.size());
+
+                // The id of the alarm may change if it was already used, so refer to the inserted row.
+                operations.add(ContentProviderOperation.newInsert(AlarmInstance.CONTENT_URI)
+                    .withValues(instance.createContentValues())
+                    .withValueBackReference(AlarmInstance.ALARM_ID, alarmOperationIndex)
+                    .build());
+            }
         }
 
-        JSONObject jsonObject = new JSONObject(jsonBuilder.toString());
+        // Stop and cancel everything scheduled for the current instances; their rows are deleted by the batch.
+        AlarmStateManager.unregisterInstancesBeforeDeletion(context, AlarmInstance.getInstances(contentResolver, null));
 
-        JSONObject booleans = jsonObject.getJSONObject("Boolean settings");
-        for (Iterator<String> it = booleans.keys(); it.hasNext(); ) {
-            String key = it.next();
-            boolean value = booleans.getBoolean(key);
-            editor.putBoolean(key, value);
+        final ContentProviderResult[] results;
+        try {
+            results = contentResolver.applyBatch(ClockContract.AUTHORITY, operations);
+        } catch (OperationApplicationException | RemoteException e) {
+            // The current instances were unregistered but are still stored: schedule them again.
+            AlarmStateManager.fixAlarmInstances(context);
+            throw new IOException("Failed to restore the alarms", e);
         }
 
-        JSONObject strings = jsonObject.getJSONObject("String settings");
-        for (Iterator<String> it = strings.keys(); it.hasNext(); ) {
-            String key = it.next();
-            String value = strings.getString(key);
+        LogUtils.i("BackupAndRestoreUtils restored %d alarms", restoredAlarms.size());
 
-            if (isRingtoneKey(key)) {
-                if (!isRingtoneAvailable(context, value)) {
-                    if (KEY_TIMER_RINGTONE.equals(key)) {
-                        editor.putString(key, RingtoneUtils.getResourceUri(context, R.raw.timer_expire).toString());
-                    } else if (KEY_DEFAULT_ALARM_RINGTONE.equals(key)) {
-                        editor.putString(key, RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM).toString());
-                    }
-                } else {
-                    editor.putString(key, value);
-                }
-            } else {
-                editor.putString(key, value);
-            }
+        for (int i = 0; i < instances.size(); i++) {
+            final AlarmInstance instance = instances.get(i);
+            instance.mAlarmId = ContentUris.parseId(results[alarmOperationIndexes.get(i)].uri);
+            instance.mId = ContentUris.parseId(results[instanceOperationIndexes.get(i)].uri);
+            AlarmStateManager.registerInstance(context, instance, false);
+            LogUtils.i("BackupAndRestoreUtils scheduled alarm instance: %s", instance);
         }
+    }
 
-        JSONObject integers = jsonObject.getJSONObject("Integer settings");
-        for (Iterator<String> it = integers.keys(); it.hasNext(); ) {
-            String key = it.next();
-            int value = integers.getInt(key);
-            editor.putInt(key, value);
+    /**
+     * @return a description of the first invalid value of a restored alarm; {@code null} if the
+     * alarm is valid.
+     */
+    private static String validateRestoredAlarm(Alarm alarm) {
+        if (alarm.hour < 0 || alarm.hour > 23) {
+            return "hour " + alarm.hour;
         }
 
-        JSONObject longs = jsonObject.getJSONObject("Long settings");
-        for (Iterator<String> it = longs.keys(); it.hasNext(); ) {
-            String key = it.next();
-            long value = longs.getLong(key);
-            editor.putLong(key, value);
+        if (alarm.minutes < 0 || alarm.minutes > 59) {
+            return "minutes " + alarm.minutes;
         }
 
-        if (jsonObject.has("Visible tabs")) {
-            JSONArray visibleTabsArray = jsonObject.getJSONArray("Visible tabs");
-            Set<String> visibleTabs = new HashSet<>();
-            for (int i = 0; i < visibleTabsArray.length(); i++) {
-                visibleTabs.add(visibleTabsArray.getString(i));
-            }
-            editor.putStringSet(KEY_VISIBLE_TABS, visibleTabs);
+        if (alarm.month < Calendar.JANUARY || alarm.month > Calendar.DECEMBER) {
+            return "month " + alarm.month;
         }
 
-        if (jsonObject.has("Timers IDs")) {
-            JSONArray timerIdsArray = jsonObject.getJSONArray("Timers IDs");
-            Set<String> timerIds = new HashSet<>();
-            for (int i = 0; i < timerIdsArray.length(); i++) {
-                timerIds.add(timerIdsArray.getString(i));
-            }
-            editor.putStringSet(TIMER_IDS, timerIds);
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(alarm.year, alarm.month, 1);
+        if (alarm.day < 1 || alarm.day > calendar.getActualMaximum(Calendar.DAY_OF_MONTH)) {
+            return "day " + alarm.day;
         }
 
-        editor.commit();
+        if (alarm.alarmVolume < 0 || alarm.crescendoDuration < 0 || alarm.snoozeDuration < 0
+            || alarm.autoSilenceDuration < 0 || alarm.missedAlarmRepeatLimit < 0) {
+            return "negative duration or volume";
+        }
 
-        final ContentResolver contentResolver = context.getContentResolver();
-        // Clear the alarm list before restoring to avoid adding duplicates
-        final List<Alarm> alarms = Alarm.getAlarms(contentResolver, null);
-        for (Alarm alarm : alarms) {
-            AlarmStateManager.deleteAllInstances(context, alarm.id);
-            Alarm.deleteAlarm(contentResolver, alarm.id);
+        if (alarm.pauseEndDate < alarm.pauseStartDate) {
+            return "pause ends before it starts";
         }
 
-        if (jsonObject.has("Alarms")) {
-            JSONArray alarmsArray = jsonObject.getJSONArray("Alarms");
-            for (int i = 0; i < alarmsArray.length(); i++) {
-                JSONObject alarmObject = alarmsArray.getJSONObject(i);
-                restoreAlarm(context, prefs, contentResolver, alarmObject, false);
-            }
+        return null;
+    }
+
+    /**
+     * Helper method to read a JSON array of strings.
+     */
+    private static Set<String> readStringArray(JsonReader reader) throws IOException {
+        final Set<String> values = new HashSet<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(reader.nextString());
         }
+        reader.endArray();
+        return values;
+    }
 
-        if (jsonObject.has("Alarms with specified date")) {
-            JSONArray alarmsWithDateArray = jsonObject.getJSONArray("Alarms with specified date");
-            for (int i = 0; i < alarmsWithDateArray.length(); i++) {
-                JSONObject alarmObject = alarmsWithDateArray.getJSONObject(i);
-                restoreAlarm(context, prefs, contentResolver, alarmObject, true);
+    /**
+     * Read the next alarm of the backup. Only this object is held in memory, until the alarm is
+     * built from it.
+     */
+    private static JSONObject readAlarmObject(JsonReader reader) throws IOException, JSONException {
+        final JSONObject alarmObject = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            switch (reader.peek()) {
+                case BOOLEAN -> alarmObject.put(name, reader.nextBoolean());
+                case NUMBER -> alarmObject.put(name, reader.nextLong());
+                case STRING -> alarmObject.put(name, reader.nextString());
+                // Missing and null values are replaced by the default values when restoring
+                default -> reader.skipValue();
             }
         }
-
-        AlarmStateManager.updateNextAlarm(context);
+        reader.endObject();
+        return alarmObject;
     }
 
     /**
-     * Restore alarm data.
-     * If the alarm is enabled, a future instance will be scheduled.
+     * @return the alarm described by a JSON object of the backup, with the current default values
+     * for the missing fields. The alarm is not saved.
      */
-    private static void restoreAlarm(Context context, SharedPreferences prefs, ContentResolver contentResolver,
-                                     JSONObject alarmObject, boolean hasSpecifiedDate) throws JSONException {
+    private static Alarm createRestoredAlarm(Context context, SharedPreferences prefs, JSONObject alarmObject,
+                                             boolean hasSpecifiedDate) throws JSONException {
 
         AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
 
@@ -417,8 +534,6 @@ public class BackupAndRestoreUtils {
             alarmRingtone = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM).toString();
         }
 
-        Alarm restoredAlarm;
-
         int year;
         int month;
         int day;
@@ -434,18 +549,9 @@ public class BackupAndRestoreUtils {
             day = calendar.get(Calendar.DAY_OF_MONTH);
         }
 
-        restoredAlarm = new Alarm(id, enabled, year, month, day, hour, minutes, vibrate, vibrationPattern, flash,
+        return new Alarm(id, enabled, year, month, day, hour, minutes, vibrate, vibrationPattern, flash,
             Weekdays.fromBits(daysOfWeek), label, syncAlarmByLabel, alarmRingtone, deleteAfterUse, autoSilenceDuration, snoozeDuration,
             missedAlarmRepeatLimit, crescendoDuration, alarmVolume, manualSortOrder, pauseStartDate, pauseEndDate);
-
-        restoredAlarm.addAlarm(contentResolver);
-
-        if (restoredAlarm.enabled) {
-            AlarmInstance alarmInstance = restoredAlarm.createInstanceAfter(Calendar.getInstance());
-            alarmInstance.addInstance(contentResolver);
-            AlarmStateManager.registerInstance(context, alarmInstance, false);
-            LogUtils.i("BackupAndRestoreUtils scheduled alarm instance: %s", alarmInstance);
-        }
     }
 
     /**
@@ -494,4 +600,144 @@ public class BackupAndRestoreUtils {
         return false;
     }
 
+    /**
+     * The preferences as they will be once the settings read so far are committed: the restored
+     * value of a backed up key, the default value of a backed up key missing from the backup, and
+     * the current value of the other keys. The restored values are only held in memory until
+     * {@link #commitTo(SharedPreferences.Editor)} is called.
+     */
+    private static final class RestoredPreferences implements SharedPreferences {
+
+        private final SharedPreferences mCurrentPrefs;
+        private final Map<String, Object> mRestoredValues = new HashMap<>();
+
+        private RestoredPreferences(SharedPreferences currentPrefs) {
+            mCurrentPrefs = currentPrefs;
+        }
+
+        private void put(String key, Object value) {
+            mRestoredValues.put(key, value);
+        }
+
+        /**
+         * Replace the backed up settings with the restored ones.
+         */
+        @SuppressLint("ApplySharedPref")
+        @SuppressWarnings("unchecked")
+        private void commitTo(SharedPreferences.Editor editor) {
+            // Exclude keys corresponding to custom ringtones and the selected alarm ringtone, as this causes bugs for alarms.
+            // Next, exclude keys related to images and fonts because they are not stored in the JSON. They will be updated
+            // dynamically later if the corresponding files are found in the ZIP archive.
+            // Finally, exclude the essential permissions key, as it reflects the current system state and should not be saved,
+            // restored, or reset like other preferences.
+            for (String key : mCurrentPrefs.getAll().keySet()) {
+                if (isBackedUp(key)) {
+                    editor.remove(key);
+                }
+            }
+
+            for (Map.Entry<String, Object> entry : mRestoredValues.entrySet()) {
+                final String key = entry.getKey();
+                final Object value = entry.getValue();
+                if (value instanceof Boolean booleanValue) {
+                    editor.putBoolean(key, booleanValue);
+                } else if (value instanceof String stringValue) {
+                    editor.putString(key, stringValue);
+                } else if (value instanceof Integer intValue) {
+                    editor.putInt(key, intValue);
+                } else if (value instanceof Long longValue) {
+                    editor.putLong(key, longValue);
+                } else if (value instanceof Set<?> setValue) {
+                    editor.putStringSet(key, (Set<String>) setValue);
+                }
+            }
+
+            editor.commit();
+        }
+
+        @Override
+        public Map<String, ?> getAll() {
+            final Map<String, Object> values = new HashMap<>();
+            for (Map.Entry<String, ?> entry : mCurrentPrefs.getAll().entrySet()) {
+                if (!isBackedUp(entry.getKey())) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+            values.putAll(mRestoredValues);
+            return values;
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            if (mRestoredValues.get(key) instanceof String value) {
+                return value;
+            }
+
+            return isBackedUp(key) ? defValue : mCurrentPrefs.getString(key, defValue);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            if (mRestoredValues.get(key) instanceof Set<?> value) {
+                return (Set<String>) value;
+            }
+
+            return isBackedUp(key) ? defValues : mCurrentPrefs.getStringSet(key, defValues);
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            if (mRestoredValues.get(key) instanceof Integer value) {
+                return value;
+            }
+
+            return isBackedUp(key) ? defValue : mCurrentPrefs.getInt(key, defValue);
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            if (mRestoredValues.get(key) instanceof Long value) {
+                return value;
+            }
+
+            return isBackedUp(key) ? defValue : mCurrentPrefs.getLong(key, defValue);
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            // Float settings are not backed up.
+            return isBackedUp(key) ? defValue : mCurrentPrefs.getFloat(key, defValue);
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            if (mRestoredValues.get(key) instanceof Boolean value) {
+                return value;
+            }
+
+            return isBackedUp(key) ? defValue : mCurrentPrefs.getBoolean(key, defValue);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return mRestoredValues.containsKey(key) || (!isBackedUp(key) && mCurrentPrefs.contains(key));
+        }
+
+        @Override
+        public Editor edit() {
+            throw new UnsupportedOperationException("The restored preferences are read-only");
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException("The restored preferences are read-only");
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException("The restored preferences are read-only");
+        }
+    }
+
 }
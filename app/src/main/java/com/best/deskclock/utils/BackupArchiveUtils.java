@@ -0,0 +1,229 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.utils;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Utility class for writing and extracting the custom media files (fonts and background images)
+ * of a backup archive.
+ */
+public class BackupArchiveUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of entries extracted at the same time during a restore.
+     */
+    private static final int MAX_EXTRACTION_THREADS = 4;
+
+    /**
+     * Adds the given file to the archive.
+     * <p>
+     * Images and web fonts are already compressed: deflating them again costs time without saving
+     * any space, so they are stored as is. Their CRC is computed in a first streaming pass since
+     * a stored entry must declare it before its data.
+     */
+    public static void appendFile(ZipOutputStream zipOutputStream, File file) throws IOException {
+        final ZipEntry zipEntry = new ZipEntry(file.getName());
+
+        if (isPreCompressed(file)) {
+            final long size = file.length();
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(size);
+            zipEntry.setCompressedSize(size);
+            zipEntry.setCrc(computeCrc(file));
+        }
+
+        zipOutputStream.putNextEntry(zipEntry);
+
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            final FileChannel fileChannel = fileInputStream.getChannel();
+            // Do not close this channel, it would close the archive stream.
+            final WritableByteChannel zipChannel = Channels.newChannel(zipOutputStream);
+            final long size = fileChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += fileChannel.transferTo(position, size - position, zipChannel);
+            }
+        }
+
+        zipOutputStream.closeEntry();
+    }
+
+    /**
+     * Copies the archive behind the given URI to a temporary file, so that its entries can be read
+     * in random order with a {@link ZipFile}. The caller is responsible for deleting the file.
+     */
+    public static File copyToTempFile(Context context, Uri uri) throws IOException {
+        final File tempFile = File.createTempFile("restore", ".zip", context.getCacheDir());
+
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
+             OutputStream outputStream = new FileOutputStream(tempFile)) {
+
+            if (inputStream == null) {
+                throw new IOException("Unable to open " + uri);
+            }
+
+            copy(inputStream, outputStream);
+        } catch (IOException e) {
+            if (!tempFile.delete()) {
+                LogUtils.w("Unable to delete the temporary file: " + tempFile);
+            }
+            throw e;
+        }
+
+        return tempFile;
+    }
+
+    /**
+     * Extracts the given entries of the archive into {@code destinationDir}, several at a time.
+     *
+     * @return the extracted files, in the order of {@code zipEntries}
+     */
+    public static List<File> extractEntries(ZipFile zipFile, List<ZipEntry> zipEntries, File destinationDir)
+        throws IOException {
+
+        final List<File> outputFiles = new ArrayList<>(zipEntries.size());
+        if (zipEntries.isEmpty()) {
+            return outputFiles;
+        }
+
+        final int threadCount = Math.min(zipEntries.size(),
+            Math.min(MAX_EXTRACTION_THREADS, Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<>(zipEntries.size());
+            for (ZipEntry zipEntry : zipEntries) {
+                final File outputFile = new File(destinationDir, new File(zipEntry.getName()).getName());
+                outputFiles.add(outputFile);
+
+                tasks.add(() -> {
+                    try (InputStream inputStream = zipFile.getInputStream(zipEntry);
+                         OutputStream outputStream = new FileOutputStream(outputFile)) {
+                        copy(inputStream, outputStream);
+                    }
+                    return null;
+                });
+            }
+
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extraction interrupted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to extract the backup files", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return outputFiles;
+    }
+
+    private static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = inputStream.read(buffer)) > 0) {
+            outputStream.write(buffer, 0, length);
+        }
+    }
+
+    private static long computeCrc(File file) throws IOException {
+        final CRC32 crc = new CRC32();
+
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = fileInputStream.read(buffer)) > 0) {
+                crc.update(buffer, 0, length);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * The custom files are saved without extension, so their format is determined from their
+     * signature.
+     *
+     * @return {@code true} if the file is a PNG, JPEG, GIF, WebP, HEIF/AVIF image or a WOFF/WOFF2
+     * font; {@code false} otherwise (notably for TTF and OTF fonts, which are not compressed).
+     */
+    private static boolean isPreCompressed(File file) throws IOException {
+        final byte[] header = new byte[12];
+        int read = 0;
+
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            int length;
+            while (read < header.length && (length = fileInputStream.read(header, read, header.length - read)) > 0) {
+                read += length;
+            }
+        }
+
+        if (read < 4) {
+            return false;
+        }
+
+        // PNG
+        if ((header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return true;
+        }
+
+        // JPEG
+        if ((header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return true;
+        }
+
+        // GIF
+        if (header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return true;
+        }
+
+        // WOFF and WOFF2
+        if (header[0] == 'w' && header[1] == 'O' && header[2] == 'F' && (header[3] == 'F' || header[3] == '2')) {
+            return true;
+        }
+
+        if (read < 12) {
+            return false;
+        }
+
+        // WebP
+        if (header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+            && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return true;
+        }
+
+        // HEIF and AVIF
+        return header[4] == 'f' && header[5] == 't' && header[6] == 'y' && header[7] == 'p';
+    }
+}
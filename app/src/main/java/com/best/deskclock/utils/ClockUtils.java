@@ -12,6 +12,7 @@ import android.text.Spannable;
 import android.text.SpannableString;
 import android.text.Spanned;
 import android.text.format.DateFormat;
+import android.text.format.DateUtils;
 import android.text.style.RelativeSizeSpan;
 import android.text.style.StyleSpan;
 import android.text.style.TypefaceSpan;
@@ -26,6 +27,8 @@ import com.best.deskclock.uicomponents.AnalogClock;
 import com.best.deskclock.uicomponents.CustomTypefaceSpan;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
@@ -343,6 +346,45 @@ public class ClockUtils {
         return next == null ? null : next.getTime();
     }
 
+    /**
+     * Given a point in time, return the subsequent moment the UTC offset of the time zone changes
+     * (e.g. a daylight saving time transition).
+     *
+     * @param time a point in time from which to look for the next transition
+     * @param tz   a time zone
+     * @return the time of the next offset transition, or {@link Long#MAX_VALUE} if the time zone
+     * has no transition within the next year
+     */
+    public static long getNextOffsetTransition(long time, TimeZone tz) {
+        if (SdkUtils.isAtLeastAndroid8()) {
+            final ZoneOffsetTransition transition = tz.toZoneId().getRules().nextTransition(Instant.ofEpochMilli(time));
+            return transition == null ? Long.MAX_VALUE : transition.toEpochSecond() * 1000;
+        }
+
+        // Look for the first day whose offset differs, then narrow the transition down to the second.
+        final int offset = tz.getOffset(time);
+        long before = time;
+        long after = time;
+        do {
+            before = after;
+            after += DateUtils.DAY_IN_MILLIS;
+            if (after - time > DateUtils.YEAR_IN_MILLIS) {
+                return Long.MAX_VALUE;
+            }
+        } while (tz.getOffset(after) == offset);
+
+        while (after - before > DateUtils.SECOND_IN_MILLIS) {
+            final long middle = before + (after - before) / 2;
+            if (tz.getOffset(middle) == offset) {
+                before = middle;
+            } else {
+                after = middle;
+            }
+        }
+
+        return after - after % DateUtils.SECOND_IN_MILLIS;
+    }
+
     /**
      * Apply the clock icon font to the next alarm view.
      */
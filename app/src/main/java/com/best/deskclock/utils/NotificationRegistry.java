@@ -0,0 +1,194 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.utils;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.service.notification.StatusBarNotification;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.SparseArray;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the alarm, timer and stopwatch notifications posted by the app, per group.
+ * <p>
+ * The group summaries are updated every time a notification of their group is posted or
+ * canceled. Deciding whether a summary is needed from this registry avoids asking the
+ * notification manager for all the active notifications, a binder call, each time.
+ * <p>
+ * The registry starts empty in a new process, while notifications posted by a previous process
+ * may still be displayed: it is synced once with the active notifications on its first use.
+ * <p>
+ * The registry is only used to decide whether a group summary needs updating; the app always
+ * sends its cancellations, since a notification may have been posted before the registry was
+ * synced. The notifications swiped away by the user stay recorded until the app cancels them or,
+ * for the missed alarms, until the alarm list reports it. Until then, such a notification may keep
+ * a group summary longer; a posted notification is never missed.
+ */
+public final class NotificationRegistry {
+
+    /**
+     * The posted notifications, by id. Guarded by {@code NotificationRegistry.class}.
+     */
+    private static final SparseArray<Notification> sNotifications = new SparseArray<>();
+
+    /**
+     * The ids of the posted notifications of each group. Guarded by
+     * {@code NotificationRegistry.class}.
+     */
+    private static final Map<String, Set<Integer>> sIdsByGroup = new ArrayMap<>();
+
+    private static boolean sSynced;
+
+    private NotificationRegistry() {
+    }
+
+    /**
+     * Records a notification that was just posted, replacing the one with the same id.
+     */
+    public static synchronized void onPosted(Context context, int id, Notification notification) {
+        syncIfNeeded(context);
+        remove(id);
+        add(id, notification);
+    }
+
+    /**
+     * Records that the notification with the given id was canceled.
+     */
+    public static synchronized void onCanceled(Context context, int id) {
+        syncIfNeeded(context);
+        remove(id);
+    }
+
+    /**
+     * Records that all notifications of the app were canceled.
+     */
+    public static synchronized void onAllCanceled() {
+        sNotifications.clear();
+        sIdsByGroup.clear();
+        sSynced = true;
+    }
+
+    /**
+     * @return the posted notification of the group that comes first by sort key, excluding the
+     * group summary; {@code null} if none
+     */
+    public static synchronized Notification getFirstNotification(Context context, String group) {
+        syncIfNeeded(context);
+
+        final Set<Integer> ids = sIdsByGroup.get(group);
+        if (ids == null) {
+            return null;
+        }
+
+        Notification firstNotification = null;
+        for (int id : ids) {
+            final Notification notification = sNotifications.get(id);
+            if (isGroupSummary(notification)) {
+                continue;
+            }
+
+            if (firstNotification == null || compareSortKeys(notification, firstNotification) < 0) {
+                firstNotification = notification;
+            }
+        }
+
+        return firstNotification;
+    }
+
+    /**
+     * @return the posted summary of the group; {@code null} if none
+     */
+    public static synchronized Notification getGroupSummary(Context context, String group) {
+        syncIfNeeded(context);
+
+        final Set<Integer> ids = sIdsByGroup.get(group);
+        if (ids == null) {
+            return null;
+        }
+
+        for (int id : ids) {
+            final Notification notification = sNotifications.get(id);
+            if (isGroupSummary(notification)) {
+                return notification;
+            }
+        }
+
+        return null;
+    }
+
+    private static void syncIfNeeded(Context context) {
+        if (sSynced) {
+            return;
+        }
+
+        sSynced = true;
+
+        final NotificationManager nm = context.getSystemService(NotificationManager.class);
+        if (nm == null) {
+            return;
+        }
+
+        final StatusBarNotification[] activeNotifications;
+        try {
+            activeNotifications = nm.getActiveNotifications();
+        } catch (RuntimeException e) {
+            LogUtils.e("Unable to read the active notifications", e);
+            return;
+        }
+
+        for (StatusBarNotification statusBarNotification : activeNotifications) {
+            if (statusBarNotification.getTag() == null && sNotifications.get(statusBarNotification.getId()) == null) {
+                add(statusBarNotification.getId(), statusBarNotification.getNotification());
+            }
+        }
+
+        LogUtils.i("Synced " + sNotifications.size() + " active notifications");
+    }
+
+    private static void add(int id, Notification notification) {
+        sNotifications.put(id, notification);
+
+        final String group = notification.getGroup();
+        if (group != null) {
+            Set<Integer> ids = sIdsByGroup.get(group);
+            if (ids == null) {
+                ids = new ArraySet<>();
+                sIdsByGroup.put(group, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    private static void remove(int id) {
+        final Notification notification = sNotifications.get(id);
+        if (notification == null) {
+            return;
+        }
+
+        sNotifications.remove(id);
+
+        final String group = notification.getGroup();
+        final Set<Integer> ids = group == null ? null : sIdsByGroup.get(group);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                sIdsByGroup.remove(group);
+            }
+        }
+    }
+
+    private static boolean isGroupSummary(Notification notification) {
+        return (notification.flags & Notification.FLAG_GROUP_SUMMARY) == Notification.FLAG_GROUP_SUMMARY;
+    }
+
+    private static int compareSortKeys(Notification first, Notification second) {
+        final String firstSortKey = first.getSortKey() == null ? "" : first.getSortKey();
+        final String secondSortKey = second.getSortKey() == null ? "" : second.getSortKey();
+        return firstSortKey.compareTo(secondSortKey);
+    }
+}
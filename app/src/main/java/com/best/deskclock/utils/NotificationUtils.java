@@ -192,6 +192,7 @@ public class NotificationUtils {
     public static void clearAllNotifications(Context context) {
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
         notificationManager.cancelAll();
+        NotificationRegistry.onAllCanceled();
     }
 
     /**
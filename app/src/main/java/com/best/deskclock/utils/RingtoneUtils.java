@@ -9,7 +9,6 @@ import static android.media.AudioManager.STREAM_ALARM;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.database.Cursor;
 import android.media.AudioAttributes;
 import android.media.AudioDeviceInfo;
 import android.media.AudioManager;
@@ -19,17 +18,12 @@ import android.net.Uri;
 
 import androidx.annotation.AnyRes;
 
-import com.best.deskclock.DeskClockApplication;
 import com.best.deskclock.R;
-import com.best.deskclock.data.CustomRingtone;
-import com.best.deskclock.data.RingtoneModel;
+import com.best.deskclock.data.DataModel;
 import com.best.deskclock.data.SettingsDAO;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 public class RingtoneUtils {
 
@@ -178,60 +172,33 @@ public class RingtoneUtils {
     }
 
     /**
-     * Returns a randomly selected system alarm ringtone URI.
+     * Returns a randomly selected system alarm ringtone URI, e.g. for a preview.
      * <p>
      * If no valid ringtones are found, the system's default alarm ringtone is returned.
      */
     public static Uri getRandomRingtoneUri() {
-        Context context = DeskClockApplication.getAppContext();
-
-        RingtoneManager manager = new RingtoneManager(context);
-        manager.setType(RingtoneManager.TYPE_ALARM);
-
-        Cursor cursor = manager.getCursor();
-        List<Uri> uris = new ArrayList<>();
-
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                Uri uri = manager.getRingtoneUri(cursor.getPosition());
-                if (uri != null) {
-                    uris.add(uri);
-                }
-            } while (cursor.moveToNext());
-            cursor.close();
-        }
-
-        if (uris.isEmpty()) {
-            return RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-        }
-
-        return uris.get(new Random().nextInt(uris.size()));
+        return DataModel.getDataModel().pickRandomRingtone(RANDOM_RINGTONE);
     }
 
     /**
-     * Returns a randomly selected custom ringtone URI.
+     * Returns a randomly selected custom ringtone URI, e.g. for a preview.
      * <p>
      * If no valid ringtones are found, the system's default alarm ringtone is returned.
      */
     public static Uri getRandomCustomRingtoneUri() {
-        Context context = DeskClockApplication.getAppContext();
-
-        List<Uri> uris = new ArrayList<>();
-
-        SharedPreferences prefs = DeskClockApplication.getDefaultSharedPreferences(context);
-        RingtoneModel ringtoneModel = new RingtoneModel(context, prefs);
-        for (CustomRingtone custom : ringtoneModel.getCustomRingtones()) {
-            if (custom.hasPermissions()) {
-                uris.add(custom.getUri());
-            }
-        }
-        ringtoneModel.releaseResources();
-
-        if (uris.isEmpty()) {
-            return RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-        }
+        return DataModel.getDataModel().pickRandomRingtone(RANDOM_CUSTOM_RINGTONE);
+    }
 
-        return uris.get(new Random().nextInt(uris.size()));
+    /**
+     * Returns the ringtone a ringing alarm or timer set to {@code randomRingtone} should play.
+     * <p>
+     * Unlike {@link #getRandomRingtoneUri()}, every ringtone plays once before any repeats and the
+     * same ringtone never plays twice in a row.
+     *
+     * @param randomRingtone {@link #RANDOM_RINGTONE} or {@link #RANDOM_CUSTOM_RINGTONE}
+     */
+    public static Uri drawRandomRingtoneUri(Uri randomRingtone) {
+        return DataModel.getDataModel().drawRandomRingtone(randomRingtone);
     }
 
     /**
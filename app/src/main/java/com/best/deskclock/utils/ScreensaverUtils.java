@@ -11,7 +11,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
 import android.graphics.ColorMatrix;
 import android.graphics.ColorMatrixColorFilter;
@@ -37,12 +36,13 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.core.view.WindowInsetsControllerCompat;
 
 import com.best.deskclock.R;
+import com.best.deskclock.data.DataModel;
 import com.best.deskclock.data.DataModel.ClockStyle;
+import com.best.deskclock.data.ScreensaverSettings;
 import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.uicomponents.AnalogClock;
 import com.best.deskclock.uicomponents.AutoSizingTextClock;
 
-import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
@@ -68,14 +68,14 @@ public class ScreensaverUtils {
      * <p>This method ensures consistent brightness behavior across all screensaver elements,
      * while preserving the intended color styling of each clock type.</p>
      *
-     * @param view  The view to update.
-     * @param prefs User preferences containing the brightness setting.
-     * @param color Optional base color used for analog clock tinting.
+     * @param view     The view to update.
+     * @param settings Screensaver settings containing the brightness setting.
+     * @param color    Optional base color used for analog clock tinting.
      */
-    private static void applyBrightness(View view, SharedPreferences prefs, @Nullable Integer color,
+    private static void applyBrightness(View view, ScreensaverSettings settings, @Nullable Integer color,
                                         @Nullable Drawable drawable) {
 
-        int brightnessPercentage = SettingsDAO.getScreensaverBrightness(prefs);
+        int brightnessPercentage = settings.brightness();
 
         float factor = 0.1f + (brightnessPercentage / 100f) * 0.9f;
 
@@ -147,16 +147,16 @@ public class ScreensaverUtils {
      *
      * <p>This method loads the user-selected font file for the screensaver clock
      * and applies the style options (bold, italic, or bold-italic) based on
-     * the user's preferences stored in SharedPreferences.</p>
+     * the user's screensaver settings.</p>
      *
-     * @param prefs SharedPreferences containing the user's screensaver clock settings
+     * @param settings the user's screensaver clock settings
      * @return a Typeface object representing the chosen font with the applied style
      */
-    public static Typeface getScreensaverClockTypeface(SharedPreferences prefs) {
-        Typeface baseTypeface = ThemeUtils.loadFont(SettingsDAO.getScreensaverDigitalClockFont(prefs));
+    public static Typeface getScreensaverClockTypeface(ScreensaverSettings settings) {
+        Typeface baseTypeface = ThemeUtils.loadFont(settings.digitalClockFont());
         int style = resolveTypefaceStyle(
-            SettingsDAO.isScreensaverDigitalClockInBold(prefs),
-            SettingsDAO.isScreensaverDigitalClockInItalic(prefs)
+            settings.isDigitalClockInBold(),
+            settings.isDigitalClockInItalic()
         );
 
         if (baseTypeface == null) {
@@ -171,10 +171,12 @@ public class ScreensaverUtils {
      *
      * @param batteryText Battery text to format
      */
-    private static void setScreensaverBatteryFormat(SharedPreferences prefs, TextView batteryText) {
+    private static void setScreensaverBatteryFormat(SharedPreferences prefs, ScreensaverSettings settings,
+                                                    TextView batteryText) {
+
         int style = resolveTypefaceStyle(
-            SettingsDAO.isScreensaverBatteryInBold(prefs),
-            SettingsDAO.isScreensaverBatteryInItalic(prefs)
+            settings.isBatteryInBold(),
+            settings.isBatteryInItalic()
         );
 
         applyGeneralTypeface(prefs, batteryText, style);
@@ -188,7 +190,7 @@ public class ScreensaverUtils {
      */
     @SuppressLint("SetTextI18n")
     public static void updateBatteryText(View view, Intent intent) {
-        SharedPreferences prefs = getDefaultSharedPreferences(view.getContext());
+        ScreensaverSettings settings = DataModel.getDataModel().getScreensaverSettings();
         int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
         int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
         int percent = (int) ((level / (float) scale) * 100);
@@ -196,7 +198,7 @@ public class ScreensaverUtils {
         boolean isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
 
         TextView batteryLevel = view.findViewById(R.id.battery_level);
-        CharSequence batteryText = SettingsDAO.isScreensaverBatteryInItalic(prefs) ? percent + "%" + "\u200A" : percent + "%";
+        CharSequence batteryText = settings.isBatteryInItalic() ? percent + "%" + "\u200A" : percent + "%";
 
         batteryLevel.setText(batteryText);
 
@@ -211,20 +213,20 @@ public class ScreensaverUtils {
      */
     public static void updateBatteryIcon(View view, int percent, boolean isCharging) {
         Context context = view.getContext();
-        final SharedPreferences prefs = getDefaultSharedPreferences(context);
+        final ScreensaverSettings settings = DataModel.getDataModel().getScreensaverSettings();
 
         final TextView batteryText = view.findViewById(R.id.battery_level);
         int iconRes = getBatteryIconRes(percent, isCharging);
         final Drawable drawable = AppCompatResources.getDrawable(context, iconRes);
 
-        final ClockStyle screensaverClockStyle = SettingsDAO.getScreensaverClockStyle(prefs);
-        final boolean isDynamicColors = SettingsDAO.areScreensaverClockDynamicColors(prefs);
+        final ClockStyle screensaverClockStyle = settings.clockStyle();
+        final boolean isDynamicColors = settings.areClockDynamicColors();
         final int inversePrimaryColor = ContextCompat.getColor(context, R.color.md_theme_inversePrimary);
         final int color = isDynamicColors && screensaverClockStyle != ClockStyle.ANALOG_MATERIAL
             ? inversePrimaryColor
-            : SettingsDAO.getScreensaverBatteryColorPicker(prefs);
+            : settings.batteryColor();
 
-        applyBrightness(batteryText, prefs, color, drawable);
+        applyBrightness(batteryText, settings, color, drawable);
 
         batteryText.setCompoundDrawablesWithIntrinsicBounds(drawable, null, null, null);
     }
@@ -261,10 +263,10 @@ public class ScreensaverUtils {
      *
      * @param date Date to format
      */
-    private static void setScreensaverDateFormat(SharedPreferences prefs, TextView date) {
+    private static void setScreensaverDateFormat(SharedPreferences prefs, ScreensaverSettings settings, TextView date) {
         int style = resolveTypefaceStyle(
-            SettingsDAO.isScreensaverDateInBold(prefs),
-            SettingsDAO.isScreensaverDateInItalic(prefs)
+            settings.isDateInBold(),
+            settings.isDateInItalic()
         );
 
         applyGeneralTypeface(prefs, date, style);
@@ -275,10 +277,12 @@ public class ScreensaverUtils {
      *
      * @param nextAlarm Next alarm to format
      */
-    private static void setScreensaverNextAlarmFormat(SharedPreferences prefs, TextView nextAlarm) {
+    private static void setScreensaverNextAlarmFormat(SharedPreferences prefs, ScreensaverSettings settings,
+                                                      TextView nextAlarm) {
+
         int style = resolveTypefaceStyle(
-            SettingsDAO.isScreensaverNextAlarmInBold(prefs),
-            SettingsDAO.isScreensaverNextAlarmInItalic(prefs)
+            settings.isNextAlarmInBold(),
+            settings.isNextAlarmInItalic()
         );
 
         applyGeneralTypeface(prefs, nextAlarm, style);
@@ -327,10 +331,10 @@ public class ScreensaverUtils {
     public static String getScreensaverFormattedTime(Context context, Calendar alarmTime) {
         String base = AlarmUtils.getFormattedTime(context, alarmTime);
 
-        SharedPreferences prefs = getDefaultSharedPreferences(context);
+        ScreensaverSettings settings = DataModel.getDataModel().getScreensaverSettings();
 
-        boolean italicDate = SettingsDAO.isScreensaverDateInItalic(prefs);
-        boolean italicAlarm = SettingsDAO.isScreensaverNextAlarmInItalic(prefs);
+        boolean italicDate = settings.isDateInItalic();
+        boolean italicAlarm = settings.isNextAlarmInItalic();
 
         if (italicDate) {
             return "\u2009" + base + "\u2009";
@@ -345,7 +349,7 @@ public class ScreensaverUtils {
      * Clock views can call this to refresh their date.
      **/
     public static void updateScreensaverDate(String dateSkeleton, String descriptionSkeleton, View clock) {
-        final SharedPreferences prefs = getDefaultSharedPreferences(clock.getContext());
+        final ScreensaverSettings settings = DataModel.getDataModel().getScreensaverSettings();
         final TextView dateDisplay = clock.findViewById(R.id.date);
         if (dateDisplay == null) {
             return;
@@ -354,11 +358,11 @@ public class ScreensaverUtils {
         final Locale locale = Locale.getDefault();
         String datePattern = DateFormat.getBestDateTimePattern(locale, dateSkeleton);
 
-        if (SettingsDAO.isScreensaverDateInItalic(prefs)) {
+        if (settings.isDateInItalic()) {
             // Add a "Thin Space" (\u2009) at the end of the date to prevent its display
             // from being cut off on some devices.
             datePattern = "\u2009" + datePattern + "\u2009";
-        } else if (SettingsDAO.isScreensaverNextAlarmInItalic(prefs)) {
+        } else if (settings.isNextAlarmInItalic()) {
             datePattern = datePattern + "\u2009";
         }
 
@@ -367,7 +371,7 @@ public class ScreensaverUtils {
         final Date now = new Date();
         String formattedDate = new SimpleDateFormat(datePattern, locale).format(now);
 
-        dateDisplay.setAllCaps(SettingsDAO.isScreensaverTextUppercaseDisplayed(prefs));
+        dateDisplay.setAllCaps(settings.isTextUppercaseDisplayed());
         dateDisplay.setText(FormattedTextUtils.capitalizeFirstLetter(formattedDate, locale));
         dateDisplay.setVisibility(VISIBLE);
         dateDisplay.setContentDescription(new SimpleDateFormat(descriptionPattern, locale).format(now));
@@ -379,31 +383,25 @@ public class ScreensaverUtils {
     public static void setScreensaverClockStyle(View view) {
         final Context context = view.getContext();
         final SharedPreferences prefs = getDefaultSharedPreferences(context);
+        final ScreensaverSettings settings = DataModel.getDataModel().getScreensaverSettings();
         final View mainClockView = view.findViewById(R.id.main_clock);
         final ImageView backgroundImage = view.findViewById(R.id.screensaver_background_image);
-        final String imagePath = SettingsDAO.getScreensaverBackgroundImage(prefs);
+        final String imagePath = settings.backgroundImage();
 
         if (imagePath != null) {
             backgroundImage.setVisibility(VISIBLE);
 
-            File imageFile = new File(imagePath);
-            if (imageFile.exists()) {
-                Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath());
-                if (bitmap != null) {
-                    backgroundImage.setImageBitmap(bitmap);
-                    applyBrightness(backgroundImage, prefs, null, null);
-
-                    if (SdkUtils.isAtLeastAndroid12() && SettingsDAO.isScreensaverBlurEffectEnabled(prefs)) {
-                        float intensity = SettingsDAO.getScreensaverBlurIntensity(prefs);
-                        RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
-                        backgroundImage.setRenderEffect(blur);
-                    }
-                } else {
-                    LogUtils.e("Bitmap null for path: " + imagePath);
-                    backgroundImage.setVisibility(GONE);
+            Bitmap bitmap = BackgroundImageLoader.loadBackground(context, imagePath);
+            if (bitmap != null) {
+                backgroundImage.setImageBitmap(bitmap);
+                applyBrightness(backgroundImage, settings, null, null);
+
+                if (SdkUtils.isAtLeastAndroid12() && settings.isBlurEffectEnabled()) {
+                    float intensity = settings.blurIntensity();
+                    RenderEffect blur = RenderEffect.createBlurEffect(intensity, intensity, Shader.TileMode.CLAMP);
+                    backgroundImage.setRenderEffect(blur);
                 }
             } else {
-                LogUtils.e("Image file not found: " + imagePath);
                 backgroundImage.setVisibility(GONE);
             }
         } else {
@@ -411,60 +409,60 @@ public class ScreensaverUtils {
         }
 
         // Style
-        final ClockStyle screensaverClockStyle = SettingsDAO.getScreensaverClockStyle(prefs);
+        final ClockStyle screensaverClockStyle = settings.clockStyle();
         final AnalogClock analogClock = mainClockView.findViewById(R.id.analog_clock);
         final AutoSizingTextClock textClock = mainClockView.findViewById(R.id.digital_clock);
-        final boolean areClockSecondsEnabled = SettingsDAO.areScreensaverClockSecondsDisplayed(prefs);
+        final boolean areClockSecondsEnabled = settings.areClockSecondsDisplayed();
         final TextView batteryText = mainClockView.findViewById(R.id.battery_level);
         final TextView date = mainClockView.findViewById(R.id.date);
         final TextView nextAlarmIcon = mainClockView.findViewById(R.id.nextAlarmIcon);
         final TextView nextAlarm = mainClockView.findViewById(R.id.nextAlarm);
         final int inversePrimaryColor = ContextCompat.getColor(context, R.color.md_theme_inversePrimary);
         final boolean isMaterialAnalogClock = screensaverClockStyle == ClockStyle.ANALOG_MATERIAL;
-        final boolean isDynamicColors = SettingsDAO.areScreensaverClockDynamicColors(prefs);
+        final boolean isDynamicColors = settings.areClockDynamicColors();
 
         final int screenSaverClockColorPicker = isDynamicColors
             ? inversePrimaryColor
-            : SettingsDAO.getScreensaverClockColorPicker(prefs);
+            : settings.clockColor();
         final int screensaverDateColorPicker = isDynamicColors && !isMaterialAnalogClock
             ? inversePrimaryColor
-            : SettingsDAO.getScreensaverDateColorPicker(prefs);
+            : settings.dateColor();
         final int screensaverNextAlarmColorPicker = isDynamicColors && !isMaterialAnalogClock
             ? inversePrimaryColor
-            : SettingsDAO.getScreensaverNextAlarmColorPicker(prefs);
+            : settings.nextAlarmColor();
 
         ClockUtils.setClockStyle(screensaverClockStyle, textClock, analogClock);
 
         if (screensaverClockStyle == ClockStyle.DIGITAL) {
-            textClock.setTypeface(getScreensaverClockTypeface(prefs));
+            textClock.setTypeface(getScreensaverClockTypeface(settings));
             ClockUtils.setDigitalClockTimeFormat(textClock, 0.4f, areClockSecondsEnabled, false, false, true);
 
-            textClock.applyUserPreferredTextSizeSp(SettingsDAO.getScreensaverDigitalClockFontSize(prefs));
+            textClock.applyUserPreferredTextSizeSp(settings.digitalClockFontSize());
 
-            applyBrightness(textClock, prefs, screenSaverClockColorPicker, null);
+            applyBrightness(textClock, settings, screenSaverClockColorPicker, null);
         } else {
             ClockUtils.adjustAnalogClockSize(analogClock, prefs, false, false, true);
             ClockUtils.setAnalogClockSecondsEnabled(screensaverClockStyle, analogClock, areClockSecondsEnabled);
 
             if (isMaterialAnalogClock) {
-                applyBrightness(analogClock, prefs, null, null);
+                applyBrightness(analogClock, settings, null, null);
             } else {
-                applyBrightness(analogClock, prefs, screenSaverClockColorPicker, null);
+                applyBrightness(analogClock, settings, screenSaverClockColorPicker, null);
             }
         }
 
-        if (SettingsDAO.isScreensaverBatteryDisplayed(prefs)) {
+        if (settings.isBatteryDisplayed()) {
             batteryText.setVisibility(VISIBLE);
-            setScreensaverBatteryFormat(prefs, batteryText);
+            setScreensaverBatteryFormat(prefs, settings, batteryText);
         }
 
-        setScreensaverDateFormat(prefs, date);
+        setScreensaverDateFormat(prefs, settings, date);
         ClockUtils.setClockIconTypeface(nextAlarmIcon);
-        setScreensaverNextAlarmFormat(prefs, nextAlarm);
+        setScreensaverNextAlarmFormat(prefs, settings, nextAlarm);
 
-        applyBrightness(date, prefs, screensaverDateColorPicker, null);
-        applyBrightness(nextAlarmIcon, prefs, screensaverNextAlarmColorPicker, null);
-        applyBrightness(nextAlarm, prefs, screensaverNextAlarmColorPicker, null);
+        applyBrightness(date, settings, screensaverDateColorPicker, null);
+        applyBrightness(nextAlarmIcon, settings, screensaverNextAlarmColorPicker, null);
+        applyBrightness(nextAlarm, settings, screensaverNextAlarmColorPicker, null);
     }
 
     /**
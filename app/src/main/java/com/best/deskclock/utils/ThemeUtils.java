@@ -51,7 +51,6 @@ import com.best.deskclock.data.SettingsDAO;
 import com.best.deskclock.uicomponents.CustomTooltip;
 import com.google.android.material.color.MaterialColors;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -59,7 +58,6 @@ import java.util.Map;
 
 public class ThemeUtils {
 
-    private static final Map<String, Typeface> fontCache = new HashMap<>();
     private static final Map<View, List<TextView>> textViewCache = new HashMap<>();
 
     /**
@@ -127,33 +125,13 @@ public class ThemeUtils {
      * If the path is null, the file does not exist, or the font cannot be loaded,
      * the default system font will be used.
      * </p>
+     * The typeface is kept by {@link TypefaceRegistry}, which loads it again if its file changed.
      *
      * @param fontPath the absolute path to the font file (.ttf or .otf), may be null
      * @return the loaded {@link Typeface}, or {@code null} if loading fails
      */
     public static Typeface loadFont(String fontPath) {
-        if (fontPath == null) {
-            return null;
-        }
-
-        if (fontCache.containsKey(fontPath)) {
-            return fontCache.get(fontPath);
-        }
-
-        File file = new File(fontPath);
-        if (!file.exists() || !file.isFile()) {
-            LogUtils.w("Font file not found: " + fontPath);
-            return null;
-        }
-
-        try {
-            Typeface typeface = Typeface.createFromFile(file);
-            fontCache.put(fontPath, typeface);
-            return typeface;
-        } catch (Exception e) {
-            LogUtils.e("Error loading font: " + fontPath, e);
-            return null;
-        }
+        return TypefaceRegistry.getTypeface(fontPath);
     }
 
     /**
@@ -166,35 +144,17 @@ public class ThemeUtils {
      * @return a bold Typeface, either custom or default
      */
     public static Typeface boldTypeface(String fontPath) {
-        if (fontPath == null) {
-            return Typeface.create("sans-serif", Typeface.BOLD);
-        }
+        Typeface boldTypeface = TypefaceRegistry.getBoldTypeface(fontPath);
 
-        String boldKey = fontPath + "_BOLD";
-
-        if (fontCache.containsKey(boldKey)) {
-            return fontCache.get(boldKey);
-        }
-
-        Typeface baseTypeface = loadFont(fontPath);
-
-        if (baseTypeface == null) {
+        if (boldTypeface == null) {
             return Typeface.create("sans-serif", Typeface.BOLD);
         }
 
-        Typeface boldTypeface = Typeface.create(baseTypeface, Typeface.BOLD);
-        fontCache.put(boldKey, boldTypeface);
-
         return boldTypeface;
     }
 
     public static void removeFontFromCache(String fontPath) {
-        if (fontPath == null) {
-            return;
-        }
-
-        fontCache.remove(fontPath);
-        fontCache.remove(fontPath + "_BOLD");
+        TypefaceRegistry.invalidate(fontPath);
     }
 
     /**
@@ -0,0 +1,211 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.utils;
+
+import android.content.SharedPreferences;
+import android.graphics.Typeface;
+
+import com.best.deskclock.data.SettingsDAO;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads and keeps the custom fonts chosen by the user.
+ * <p>
+ * Each font is keyed on its path and remembers the size and last modification date of its file:
+ * a font whose file was replaced is loaded again on its next lookup. The fonts of all roles are
+ * loaded in the background when the app starts, so that screens and dialogs find them ready.
+ * <p>
+ * The number of kept fonts is bounded; the least recently used ones are released first.
+ * <p>
+ * All methods may be called from any thread.
+ */
+public final class TypefaceRegistry {
+
+    /**
+     * Each role may keep its current font and the one it replaces while the change propagates.
+     */
+    private static final int MAX_ENTRIES = 2 * Role.values().length;
+
+    /**
+     * Maps the path of a font file to its loaded typefaces. Guarded by {@code sEntries}.
+     */
+    private static final Map<String, Entry> sEntries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The places of the app that may display a custom font.
+     */
+    public enum Role {
+        GENERAL,
+        ALARM,
+        TIMER,
+        STOPWATCH,
+        DIGITAL_CLOCK,
+        SCREENSAVER;
+
+        /**
+         * @return the path of the font chosen for this role; {@code null} if none
+         */
+        public String getFontPath(SharedPreferences prefs) {
+            return switch (this) {
+                case GENERAL -> SettingsDAO.getGeneralFont(prefs);
+                case ALARM -> SettingsDAO.getAlarmFont(prefs);
+                case TIMER -> SettingsDAO.getTimerDurationFont(prefs);
+                case STOPWATCH -> SettingsDAO.getStopwatchFont(prefs);
+                case DIGITAL_CLOCK -> SettingsDAO.getDigitalClockFont(prefs);
+                case SCREENSAVER -> SettingsDAO.getScreensaverDigitalClockFont(prefs);
+            };
+        }
+    }
+
+    private TypefaceRegistry() {
+    }
+
+    /**
+     * @return the font chosen for the given {@code role}; {@code null} if the system font is used
+     */
+    public static Typeface getTypeface(SharedPreferences prefs, Role role) {
+        return getTypeface(role.getFontPath(prefs));
+    }
+
+    /**
+     * @param fontPath the absolute path to the font file (.ttf or .otf), may be null
+     * @return the font at the given path; {@code null} if it cannot be loaded
+     */
+    public static Typeface getTypeface(String fontPath) {
+        final Entry entry = getEntry(fontPath);
+        return entry == null ? null : entry.mTypeface;
+    }
+
+    /**
+     * @param fontPath the absolute path to the font file (.ttf or .otf), may be null
+     * @return the bold variant of the font at the given path; {@code null} if it cannot be loaded
+     */
+    public static Typeface getBoldTypeface(String fontPath) {
+        final Entry entry = getEntry(fontPath);
+        if (entry == null) {
+            return null;
+        }
+
+        synchronized (sEntries) {
+            if (entry.mBoldTypeface == null) {
+                entry.mBoldTypeface = Typeface.create(entry.mTypeface, Typeface.BOLD);
+            }
+            return entry.mBoldTypeface;
+        }
+    }
+
+    /**
+     * Loads the fonts of all roles.
+     * <p>
+     * This method performs disk I/O and must be called on a background thread.
+     */
+    public static void preload(SharedPreferences prefs) {
+        int count = 0;
+        for (Role role : Role.values()) {
+            if (getTypeface(prefs, role) != null) {
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            LogUtils.i("Preloaded " + count + " custom fonts using " + getMemoryFootprint() + " bytes");
+        }
+    }
+
+    /**
+     * Releases the font at the given path, e.g. before its file is deleted.
+     */
+    public static void invalidate(String fontPath) {
+        if (fontPath == null) {
+            return;
+        }
+
+        synchronized (sEntries) {
+            sEntries.remove(fontPath);
+        }
+    }
+
+    /**
+     * Fonts are memory-mapped from their file, so their footprint is approximated by the size of
+     * the files of the kept fonts.
+     *
+     * @return the approximate memory used by the kept fonts, in bytes
+     */
+    public static long getMemoryFootprint() {
+        long footprint = 0;
+        synchronized (sEntries) {
+            for (Entry entry : sEntries.values()) {
+                footprint += entry.mLength;
+            }
+        }
+
+        return footprint;
+    }
+
+    private static Entry getEntry(String fontPath) {
+        if (fontPath == null) {
+            return null;
+        }
+
+        final File file = new File(fontPath);
+        if (!file.isFile()) {
+            LogUtils.w("Font file not found: " + fontPath);
+            invalidate(fontPath);
+            return null;
+        }
+
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+
+        synchronized (sEntries) {
+            final Entry entry = sEntries.get(fontPath);
+            if (entry != null && entry.mLastModified == lastModified && entry.mLength == length) {
+                return entry;
+            }
+        }
+
+        // Load outside the lock; two threads racing on the same font both get a valid typeface.
+        final Typeface typeface;
+        try {
+            typeface = Typeface.createFromFile(file);
+        } catch (Exception e) {
+            LogUtils.e("Error loading font: " + fontPath, e);
+            return null;
+        }
+
+        final Entry entry = new Entry(typeface, lastModified, length);
+        synchronized (sEntries) {
+            sEntries.put(fontPath, entry);
+        }
+
+        return entry;
+    }
+
+    private static final class Entry {
+
+        private final Typeface mTypeface;
+
+        private final long mLastModified;
+
+        private final long mLength;
+
+        /**
+         * Created on first use. Guarded by {@code sEntries}.
+         */
+        private Typeface mBoldTypeface;
+
+        private Entry(Typeface typeface, long lastModified, long length) {
+            mTypeface = typeface;
+            mLastModified = lastModified;
+            mLength = length;
+        }
+    }
+}
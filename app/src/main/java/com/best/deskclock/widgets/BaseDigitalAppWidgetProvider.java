@@ -383,7 +383,7 @@ public abstract class BaseDigitalAppWidgetProvider extends AppWidgetProvider {
         }
 
         final int smallestWorldCityListSizePx = (int) dpToPx(80, context.getResources().getDisplayMetrics());
-        if (!SettingsDAO.isClockTabVisible(prefs)
+        if (!DataModel.getDataModel().getWidgetSettings().isClockTabVisible()
             || !areWorldCitiesDisplayed(prefs)
             || cities.isEmpty()
             || sizes.getListHeight() <= smallestWorldCityListSizePx) {
@@ -747,7 +747,7 @@ public abstract class BaseDigitalAppWidgetProvider extends AppWidgetProvider {
 
         // City note
         String cityNote = prefs.getString(KEY_CITY_NOTE + city.getId(), null);
-        boolean displayCityNote = cityNote != null && SettingsDAO.isCityNoteEnabled(prefs);
+        boolean displayCityNote = cityNote != null && DataModel.getDataModel().getWidgetSettings().isCityNoteEnabled();
         if (displayCityNote) {
             rowRv.setTextViewTextSize(noteId, TypedValue.COMPLEX_UNIT_PX, cityAndDayFontSize * fontScale);
             rowRv.setTextViewText(noteId, isTextUppercase ? cityNote.toUpperCase() : cityNote);
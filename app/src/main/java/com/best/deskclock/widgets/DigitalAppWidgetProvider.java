@@ -24,7 +24,8 @@ import android.widget.TextView;
 import androidx.annotation.Keep;
 
 import com.best.deskclock.R;
-import com.best.deskclock.data.WidgetDAO;
+import com.best.deskclock.data.DataModel;
+import com.best.deskclock.data.WidgetSettings;
 import com.best.deskclock.utils.AlarmUtils;
 import com.best.deskclock.utils.ClockUtils;
 import com.best.deskclock.utils.SdkUtils;
@@ -184,27 +185,27 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected boolean isTextUppercase(SharedPreferences prefs) {
-        return WidgetDAO.isTextUppercaseDisplayedOnDigitalWidget(prefs);
+        return getWidgetSettings().isTextUppercaseDisplayed();
     }
 
     @Override
     protected boolean isTextShadowDisplayed(SharedPreferences prefs) {
-        return WidgetDAO.isTextShadowDisplayedOnDigitalWidget(prefs);
+        return getWidgetSettings().isTextShadowDisplayed();
     }
 
     @Override
     protected boolean areWorldCitiesDisplayed(SharedPreferences prefs) {
-        return WidgetDAO.areWorldCitiesDisplayedOnDigitalWidget(prefs);
+        return getWidgetSettings().areWorldCitiesDisplayed();
     }
 
     @Override
     protected boolean isHorizontalPaddingApplied(SharedPreferences prefs) {
-        return WidgetDAO.isDigitalWidgetHorizontalPaddingApplied(prefs);
+        return getWidgetSettings().isHorizontalPaddingApplied();
     }
 
     @Override
     protected int getMaxWidgetFontSize(SharedPreferences prefs) {
-        return WidgetDAO.getDigitalWidgetMaxClockFontSize(prefs);
+        return getWidgetSettings().maxClockFontSize();
     }
 
     @Override
@@ -229,39 +230,39 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected boolean isDefaultCityClockColor(SharedPreferences prefs) {
-        return WidgetDAO.isDigitalWidgetDefaultCityClockColor(prefs);
+        return getWidgetSettings().isDefaultCityClockColor();
     }
 
     @Override
     protected int getCityClockColor(SharedPreferences prefs) {
-        return WidgetDAO.getDigitalWidgetCustomCityClockColor(prefs);
+        return getWidgetSettings().customCityClockColor();
     }
 
     @Override
     protected boolean isDefaultCityNameColor(SharedPreferences prefs) {
-        return WidgetDAO.isDigitalWidgetDefaultCityNameColor(prefs);
+        return getWidgetSettings().isDefaultCityNameColor();
     }
 
     @Override
     protected int getCityNameColor(SharedPreferences prefs) {
-        return WidgetDAO.getDigitalWidgetCustomCityNameColor(prefs);
+        return getWidgetSettings().customCityNameColor();
     }
 
     @Override
     protected boolean isDefaultCityNoteColor(SharedPreferences prefs) {
-        return WidgetDAO.isDigitalWidgetDefaultCityNoteColor(prefs);
+        return getWidgetSettings().isDefaultCityNoteColor();
     }
 
     @Override
     protected int getCityNoteColor(SharedPreferences prefs) {
-        return WidgetDAO.getDigitalWidgetCustomCityNoteColor(prefs);
+        return getWidgetSettings().customCityNoteColor();
     }
 
     @Override
     protected void bindDateClickAction(RemoteViews rv, SharedPreferences prefs, PendingIntent calendarPendingIntent) {
-        boolean isTopDateDisplayed = WidgetDAO.isTopDateDisplayedOnDigitalWidget(prefs);
+        boolean isTopDateDisplayed = getWidgetSettings().isTopDateDisplayed();
 
-        if (WidgetDAO.isDigitalWidgetDefaultDateColor(prefs)) {
+        if (getWidgetSettings().isDefaultDateColor()) {
             rv.setOnClickPendingIntent(isTopDateDisplayed ? getTopDateViewId() : getDateViewId(), calendarPendingIntent);
         } else {
             rv.setOnClickPendingIntent(isTopDateDisplayed ? getTopDateCustomViewId() : getDateCustomViewId(), calendarPendingIntent);
@@ -270,26 +271,26 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void configureClock(RemoteViews rv, Context context, SharedPreferences prefs) {
-        if (WidgetDAO.isDigitalWidgetDefaultClockColor(prefs)) {
+        if (getWidgetSettings().isDefaultClockColor()) {
             rv.setViewVisibility(getClockViewId(), VISIBLE);
             rv.setViewVisibility(getClockCustomViewId(), GONE);
 
             WidgetUtils.applyClockFormat(rv, context, getClockViewId(), WidgetUtils.getAmPmRatio(prefs),
-                WidgetDAO.areSecondsDisplayedOnDigitalWidget(prefs));
+                getWidgetSettings().areSecondsDisplayed());
         } else {
             rv.setViewVisibility(getClockViewId(), GONE);
             rv.setViewVisibility(getClockCustomViewId(), VISIBLE);
 
             WidgetUtils.applyClockFormat(rv, context, getClockCustomViewId(), WidgetUtils.getAmPmRatio(prefs),
-                WidgetDAO.areSecondsDisplayedOnDigitalWidget(prefs));
+                getWidgetSettings().areSecondsDisplayed());
 
-            rv.setTextColor(getClockCustomViewId(), WidgetDAO.getDigitalWidgetCustomClockColor(prefs));
+            rv.setTextColor(getClockCustomViewId(), getWidgetSettings().customClockColor());
         }
     }
 
     @Override
     protected void configureDate(RemoteViews rv, Context context, SharedPreferences prefs) {
-        if (!WidgetDAO.isDateDisplayedOnDigitalWidget(prefs)) {
+        if (!getWidgetSettings().isDateDisplayed()) {
             rv.setViewVisibility(getDateViewId(), GONE);
             rv.setViewVisibility(getTopDateViewId(), GONE);
             rv.setViewVisibility(getDateCustomViewId(), GONE);
@@ -298,8 +299,8 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             return;
         }
 
-        boolean isTopDateDisplayed = WidgetDAO.isTopDateDisplayedOnDigitalWidget(prefs);
-        boolean isDefaultDateColor = WidgetDAO.isDigitalWidgetDefaultDateColor(prefs);
+        boolean isTopDateDisplayed = getWidgetSettings().isTopDateDisplayed();
+        boolean isDefaultDateColor = getWidgetSettings().isDefaultDateColor();
         String dateFormat = WidgetUtils.getDateFormat(context);
         String dateText = isTextUppercase(prefs) ? dateFormat.toUpperCase() : dateFormat;
 
@@ -315,7 +316,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             } else {
                 rv.setViewVisibility(getTopDateViewId(), GONE);
                 rv.setViewVisibility(getTopDateCustomViewId(), VISIBLE);
-                rv.setTextColor(getTopDateCustomViewId(), WidgetDAO.getDigitalWidgetCustomDateColor(prefs));
+                rv.setTextColor(getTopDateCustomViewId(), getWidgetSettings().customDateColor());
                 rv.setTextViewText(getTopDateCustomViewId(), dateText);
             }
         } else {
@@ -330,7 +331,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             } else {
                 rv.setViewVisibility(getDateViewId(), GONE);
                 rv.setViewVisibility(getDateCustomViewId(), VISIBLE);
-                rv.setTextColor(getDateCustomViewId(), WidgetDAO.getDigitalWidgetCustomDateColor(prefs));
+                rv.setTextColor(getDateCustomViewId(), getWidgetSettings().customDateColor());
                 rv.setTextViewText(getDateCustomViewId(), dateText);
             }
         }
@@ -338,7 +339,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void configureNextAlarm(RemoteViews rv, Context context, SharedPreferences prefs, String nextAlarmTime) {
-        if (!WidgetDAO.isNextAlarmDisplayedOnDigitalWidget(prefs) || TextUtils.isEmpty(nextAlarmTime)) {
+        if (!getWidgetSettings().isNextAlarmDisplayed() || TextUtils.isEmpty(nextAlarmTime)) {
             rv.setViewVisibility(getNextAlarmViewId(), GONE);
             rv.setViewVisibility(getNextAlarmIconId(), GONE);
             rv.setViewVisibility(getNextAlarmCustomViewId(), GONE);
@@ -348,7 +349,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
         String nextAlarmText = isTextUppercase(prefs) ? nextAlarmTime.toUpperCase() : nextAlarmTime;
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmColor()) {
             rv.setViewVisibility(getNextAlarmViewId(), VISIBLE);
             rv.setViewVisibility(getNextAlarmIconId(), VISIBLE);
             rv.setViewVisibility(getNextAlarmCustomViewId(), GONE);
@@ -359,14 +360,14 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             rv.setViewVisibility(getNextAlarmIconId(), GONE);
             rv.setViewVisibility(getNextAlarmCustomViewId(), VISIBLE);
             rv.setViewVisibility(getNextAlarmIconCustomId(), VISIBLE);
-            rv.setTextColor(getNextAlarmCustomViewId(), WidgetDAO.getDigitalWidgetCustomNextAlarmColor(prefs));
+            rv.setTextColor(getNextAlarmCustomViewId(), getWidgetSettings().customNextAlarmColor());
             rv.setTextViewText(getNextAlarmCustomViewId(), nextAlarmText);
         }
     }
 
     @Override
     protected void configureNextAlarmTitle(RemoteViews rv, SharedPreferences prefs, String nextAlarmTime, String nextAlarmTitle) {
-        if (!WidgetDAO.isNextAlarmDisplayedOnDigitalWidget(prefs) || !WidgetDAO.isNextAlarmTitleDisplayedOnDigitalWidget(prefs)) {
+        if (!getWidgetSettings().isNextAlarmDisplayed() || !getWidgetSettings().isNextAlarmTitleDisplayed()) {
             rv.setViewVisibility(getLabelIconViewId(), GONE);
             rv.setViewVisibility(getNextAlarmTitleViewId(), GONE);
             rv.setViewVisibility(getLabelIconCustomViewId(), GONE);
@@ -384,7 +385,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
         String nextAlarmTitleText = isTextUppercase(prefs) ? nextAlarmTitle.toUpperCase() : nextAlarmTitle;
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmTitleColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmTitleColor()) {
             rv.setViewVisibility(getLabelIconViewId(), VISIBLE);
             rv.setViewVisibility(getNextAlarmTitleViewId(), VISIBLE);
             rv.setViewVisibility(getLabelIconCustomViewId(), GONE);
@@ -395,25 +396,25 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             rv.setViewVisibility(getNextAlarmTitleViewId(), GONE);
             rv.setViewVisibility(getLabelIconCustomViewId(), VISIBLE);
             rv.setViewVisibility(getNextAlarmTitleCustomViewId(), VISIBLE);
-            rv.setTextColor(getNextAlarmTitleCustomViewId(), WidgetDAO.getDigitalWidgetCustomNextAlarmTitleColor(prefs));
+            rv.setTextColor(getNextAlarmTitleCustomViewId(), getWidgetSettings().customNextAlarmTitleColor());
             rv.setTextViewText(getNextAlarmTitleCustomViewId(), nextAlarmTitleText);
         }
     }
 
     @Override
     protected void configureBackground(RemoteViews rv, Context context, SharedPreferences prefs, int widthPx, int heightPx) {
-        if (!WidgetDAO.isBackgroundDisplayedOnDigitalWidget(prefs) || widthPx <= 0 || heightPx <= 0) {
+        if (!getWidgetSettings().isBackgroundDisplayed() || widthPx <= 0 || heightPx <= 0) {
             rv.setIcon(R.id.digitalWidgetBackground, METHOD_SET_IMAGE_ICON, null);
             return;
         }
 
-        int radius = (int) dpToPx(WidgetDAO.isDigitalWidgetBackgroundCornerRadiusCustomizable(prefs)
-            ? WidgetDAO.getDigitalWidgetBackgroundCornerRadius(prefs)
+        int radius = (int) dpToPx(getWidgetSettings().isBackgroundCornerRadiusCustomizable()
+            ? getWidgetSettings().backgroundCornerRadius()
             : DEFAULT_WIDGET_BACKGROUND_CORNER_RADIUS, context.getResources().getDisplayMetrics());
 
-        int color = WidgetDAO.getDigitalWidgetBackgroundColor(prefs);
+        int color = getWidgetSettings().backgroundColor();
 
-        boolean isDefaultBackgroundColor = WidgetDAO.isDigitalWidgetDefaultBackgroundColor(prefs);
+        boolean isDefaultBackgroundColor = getWidgetSettings().isDefaultBackgroundColor();
 
         if (SdkUtils.isAtLeastAndroid12()) {
             if (isDefaultBackgroundColor) {
@@ -442,7 +443,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
     protected void configureSizerClock(View sizer, SharedPreferences prefs) {
         final TextClock clock = sizer.findViewById(getClockViewId());
         final TextClock clockForCustomColor = sizer.findViewById(getClockCustomViewId());
-        if (WidgetDAO.isDigitalWidgetDefaultClockColor(prefs)) {
+        if (getWidgetSettings().isDefaultClockColor()) {
             clock.setVisibility(VISIBLE);
             clockForCustomColor.setVisibility(GONE);
         } else {
@@ -459,7 +460,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
         final TextView topDateForCustomColor = sizer.findViewById(getTopDateCustomViewId());
         final Space clockSpacer = sizer.findViewById(R.id.clockSpacer);
 
-        if (!WidgetDAO.isDateDisplayedOnDigitalWidget(prefs)) {
+        if (!getWidgetSettings().isDateDisplayed()) {
             date.setVisibility(GONE);
             topDate.setVisibility(GONE);
             dateForCustomColor.setVisibility(GONE);
@@ -468,8 +469,8 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             return;
         }
 
-        boolean isTopDateDisplayed = WidgetDAO.isTopDateDisplayedOnDigitalWidget(prefs);
-        boolean isDefaultDateColor = WidgetDAO.isDigitalWidgetDefaultDateColor(prefs);
+        boolean isTopDateDisplayed = getWidgetSettings().isTopDateDisplayed();
+        boolean isDefaultDateColor = getWidgetSettings().isDefaultDateColor();
         String dateFormat = WidgetUtils.getDateFormat(context);
         String dateText = isTextUppercase(prefs) ? dateFormat.toUpperCase() : dateFormat;
 
@@ -511,7 +512,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
         final TextView nextAlarmIconForCustomColor = sizer.findViewById(getNextAlarmIconCustomId());
         final TextView nextAlarmForCustomColor = sizer.findViewById(getNextAlarmCustomViewId());
 
-        if (!WidgetDAO.isNextAlarmDisplayedOnDigitalWidget(prefs) || TextUtils.isEmpty(nextAlarmTime)) {
+        if (!getWidgetSettings().isNextAlarmDisplayed() || TextUtils.isEmpty(nextAlarmTime)) {
             nextAlarm.setVisibility(GONE);
             nextAlarmIcon.setVisibility(GONE);
             nextAlarmForCustomColor.setVisibility(GONE);
@@ -521,7 +522,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
         String nextAlarmText = isTextUppercase(prefs) ? nextAlarmTime.toUpperCase() : nextAlarmTime;
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmColor()) {
             nextAlarm.setText(nextAlarmText);
             nextAlarm.setVisibility(VISIBLE);
             nextAlarmIcon.setVisibility(VISIBLE);
@@ -534,7 +535,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             nextAlarmForCustomColor.setVisibility(VISIBLE);
             nextAlarmIconForCustomColor.setVisibility(VISIBLE);
             nextAlarmIconForCustomColor.setTypeface(ClockUtils.getAlarmIconTypeface(context));
-            nextAlarmIconForCustomColor.setTextColor(WidgetDAO.getDigitalWidgetCustomNextAlarmColor(prefs));
+            nextAlarmIconForCustomColor.setTextColor(getWidgetSettings().customNextAlarmColor());
             nextAlarmForCustomColor.setText(nextAlarmText);
         }
     }
@@ -547,7 +548,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
         final TextView labelIconForCustomColor = sizer.findViewById(getLabelIconCustomViewId());
         final TextView nextAlarmTitleViewForCustomColor = sizer.findViewById(getNextAlarmTitleCustomViewId());
 
-        if (!WidgetDAO.isNextAlarmDisplayedOnDigitalWidget(prefs) || !WidgetDAO.isNextAlarmTitleDisplayedOnDigitalWidget(prefs)) {
+        if (!getWidgetSettings().isNextAlarmDisplayed() || !getWidgetSettings().isNextAlarmTitleDisplayed()) {
             labelIcon.setVisibility(GONE);
             nextAlarmTitleView.setVisibility(GONE);
             labelIconForCustomColor.setVisibility(GONE);
@@ -565,7 +566,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
         String nextAlarmTitleText = isTextUppercase(prefs) ? nextAlarmTitle.toUpperCase() : nextAlarmTitle;
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmTitleColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmTitleColor()) {
             labelIcon.setVisibility(VISIBLE);
             nextAlarmTitleView.setVisibility(VISIBLE);
             labelIconForCustomColor.setVisibility(GONE);
@@ -573,7 +574,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             labelIcon.setTypeface(ClockUtils.getAlarmIconTypeface(context));
             nextAlarmTitleView.setText(nextAlarmTitleText);
         } else {
-            int nextAlarmTitleColor = WidgetDAO.getDigitalWidgetCustomNextAlarmTitleColor(prefs);
+            int nextAlarmTitleColor = getWidgetSettings().customNextAlarmTitleColor();
 
             labelIcon.setVisibility(GONE);
             nextAlarmTitleView.setVisibility(GONE);
@@ -588,7 +589,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void configureClockForMeasurement(View sizer, DigitalWidgetSizes measuredSizes, SharedPreferences prefs) {
-        if (WidgetDAO.isDigitalWidgetDefaultClockColor(prefs)) {
+        if (getWidgetSettings().isDefaultClockColor()) {
             TextClock clock = sizer.findViewById(getClockViewId());
             clock.setText(WidgetUtils.getLongestTimeString(clock));
             clock.setTextSize(COMPLEX_UNIT_PX, measuredSizes.mWidgetFontSizePx);
@@ -603,9 +604,9 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void configureDateForMeasurement(View sizer, DigitalWidgetSizes measuredSizes, SharedPreferences prefs) {
-        boolean isTopDateDisplayed = WidgetDAO.isTopDateDisplayedOnDigitalWidget(prefs);
+        boolean isTopDateDisplayed = getWidgetSettings().isTopDateDisplayed();
 
-        if (WidgetDAO.isDigitalWidgetDefaultDateColor(prefs)) {
+        if (getWidgetSettings().isDefaultDateColor()) {
             final TextView date = sizer.findViewById(isTopDateDisplayed ? getTopDateViewId() : getDateViewId());
             date.setTextSize(COMPLEX_UNIT_PX, measuredSizes.mFontSizePx);
         } else {
@@ -616,7 +617,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void configureNextAlarmForMeasurement(View sizer, DigitalWidgetSizes measuredSizes, SharedPreferences prefs) {
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmColor()) {
             final TextView nextAlarm = sizer.findViewById(getNextAlarmViewId());
             final TextView nextAlarmIcon = sizer.findViewById(getNextAlarmIconId());
 
@@ -632,7 +633,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             nextAlarmIconForCustomColor.setPadding(measuredSizes.mIconPaddingPx, 0, measuredSizes.mIconPaddingPx, 0);
         }
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmTitleColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmTitleColor()) {
             final TextView labelIcon = sizer.findViewById(getLabelIconViewId());
             final TextView nextAlarmTitle = sizer.findViewById(getNextAlarmTitleViewId());
             labelIcon.setTextSize(COMPLEX_UNIT_PX, measuredSizes.mIconFontSizePx);
@@ -649,7 +650,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
 
     @Override
     protected void finalizeMeasurement(View sizer, DigitalWidgetSizes measuredSizes, SharedPreferences prefs) {
-        if (WidgetDAO.isDigitalWidgetDefaultClockColor(prefs)) {
+        if (getWidgetSettings().isDefaultClockColor()) {
             TextClock clock = sizer.findViewById(getClockViewId());
             measuredSizes.mMeasuredTextWidthPx = clock.getMeasuredWidth();
             measuredSizes.mMeasuredTextHeightPx = clock.getMeasuredHeight();
@@ -659,7 +660,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             measuredSizes.mMeasuredTextForCustomColorHeightPx = clockForCustomColor.getMeasuredHeight();
         }
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmColor()) {
             TextView nextAlarmIcon = sizer.findViewById(getNextAlarmIconId());
             if (nextAlarmIcon.getVisibility() == VISIBLE) {
                 measuredSizes.mIconBitmap = WidgetUtils.createBitmap(nextAlarmIcon);
@@ -671,7 +672,7 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
             }
         }
 
-        if (WidgetDAO.isDigitalWidgetDefaultNextAlarmTitleColor(prefs)) {
+        if (getWidgetSettings().isDefaultNextAlarmTitleColor()) {
             TextView labelIcon = sizer.findViewById(getLabelIconViewId());
             if (labelIcon.getVisibility() == VISIBLE) {
                 measuredSizes.mLabelBitmap = WidgetUtils.createBitmap(labelIcon);
@@ -684,6 +685,13 @@ public class DigitalAppWidgetProvider extends BaseDigitalAppWidgetProvider {
         }
     }
 
+    /**
+     * @return the current digital widget settings, read without going through the preferences
+     */
+    private static WidgetSettings getWidgetSettings() {
+        return DataModel.getDataModel().getWidgetSettings();
+    }
+
     @Keep
     public static void updateAppWidget(Context context, AppWidgetManager wm, int widgetId) {
         new DigitalAppWidgetProvider().relayoutWidget(context, wm, widgetId, wm.getAppWidgetOptions(widgetId));
@@ -0,0 +1,26 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.worldclock;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.best.deskclock.data.DataModel;
+import com.best.deskclock.utils.LogUtils;
+
+/**
+ * This class receives the single wakeup scheduled at the next UTC offset transition of the
+ * time zones displayed by the world clocks.
+ */
+public class TimeZoneTransitionReceiver extends BroadcastReceiver {
+
+    private static final LogUtils.Logger LOGGER = new LogUtils.Logger("TimeZoneTransition");
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        LOGGER.i("onReceive: " + intent);
+
+        DataModel.getDataModel().onTimeZoneTransition();
+    }
+}
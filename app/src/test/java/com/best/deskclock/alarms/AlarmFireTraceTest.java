@@ -0,0 +1,276 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import static android.content.Context.ALARM_SERVICE;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.best.deskclock.provider.Alarm;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.provider.ClockContract;
+import com.best.deskclock.provider.ClockProvider;
+import com.best.deskclock.utils.Utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowAlarmManager.ScheduledAlarm;
+import org.robolectric.shadows.ShadowMediaPlayer;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks the latency budget reported for the traces of alarm firings.
+ * <p>
+ * The budget is checked on the real firing path: the state change scheduled by
+ * {@link AlarmStateManager} is delivered to {@link AlarmService}, which starts
+ * {@link AlarmKlaxon} and its media player, the preparation of the ringtone taking the time
+ * given to the shadow media player on the Robolectric clock. The handling of the stages
+ * themselves is checked by replaying them.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AlarmFireTraceTest {
+
+    private static final String TRACES_FILE_NAME = "alarm_fire_traces.txt";
+
+    /**
+     * Maximum real time to wait for the ringtone player thread.
+     */
+    private static final long PLAYER_TIMEOUT_MS = 5000;
+
+    /**
+     * Upper bound of the state changes delivered before an instance fires.
+     */
+    private static final int MAX_STATE_CHANGES = 8;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    @Before
+    public void setUp() {
+        shadowOf((Application) mContext).grantPermissions(Manifest.permission.POST_NOTIFICATIONS);
+        Robolectric.buildContentProvider(ClockProvider.class).create(ClockContract.AUTHORITY);
+        ShadowAlarmManager.setCanScheduleExactAlarms(true);
+    }
+
+    @Test
+    public void firedAlarmAudibleWithinBudgetIsNotFlagged() throws InterruptedException {
+        final AlarmInstance instance = createInstance();
+        final ServiceController<AlarmService> service = fireThroughService(instance, AlarmFireTrace.AUDIBLE_BUDGET_MS / 4);
+
+        final String trace = getAudibleTraceReport(instance.mId);
+        for (AlarmFireTrace.Stage stage : AlarmFireTrace.Stage.values()) {
+            if (stage != AlarmFireTrace.Stage.ACTIVITY_FIRST_FRAME) {
+                assertTrue(trace, trace.contains(stage.name()));
+            }
+        }
+        assertFalse(trace, trace.contains("OVER BUDGET"));
+
+        service.destroy();
+    }
+
+    @Test
+    public void firedAlarmWithSlowRingtoneIsFlagged() throws InterruptedException {
+        final AlarmInstance instance = createInstance();
+        final ServiceController<AlarmService> service = fireThroughService(instance, AlarmFireTrace.AUDIBLE_BUDGET_MS + 200);
+
+        final String trace = getAudibleTraceReport(instance.mId);
+        assertTrue(trace, trace.contains("OVER BUDGET"));
+
+        service.destroy();
+    }
+
+    @Test
+    public void traceIsWrittenWhenTheServiceStops() throws InterruptedException, IOException {
+        final AlarmInstance instance = createInstance();
+        final ServiceController<AlarmService> service = fireThroughService(instance, 0);
+        getAudibleTraceReport(instance.mId);
+
+        service.destroy();
+        // The report is built after the pending write on the trace thread.
+        getTraceReport(instance.mId);
+
+        final File file = new File(Utils.getSafeStorageContext(mContext).getFilesDir(), TRACES_FILE_NAME);
+        final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content, content.startsWith(instance.mId + ",") || content.contains("\n" + instance.mId + ","));
+    }
+
+    @Test
+    public void alarmAudibleWithinBudgetIsNotFlagged() throws InterruptedException {
+        fire(101, AlarmFireTrace.AUDIBLE_BUDGET_MS - 200);
+
+        final String trace = getTraceReport(101);
+        assertTrue(trace, trace.contains("AUDIBLE"));
+        assertFalse(trace, trace.contains("OVER BUDGET"));
+    }
+
+    @Test
+    public void alarmAudibleAfterBudgetIsFlagged() throws InterruptedException {
+        fire(102, AlarmFireTrace.AUDIBLE_BUDGET_MS + 200);
+
+        final String trace = getTraceReport(102);
+        assertTrue(trace, trace.contains("OVER BUDGET"));
+    }
+
+    @Test
+    public void playerStagesBeforeTheKlaxonAreIgnored() throws InterruptedException {
+        AlarmFireTrace.begin(mContext, 103);
+        advance(100);
+        // A timer ringing while the alarm starts.
+        AlarmFireTrace.mark(mContext, AlarmFireTrace.Stage.AUDIBLE);
+
+        final String trace = getTraceReport(103);
+        assertTrue(trace, trace.contains("not audible"));
+    }
+
+    @Test
+    public void allStagesOfATraceAreKept() throws InterruptedException {
+        fire(104, 500);
+
+        final String trace = getTraceReport(104);
+        for (AlarmFireTrace.Stage stage : AlarmFireTrace.Stage.values()) {
+            assertTrue(trace, trace.contains(stage.name()));
+        }
+    }
+
+    /**
+     * Reports every stage of the firing of an alarm, the ringtone being audible after the given
+     * delay.
+     */
+    private void fire(long instanceId, long audibleDelayMs) {
+        AlarmFireTrace.begin(mContext, instanceId);
+        final AlarmFireTrace.Stage[] stages = AlarmFireTrace.Stage.values();
+        final long stepMs = audibleDelayMs / (AlarmFireTrace.Stage.AUDIBLE.ordinal());
+        for (int i = 1; i < stages.length; i++) {
+            advance(stages[i] == AlarmFireTrace.Stage.AUDIBLE
+                ? audibleDelayMs - stepMs * (i - 1)
+                : stepMs);
+            AlarmFireTrace.mark(mContext, stages[i]);
+        }
+    }
+
+    /**
+     * @return an instance of a new alarm ringing in a minute
+     */
+    private AlarmInstance createInstance() {
+        final Calendar now = Calendar.getInstance();
+        now.add(Calendar.MINUTE, 1);
+        final Alarm alarm = new Alarm(now.get(Calendar.YEAR), now.get(Calendar.MONTH),
+            now.get(Calendar.DAY_OF_MONTH), now.get(Calendar.HOUR_OF_DAY), now.get(Calendar.MINUTE));
+        alarm.addAlarm(mContext.getContentResolver());
+
+        final AlarmInstance instance = alarm.createInstanceAfter(Calendar.getInstance());
+        instance.addInstance(mContext.getContentResolver());
+        return instance;
+    }
+
+    /**
+     * Registers the instance, then delivers the state changes scheduled by
+     * {@link AlarmStateManager} until the one firing the alarm, which is delivered to a new
+     * {@link AlarmService} like the system alarm manager would.
+     *
+     * @param prepareDelayMs the time the media player takes to prepare the ringtone
+     */
+    private ServiceController<AlarmService> fireThroughService(AlarmInstance instance, long prepareDelayMs) {
+        ShadowMediaPlayer.setMediaInfoProvider(dataSource -> new ShadowMediaPlayer.MediaInfo(10_000, (int) prepareDelayMs));
+
+        AlarmStateManager.registerInstance(mContext, instance, true);
+        final AlarmManager alarmManager = (AlarmManager) mContext.getSystemService(ALARM_SERVICE);
+        for (int i = 0; i < MAX_STATE_CHANGES; i++) {
+            final Intent intent = pollStateChange(alarmManager);
+            assertNotNull("No state change scheduled for instance " + instance.mId, intent);
+
+            if (intent.getIntExtra(AlarmStateManager.ALARM_STATE_EXTRA, -1) == AlarmInstance.FIRED_STATE) {
+                return Robolectric.buildService(AlarmService.class, intent).create().startCommand(0, 1);
+            }
+            AlarmStateManager.handleIntent(mContext, intent);
+        }
+
+        fail("Instance " + instance.mId + " was never fired");
+        return null;
+    }
+
+    /**
+     * @return the state change scheduled in the system alarm manager, which is canceled, or
+     * {@code null} if none
+     */
+    private static Intent pollStateChange(AlarmManager alarmManager) {
+        for (ScheduledAlarm scheduledAlarm : shadowOf(alarmManager).getScheduledAlarms()) {
+            final PendingIntent operation = scheduledAlarm.getOperation();
+            if (operation != null) {
+                final Intent intent = shadowOf(operation).getSavedIntent();
+                if (AlarmStateManager.CHANGE_STATE_ACTION.equals(intent.getAction())) {
+                    alarmManager.cancel(operation);
+                    return intent;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits for the ringtone player thread to report the ringtone as audible.
+     *
+     * @return the lines of the report about the trace of the given instance
+     */
+    private String getAudibleTraceReport(long instanceId) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + PLAYER_TIMEOUT_MS;
+        String trace = getTraceReport(instanceId);
+        while (!trace.contains(AlarmFireTrace.Stage.AUDIBLE.name()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            trace = getTraceReport(instanceId);
+        }
+
+        assertTrue(trace, trace.contains(AlarmFireTrace.Stage.AUDIBLE.name()));
+        return trace;
+    }
+
+    private static void advance(long millis) {
+        ShadowSystemClock.advanceBy(Duration.ofMillis(millis));
+    }
+
+    /**
+     * @return the lines of the report about the trace of the given instance
+     */
+    private String getTraceReport(long instanceId) throws InterruptedException {
+        final AtomicReference<String> report = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        AlarmFireTrace.getReport(mContext, r -> {
+            report.set(r);
+            latch.countDown();
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        final String header = " instance " + instanceId + "\n";
+        final int start = report.get().indexOf(header);
+        assertTrue(report.get(), start >= 0);
+        final int end = report.get().indexOf("\n\n", start);
+        return report.get().substring(start, end < 0 ? report.get().length() : end);
+    }
+}
@@ -0,0 +1,112 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays recorded accelerometer samples through the gesture detectors.
+ */
+public class AlarmGestureEngineTest {
+
+    private static final float FACE_UP = 9.81f;
+    private static final float FACE_DOWN = -9.81f;
+    private static final float ON_EDGE = 0.5f;
+
+    private static final float SHAKE_INTENSITY = 16;
+
+    @Test
+    public void flipIsDetectedAfterThreeFaceUpThenThreeFaceDownSamples() {
+        final float[] samples = {FACE_UP, FACE_UP, FACE_UP, FACE_DOWN, FACE_DOWN, FACE_DOWN, FACE_DOWN};
+
+        assertEquals(List.of(5), replayFlip(samples));
+    }
+
+    @Test
+    public void flipIsNotDetectedWithoutFaceUpFirst() {
+        final float[] samples = {ON_EDGE, FACE_DOWN, FACE_DOWN, FACE_DOWN, FACE_DOWN};
+
+        assertEquals(List.of(), replayFlip(samples));
+    }
+
+    @Test
+    public void flipIgnoresASingleErroneousSample() {
+        final float[] samples = {FACE_UP, FACE_UP, FACE_UP, FACE_DOWN, ON_EDGE, FACE_DOWN, FACE_DOWN, FACE_DOWN};
+
+        assertEquals(List.of(7), replayFlip(samples));
+    }
+
+    @Test
+    public void flipIsOnlyReportedOnce() {
+        final float[] samples = {FACE_UP, FACE_UP, FACE_UP, FACE_DOWN, FACE_DOWN, FACE_DOWN,
+            FACE_UP, FACE_UP, FACE_UP, FACE_DOWN, FACE_DOWN, FACE_DOWN};
+
+        assertEquals(List.of(5), replayFlip(samples));
+    }
+
+    @Test
+    public void deviceAtRestIsNotShaken() {
+        final float[][] samples = new float[60][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = new float[]{0, 0, FACE_UP};
+        }
+
+        assertEquals(List.of(), replayShake(samples));
+    }
+
+    @Test
+    public void shakeIsCheckedOncePerWindowOfSevenSamples() {
+        final float[][] samples = new float[21][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = new float[]{i % 2 == 0 ? 30 : -30, 0, FACE_UP};
+        }
+
+        // Six samples are accumulated, the seventh triggers the check and starts a new window.
+        assertEquals(List.of(6, 13, 20), replayShake(samples));
+    }
+
+    @Test
+    public void shortJoltDoesNotReachTheAverageIntensity() {
+        final float[][] samples = new float[14][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = new float[]{i == 8 ? 40 : 0, 0, FACE_UP};
+        }
+
+        assertEquals(List.of(), replayShake(samples));
+    }
+
+    /**
+     * @return the indexes of the samples on which a flip was reported
+     */
+    private static List<Integer> replayFlip(float[] samples) {
+        final AlarmGestureEngine.FlipDetector detector = new AlarmGestureEngine.FlipDetector();
+        final List<Integer> detections = new ArrayList<>();
+        for (int i = 0; i < samples.length; i++) {
+            if (detector.onSample(samples[i])) {
+                detections.add(i);
+            }
+        }
+
+        return detections;
+    }
+
+    /**
+     * @return the indexes of the samples on which a shake was reported
+     */
+    private static List<Integer> replayShake(float[][] samples) {
+        final AlarmGestureEngine.ShakeDetector detector = new AlarmGestureEngine.ShakeDetector(SHAKE_INTENSITY);
+        final List<Integer> detections = new ArrayList<>();
+        for (int i = 0; i < samples.length; i++) {
+            if (detector.onSample(samples[i][0], samples[i][1], samples[i][2])) {
+                detections.add(i);
+            }
+        }
+
+        return detections;
+    }
+}
@@ -0,0 +1,659 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.alarms;
+
+import static android.content.Context.ALARM_SERVICE;
+import static com.best.deskclock.DeskClockApplication.getDefaultSharedPreferences;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.PendingIntent;
+import android.content.ContentResolver;
+import android.content.Intent;
+import android.text.format.DateUtils;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.best.deskclock.data.SettingsDAO;
+import com.best.deskclock.data.Weekdays;
+import com.best.deskclock.provider.Alarm;
+import com.best.deskclock.provider.AlarmInstance;
+import com.best.deskclock.provider.ClockContract;
+import com.best.deskclock.provider.ClockProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowAlarmManager.ScheduledAlarm;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Soak test of the alarm state machine.
+ * <p>
+ * Thousands of alarms with random times, repeat days, pause windows and label-sync groups are
+ * stored in the real {@link ClockProvider} and driven by the real {@link AlarmStateManager} for
+ * two simulated weeks. The state changes it schedules in the (shadow) system alarm manager are
+ * delivered in order on a simulated clock, while users snooze and dismiss the alarms sharing a
+ * time, and clock jumps, reboots, time zone changes and label-sync toggles are injected the way
+ * {@link AlarmInitReceiver} and the alarm list handle them.
+ * <p>
+ * Scheduling invariants are checked on every fire and periodically over all alarms. The latency of
+ * each transition must stay within a bound of its median, and the work of the state machine per
+ * alarm must not grow with the number of alarms. The throughput and latency percentiles of each
+ * transition are part of the failure message, with the seed.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AlarmStateManagerSoakTest {
+
+    private static final long SEED = 49L;
+
+    private static final int ALARM_COUNT = 2_000;
+
+    private static final int SIMULATED_DAYS = 14;
+
+    /**
+     * The p99 latency of a transition must not exceed its median times this ratio, plus
+     * {@link #P99_SLACK_NANOS} to absorb the garbage collections and the JIT compilation.
+     */
+    private static final int P99_TO_MEDIAN_RATIO = 10;
+
+    private static final long P99_SLACK_NANOS = 2_000_000;
+
+    /**
+     * Transitions with fewer calls have no meaningful p99.
+     */
+    private static final int MIN_PERCENTILE_SAMPLES = 100;
+
+    /**
+     * The per-alarm work is compared between these two alarm counts, over a shorter period.
+     */
+    private static final int LINEARITY_SMALL_ALARM_COUNT = 250;
+    private static final int LINEARITY_LARGE_ALARM_COUNT = 2_000;
+    private static final int LINEARITY_SIMULATED_DAYS = 3;
+
+    /**
+     * The per-alarm work at the large count must not exceed the one at the small count times this
+     * ratio; a quadratic cost would multiply it by the ratio of the counts.
+     */
+    private static final double LINEARITY_TOLERANCE = 2.0;
+
+    /**
+     * Upper bound of delivered state changes, in case a scheduling bug keeps rescheduling.
+     */
+    private static final int MAX_EVENTS = 500_000;
+
+    private static final int MAX_REPORTED_VIOLATIONS = 20;
+
+    private static final long CHECK_INTERVAL_MS = 6 * DateUtils.HOUR_IN_MILLIS;
+
+    /**
+     * Most alarms share one of these times, so that many of them fire in the same minute.
+     */
+    private static final int SHARED_TIME_COUNT = 24;
+
+    private static final String[] LABELS = {"", "", "Work", "Gym", "Shift A", "Shift B", "Meds"};
+
+    /**
+     * Time zones with daylight saving changes during the simulated weeks, half-hour offsets and
+     * changes of less than one hour.
+     */
+    private static final String[] TIME_ZONES = {
+        "Europe/Paris", "UTC", "America/New_York", "America/Santiago", "Asia/Kathmandu",
+        "Australia/Lord_Howe", "Pacific/Chatham"
+    };
+
+    private Random mRandom;
+
+    /**
+     * Draws the disturbances, so that they happen at the same times whatever the alarm count.
+     */
+    private Random mDisturbanceRandom;
+    private final PriorityQueue<UserAction> mUserActions = new PriorityQueue<>();
+    private final Map<String, List<Long>> mLatencies = new TreeMap<>();
+    private final List<String> mViolations = new ArrayList<>();
+
+    private Application mContext;
+    private ContentResolver mContentResolver;
+    private AlarmManager mAlarmManager;
+    private ShadowAlarmManager mShadowAlarmManager;
+    private TimeZone mDefaultTimeZone;
+    private long mNow;
+    private int mViolationCount;
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+        resetClock();
+        AlarmStateManager.setCurrentTimeFactory(this::getCurrentTime);
+
+        mContext = ApplicationProvider.getApplicationContext();
+        shadowOf(mContext).grantPermissions(Manifest.permission.POST_NOTIFICATIONS);
+        Robolectric.buildContentProvider(ClockProvider.class).create(ClockContract.AUTHORITY);
+        mContentResolver = mContext.getContentResolver();
+
+        ShadowAlarmManager.setCanScheduleExactAlarms(true);
+        mAlarmManager = (AlarmManager) mContext.getSystemService(ALARM_SERVICE);
+        mShadowAlarmManager = shadowOf(mAlarmManager);
+    }
+
+    @After
+    public void tearDown() {
+        AlarmStateManager.setCurrentTimeFactory(null);
+        TimeZone.setDefault(mDefaultTimeZone);
+    }
+
+    @Test
+    public void alarmsKeepTheirScheduleUnderDisturbances() {
+        final Run run = simulate(ALARM_COUNT, SIMULATED_DAYS);
+
+        final String report = buildReport(run);
+        assertTrue(report, mViolationCount == 0);
+
+        for (Map.Entry<String, List<Long>> entry : mLatencies.entrySet()) {
+            final List<Long> latencies = entry.getValue();
+            if (latencies.size() < MIN_PERCENTILE_SAMPLES) {
+                continue;
+            }
+
+            final long p50 = percentile(latencies, 50);
+            final long p99 = percentile(latencies, 99);
+            assertTrue(entry.getKey() + ": p99 " + p99 + " ns, p50 " + p50 + " ns\n" + report,
+                p99 <= p50 * P99_TO_MEDIAN_RATIO + P99_SLACK_NANOS);
+        }
+    }
+
+    @Test
+    public void perAlarmWorkDoesNotGrowWithTheAlarmCount() {
+        // Load the classes, compile the hot paths and fill the database caches first.
+        simulate(LINEARITY_SMALL_ALARM_COUNT, LINEARITY_SIMULATED_DAYS);
+
+        reset();
+        final Run small = simulate(LINEARITY_SMALL_ALARM_COUNT, LINEARITY_SIMULATED_DAYS);
+        final String smallReport = buildReport(small);
+
+        reset();
+        final Run large = simulate(LINEARITY_LARGE_ALARM_COUNT, LINEARITY_SIMULATED_DAYS);
+        final String report = smallReport + buildReport(large);
+
+        assertTrue(report, mViolationCount == 0);
+        assertTrue("Per-alarm work grew from " + small.getNanosPerAlarm() + " ns to " + large.getNanosPerAlarm()
+                + " ns\n" + report,
+            large.getNanosPerAlarm() <= small.getNanosPerAlarm() * LINEARITY_TOLERANCE);
+    }
+
+    /**
+     * Creates {@code alarmCount} alarms and delivers their state changes, the user actions and the
+     * disturbances for {@code days} days.
+     */
+    private Run simulate(int alarmCount, int days) {
+        final List<Alarm> alarms = createAlarms(alarmCount);
+        final long end = mNow + days * DateUtils.DAY_IN_MILLIS;
+        long nextDisturbance = mNow + randomDuration(mDisturbanceRandom, DateUtils.HOUR_IN_MILLIS, 12 * DateUtils.HOUR_IN_MILLIS);
+        long nextCheck = mNow + CHECK_INTERVAL_MS;
+        int events = 0;
+
+        final long startNanos = System.nanoTime();
+        while (events < MAX_EVENTS) {
+            final ScheduledAlarm stateChange = getNextStateChange();
+            final UserAction userAction = mUserActions.peek();
+            final long stateChangeTime = stateChange == null ? Long.MAX_VALUE : stateChange.getTriggerAtMs();
+            final long userActionTime = userAction == null ? Long.MAX_VALUE : userAction.time;
+            final long next = Math.min(Math.min(stateChangeTime, userActionTime), Math.min(nextDisturbance, nextCheck));
+            if (next >= end) {
+                break;
+            }
+
+            // State changes already due are delivered late, like the system alarm manager would.
+            mNow = Math.max(mNow, next);
+            events++;
+
+            if (stateChangeTime == next) {
+                deliver(stateChange);
+            } else if (userActionTime == next) {
+                perform(mUserActions.poll());
+            } else if (nextDisturbance == next) {
+                disturb(alarms);
+                nextDisturbance = mNow + randomDuration(mDisturbanceRandom, DateUtils.HOUR_IN_MILLIS, 12 * DateUtils.HOUR_IN_MILLIS);
+            } else {
+                checkAllInstances();
+                nextCheck = mNow + CHECK_INTERVAL_MS;
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        if (events >= MAX_EVENTS) {
+            addViolation("More than " + MAX_EVENTS + " events: state changes keep being rescheduled");
+        }
+        checkAllInstances();
+
+        long measuredNanos = 0;
+        for (List<Long> latencies : mLatencies.values()) {
+            Collections.sort(latencies);
+            for (long latency : latencies) {
+                measuredNanos += latency;
+            }
+        }
+
+        return new Run(alarmCount, days, events, elapsedNanos, measuredNanos);
+    }
+
+    /**
+     * Deletes all the alarms and their pending state changes, and restarts the simulated clock.
+     */
+    private void reset() {
+        for (Alarm alarm : Alarm.getAlarms(mContentResolver, null)) {
+            AlarmStateManager.deleteAllInstances(mContext, alarm.id);
+            Alarm.deleteAlarm(mContentResolver, alarm.id);
+        }
+
+        for (ScheduledAlarm scheduledAlarm : mShadowAlarmManager.getScheduledAlarms()) {
+            if (scheduledAlarm.getOperation() != null) {
+                mAlarmManager.cancel(scheduledAlarm.getOperation());
+            }
+        }
+
+        mUserActions.clear();
+        mLatencies.clear();
+        resetClock();
+    }
+
+    private void resetClock() {
+        TimeZone.setDefault(TimeZone.getTimeZone(TIME_ZONES[0]));
+
+        // A week before the European switch to daylight saving time.
+        final Calendar start = Calendar.getInstance();
+        start.clear();
+        start.set(2027, Calendar.MARCH, 21, 0, 0);
+        mNow = start.getTimeInMillis();
+
+        mRandom = new Random(SEED);
+        mDisturbanceRandom = new Random(SEED + 1);
+    }
+
+    private Calendar getCurrentTime() {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(mNow);
+        return calendar;
+    }
+
+    private List<Alarm> createAlarms(int alarmCount) {
+        final int[] sharedMinutes = new int[SHARED_TIME_COUNT];
+        for (int i = 0; i < SHARED_TIME_COUNT; i++) {
+            sharedMinutes[i] = mRandom.nextInt(24 * 60);
+        }
+
+        final Calendar today = getCurrentTime();
+        final List<Alarm> alarms = new ArrayList<>(alarmCount);
+        for (int i = 0; i < alarmCount; i++) {
+            final int minuteOfDay = mRandom.nextInt(4) == 0
+                ? mRandom.nextInt(24 * 60)
+                : sharedMinutes[mRandom.nextInt(SHARED_TIME_COUNT)];
+            final Alarm alarm = new Alarm(today.get(Calendar.YEAR), today.get(Calendar.MONTH),
+                today.get(Calendar.DAY_OF_MONTH), minuteOfDay / 60, minuteOfDay % 60);
+            alarm.enabled = mRandom.nextInt(10) != 0;
+            alarm.daysOfWeek = mRandom.nextInt(10) == 0
+                ? Weekdays.NONE
+                : Weekdays.fromBits(1 + mRandom.nextInt(0x7F));
+            alarm.label = LABELS[mRandom.nextInt(LABELS.length)];
+            alarm.syncByLabel = !alarm.label.isEmpty() && mRandom.nextBoolean();
+            alarm.snoozeDuration = 5 + mRandom.nextInt(11);
+            alarm.missedAlarmRepeatLimit = mRandom.nextBoolean() ? -1 : 1 + mRandom.nextInt(3);
+            if (mRandom.nextInt(8) == 0) {
+                // Pause windows are UTC midnights, as returned by the date picker.
+                final Calendar pauseStart = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+                pauseStart.clear();
+                pauseStart.set(today.get(Calendar.YEAR), today.get(Calendar.MONTH), today.get(Calendar.DAY_OF_MONTH));
+                pauseStart.add(Calendar.DAY_OF_YEAR, mRandom.nextInt(SIMULATED_DAYS));
+                alarm.pauseStartDate = pauseStart.getTimeInMillis();
+                alarm.pauseEndDate = alarm.pauseStartDate + (1 + mRandom.nextInt(4)) * DateUtils.DAY_IN_MILLIS;
+            }
+
+            alarm.addAlarm(mContentResolver);
+            if (alarm.enabled) {
+                setupAlarmInstance(alarm);
+            }
+            alarms.add(alarm);
+        }
+
+        return alarms;
+    }
+
+    private void setupAlarmInstance(Alarm alarm) {
+        final AlarmInstance instance = alarm.createInstanceAfter(getCurrentTime());
+        instance.addInstance(mContentResolver);
+        measure("register", () -> AlarmStateManager.registerInstance(mContext, instance, true));
+    }
+
+    /**
+     * @return the earliest state change scheduled by {@link AlarmStateManager}, or {@code null}
+     */
+    private ScheduledAlarm getNextStateChange() {
+        ScheduledAlarm next = null;
+        for (ScheduledAlarm scheduledAlarm : mShadowAlarmManager.getScheduledAlarms()) {
+            // Compare the times first, the intent is only looked up for earlier alarms.
+            if ((next == null || scheduledAlarm.getTriggerAtMs() < next.getTriggerAtMs())
+                && isStateChange(scheduledAlarm)) {
+                next = scheduledAlarm;
+            }
+        }
+
+        return next;
+    }
+
+    private static boolean isStateChange(ScheduledAlarm scheduledAlarm) {
+        final PendingIntent operation = scheduledAlarm.getOperation();
+        return operation != null
+            && AlarmStateManager.CHANGE_STATE_ACTION.equals(shadowOf(operation).getSavedIntent().getAction());
+    }
+
+    private void deliver(ScheduledAlarm stateChange) {
+        mAlarmManager.cancel(stateChange.getOperation());
+        final Intent intent = shadowOf(stateChange.getOperation()).getSavedIntent();
+        final int newState = intent.getIntExtra(AlarmStateManager.ALARM_STATE_EXTRA, -1);
+        final AlarmInstance before = AlarmInstance.getInstance(mContentResolver, AlarmInstance.getId(intent.getData()));
+
+        measure(getStateName(newState), () -> AlarmStateManager.handleIntent(mContext, intent));
+
+        if (newState == AlarmInstance.FIRED_STATE && before != null) {
+            checkFire(before);
+            scheduleUserAction(before.mId);
+        }
+    }
+
+    /**
+     * Most users snooze or dismiss a firing alarm within a minute and a half; the others let it
+     * time out.
+     */
+    private void scheduleUserAction(long instanceId) {
+        final int choice = mRandom.nextInt(20);
+        if (choice < 4) {
+            return;
+        }
+
+        final boolean snooze = choice < 13;
+        mUserActions.add(new UserAction(mNow + randomDuration(mRandom, 0, 90 * DateUtils.SECOND_IN_MILLIS), instanceId, snooze));
+    }
+
+    private void perform(UserAction userAction) {
+        final AlarmInstance instance = AlarmInstance.getInstance(mContentResolver, userAction.instanceId);
+        if (instance == null || instance.mAlarmState != AlarmInstance.FIRED_STATE) {
+            return;
+        }
+
+        final Intent intent = userAction.snooze
+            ? AlarmStateManager.createStateChangeIntent(mContext, AlarmStateManager.ALARM_SNOOZE_TAG,
+            instance, AlarmInstance.SNOOZE_STATE)
+            : AlarmStateManager.createStateChangeIntent(mContext, AlarmStateManager.ALARM_DISMISS_TAG,
+            instance, AlarmInstance.DISMISSED_STATE);
+        measure(userAction.snooze ? "user snooze" : "user dismiss", () -> AlarmStateManager.handleIntent(mContext, intent));
+    }
+
+    private void disturb(List<Alarm> alarms) {
+        switch (mDisturbanceRandom.nextInt(4)) {
+            case 0 -> {
+                // The user or the network moves the clock by up to six hours back or a day forward.
+                mNow += randomDuration(mDisturbanceRandom, -6 * DateUtils.HOUR_IN_MILLIS, DateUtils.DAY_IN_MILLIS);
+                onSystemChange();
+            }
+            case 1 -> {
+                // Pending alarms do not survive a reboot.
+                for (ScheduledAlarm scheduledAlarm : mShadowAlarmManager.getScheduledAlarms()) {
+                    if (scheduledAlarm.getOperation() != null) {
+                        mAlarmManager.cancel(scheduledAlarm.getOperation());
+                    }
+                }
+                onSystemChange();
+            }
+            case 2 -> {
+                TimeZone.setDefault(TimeZone.getTimeZone(TIME_ZONES[mDisturbanceRandom.nextInt(TIME_ZONES.length)]));
+                onSystemChange();
+            }
+            default -> toggleLabelGroup(alarms);
+        }
+    }
+
+    /**
+     * Handles a reboot, a time change or a time zone change the way {@link AlarmInitReceiver} does.
+     */
+    private void onSystemChange() {
+        SettingsDAO.updateGlobalIntentId(getDefaultSharedPreferences(mContext));
+        measure("fix instances", () -> AlarmStateManager.fixAlarmInstances(mContext));
+    }
+
+    /**
+     * Enables or disables all the alarms synchronized with the label of a random alarm, with the
+     * major update of the alarm list.
+     */
+    private void toggleLabelGroup(List<Alarm> alarms) {
+        final Alarm picked = Alarm.getAlarm(mContentResolver, alarms.get(mRandom.nextInt(alarms.size())).id);
+        if (picked == null || !picked.syncByLabel) {
+            return;
+        }
+
+        final boolean enabled = !picked.enabled;
+        final Calendar today = getCurrentTime();
+        final List<Alarm> group = Alarm.getAlarms(mContentResolver,
+            Alarm.LABEL + "=? AND " + Alarm.SYNC_BY_LABEL + "=1",
+            picked.label);
+        for (Alarm alarm : group) {
+            if (alarm.enabled == enabled) {
+                continue;
+            }
+
+            alarm.enabled = enabled;
+            if (!alarm.daysOfWeek.isRepeating()) {
+                alarm.year = today.get(Calendar.YEAR);
+                alarm.month = today.get(Calendar.MONTH);
+                alarm.day = today.get(Calendar.DAY_OF_MONTH);
+            }
+            alarm.updateAlarm(mContentResolver);
+            measure("label sync", () -> {
+                AlarmStateManager.deleteAllInstances(mContext, alarm.id);
+                if (alarm.enabled) {
+                    setupAlarmInstance(alarm);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks that an instance about to fire was due, on a repeat day and at the alarm time.
+     */
+    private void checkFire(AlarmInstance instance) {
+        final long lateness = mNow - instance.getAlarmTime().getTimeInMillis();
+        if (lateness < 0 || lateness > AlarmStateManager.ALARM_FIRE_BUFFER * DateUtils.SECOND_IN_MILLIS) {
+            addViolation("Instance " + instance.mId + " fired " + lateness + " ms after its time " + format(instance));
+        }
+
+        if (instance.mAlarmState != AlarmInstance.SNOOZE_STATE) {
+            final Alarm alarm = Alarm.getAlarm(mContentResolver, instance.mAlarmId);
+            if (alarm != null) {
+                checkOccurrence(alarm, instance);
+            }
+        }
+    }
+
+    private void checkOccurrence(Alarm alarm, AlarmInstance instance) {
+        final Calendar instanceTime = instance.getAlarmTime();
+        if (alarm.daysOfWeek.isRepeating() && !alarm.daysOfWeek.isBitOn(instanceTime.get(Calendar.DAY_OF_WEEK))) {
+            addViolation("Instance " + instance.mId + " is not on a repeat day of alarm " + alarm.id + " " + format(instance));
+        }
+
+        if ((instance.mHour != alarm.hour || instance.mMinute != alarm.minutes) && !isSkippedByDaylightSaving(alarm, instance)) {
+            addViolation("Instance " + instance.mId + " is not at the time of alarm " + alarm.id + " " + format(instance));
+        }
+
+        if (alarm.daysOfWeek.isRepeating() && alarm.isPauseSet()) {
+            final Calendar utcDay = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            utcDay.clear();
+            utcDay.set(instance.mYear, instance.mMonth, instance.mDay);
+            if (utcDay.getTimeInMillis() >= alarm.pauseStartDate && utcDay.getTimeInMillis() <= alarm.pauseEndDate) {
+                addViolation("Instance " + instance.mId + " is in the pause window of alarm " + alarm.id + " " + format(instance));
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the alarm time does not exist on the day of the instance
+     */
+    private static boolean isSkippedByDaylightSaving(Alarm alarm, AlarmInstance instance) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(instance.mYear, instance.mMonth, instance.mDay, alarm.hour, alarm.minutes);
+        return calendar.get(Calendar.HOUR_OF_DAY) != alarm.hour || calendar.get(Calendar.MINUTE) != alarm.minutes;
+    }
+
+    /**
+     * Checks that every instance has a pending state change and that every enabled alarm has
+     * exactly one live instance at its next occurrence.
+     */
+    private void checkAllInstances() {
+        final Map<Long, Long> pendingChanges = new HashMap<>();
+        for (ScheduledAlarm scheduledAlarm : mShadowAlarmManager.getScheduledAlarms()) {
+            if (isStateChange(scheduledAlarm)) {
+                final Intent intent = shadowOf(scheduledAlarm.getOperation()).getSavedIntent();
+                pendingChanges.put(AlarmInstance.getId(intent.getData()), scheduledAlarm.getTriggerAtMs());
+            }
+        }
+
+        final Map<Long, List<AlarmInstance>> liveInstances = new HashMap<>();
+        for (AlarmInstance instance : AlarmInstance.getInstances(mContentResolver, null)) {
+            final boolean firesForever = instance.mAlarmState == AlarmInstance.FIRED_STATE
+                && instance.getTimeout(mContext) == null;
+            if (!pendingChanges.containsKey(instance.mId) && !firesForever) {
+                addViolation("Instance " + instance.mId + " in state " + getStateName(instance.mAlarmState)
+                    + " has no pending state change " + format(instance));
+            }
+
+            if (instance.mAlarmState != AlarmInstance.MISSED_STATE) {
+                liveInstances.computeIfAbsent(instance.mAlarmId, id -> new ArrayList<>()).add(instance);
+            }
+        }
+
+        for (Alarm alarm : Alarm.getAlarms(mContentResolver, null)) {
+            final List<AlarmInstance> instances = liveInstances.getOrDefault(alarm.id, Collections.emptyList());
+            if (alarm.enabled && instances.size() != 1) {
+                addViolation("Enabled alarm " + alarm.id + " has " + instances.size() + " live instances");
+                continue;
+            }
+
+            for (AlarmInstance instance : instances) {
+                if (instance.mAlarmState != AlarmInstance.SILENT_STATE
+                    && instance.mAlarmState != AlarmInstance.NOTIFICATION_STATE) {
+                    continue;
+                }
+
+                checkOccurrence(alarm, instance);
+                final Calendar expected = alarm.getNextAlarmTime(getCurrentTime());
+                if (alarm.daysOfWeek.isRepeating() && expected.getTimeInMillis() != instance.getAlarmTime().getTimeInMillis()) {
+                    addViolation("Instance " + instance.mId + " of alarm " + alarm.id + " is " + format(instance)
+                        + " instead of " + String.format(Locale.US, "%tF %<tR", expected));
+                }
+            }
+        }
+    }
+
+    private void measure(String transition, Runnable runnable) {
+        final long startNanos = System.nanoTime();
+        runnable.run();
+        mLatencies.computeIfAbsent(transition, t -> new ArrayList<>()).add(System.nanoTime() - startNanos);
+    }
+
+    private static long randomDuration(Random random, long min, long max) {
+        return min + (long) (random.nextDouble() * (max - min));
+    }
+
+    private void addViolation(String violation) {
+        mViolationCount++;
+        if (mViolations.size() < MAX_REPORTED_VIOLATIONS) {
+            mViolations.add(String.format(Locale.US, "%tF %<tR %s: %s", mNow, TimeZone.getDefault().getID(), violation));
+        }
+    }
+
+    private String buildReport(Run run) {
+        final StringBuilder report = new StringBuilder()
+            .append("Alarm soak test, seed ").append(SEED).append(": ")
+            .append(run.alarmCount).append(" alarms, ").append(run.days).append(" days, ")
+            .append(run.events).append(" events in ").append(run.elapsedNanos / 1_000_000).append(" ms, ")
+            .append(run.getNanosPerAlarm() / 1_000).append(" us of state machine work per alarm, ")
+            .append(mViolationCount).append(" violation(s)\n");
+        for (String violation : mViolations) {
+            report.append("  ").append(violation).append('\n');
+        }
+
+        for (Map.Entry<String, List<Long>> entry : mLatencies.entrySet()) {
+            final List<Long> latencies = entry.getValue();
+            final long total = latencies.stream().mapToLong(Long::longValue).sum();
+            report.append(String.format(Locale.US, "  %-14s %6d calls, %8.0f/s, p50 %6.2f ms, p99 %6.2f ms, max %6.2f ms%n",
+                entry.getKey(), latencies.size(), latencies.size() * 1e9 / Math.max(1, total),
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                latencies.get(latencies.size() - 1) / 1e6));
+        }
+
+        return report.toString();
+    }
+
+    private static long percentile(List<Long> sortedValues, int percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
+        return sortedValues.get(Math.max(0, index));
+    }
+
+    private static String format(AlarmInstance instance) {
+        return String.format(Locale.US, "(%04d-%02d-%02d %02d:%02d)",
+            instance.mYear, instance.mMonth + 1, instance.mDay, instance.mHour, instance.mMinute);
+    }
+
+    private static String getStateName(int state) {
+        return switch (state) {
+            case AlarmInstance.SILENT_STATE -> "silent";
+            case AlarmInstance.NOTIFICATION_STATE -> "notification";
+            case AlarmInstance.FIRED_STATE -> "fire";
+            case AlarmInstance.SNOOZE_STATE -> "snooze";
+            case AlarmInstance.MISSED_STATE -> "missed";
+            case AlarmInstance.DISMISSED_STATE -> "dismiss";
+            case AlarmInstance.PREDISMISSED_STATE -> "predismiss";
+            default -> "register";
+        };
+    }
+
+    /**
+     * The outcome of one simulation.
+     *
+     * @param measuredNanos the time spent in {@link AlarmStateManager}, excluding the simulation
+     */
+    private record Run(int alarmCount, int days, int events, long elapsedNanos, long measuredNanos) {
+
+        long getNanosPerAlarm() {
+            return measuredNanos / alarmCount;
+        }
+    }
+
+    /**
+     * A snooze or dismiss of a firing alarm by the user.
+     */
+    private record UserAction(long time, long instanceId, boolean snooze) implements Comparable<UserAction> {
+
+        @Override
+        public int compareTo(UserAction other) {
+            return Long.compare(time, other.time);
+        }
+    }
+}
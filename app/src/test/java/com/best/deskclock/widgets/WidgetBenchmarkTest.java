@@ -0,0 +1,442 @@
+// SPDX-License-Identifier: GPL-3.0-only
+
+package com.best.deskclock.widgets;
+
+import static android.appwidget.AppWidgetManager.INVALID_APPWIDGET_ID;
+import static android.appwidget.AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT;
+import static android.appwidget.AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH;
+import static android.appwidget.AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT;
+import static android.appwidget.AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH;
+import static com.best.deskclock.settings.PreferencesDefaultValues.DEFAULT_WIDGETS_FONT_SIZE;
+import static com.best.deskclock.settings.PreferencesKeys.*;
+import static org.junit.Assert.assertTrue;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.best.deskclock.DeskClockApplication;
+import com.best.deskclock.data.City;
+import com.best.deskclock.data.DataModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Benchmark of the widget layout code.
+ * <p>
+ * The RemoteViews of each widget provider are built offscreen for a matrix of widget sizes,
+ * orientations, city counts, maximum font sizes and display settings. Every case is built several
+ * times and the measurements are checked against each other within the same run, so that no
+ * baseline from another machine is needed:
+ * <ul>
+ *     <li>the binary search of the font sizes must converge in a bounded number of passes;</li>
+ *     <li>building the same widget twice must give the same measure passes and parcel size;</li>
+ *     <li>the allocated bytes must stay close to the median of the iterations;</li>
+ *     <li>the parcel size and the allocated bytes must grow linearly with the number of cities.</li>
+ * </ul>
+ * The wall time depends too much on the machine to fail the test; it is only recorded, with the
+ * other measurements, in {@code build/widget-benchmark/results.properties} to compare runs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WidgetBenchmarkTest {
+
+    private static final File RESULTS_FILE = new File("build/widget-benchmark/results.properties");
+
+    /**
+     * Number of measured iterations per case, after a warm up build.
+     */
+    private static final int ITERATIONS = 5;
+
+    /**
+     * The font sizes are found by a binary search between the smallest and the largest size,
+     * both below 1024 px: more passes mean the search no longer converges.
+     */
+    private static final int MAX_MEASURE_PASSES = 2 + 10;
+
+    /**
+     * Widget sizes in dp: {minWidth, minHeight, maxWidth, maxHeight}.
+     */
+    private static final int[][] WIDGET_SIZES = {
+        {110, 40, 180, 80},
+        {250, 110, 320, 180},
+        {320, 180, 420, 300},
+    };
+
+    /**
+     * The linearity check compares the cost of the cities between 1 and 2 cities, and between 2
+     * and 10 cities; no city at all uses another font size and is only checked on its own.
+     */
+    private static final int[] CITY_COUNTS = {0, 1, 2, 10};
+
+    /**
+     * Maximum clock font sizes in dp: the minimum, the default and the maximum of the settings.
+     */
+    private static final int[] FONT_SIZES = {20, DEFAULT_WIDGETS_FONT_SIZE, 200};
+
+    private static final float ALLOCATION_THRESHOLD = 0.2f;
+    private static final float LINEARITY_THRESHOLD = 0.2f;
+
+    /**
+     * Absolute tolerance of the allocation checks, which covers the lazy initializations of the
+     * framework that may happen during any iteration.
+     */
+    private static final long ALLOCATION_SLACK_BYTES = 64 * 1024;
+
+    /**
+     * Absolute tolerance of the parcel size linearity check, which covers the length of the
+     * city names.
+     */
+    private static final long PARCEL_SLACK_BYTES = 512;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private final List<String> mRegressions = new ArrayList<>();
+
+    private final Properties mResults = new Properties();
+
+    private SharedPreferences mPrefs;
+
+    @Before
+    public void setUp() {
+        mPrefs = DeskClockApplication.getDefaultSharedPreferences(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mPrefs.edit().clear().commit();
+    }
+
+    @Test
+    public void widgetLayoutDoesNotRegress() throws IOException {
+        final List<City> allCities = DataModel.getDataModel().getAllCities();
+        final MeasuringProvider[] providers = {
+            new MeasuringDigitalProvider(),
+            new MeasuringNextAlarmProvider(),
+            new MeasuringVerticalProvider(),
+        };
+
+        for (MeasuringProvider provider : providers) {
+            for (int fontSize : FONT_SIZES) {
+                for (boolean allItemsDisplayed : new boolean[]{true, false}) {
+                    applyDigitalSettings(fontSize, allItemsDisplayed);
+
+                    for (int[] size : WIDGET_SIZES) {
+                        for (boolean portrait : new boolean[]{true, false}) {
+                            final Result[] results = new Result[CITY_COUNTS.length];
+                            for (int i = 0; i < CITY_COUNTS.length; i++) {
+                                final String name = String.format(Locale.US, "%s_%ddp_%s_%dx%d_%s_%dcities",
+                                    provider.getName(), fontSize, allItemsDisplayed ? "full" : "minimal",
+                                    size[0], size[1], portrait ? "portrait" : "landscape", CITY_COUNTS[i]);
+                                final List<City> cities = allCities.subList(0, Math.min(CITY_COUNTS[i], allCities.size()));
+
+                                results[i] = runDigitalCase(provider, size, portrait, cities);
+                                checkCase(name, results[i]);
+                            }
+
+                            final String name = String.format(Locale.US, "%s_%ddp_%s_%dx%d_%s",
+                                provider.getName(), fontSize, allItemsDisplayed ? "full" : "minimal",
+                                size[0], size[1], portrait ? "portrait" : "landscape");
+                            checkLinearity(name + ".parcelBytes", results[1].parcelBytes(),
+                                results[2].parcelBytes(), results[3].parcelBytes(), PARCEL_SLACK_BYTES);
+                            checkLinearity(name + ".allocatedBytes", results[1].allocatedBytes(),
+                                results[2].allocatedBytes(), results[3].allocatedBytes(), ALLOCATION_SLACK_BYTES);
+                        }
+                    }
+                }
+            }
+        }
+
+        final AnalogAppWidgetProvider analogProvider = new AnalogAppWidgetProvider();
+        for (boolean secondHandDisplayed : new boolean[]{true, false}) {
+            mPrefs.edit().putBoolean(KEY_ANALOG_WIDGET_WITH_SECOND_HAND, secondHandDisplayed).commit();
+
+            final String name = String.format(Locale.US, "AnalogAppWidgetProvider_%s",
+                secondHandDisplayed ? "secondHand" : "noSecondHand");
+            checkCase(name, runAnalogCase(analogProvider));
+        }
+
+        saveResults();
+        assertTrue(String.join("\n", mRegressions), mRegressions.isEmpty());
+    }
+
+    /**
+     * Displays all the optional items of the digital widgets, or none of them, with the given
+     * maximum clock font size.
+     */
+    private void applyDigitalSettings(int fontSize, boolean allItemsDisplayed) {
+        mPrefs.edit()
+            .putInt(KEY_DIGITAL_WIDGET_MAXIMUM_CLOCK_FONT_SIZE, fontSize)
+            .putBoolean(KEY_DIGITAL_WIDGET_SECONDS_DISPLAYED, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_DISPLAY_DATE, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_DISPLAY_NEXT_ALARM_TITLE, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_WORLD_CITIES_DISPLAYED, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_DISPLAY_TEXT_SHADOW, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_DISPLAY_TEXT_UPPERCASE, allItemsDisplayed)
+            .putBoolean(KEY_DIGITAL_WIDGET_APPLY_HORIZONTAL_PADDING, allItemsDisplayed)
+            .putInt(KEY_VERTICAL_WIDGET_MAXIMUM_CLOCK_FONT_SIZE, fontSize)
+            .putBoolean(KEY_VERTICAL_WIDGET_DISPLAY_DATE, allItemsDisplayed)
+            .putBoolean(KEY_VERTICAL_WIDGET_DISPLAY_NEXT_ALARM, allItemsDisplayed)
+            .putBoolean(KEY_VERTICAL_WIDGET_DISPLAY_TEXT_SHADOW, allItemsDisplayed)
+            .putBoolean(KEY_VERTICAL_WIDGET_DISPLAY_TEXT_UPPERCASE, allItemsDisplayed)
+            .putBoolean(KEY_VERTICAL_WIDGET_APPLY_HORIZONTAL_PADDING, allItemsDisplayed)
+            .putInt(KEY_NEXT_ALARM_WIDGET_MAXIMUM_FONT_SIZE, fontSize)
+            .putBoolean(KEY_NEXT_ALARM_WIDGET_DISPLAY_TEXT_SHADOW, allItemsDisplayed)
+            .putBoolean(KEY_NEXT_ALARM_WIDGET_DISPLAY_TEXT_UPPERCASE, allItemsDisplayed)
+            .putBoolean(KEY_NEXT_ALARM_WIDGET_APPLY_HORIZONTAL_PADDING, allItemsDisplayed)
+            .commit();
+    }
+
+    private Result runDigitalCase(MeasuringProvider provider, int[] size, boolean portrait, List<City> cities) {
+        final AppWidgetManager wm = AppWidgetManager.getInstance(mContext);
+        final Bundle options = new Bundle();
+        options.putInt(OPTION_APPWIDGET_MIN_WIDTH, size[0]);
+        options.putInt(OPTION_APPWIDGET_MIN_HEIGHT, size[1]);
+        options.putInt(OPTION_APPWIDGET_MAX_WIDTH, size[2]);
+        options.putInt(OPTION_APPWIDGET_MAX_HEIGHT, size[3]);
+
+        // Warm up the caches (resources, fonts...) so that only the layout code is measured.
+        provider.asProvider().buildRemoteViewsForOrientation(mContext, wm, INVALID_APPWIDGET_ID, options, portrait, cities);
+
+        final Iteration[] iterations = new Iteration[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            final int measurePassesBefore = provider.getMeasurePassCount();
+            final long allocatedBefore = getAllocatedBytes();
+            final long start = System.nanoTime();
+            final RemoteViews rv = provider.asProvider().buildRemoteViewsForOrientation(mContext, wm,
+                INVALID_APPWIDGET_ID, options, portrait, cities);
+            final long timeUs = (System.nanoTime() - start) / 1000;
+            final long allocatedBytes = getAllocatedBytes() - allocatedBefore;
+            final int measurePasses = provider.getMeasurePassCount() - measurePassesBefore;
+            iterations[i] = new Iteration(timeUs, measurePasses, allocatedBytes, getParcelSize(rv));
+        }
+
+        return Result.of(iterations);
+    }
+
+    private Result runAnalogCase(AnalogAppWidgetProvider provider) {
+        final AppWidgetManager wm = AppWidgetManager.getInstance(mContext);
+
+        // Warm up the caches (resources, drawables...) so that only the layout code is measured.
+        provider.relayoutWidget(mContext, mPrefs, wm, INVALID_APPWIDGET_ID);
+
+        final Iteration[] iterations = new Iteration[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long allocatedBefore = getAllocatedBytes();
+            final long start = System.nanoTime();
+            final RemoteViews rv = provider.relayoutWidget(mContext, mPrefs, wm, INVALID_APPWIDGET_ID);
+            final long timeUs = (System.nanoTime() - start) / 1000;
+            final long allocatedBytes = getAllocatedBytes() - allocatedBefore;
+            iterations[i] = new Iteration(timeUs, 0, allocatedBytes, getParcelSize(rv));
+        }
+
+        return Result.of(iterations);
+    }
+
+    /**
+     * Records the result of a case and checks the iterations of the case against each other.
+     */
+    private void checkCase(String name, Result result) {
+        mResults.setProperty(name + ".timeUs", String.valueOf(result.timeUs()));
+        mResults.setProperty(name + ".measurePasses", String.valueOf(result.measurePasses()));
+        mResults.setProperty(name + ".allocatedBytes", String.valueOf(result.allocatedBytes()));
+        mResults.setProperty(name + ".parcelBytes", String.valueOf(result.parcelBytes()));
+
+        if (result.measurePasses() > MAX_MEASURE_PASSES) {
+            mRegressions.add(String.format(Locale.US, "%s: %d measure passes (limit %d)",
+                name, result.measurePasses(), MAX_MEASURE_PASSES));
+        }
+        if (!result.deterministic()) {
+            mRegressions.add(name + ": the measure passes or the parcel size differ between two identical builds");
+        }
+
+        final long allocationLimit = (long) (result.allocatedBytes() * (1 + ALLOCATION_THRESHOLD)) + ALLOCATION_SLACK_BYTES;
+        if (result.maxAllocatedBytes() > allocationLimit) {
+            mRegressions.add(String.format(Locale.US, "%s: %d bytes allocated by an iteration (median %d, limit %d)",
+                name, result.maxAllocatedBytes(), result.allocatedBytes(), allocationLimit));
+        }
+    }
+
+    /**
+     * Records a regression if the cost of the cities between 2 and 10 cities is higher than 8
+     * times the cost of a single city, measured between 1 and 2 cities.
+     */
+    private void checkLinearity(String name, long oneCity, long twoCities, long tenCities, long slack) {
+        final long perCity = Math.max(0, twoCities - oneCity);
+        final long limit = (long) (8 * perCity * (1 + LINEARITY_THRESHOLD)) + slack;
+        if (tenCities - twoCities > limit) {
+            mRegressions.add(String.format(Locale.US, "%s: %d for 8 more cities (%d per city, limit %d)",
+                name, tenCities - twoCities, perCity, limit));
+        }
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread since it started
+     */
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static int getParcelSize(RemoteViews rv) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            rv.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private void saveResults() throws IOException {
+        RESULTS_FILE.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(RESULTS_FILE)) {
+            mResults.store(out, "Widget benchmark results");
+        }
+    }
+
+    /**
+     * A digital widget provider that counts its offscreen measurement passes.
+     */
+    private interface MeasuringProvider {
+
+        BaseDigitalAppWidgetProvider asProvider();
+
+        String getName();
+
+        int getMeasurePassCount();
+    }
+
+    private static final class MeasuringDigitalProvider extends DigitalAppWidgetProvider implements MeasuringProvider {
+
+        private int mMeasurePassCount;
+
+        @Override
+        protected DigitalWidgetSizes measure(DigitalWidgetSizes template, int widgetFontSize, View sizer,
+                                             SharedPreferences prefs) {
+            mMeasurePassCount++;
+            return super.measure(template, widgetFontSize, sizer, prefs);
+        }
+
+        @Override
+        public BaseDigitalAppWidgetProvider asProvider() {
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            return "DigitalAppWidgetProvider";
+        }
+
+        @Override
+        public int getMeasurePassCount() {
+            return mMeasurePassCount;
+        }
+    }
+
+    private static final class MeasuringNextAlarmProvider extends NextAlarmAppWidgetProvider implements MeasuringProvider {
+
+        private int mMeasurePassCount;
+
+        @Override
+        protected DigitalWidgetSizes measure(DigitalWidgetSizes template, int widgetFontSize, View sizer,
+                                             SharedPreferences prefs) {
+            mMeasurePassCount++;
+            return super.measure(template, widgetFontSize, sizer, prefs);
+        }
+
+        @Override
+        public BaseDigitalAppWidgetProvider asProvider() {
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            return "NextAlarmAppWidgetProvider";
+        }
+
+        @Override
+        public int getMeasurePassCount() {
+            return mMeasurePassCount;
+        }
+    }
+
+    private static final class MeasuringVerticalProvider extends VerticalAppWidgetProvider implements MeasuringProvider {
+
+        private int mMeasurePassCount;
+
+        @Override
+        protected DigitalWidgetSizes measure(DigitalWidgetSizes template, int widgetFontSize, View sizer,
+                                             SharedPreferences prefs) {
+            mMeasurePassCount++;
+            return super.measure(template, widgetFontSize, sizer, prefs);
+        }
+
+        @Override
+        public BaseDigitalAppWidgetProvider asProvider() {
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            return "VerticalAppWidgetProvider";
+        }
+
+        @Override
+        public int getMeasurePassCount() {
+            return mMeasurePassCount;
+        }
+    }
+
+    /**
+     * The measurements of a single build of a widget.
+     */
+    private record Iteration(long timeUs, int measurePasses, long allocatedBytes, int parcelBytes) {
+    }
+
+    /**
+     * The measurements of a benchmark case: the medians of its iterations, the highest allocation
+     * and whether all the iterations gave the same measure passes and parcel size.
+     */
+    private record Result(long timeUs, int measurePasses, long allocatedBytes, int parcelBytes,
+                          long maxAllocatedBytes, boolean deterministic) {
+
+        static Result of(Iteration[] iterations) {
+            final long[] times = new long[iterations.length];
+            final long[] allocations = new long[iterations.length];
+            boolean deterministic = true;
+            for (int i = 0; i < iterations.length; i++) {
+                times[i] = iterations[i].timeUs();
+                allocations[i] = iterations[i].allocatedBytes();
+                deterministic &= iterations[i].measurePasses() == iterations[0].measurePasses()
+                    && iterations[i].parcelBytes() == iterations[0].parcelBytes();
+            }
+            Arrays.sort(times);
+            Arrays.sort(allocations);
+
+            return new Result(times[times.length / 2], iterations[0].measurePasses(),
+                allocations[allocations.length / 2], iterations[0].parcelBytes(),
+                allocations[allocations.length - 1], deterministic);
+        }
+    }
+}